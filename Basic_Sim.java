@@ -21,6 +21,8 @@ import org.opensourcephysics.frames.PlotFrame;
  * 	Toggles start/stop. 
  * @method add_particles 
  * 	Adds all particles to simulation. 
+ * @method toggle_integrator 
+ * 	Switches between stepping each particle and the Wisdom-Holman map (WisdomHolman). 
  * @method clear_trails 
  * 	Clears trails on screen (can slow down sim). 
  * @method pastel 
@@ -97,6 +99,9 @@ public class Basic_Sim implements Runnable {
 	static boolean proving_two = true;
 	static boolean proving_three = true; 
 
+	static BodyArrays arrays = new BodyArrays(); //primitive copy of bodies for the Wisdom-Holman map 
+	static WisdomHolman wh = null; //Wisdom-Holman integrator (null = each particle steps itself) 
+
 	/* (non-Javadoc)
 	 * @see java.lang.Runnable#run()
 	 * 
@@ -114,7 +119,8 @@ public class Basic_Sim implements Runnable {
 			//law_one.tick = 500; 
 			frame.setTitle("RUNNING");
 
-			calculate_accelerations();
+			if(wh == null)
+				calculate_accelerations(); //the Wisdom-Holman map works out its own 
 			move_bodies();
 
 			tick++; 
@@ -135,6 +141,15 @@ public class Basic_Sim implements Runnable {
 		frame.repaint();
 	}
 
+	/**
+	 * Method for button on DisplayFrame: switches between stepping each particle on its own and the 
+	 * Wisdom-Holman map around the Sun (held still while Kepler's laws are being proven). 
+	 */
+	public void toggle_integrator(){
+		wh = wh == null ? new WisdomHolman(GravitySolver.best()) : null; 
+		System.out.println("Integrator: " + (wh == null ? "particle steps" : wh)); 
+	}
+
 	/**
 	 * Method for button on DisplayFrame: stop/start simulation. 
 	 */
@@ -222,6 +237,7 @@ public class Basic_Sim implements Runnable {
 		frame.addButton("stop", "Stop/Start", "Stop or Start Simulation", orbit);
 		frame.addButton("clear_trails", "Clear Trails", "Clear Trail Points", orbit);
 		frame.addButton("toggle_trails", "Toggle Trails", "Turn trails on or off.", orbit);
+		frame.addButton("toggle_integrator", "Integrator", "Switch between particle steps and the Wisdom-Holman map.", orbit);
 		frame.setSize(FRAME_DIMENSIONS[0], FRAME_DIMENSIONS[1]);
 		orbit.setup(); 
 		//initialize the particles 
@@ -275,15 +291,32 @@ public class Basic_Sim implements Runnable {
 					bodies.get(ii).bump = null; //no recent crash 
 			}
 		}
+		if(wh != null){
+			wh.fixedCentral = proving_one || proving_two || proving_three; //Sun held still, as below 
+			step_symplectic(); 
+		}
 		for (int ii = 0; ii < bodies.size(); ii++) {
-			if(ii == 0 && (proving_one || proving_two || proving_three)) 
-				bodies.get(ii).Step(frame, true, false); // not 2d simulated, step on frame 
+			if(wh != null || ii == 0 && (proving_one || proving_two || proving_three)) 
+				bodies.get(ii).Step(frame, true, false); // not 2d simulated, step on frame (already moved by wh) 
 			else 
 				bodies.get(ii).Step(frame, true, true); // not 2d simulated, step on frame 
 			frame.addDrawable(bodies.get(ii)); 
 		}
 	}
 
+	/**
+	 * Moves all the particles one time step (pTime) with the Wisdom-Holman map. 
+	 */
+	private static void step_symplectic() {
+		arrays.load(bodies); 
+		wh.step(arrays, pTime, G); 
+		arrays.storePositions(bodies); 
+		for (Particle p : bodies) {
+			p.time += pTime; 
+			p.cTime += pTime; 
+		}
+	}
+
 	/**
 	 * Checks if a collision has occurred between 2 particles. 
 	 * 
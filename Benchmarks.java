@@ -0,0 +1,367 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import riemann_sum.GaussLegendreRule;
+import riemann_sum.HornerPoly;
+import riemann_sum.MidpointRule;
+import riemann_sum.Riemann;
+import riemann_sum.SimpsonsRule;
+
+/**
+ * Benchmarks of the hot paths of the simulations, run the way JMH runs them: each case is warmed up for
+ * WARMUPS iterations (so the JIT has compiled it), then timed for ITERATIONS iterations of at least
+ * ITERATION_TIME each, and reported as the mean time per operation with a 99.9% error bar. Every result is
+ * passed to a sink the JIT cannot see through, so no work is optimized away.
+ *
+ * The cases are
+ * 	force:      a force pass of Gen_Sim (load, solver, store) with the direct, octree, fmm and mesh solvers
+ * 	            for 100 to 100,000 bodies,
+ * 	move:       one time step of 1,000 particles with Euler and with the Riemann (newPos) update,
+ * 	collisions: Gen_Sim's all-pairs scan with the real collision check,
+ * 	io:         saving bodies (SimulationState.saveState, ParticleWriter) and reading them back (ParticleReader),
+ * 	riemann:    Riemann sums of a degree 5 HornerPoly with the midpoint, Simpson and Gauss-Legendre rules.
+ * The bodies are a disk around a sun made from a fixed seed, so every run (and every machine) times the same
+ * scenario.
+ *
+ * Run with
+ * 	java --add-modules jdk.incubator.vector Benchmarks [filter] [-quick] [-save file] [-compare file]
+ * where filter keeps the cases whose name contains it, -quick runs fewer and shorter iterations and skips
+ * 100,000 bodies, -save writes the results to a file, and -compare prints them next to a saved file's and
+ * exits with status 1 if a case got more than REGRESSION slower (beyond the error bars), so a change can be
+ * checked against the results from before it.
+ *
+ * @method main
+ * 	Runs the benchmarks.
+ * @method disk
+ * 	Bodies of a benchmark scenario.
+ * @method measure
+ * 	Times one case.
+ *
+ * @author Andrew M.
+ */
+public class Benchmarks {
+	static final int WARMUPS = 3; //iterations before timing
+	static final int ITERATIONS = 5; //timed iterations
+	static final long ITERATION_TIME = 1000000000L; //ns, least time of an iteration
+	static final double REGRESSION = 0.10; //slowdown that fails a comparison
+	static final double Z_999 = 3.29; //99.9% of a normal distribution is within this many standard deviations
+
+	static final long SEED = 20131; //seed of every scenario
+	static final double SUN_MASS = 1.98892E30; //kg
+	static final double AU = 1.5E11; //m
+	static final double G = 6.67384E-11;
+	static final double DT = 3600; //s
+
+	static volatile double sink; //results go here so that they are not optimized away
+
+	/**
+	 * One benchmark: setup is not timed, run is one operation.
+	 */
+	static abstract class Case {
+		final String name;
+
+		Case(String name){
+			this.name = name;
+		}
+
+		void setup() throws IOException {
+		}
+
+		abstract double run() throws IOException;
+	}
+
+	/**
+	 * Time per operation of a case.
+	 */
+	static class Result {
+		final String name;
+		final double mean, error; //ns/op
+
+		Result(String name, double mean, double error){
+			this.name = name;
+			this.mean = mean;
+			this.error = error;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		String filter = "", save = null, compare = null;
+		boolean quick = false;
+		for (int ii = 0; ii < args.length; ii++) {
+			if(args[ii].equals("-quick"))
+				quick = true;
+			else if(args[ii].equals("-save"))
+				save = args[++ii];
+			else if(args[ii].equals("-compare"))
+				compare = args[++ii];
+			else
+				filter = args[ii];
+		}
+
+		List<Result> results = new ArrayList<Result>();
+		System.out.println(String.format("%-34s %14s %12s", "benchmark", "us/op", "error"));
+		for (Case c : cases(quick)) {
+			if(!c.name.contains(filter))
+				continue;
+			Result r = measure(c, quick ? 1 : WARMUPS, quick ? 3 : ITERATIONS, quick ? ITERATION_TIME/4 : ITERATION_TIME);
+			System.out.println(String.format("%-34s %14.3f %12.3f", r.name, r.mean/1E3, r.error/1E3));
+			results.add(r);
+		}
+
+		if(save != null){
+			StringBuilder str = new StringBuilder();
+			for (Result r : results)
+				str.append(r.name + ", " + r.mean + ", " + r.error + "\n");
+			new ParticleWriter(save, true).writeNew(str.toString());
+		}
+		if(compare != null && !compare(results, compare))
+			System.exit(1);
+	}
+
+	/**
+	 * Every benchmark case.
+	 */
+	static List<Case> cases(boolean quick){
+		List<Case> cases = new ArrayList<Case>();
+		int[] sizes = quick ? new int[] { 100, 1000, 10000 } : new int[] { 100, 1000, 10000, 100000 };
+		for (String solver : new String[] { "direct", "octree", "fmm", "mesh" })
+			for (int n : sizes)
+				cases.add(force(solver, n));
+		cases.add(move(false));
+		cases.add(move(true));
+		for (int n : new int[] { 100, 1000, 10000 })
+			cases.add(collisions(n));
+		for (int n : new int[] { 100, 1000 })
+			cases.add(io(n));
+		cases.add(riemann("midpoint", new MidpointRule()));
+		cases.add(riemann("simpson", new SimpsonsRule()));
+		cases.add(riemann("gauss-legendre", new GaussLegendreRule()));
+		return cases;
+	}
+
+	/**
+	 * A force pass as Gen_Sim's calculate_accelerations does it.
+	 */
+	static Case force(final String solverName, final int n){
+		return new Case("force " + solverName + " n=" + n) {
+			ArrayList<Particle> bodies;
+			BodyArrays arrays;
+			GravitySolver solver;
+
+			void setup(){
+				bodies = disk(n, SEED);
+				arrays = new BodyArrays();
+				solver = GravitySolver.fromText(solverName);
+			}
+
+			double run(){
+				arrays.load(bodies);
+				solver.accelerations(arrays, G);
+				arrays.storeAccelerations(bodies, 0);
+				return bodies.get(n - 1).acc_x;
+			}
+		};
+	}
+
+	/**
+	 * One time step of every particle (the integration half of Particle.Step; the trail half only adds
+	 * points, which would pile up over millions of steps).
+	 */
+	static Case move(final boolean riemann){
+		return new Case("move " + (riemann ? "riemann" : "euler") + " n=1000") {
+			ArrayList<Particle> bodies;
+
+			void setup(){
+				bodies = disk(1000, SEED);
+				for (Particle p : bodies)
+					p.useRiemann = riemann;
+			}
+
+			double run(){
+				for (int ii = 0; ii < bodies.size(); ii++)
+					bodies.get(ii).move();
+				return bodies.get(1).x_pos;
+			}
+		};
+	}
+
+	/**
+	 * Gen_Sim's collision scan: every ordered pair with the real (distance) check.
+	 */
+	static Case collisions(final int n){
+		return new Case("collisions all-pairs n=" + n) {
+			ArrayList<Particle> bodies;
+
+			void setup(){
+				bodies = disk(n, SEED);
+			}
+
+			double run(){
+				int hits = 0;
+				for (int ii = 0; ii < bodies.size(); ii++)
+					for (int jj = 0; jj < bodies.size(); jj++)
+						if(ii != jj && Gen_Sim.touching(bodies.get(ii), bodies.get(jj)))
+							hits++;
+				return hits;
+			}
+		};
+	}
+
+	/**
+	 * Saving bodies to a file and loading them again. ParticleReader prints a line per particle; that
+	 * goes to a stream that drops it, so the terminal is not what gets timed.
+	 */
+	static Case io(final int n){
+		return new Case("io save+load n=" + n) {
+			ArrayList<Particle> bodies;
+			String path;
+			final PrintStream none = new PrintStream(new OutputStream() {
+				public void write(int b){
+				}
+			});
+
+			void setup() throws IOException {
+				bodies = disk(n, SEED);
+				File file = Files.createTempFile("bench", ".orb").toFile();
+				file.deleteOnExit();
+				path = file.getPath();
+			}
+
+			double run() throws IOException {
+				new ParticleWriter(path, true).writeNew(SimulationState.saveState(bodies, DT, G));
+				PrintStream out = System.out;
+				System.setOut(none);
+				try {
+					return new ParticleReader(path).particles.size();
+				}
+				finally {
+					System.setOut(out);
+				}
+			}
+		};
+	}
+
+	/**
+	 * A Riemann sum with 100,000 subintervals.
+	 */
+	static Case riemann(String ruleName, final Riemann rule){
+		return new Case("riemann " + ruleName) {
+			HornerPoly poly;
+
+			void setup(){
+				Random rand = new Random(SEED);
+				double[] coef = new double[6];
+				for (int ii = 0; ii < coef.length; ii++)
+					coef[ii] = rand.nextDouble()*2 - 1;
+				poly = new HornerPoly(coef);
+			}
+
+			double run(){
+				return rule.rs(poly, -2, 3, 100000);
+			}
+		};
+	}
+
+	/**
+	 * Bodies of a benchmark scenario: a sun at the center and n - 1 bodies on circular orbits between
+	 * 0.3 and 3 AU, with masses between an asteroid's and the Earth's and a radius of 1000 km.
+	 *
+	 * @param n
+	 * 	Number of bodies.
+	 * @param seed
+	 * 	Seed of the random positions and masses.
+	 * @return
+	 * 	The same bodies for the same n and seed.
+	 */
+	public static ArrayList<Particle> disk(int n, long seed){
+		Random rand = new Random(seed);
+		ArrayList<Particle> bodies = new ArrayList<Particle>();
+		Particle sun = new Particle();
+		sun.init(0, 0, 0, 0, 0, 0, SUN_MASS, DT, 0);
+		sun.real_name = "Sun";
+		sun.actual_r = 6.96E8;
+		bodies.add(sun);
+		for (int ii = 1; ii < n; ii++) {
+			double r = (0.3 + 2.7*rand.nextDouble())*AU;
+			double theta = 2*Math.PI*rand.nextDouble();
+			double v = Math.sqrt(G*SUN_MASS/r);
+			Particle p = new Particle();
+			p.init(r*Math.cos(theta), r*Math.sin(theta), -v*Math.sin(theta), v*Math.cos(theta), 0, 0,
+					Math.pow(10, 18 + 7*rand.nextDouble()), DT, 0);
+			p.real_name = "Body " + ii;
+			p.actual_r = 1E6;
+			bodies.add(p);
+		}
+		return bodies;
+	}
+
+	/**
+	 * Times one case: warmups iterations, then the timed ones. Each iteration runs the case until at
+	 * least iterationTime has passed.
+	 *
+	 * @return
+	 * 	Mean time per operation of the timed iterations, with a 99.9% error bar.
+	 */
+	static Result measure(Case c, int warmups, int iterations, long iterationTime) throws IOException {
+		c.setup();
+		double[] perOp = new double[iterations];
+		for (int it = -warmups; it < iterations; it++) {
+			long ops = 0, start = System.nanoTime(), elapsed;
+			double acc = 0;
+			do {
+				acc += c.run();
+				ops++;
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < iterationTime);
+			sink = acc;
+			if(it >= 0)
+				perOp[it] = (double) elapsed/ops;
+		}
+		double mean = 0, var = 0;
+		for (double t : perOp)
+			mean += t/iterations;
+		for (double t : perOp)
+			var += (t - mean)*(t - mean)/Math.max(iterations - 1, 1);
+		return new Result(c.name, mean, Z_999*Math.sqrt(var/iterations));
+	}
+
+	/**
+	 * Prints results next to saved ones.
+	 *
+	 * @return
+	 * 	False if a case is more than REGRESSION slower than before and the difference is beyond the error bars.
+	 */
+	static boolean compare(List<Result> results, String path) throws IOException {
+		Map<String, double[]> before = new LinkedHashMap<String, double[]>();
+		if(!new File(path).exists()){
+			System.out.println("No results in " + path);
+			return true;
+		}
+		for (String line : Files.readAllLines(new File(path).toPath())) {
+			String[] data = line.split(", ");
+			if(data.length == 3)
+				before.put(data[0], new double[] { Double.parseDouble(data[1]), Double.parseDouble(data[2]) });
+		}
+		boolean ok = true;
+		System.out.println(String.format("%n%-34s %14s %14s %9s", "benchmark", "before us/op", "now us/op", "change"));
+		for (Result r : results) {
+			double[] old = before.get(r.name);
+			if(old == null)
+				continue;
+			double change = r.mean/old[0] - 1;
+			boolean slower = change > REGRESSION && r.mean - r.error > old[0] + old[1];
+			ok &= !slower;
+			System.out.println(String.format("%-34s %14.3f %14.3f %+8.1f%%%s", r.name, old[0]/1E3, r.mean/1E3,
+					100*change, slower ? "  SLOWER" : ""));
+		}
+		return ok;
+	}
+}
@@ -0,0 +1,347 @@
+import java.util.List;
+
+/**
+ * Finds tight binaries (two bodies on a bound orbit around each other that takes only a few global time steps)
+ * and moves them with a regularized two-body step, so that the global time step can stay large. Stepped like
+ * any other body, such a pair gains energy every orbit and flies apart (or the step has to be made tiny for
+ * everyone); here the pair's center of mass takes the ordinary step and the orbit of one body around the other
+ * is integrated in many small regularized steps inside it.
+ *
+ * The regularization is Kustaanheimo-Stiefel in its plane (two dimensional) form, the Levi-Civita transform:
+ * the separation x + iy is written as u^2 for a complex u, and time as dt = r ds. The Kepler problem then turns
+ * into a harmonic oscillator
+ * 	u'' = (h/2) u + (r/2) conj(u) P,	h' = 2 Re(conj(u u') P),	t' = r
+ * (' = d/ds, h is the energy of the relative orbit per unit reduced mass and P is the pull of every other body
+ * on the pair, as a relative acceleration), which has no singularity when the bodies get close. Steps of equal
+ * size in s are short in time near pericenter and long near apocenter, exactly as needed, so any eccentricity
+ * takes the same STEPS_PER_ORBIT steps per orbit (RK4). P is taken from the global force pass (minus the pair's
+ * own pull) and held for the step.
+ *
+ * A pair that goes around more than MAX_ORBITS times in one step (or would need more than MAX_SUBSTEPS
+ * regularized steps) is not integrated orbit by orbit: its relative orbit is moved along exactly by KeplerSolver,
+ * between two half kicks from the outside pull (as in WisdomHolman), so the cost of a step does not grow with
+ * the number of orbits in it.
+ *
+ * A pair is regularized when the two bodies are each other's tightest bound partner, their orbit takes fewer than
+ * CLOSE_STEPS global steps, and the outside pull is weak compared to their own (MAX_PERTURBATION). Pairs are found
+ * again every step (bodies are swept in x order, so this is O(N log N)) and come apart when these no longer hold.
+ *
+ * see:
+ * 	http://en.wikipedia.org/wiki/Kustaanheimo%E2%80%93Stiefel_transformation
+ * 	Stiefel and Scheifele, Linear and Regular Celestial Mechanics (1971)
+ *
+ * @method find
+ * 	Finds the binaries among a list of bodies and marks them (Particle.partner).
+ * @method step
+ * 	Moves every binary one time step.
+ * @method count
+ * 	Number of binaries found.
+ *
+ * @author Andrew M.
+ */
+public class BinaryRegularizer {
+	final static double CLOSE_STEPS = 200; //orbits shorter than this many global steps are regularized
+	final static double MAX_PERTURBATION = 0.5; //largest outside pull, relative to the pair's own, of a binary
+	final static int STEPS_PER_ORBIT = 64; //regularized steps per orbit
+	final static int MAX_SUBSTEPS = 1000000; //per binary per step
+	final static double MAX_ORBITS = 16; //orbits in a step beyond which the relative orbit is moved analytically
+
+	private Particle[] pairs = new Particle[0]; //two per binary
+	private int binaries = 0;
+
+	//work arrays for find (kept between steps)
+	private double[] xs = new double[0]; //x positions
+	private int[] order = new int[0]; //bodies sorted by x
+	private int[] best = new int[0]; //tightest bound partner of each body
+	private double[] bestPeriod = new double[0]; //its orbital period
+
+	//regularized state of the binary being moved: u, u' = w, h and t
+	private double[] s = new double[6], k1 = new double[6], k2 = new double[6], k3 = new double[6], k4 = new double[6], tmp = new double[6];
+	private double px, py; //outside pull
+	private double rx, ry, rvx, rvy; //relative position and velocity after drift
+	private KeplerSolver kepler = new KeplerSolver(); //relative orbit of pairs too fast to regularize step by step
+
+	/**
+	 * Finds the binaries among a list of bodies. Accelerations must already be worked out (they give the outside
+	 * pull on each pair). Members of a binary get their partner set, everyone else's is cleared.
+	 *
+	 * @param list
+	 * 	Bodies.
+	 * @param G
+	 * 	Gravitational constant.
+	 * @return
+	 * 	Number of binaries.
+	 */
+	public int find(List<? extends Particle> list, double G){
+		int n = list.size();
+		binaries = 0;
+		if(xs.length < n){
+			xs = new double[n];
+			best = new int[n];
+			bestPeriod = new double[n];
+		}
+		double maxMass = 0, maxStep = 0;
+		for (int ii = 0; ii < n; ii++) {
+			Particle p = list.get(ii);
+			p.partner = null;
+			xs[ii] = p.x_pos;
+			best[ii] = -1;
+			bestPeriod[ii] = Double.POSITIVE_INFINITY;
+			maxMass = Math.max(maxMass, p.mass);
+			maxStep = Math.max(maxStep, Math.abs(p.deltaT));
+		}
+		if(n < 2 || maxMass <= 0)
+			return 0;
+		if(order.length != n){
+			order = new int[n];
+			for (int ii = 0; ii < n; ii++)
+				order[ii] = ii;
+		}
+		for (int ii = 1; ii < n; ii++) { //insertion sort by x (quick, the order hardly changes between steps)
+			int body = order[ii];
+			int jj = ii - 1;
+			while(jj >= 0 && xs[order[jj]] > xs[body]){
+				order[jj + 1] = order[jj];
+				jj--;
+			}
+			order[jj + 1] = body;
+		}
+
+		//a bound orbit of period T has semi-major axis (mu*(T/2pi)^2)^(1/3), and the bodies are never more than twice that apart
+		double longest = CLOSE_STEPS*maxStep/(2*Math.PI);
+		double reach = 2*Math.cbrt(G*2*maxMass*longest*longest);
+		for (int ii = 0; ii < n; ii++) {
+			int a = order[ii];
+			Particle pa = list.get(a);
+			for (int jj = ii + 1; jj < n && xs[order[jj]] - xs[a] <= reach; jj++) {
+				int b = order[jj];
+				Particle pb = list.get(b);
+				double period = period(pa, pb, G);
+				if(period >= CLOSE_STEPS*Math.min(Math.abs(pa.deltaT), Math.abs(pb.deltaT)))
+					continue;
+				if(period < bestPeriod[a]){
+					bestPeriod[a] = period;
+					best[a] = b;
+				}
+				if(period < bestPeriod[b]){
+					bestPeriod[b] = period;
+					best[b] = a;
+				}
+			}
+		}
+
+		for (int a = 0; a < n; a++) {
+			int b = best[a];
+			if(b < a || best[b] != a) //each pair once, and only when they are each other's tightest partner
+				continue;
+			Particle p1 = list.get(a), p2 = list.get(b);
+			double dx = p2.x_pos - p1.x_pos, dy = p2.y_pos - p1.y_pos;
+			double r2 = dx*dx + dy*dy;
+			double mu = G*(p1.mass + p2.mass);
+			pull(p1, p2, dx, dy, mu);
+			if(Math.sqrt(px*px + py*py)*r2/mu > MAX_PERTURBATION) //really a three body encounter
+				continue;
+			if(2*binaries + 2 > pairs.length)
+				pairs = java.util.Arrays.copyOf(pairs, Math.max(16, 2*pairs.length));
+			pairs[2*binaries] = p1;
+			pairs[2*binaries + 1] = p2;
+			p1.partner = p2;
+			p2.partner = p1;
+			binaries++;
+		}
+		return binaries;
+	}
+
+	/**
+	 * Period of the orbit of two bodies around each other (infinite if they are not bound).
+	 */
+	private static double period(Particle a, Particle b, double G){
+		double dx = b.x_pos - a.x_pos, dy = b.y_pos - a.y_pos;
+		double dvx = b.v_x - a.v_x, dvy = b.v_y - a.v_y;
+		double r = Math.sqrt(dx*dx + dy*dy);
+		double mu = G*(a.mass + b.mass);
+		if(r == 0 || mu <= 0)
+			return Double.POSITIVE_INFINITY;
+		double energy = (dvx*dvx + dvy*dvy)/2 - mu/r;
+		if(energy >= 0)
+			return Double.POSITIVE_INFINITY;
+		double axis = -mu/(2*energy);
+		return 2*Math.PI*Math.sqrt(axis*axis*axis/mu);
+	}
+
+	/**
+	 * Outside pull on a pair (relative acceleration of p2 from p1 minus their pull on each other) into px, py.
+	 */
+	private void pull(Particle p1, Particle p2, double dx, double dy, double mu){
+		double r2 = dx*dx + dy*dy;
+		double inv3 = 1/(r2*Math.sqrt(r2));
+		px = p2.acc_x - p1.acc_x + mu*dx*inv3;
+		py = p2.acc_y - p1.acc_y + mu*dy*inv3;
+	}
+
+	/**
+	 * Moves every binary found by find one time step (the deltaT of its members): the center of mass as the
+	 * other bodies are stepped, the orbit around it regularized. Positions, velocities, accelerations and clocks
+	 * are updated; the members still need a Step(frame, simulated, false) to be drawn.
+	 *
+	 * @param G
+	 * 	Gravitational constant.
+	 */
+	public void step(double G){
+		for (int k = 0; k < binaries; k++) {
+			Particle p1 = pairs[2*k], p2 = pairs[2*k + 1];
+			double dt = Math.min(p1.deltaT, p2.deltaT);
+			double m1 = p1.mass, m2 = p2.mass, total = m1 + m2;
+			double mu = G*total;
+
+			//center of mass: same step as Particle.Step
+			double acx = (m1*p1.acc_x + m2*p2.acc_x)/total, acy = (m1*p1.acc_y + m2*p2.acc_y)/total;
+			double vcx = (m1*p1.v_x + m2*p2.v_x)/total + acx*dt, vcy = (m1*p1.v_y + m2*p2.v_y)/total + acy*dt;
+			double xc = (m1*p1.x_pos + m2*p2.x_pos)/total + vcx*dt, yc = (m1*p1.y_pos + m2*p2.y_pos)/total + vcy*dt;
+
+			double dx = p2.x_pos - p1.x_pos, dy = p2.y_pos - p1.y_pos;
+			pull(p1, p2, dx, dy, mu);
+			drift(dx, dy, p2.v_x - p1.v_x, p2.v_y - p1.v_y, mu, dt);
+
+			double r2 = rx*rx + ry*ry;
+			double inv3 = 1/(r2*Math.sqrt(r2));
+			double arx = px - mu*rx*inv3, ary = py - mu*ry*inv3; //relative acceleration now
+			set(p1, xc - m2/total*rx, yc - m2/total*ry, vcx - m2/total*rvx, vcy - m2/total*rvy, acx - m2/total*arx, acy - m2/total*ary, dt);
+			set(p2, xc + m1/total*rx, yc + m1/total*ry, vcx + m1/total*rvx, vcy + m1/total*rvy, acx + m1/total*arx, acy + m1/total*ary, dt);
+		}
+	}
+
+	private static void set(Particle p, double x, double y, double vx, double vy, double ax, double ay, double dt){
+		p.prev.x = p.x_pos;
+		p.prev.y = p.y_pos;
+		p.x_pos = x;
+		p.y_pos = y;
+		p.v_x = vx;
+		p.v_y = vy;
+		p.acc_x = ax;
+		p.acc_y = ay;
+		p.setXY(x, y);
+		p.time += dt;
+		p.cTime += dt;
+	}
+
+	/**
+	 * Moves a relative position and velocity along its orbit (with the outside pull in px, py) for a time dt,
+	 * in Levi-Civita variables, into rx, ry, rvx, rvy.
+	 */
+	private void drift(double x, double y, double vx, double vy, double mu, double dt){
+		double r = Math.sqrt(x*x + y*y);
+		if(r == 0 || dt == 0){
+			rx = x + vx*dt;
+			ry = y + vy*dt;
+			rvx = vx;
+			rvy = vy;
+			return;
+		}
+		//u^2 = x + iy (the root with u1 >= 0, or u2 >= 0 near the negative x axis)
+		double u1, u2;
+		if(x >= 0){
+			u1 = Math.sqrt((r + x)/2);
+			u2 = y/(2*u1);
+		}
+		else {
+			u2 = Math.copySign(Math.sqrt((r - x)/2), y);
+			u1 = y/(2*u2);
+		}
+		s[0] = u1;
+		s[1] = u2;
+		s[2] = (u1*vx + u2*vy)/2; //u' = conj(u)*v/2
+		s[3] = (u1*vy - u2*vx)/2;
+		s[4] = (vx*vx + vy*vy)/2 - mu/r; //h
+		s[5] = 0; //t
+		if(s[4] < 0 && Math.abs(dt)*Math.pow(-2*s[4], 1.5)/(2*Math.PI*mu) > MAX_ORBITS){ //dt/period
+			kepler(x, y, vx, vy, mu, dt);
+			return;
+		}
+
+		int steps = 0;
+		while(true){
+			r = s[0]*s[0] + s[1]*s[1];
+			double h = s[4];
+			double ds = h < 0 ? Math.PI/(Math.sqrt(-h/2)*STEPS_PER_ORBIT) : 2*Math.PI*Math.sqrt(r/mu)/STEPS_PER_ORBIT;
+			if(Math.abs(s[5] + r*ds) >= Math.abs(dt))
+				break;
+			if(steps++ == MAX_SUBSTEPS){ //the landing step below would cover the rest at once
+				kepler(x, y, vx, vy, mu, dt);
+				return;
+			}
+			rk4(Math.copySign(ds, dt));
+		}
+		for (int ii = 0; ii < 4; ii++) //land on dt (t' = r, so this is Newton's method on t(s) = dt)
+			rk4((dt - s[5])/(s[0]*s[0] + s[1]*s[1]));
+
+		u1 = s[0];
+		u2 = s[1];
+		double w1 = s[2], w2 = s[3];
+		r = u1*u1 + u2*u2;
+		rx = u1*u1 - u2*u2;
+		ry = 2*u1*u2;
+		rvx = 2*(w1*u1 - w2*u2)/r; //v = 2u'/conj(u) = 2u'u/r
+		rvy = 2*(w1*u2 + w2*u1)/r;
+	}
+
+	/**
+	 * Moves a relative position and velocity for a time dt along its Kepler orbit, between two half kicks from
+	 * the outside pull, into rx, ry, rvx, rvy.
+	 */
+	private void kepler(double x, double y, double vx, double vy, double mu, double dt){
+		kepler.x = x;
+		kepler.y = y;
+		kepler.z = 0;
+		kepler.vx = vx + px*dt/2;
+		kepler.vy = vy + py*dt/2;
+		kepler.vz = 0;
+		kepler.drift(mu, dt);
+		rx = kepler.x;
+		ry = kepler.y;
+		rvx = kepler.vx + px*dt/2;
+		rvy = kepler.vy + py*dt/2;
+	}
+
+	/**
+	 * One RK4 step of size ds in s.
+	 */
+	private void rk4(double ds){
+		derivative(s, k1);
+		for (int ii = 0; ii < 6; ii++)
+			tmp[ii] = s[ii] + ds/2*k1[ii];
+		derivative(tmp, k2);
+		for (int ii = 0; ii < 6; ii++)
+			tmp[ii] = s[ii] + ds/2*k2[ii];
+		derivative(tmp, k3);
+		for (int ii = 0; ii < 6; ii++)
+			tmp[ii] = s[ii] + ds*k3[ii];
+		derivative(tmp, k4);
+		for (int ii = 0; ii < 6; ii++)
+			s[ii] += ds/6*(k1[ii] + 2*k2[ii] + 2*k3[ii] + k4[ii]);
+	}
+
+	/**
+	 * Derivatives with respect to s of (u1, u2, w1, w2, h, t).
+	 */
+	private void derivative(double[] y, double[] d){
+		double u1 = y[0], u2 = y[1], w1 = y[2], w2 = y[3], h = y[4];
+		double r = u1*u1 + u2*u2;
+		d[0] = w1;
+		d[1] = w2;
+		d[2] = h/2*u1 + r/2*(u1*px + u2*py); //(h/2) u + (r/2) conj(u) P
+		d[3] = h/2*u2 + r/2*(u1*py - u2*px);
+		d[4] = 2*((u1*w1 - u2*w2)*px + (u1*w2 + u2*w1)*py); //2 Re(conj(u w) P)
+		d[5] = r;
+	}
+
+	/**
+	 * Number of binaries found by the last find.
+	 *
+	 * @return
+	 * 	Binaries.
+	 */
+	public int count(){
+		return binaries;
+	}
+}
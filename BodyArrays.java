@@ -0,0 +1,172 @@
+import java.util.List;
+
+/**
+ * Holds the state of a group of particles in primitive arrays (one array per quantity) so force
+ * kernels can loop over plain doubles instead of chasing Particle objects. The arrays are reused
+ * between steps and only grow, so loading the bodies every step does not allocate.
+ *
+ * Typical use in a simulation step:
+ * 	clear() and add() the bodies, run a GravitySolver, then storeAccelerations() back into the particles.
+ * With potential set, solvers whose potentials() is true also fill in pot (for EnergyMonitor).
+ *
+ * @method clear
+ * 	Empties the arrays (keeps their capacity).
+ * @method add
+ * 	Appends a list of particles and returns the index of the first one.
+ * @method load
+ * 	Clears the arrays and adds a list of particles.
+ * @method loadMasses
+ * 	Clears the arrays and adds the masses of a spring (ForceSpringApp).
+ * @method storeAccelerations
+ * 	Copies computed accelerations back into particles.
+ * @method storePositions
+ * 	Copies positions, velocities and accelerations back into particles (after an integrator has moved them).
+ *
+ * @author Andrew M.
+ */
+public class BodyArrays {
+	public double[] x = new double[0]; //x positions
+	public double[] y = new double[0]; //y positions
+	public double[] vx = new double[0]; //x velocities
+	public double[] vy = new double[0]; //y velocities
+	public double[] m = new double[0]; //masses
+	public double[] q = new double[0]; //charges
+	public double[] alpha = new double[0]; //air resistance coefficients
+	public double[] ax = new double[0]; //x accelerations (output of solvers)
+	public double[] ay = new double[0]; //y accelerations (output of solvers)
+	public double[] pot = new double[0]; //potentials, -G*sum of m_j/r (output of solvers that fill them, see potential)
+	public int n = 0; //number of bodies currently loaded
+	public boolean potential = false; //ask the solver for potentials in the same pass as the accelerations
+
+	/**
+	 * Empties the arrays but keeps their capacity.
+	 */
+	public void clear(){
+		n = 0;
+	}
+
+	/**
+	 * Clears the arrays and loads a list of particles.
+	 *
+	 * @param bodies
+	 * 	Particles to load.
+	 */
+	public void load(List<? extends Particle> bodies){
+		clear();
+		add(bodies);
+	}
+
+	/**
+	 * Appends a list of particles to the arrays.
+	 *
+	 * @param bodies
+	 * 	Particles to add.
+	 * @return
+	 * 	Index of the first added particle.
+	 */
+	public int add(List<? extends Particle> bodies){
+		int start = n;
+		ensureCapacity(n + bodies.size());
+		for (int ii = 0; ii < bodies.size(); ii++) {
+			Particle p = bodies.get(ii);
+			x[n] = p.x_pos;
+			y[n] = p.y_pos;
+			vx[n] = p.v_x;
+			vy[n] = p.v_y;
+			m[n] = p.mass;
+			q[n] = p.charge;
+			alpha[n] = p.alpha;
+			ax[n] = 0;
+			ay[n] = 0;
+			n++;
+		}
+		return start;
+	}
+
+	/**
+	 * Clears the arrays and loads the masses of a spring, in order along it (they have no charge).
+	 *
+	 * @param masses
+	 * 	Masses to load.
+	 */
+	public void loadMasses(List<Mass> masses){
+		clear();
+		ensureCapacity(masses.size());
+		for (int ii = 0; ii < masses.size(); ii++) {
+			Mass p = masses.get(ii);
+			x[n] = p.x_pos;
+			y[n] = p.y_pos;
+			vx[n] = p.v_x;
+			vy[n] = p.v_y;
+			m[n] = p.mass;
+			q[n] = 0;
+			alpha[n] = p.alpha;
+			ax[n] = 0;
+			ay[n] = 0;
+			n++;
+		}
+	}
+
+	/**
+	 * Copies accelerations back into particles.
+	 *
+	 * @param bodies
+	 * 	Particles to set (in the same order they were added).
+	 * @param offset
+	 * 	Index of the first particle in the arrays.
+	 */
+	public void storeAccelerations(List<? extends Particle> bodies, int offset){
+		for (int ii = 0; ii < bodies.size(); ii++) {
+			bodies.get(ii).acc_x = ax[offset + ii];
+			bodies.get(ii).acc_y = ay[offset + ii];
+		}
+	}
+
+	/**
+	 * Copies positions, velocities and accelerations back into particles and puts them there on screen,
+	 * for integrators that move the bodies in the arrays (WisdomHolman, Sim_3D).
+	 *
+	 * @param bodies
+	 * 	Particles to set (in the same order they were added, starting at index 0).
+	 */
+	public void storePositions(List<? extends Particle> bodies){
+		for (int ii = 0; ii < bodies.size(); ii++) {
+			Particle p = bodies.get(ii);
+			p.x_pos = x[ii];
+			p.y_pos = y[ii];
+			p.v_x = vx[ii];
+			p.v_y = vy[ii];
+			p.acc_x = ax[ii];
+			p.acc_y = ay[ii];
+			p.setXY(x[ii], y[ii]);
+		}
+	}
+
+	/**
+	 * Grows the arrays if they cannot hold size bodies (existing data is kept).
+	 *
+	 * @param size
+	 * 	Number of bodies needed.
+	 */
+	public void ensureCapacity(int size){
+		if(x.length >= size)
+			return;
+		int cap = Math.max(size, 2*x.length);
+		x = grow(x, cap);
+		y = grow(y, cap);
+		vx = grow(vx, cap);
+		vy = grow(vy, cap);
+		m = grow(m, cap);
+		q = grow(q, cap);
+		alpha = grow(alpha, cap);
+		ax = grow(ax, cap);
+		ay = grow(ay, cap);
+		pot = grow(pot, cap);
+	}
+
+	static double[] grow(double[] a, int cap){
+		double[] b = new double[cap];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+}
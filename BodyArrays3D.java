@@ -0,0 +1,72 @@
+import java.util.List;
+
+/**
+ * BodyArrays with a third axis. Particles only move in a plane, so z, v_z and a_z live here and a
+ * 3D simulation (Sim_3D) keeps its state in these arrays, copying x and y back into the particles
+ * (storePositions) only to draw them on the 2D frame. Solvers that understand 3D (OctreeGravity) use
+ * z; the others treat the bodies as if they were all at z = 0.
+ *
+ * @method add
+ * 	Appends particles (at z = 0, not moving in z).
+ * @method compact
+ * 	Removes bodies that have been marked, keeping the order of the rest.
+ *
+ * @author Andrew M.
+ */
+public class BodyArrays3D extends BodyArrays {
+	public double[] z = new double[0]; //z positions
+	public double[] vz = new double[0]; //z velocities
+	public double[] az = new double[0]; //z accelerations (output of solvers)
+
+	/* (non-Javadoc)
+	 * @see BodyArrays#add(java.util.List)
+	 */
+	@Override
+	public int add(List<? extends Particle> bodies){
+		int start = super.add(bodies);
+		for (int ii = start; ii < n; ii++) {
+			z[ii] = 0;
+			vz[ii] = 0;
+			az[ii] = 0;
+		}
+		return start;
+	}
+
+	/**
+	 * Removes the bodies marked in removed, sliding the others down so they keep their order.
+	 *
+	 * @param removed
+	 * 	removed[ii] is true for bodies to drop.
+	 * @return
+	 * 	Number of bodies left.
+	 */
+	public int compact(boolean[] removed){
+		int kept = 0;
+		for (int ii = 0; ii < n; ii++) {
+			if(removed[ii])
+				continue;
+			x[kept] = x[ii]; y[kept] = y[ii]; z[kept] = z[ii];
+			vx[kept] = vx[ii]; vy[kept] = vy[ii]; vz[kept] = vz[ii];
+			ax[kept] = ax[ii]; ay[kept] = ay[ii]; az[kept] = az[ii];
+			m[kept] = m[ii];
+			q[kept] = q[ii];
+			alpha[kept] = alpha[ii];
+			kept++;
+		}
+		n = kept;
+		return kept;
+	}
+
+	/* (non-Javadoc)
+	 * @see BodyArrays#ensureCapacity(int)
+	 */
+	@Override
+	public void ensureCapacity(int size){
+		super.ensureCapacity(size);
+		if(z.length >= x.length)
+			return;
+		z = grow(z, x.length);
+		vz = grow(vz, x.length);
+		az = grow(az, x.length);
+	}
+}
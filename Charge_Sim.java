@@ -32,7 +32,7 @@ import org.opensourcephysics.frames.PlotFrame;
  * @method setCollision
  * 	Responds to collision (sets new velocities, directions). 
  * @method calculate_accelerations 
- *  Sums all forces and calculates accelerations of particles. 
+ *  Calculates accelerations of particles from electrostatics only. 
  * @method grav_force 
  * 	Adds gravitational force between two particles. 
  * @method dist 
@@ -62,7 +62,9 @@ public class Charge_Sim implements Runnable {
 
 	protected static double g = 9.803; // gravity constant
 	protected static double G = 6.67384E-11; //universal gravitational constant
-	protected static double k = 9E9; //universal gravitational constant
+	protected static double k = 9E9; //Coulomb constant
+	protected static BodyArrays arrays = new BodyArrays(); //positions, masses and charges for the force kernel 
+	protected static CoulombGravity solver = new CoulombGravity(k); //electrostatics (run with G = 0: no gravity here) 
 
 	private static boolean DEBUG_MODE = false; // print debug statements. 
 	private static double SUN_MASS = 1.98892E30; // kg
@@ -392,26 +394,17 @@ public class Charge_Sim implements Runnable {
 	}
 
 	/**
-	 * Calculate and set accelerations of all particles based on gravitational forces with other particles and clusters. 
+	 * Calculate and set accelerations of all particles from the electrostatic forces of every other 
+	 * particle (see CoulombGravity). This simulation has only ever applied the Coulomb force, so the 
+	 * kernel is run with G = 0 and the gravity part drops out. 
 	 */
 	private static void calculate_accelerations() {
-		for (int ii = 0; ii < bodies.size(); ii++) { // step through arraylist
-			// of masses
-			bodies.get(ii).forces.clear(); // clear old forces
-			bodies.get(ii).forces.removeAll(bodies.get(ii).forces);
+		arrays.load(bodies); 
+		solver.accelerations(arrays, 0); //Coulomb only 
+		arrays.storeAccelerations(bodies, 0); 
 
-			for (int jj = 0; jj < bodies.size(); jj++) {
-				if (ii == jj)
-					continue;
-				bodies.get(ii).forces.add(coulomb_force(bodies.get(ii),
-						bodies.get(jj)));
-			}
-			double xSum = sumForces(bodies.get(ii).forces, 0);
-			double ySum = sumForces(bodies.get(ii).forces, 1);
-			bodies.get(ii).acc_x = xSum / bodies.get(ii).mass; // a = F/m
-			bodies.get(ii).acc_y = ySum / bodies.get(ii).mass;
-
-			if (DEBUG_MODE) {
+		if (DEBUG_MODE) {
+			for (int ii = 0; ii < bodies.size(); ii++) {
 				System.out.println("X Acceleration of " + ii + " is "
 						+ bodies.get(ii).acc_x);
 				System.out.println("Y Acceleration of " + ii + " is "
@@ -420,34 +413,6 @@ public class Charge_Sim implements Runnable {
 		}
 	}
 
-	/**
-	 * Calculates gravitational force between two masses. 
-	 * 
-	 * F = G*(m1*m2)/(r^2). 
-	 * 
-	 * @param m1
-	 * 	Mass 1. 
-	 * @param m2
-	 * 	Mass 2. 
-	 * @return
-	 * 	New force with direction pointing toward opposite mass and with magnitude using above formula. 
-	 */
-	private static Force coulomb_force(Particle m1, Particle m2) {
-		double dist = dist(m1, m2);
-		double mag = k * m1.charge * m2.charge / Math.pow(dist, 2);
-
-		if (DEBUG_MODE)
-			System.out.println("Force added to mass " + m1 + " in magnitude "
-					+ mag + " dir: " + calcAng(m1, m2));
-		double ang = calcAng(m1, m2); 
-		if(m1.charge * m2.charge > 0){	
-		}
-		else {
-			ang += 180; 
-		}
-		return new Force(mag, ang, "Gravitational Force");
-	}
-
 	/**
 	 * Calculate the distance between two masses using distance formula. 
 	 * 
@@ -1,6 +1,7 @@
 import java.awt.Color;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Random;
 
 import javax.sound.sampled.AudioSystem;
@@ -26,6 +27,10 @@ import org.opensourcephysics.frames.DisplayFrame;
  * 	Sets velocity of center particle. 
  * @method bigIndex
  * 	Index of most massive particle (0, but with combinations useful to have). 
+ * @method makeTestBodies 
+ * 	Marks light particles as test bodies that follow Kepler orbits around the most massive one. 
+ * @method massive 
+ * 	Number of particles that are not test bodies. 
  * @method pastel 
  * 	Returns pleasing pastel color. 
  * @method v_tan 
@@ -34,10 +39,10 @@ import org.opensourcephysics.frames.DisplayFrame;
  * 	Returns -1 or +1 randomly. 
  * @method coords 
  * 	Finds random coordinates within a circle. 
- * @method run 
- * 	Runs (similar to Orbital_AM.run) particles but with one other cluster. 
+ * @method run_all 
+ * 	Runs (similar to Orbital_AM.run) every cluster for one step: one force solve, then each cluster moves. 
  * @method run
- * 	Runs (similar to Orbital_AM.run) particles but with list of other clusters. 
+ * 	Moves this cluster's particles with the accelerations run_all set. 
  * @method move_bodies 
  * 	Steps particles. 
  * @method checkCollision 
@@ -81,6 +86,14 @@ public class Cluster extends ArrayList<Particle> {
 	public double centX; //x pos of center of cluster 
 	public double centY; //y pos of center of cluster
 
+	static BodyArrays arrays = new BodyArrays(); //primitive copy of all clusters for the force calculation (shared, clusters run one at a time) 
+	static GravitySolver solver = GravitySolver.best(); //SIMD gravity if the CPU/JVM supports it 
+	static MergeEvents merges = new MergeEvents(); //inelastic collisions of the current pass (shared, clusters run one at a time) 
+	static StepMetrics metrics = new StepMetrics(); //time spent in each phase of a step (the simulation calls begin and end) 
+	static double testRatio = 0; //particles lighter than this times the center's mass are test bodies (0 = none) 
+	protected KeplerPropagator kepler = new KeplerPropagator(); //moves the test bodies 
+	protected BinaryRegularizer binaries = new BinaryRegularizer(); //moves tight pairs 
+
 	/**
 	 * Initializes a new cluster. 
 	 * 
@@ -194,6 +207,67 @@ public class Cluster extends ArrayList<Particle> {
 		return index; 
 	}
 
+	/**
+	 * Marks every particle no heavier than ratio times the most massive one as a test body around it: 
+	 * test bodies feel only the most massive particle and are moved along their Kepler orbits around it 
+	 * (KeplerPropagator) instead of through the force solver, and they do not pull on anything or collide. 
+	 * The rest go back to being ordinary particles. 
+	 * 
+	 * @param ratio
+	 * 	Largest mass (as a fraction of the most massive particle's) of a test body, 0 for none. 
+	 * @return
+	 * 	Number of test bodies. 
+	 */
+	public int makeTestBodies(double ratio){
+		Particle big = get(bigIndex()); 
+		int tests = 0; 
+		for (Particle p : this) {
+			p.primary = p != big && p.mass <= ratio*big.mass ? big : null; 
+			p.chiStep = 0; //no warm start 
+			if(p.primary != null)
+				tests++; 
+		}
+		sortTestBodies(); 
+		return tests; 
+	}
+
+	/**
+	 * Moves the test bodies to the end of the list (keeping the order of the others) and points them at the 
+	 * most massive particle, which may have changed after a collision. 
+	 * 
+	 * @return
+	 * 	Number of particles that are not test bodies. 
+	 */
+	private int sortTestBodies(){
+		Particle big = get(bigIndex()); 
+		big.primary = null; 
+		int kept = 0; 
+		for (int ii = 0; ii < size(); ii++) {
+			Particle p = get(ii); 
+			if(p.primary == null){
+				if(ii != kept)
+					Collections.swap(this, ii, kept); 
+				kept++; 
+			}
+			else
+				p.primary = big; 
+		}
+		return kept; 
+	}
+
+	/**
+	 * Number of particles before the test bodies (which are kept at the end of the list). 
+	 * 
+	 * @return
+	 * 	Number of particles the force solver moves. 
+	 */
+	public int massive(){
+		int n = size(); 
+		while(n > 0 && get(n-1).primary != null)
+			n--; 
+		return n; 
+	}
+
 	/**
 	 * Nice color for particles. 
 	 * 
@@ -272,16 +346,48 @@ public class Cluster extends ArrayList<Particle> {
 	}
 
 	/**
-	 * Calculate accelerations and move particles. 
+	 * Calculate accelerations of all clusters and move their particles. The forces are solved once for every 
+	 * cluster together (so the mesh and multipole solvers build their grid or tree once a step, not once per 
+	 * cluster), then the clusters move one at a time. 
+	 * 
+	 * @param frame
+	 * 	DisplayFrame for simulation. 
+	 * @param clusters
+	 * 	All clusters in simulation. 
+	 */
+	public static void run_all(DisplayFrame frame, ArrayList<Cluster> clusters){
+		for (Cluster c : clusters) {
+			if(c.size() > 0)
+				c.sortTestBodies(); 
+		}
+		metrics.skip(); 
+		calculate_accelerations(clusters); 
+		metrics.lap(StepMetrics.FORCE); 
+		for (Cluster c : clusters)
+			c.run(frame, clusters); 
+	}
+
+	/**
+	 * Move particles (accelerations were set by run_all). 
 	 * 
 	 * @param frame
 	 * 	DisplayFrame for simulation. 
 	 * @param otherCluster
 	 * 	Have list of other clusters interact with this one,  
 	 */
-	public void run(DisplayFrame frame, ArrayList<Cluster> otherClusters){
-		calculate_accelerations(otherClusters); 
+	private void run(DisplayFrame frame, ArrayList<Cluster> otherClusters){
+		if(size() == 0)
+			return; 
+		sortTestBodies(); //merges in an earlier cluster's pass may have replaced the big particle 
+		kepler.load(this); //where the test bodies are relative to the big particle before it moves 
+		metrics.lap(StepMetrics.INTEGRATION); 
 		move_bodies(frame, otherClusters); 
+		kepler.store(G); 
+		for (Particle p : this) {
+			if(p.primary != null)
+				p.Step(frame, true, false); //already moved: just trail and drawable 
+		}
+		metrics.lap(StepMetrics.INTEGRATION); 
 	}
 
 	/**
@@ -292,13 +398,18 @@ public class Cluster extends ArrayList<Particle> {
 	 */
 	private void move_bodies(DisplayFrame frame, ArrayList<Cluster> allClusters){
 		if(collide){ //global variable for collisions
+			long pairs = 0; 
 			//need to check with all particles in this AND in all other clusters. 
 			for (int ii = 0; ii < this.size(); ii ++) {
+					if(get(ii).primary != null) continue; //test bodies do not collide 
 					for (int jj = 0; jj < allClusters.size(); jj ++) { //through all clusters
 						for (int kk = 0; kk < allClusters.get(jj).size(); kk++) { //through other cluster in allclusters 
+							if(allClusters.get(jj).get(kk).primary != null) continue; 
+							pairs++; 
 							if(dist(get(ii), allClusters.get(jj).get(kk)) == 0) continue; //do not collide with self 
 							else if (checkCollision(get(ii), allClusters.get(jj).get(kk), frame)) {
-								setCollision(get(ii), allClusters.get(jj).get(kk), frame, allClusters, jj); //respond to collision
+								metrics.count(StepMetrics.COLLISIONS, 1); 
+								setCollision(get(ii), allClusters.get(jj).get(kk)); //respond to collision
 								continue; 
 								//play("boing.wav"); 
 							}
@@ -307,16 +418,31 @@ public class Cluster extends ArrayList<Particle> {
 						}
 					}
 			}
+			if(merges.resolveAll(allClusters, frame) > 0 && size() > 0){ //all the inelastic collisions at once 
+				sortTestBodies(); //the big particle may be a new merged one: point the test bodies at it 
+				kepler.load(this); //nothing has moved yet, so this is where they are relative to it 
+			}
+			metrics.count(StepMetrics.PAIRS, pairs); 
+			metrics.lap(StepMetrics.NARROW_PHASE); 
 		}
+		binaries.find(subList(0, massive()), G); //tight binaries would need a tiny time step 
+		Particle big = get(bigIndex()); 
 		for (int ii = 0; ii < this.size(); ii++) {
-			if(dist(get(ii), get(bigIndex())) > 1E20){
+			if(dist(get(ii), big) > 1E20){
 				frame.removeDrawable(get(ii));
 				remove(get(ii)); 
 				break; 
 			}
+			if(get(ii).primary != null) continue; //moved by the Kepler propagator 
+			if(get(ii).partner != null) continue; //moved by the regularized step 
 			get(ii).Step(frame, true, true); 
 			frame.addDrawable(get(ii));
 		}
+		binaries.step(G); 
+		for (Particle p : this) {
+			if(p.partner != null)
+				p.Step(frame, true, false); 
+		}
 	}
 
 	/**
@@ -377,10 +503,8 @@ public class Cluster extends ArrayList<Particle> {
 	 * 	Particle 1. 
 	 * @param m2
 	 * 	Particle 2. 
-	 * @param frame
-	 * 	DisplayFrame used (to delete/add particles for inelastic). 
 	 */
-	private void setCollision(Particle m1, Particle m2, DisplayFrame frame, ArrayList<Cluster> allClusters, int m2C){
+	private void setCollision(Particle m1, Particle m2){
 		m1.bump = m2; //set that they have collided with each other
 		m2.bump = m1; 
 
@@ -421,50 +545,7 @@ public class Cluster extends ArrayList<Particle> {
 			}
 		}
 		else {
-			//inelastic collision
-			Particle monster = new Particle(); //they have combined! 
-			double mass_sum = m1.mass + m2.mass; 
-			double v_f_x = (m1.mass * m1.v_x + m2.mass * m2.v_x)/(mass_sum); //final x velocity 
-			double v_f_y = (m1.mass * m1.v_y + m2.mass * m2.v_y)/(mass_sum); //final y velocity 
-			monster.init(m1.x_pos, m1.y_pos, v_f_x, v_f_y, 0, 0, mass_sum, m1.deltaT, 0);
-
-			//merge their colors 
-			Color newColor = new Color((m1.color.getRed() + m2.color.getRed())/2, 
-					(m1.color.getGreen() + m2.color.getGreen())/2, 
-					(m1.color.getBlue() + m2.color.getBlue())/2); 
-			monster.color = newColor;
-			monster.useRiemann = false; 
-
-			//trace if either one of the first 2 were traced 
-			if(m1.trace || m2.trace)
-				monster.trace = true;
-			else 
-				monster.trace = false; 
-
-			//set to larger pixel radius 
-			if(m1.pixRadius > m2.pixRadius)
-				monster.pixRadius = m1.pixRadius; 
-			else 
-				monster.pixRadius = m2.pixRadius;
-
-			//remove old ones, add new 
-			frame.removeDrawable(m1);
-			frame.removeDrawable(m2); 
-			//for (int ii = 0; ii < m1.points.size(); ii ++) 
-			//	monster.trail.addPoint(m1.points.get(ii).x, m1.points.get(ii).y);
-			monster.trail.moveToPoint(m2.points.get(0).x, m2.points.get(0).y);
-			for (int ii = 0; ii < m2.points.size(); ii ++) 
-				monster.trail.addPoint(m2.points.get(ii).x, m2.points.get(ii).y);
-			m1.trail.clear(); 
-			m2.trail.clear(); 
-			m1.points.clear(); 
-			m2.points.clear(); 
-			//this.remove(m1); 
-			allClusters.get(m2C).remove(m2);
-			this.set(this.indexOf(m1), monster);
-			//this.add(monster); 
-			frame.addDrawable(monster); 
-			monster.Step(frame, true, true);
+			merges.add(m1, m2); //inelastic: merged once the pass is done 
 		}
 	}
 
@@ -497,27 +578,24 @@ public class Cluster extends ArrayList<Particle> {
 	/**
 	 * Calculate and set accelerations of all particles based on gravitational forces with other particles and clusters. 
 	 * 
+	 * Every particle in every cluster is copied into primitive arrays, the solver (SIMD when available) 
+	 * computes all their accelerations in one pass and each cluster gets its slice back. Test bodies are left 
+	 * out (they neither pull nor get pulled here). 
+	 * 
 	 * @param allClusters
-	 * 	All clusters in simulation (including this one). 
+	 * 	All clusters in simulation. 
 	 */
-	private void calculate_accelerations(ArrayList<Cluster> allClusters){
-		for (int ii = 0; ii < this.size(); ii++) { //step through arraylist of masses
-			this.get(ii).forces.clear(); //clear old forces
-			this.get(ii).forces.removeAll(this.get(ii).forces); 
-
-			for (int jj = 0; jj < allClusters.size(); jj++) {
-				for (int kk = 0; kk < allClusters.get(jj).size(); kk++) {
-					if(dist(this.get(ii), allClusters.get(jj).get(kk)) != 0) //easier way to make sure you're not adding force on itself 
-						this.get(ii).forces.add(grav_force(this.get(ii), allClusters.get(jj).get(kk)));
-					else 
-						if(DEBUG_MODE)
-							System.out.println("Almost went to NaN!"); 
-				}
-			}
-			double xSum = sumForces(this.get(ii).forces, 0); //sum forces, set accelerations
-			double ySum = sumForces(this.get(ii).forces, 1);
-			this.get(ii).acc_x = xSum/this.get(ii).mass; //a = F/m
-			this.get(ii).acc_y = ySum/this.get(ii).mass;
+	private static void calculate_accelerations(ArrayList<Cluster> allClusters){
+		arrays.clear(); 
+		int[] offsets = new int[allClusters.size()]; 
+		for (int jj = 0; jj < allClusters.size(); jj++) {
+			Cluster c = allClusters.get(jj); 
+			offsets[jj] = arrays.add(c.subList(0, c.massive())); 
+		}
+		solver.accelerations(arrays, G); 
+		for (int jj = 0; jj < allClusters.size(); jj++) {
+			Cluster c = allClusters.get(jj); 
+			arrays.storeAccelerations(c.subList(0, c.massive()), offsets[jj]); 
 		}
 	}
 
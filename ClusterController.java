@@ -30,6 +30,10 @@ import javax.swing.JTextField;
  * 	Refreshes data in JTextFields. 
  * @method time 
  * 	Returns new time step input by user. 
+ * @method solver 
+ * 	Returns the force solver chosen by user (direct, mesh or fmm). 
+ * @method testRatio 
+ * 	Returns the mass ratio below which particles are test bodies. 
  * 
  * @author Andrew M. 
  */
@@ -67,6 +71,8 @@ public class ClusterController extends JFrame implements ActionListener {
 		buttons.add(new JButton("Cluster Velocity Magnitude"));
 		buttons.add(new JButton("Time Step"));
 		buttons.add(new JButton("Mass of Center")); 
+		buttons.add(new JButton("Force Solver (direct / mesh N / fmm p / octree t / laws a + b; eps e)")); 
+		buttons.add(new JButton("Test Bodies (max mass / center mass, 0 = off)")); 
 
 		//add all action listeners and commands
 		buttons.get(0).addActionListener(this);
@@ -85,6 +91,10 @@ public class ClusterController extends JFrame implements ActionListener {
 		buttons.get(6).setActionCommand("time");
 		buttons.get(7).addActionListener(this);
 		buttons.get(7).setActionCommand("mcent");
+		buttons.get(8).addActionListener(this);
+		buttons.get(8).setActionCommand("solver");
+		buttons.get(9).addActionListener(this);
+		buttons.get(9).setActionCommand("test");
 
 		//add text fields 
 		fields.add(new JTextField("cluster #"));
@@ -95,6 +105,8 @@ public class ClusterController extends JFrame implements ActionListener {
 		fields.add(new JTextField("vmag"));
 		fields.add(new JTextField("time step"));
 		fields.add(new JTextField("In Solar Masses"));
+		fields.add(new JTextField("direct"));
+		fields.add(new JTextField("0"));
 
 		//arrange buttons on frame
 		add(buttons.get(0));
@@ -113,6 +125,10 @@ public class ClusterController extends JFrame implements ActionListener {
 		add(fields.get(6)); 
 		add(buttons.get(7)); 
 		add(fields.get(7)); 
+		add(buttons.get(8)); 
+		add(fields.get(8)); 
+		add(buttons.get(9)); 
+		add(fields.get(9)); 
 
 		setVisible(true); //show to user
 	}
@@ -197,6 +213,30 @@ public class ClusterController extends JFrame implements ActionListener {
 		return (long) Double.parseDouble(fields.get(6).getText()); 
 	}
 
+	/**
+	 * Force solver. 
+	 * 
+	 * @return
+	 * 	Solver name input by user, e.g. "direct", "mesh 256" or "fmm 8" (see GravitySolver.fromText). 
+	 */
+	public String solver(){
+		if(DEBUG_MODE)
+			System.out.println("releasing solver " + fields.get(8).getText());
+		return fields.get(8).getText(); 
+	}
+
+	/**
+	 * Test body mass ratio. 
+	 * 
+	 * @return
+	 * 	Particles no heavier than this times their cluster's center are test bodies (see Cluster.makeTestBodies). 
+	 */
+	public double testRatio(){
+		if(DEBUG_MODE)
+			System.out.println("releasing test ratio " + fields.get(9).getText());
+		return Double.parseDouble(fields.get(9).getText()); 
+	}
+
 	/**
 	 * Number of particles. 
 	 * 
@@ -225,6 +265,8 @@ public class ClusterController extends JFrame implements ActionListener {
 		fields.get(5).setText("" + cluster.vMag);
 		fields.get(6).setText("" + cluster.p_time);
 		fields.get(7).setText("" + cluster.center_mass);
+		fields.get(8).setText("" + Cluster.solver);
+		fields.get(9).setText("" + Cluster.testRatio);
 	}
 
 	@Override
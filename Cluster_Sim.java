@@ -32,6 +32,8 @@ import org.opensourcephysics.frames.DisplayFrame;
  * 	Calculates the angle between a particle and a point. 
  * @method toggle_trails 
  * 	Turns trails on or off in simulation. 
+ * @method toggle_metrics 
+ * 	Turns the printed step metrics (StepMetrics) on or off. 
  * @method setupFrame 
  * 	Initializes DisplayFrame's size, location, and adds drawables. 
  * @method reset 
@@ -112,6 +114,7 @@ public class Cluster_Sim implements Runnable {
 			}
 			gc = true; 
 		} else {
+			Cluster.metrics.begin(); 
 			garb ++; 
 			if(gc){
 				gc = false; 
@@ -125,14 +128,16 @@ public class Cluster_Sim implements Runnable {
 			if(garb % 1000 == 0){
 				garb = 0; 
 				System.gc(); 
+				if(Cluster.metrics.print && Cluster.solver instanceof MultipoleGravity) //accuracy of the last FMM check vs. direct sum 
+					System.out.println("FMM relative error estimate: " + ((MultipoleGravity) Cluster.solver).getError());
 			}
 			control.canRead = false;
 			//mb.update(list);
 			frame.addDrawable(mb);
 			if(view_num != 0)
 				set_cam(); //move camera
-			for (Cluster c : clusters)
-				c.run(frame, clusters);
+			Cluster.run_all(frame, clusters);
+			Cluster.metrics.end(list.size()); 
 		}
 		frame.repaint();
 	}
@@ -230,6 +235,16 @@ public class Cluster_Sim implements Runnable {
 		Thread.sleep(250);
 	}
 
+	/**
+	 * Method for button on DisplayFrame: prints the time spent in each phase of a step every 
+	 * StepMetrics.REPORT_INTERVAL, and the FMM error estimate every 1000 steps when the fmm solver 
+	 * is in use (or stops printing them). 
+	 */
+	public void toggle_metrics(){
+		Cluster.metrics.print = !Cluster.metrics.print; //histograms start over at the next step 
+		System.out.println("Step metrics " + (Cluster.metrics.print ? "on" : "off")); 
+	}
+
 	/**
 	 * Turn trails on or off in simulator. 
 	 */
@@ -257,6 +272,7 @@ public class Cluster_Sim implements Runnable {
 		frame.addButton("set_view", "Change View", "Change Viewpoint", orbit);
 		frame.addButton("reset", "Reset", "Reset Simulation", orbit);
 		frame.addButton("toggle_trails", "Toggle Trails", "Turn trails on or off.", orbit);
+		frame.addButton("toggle_metrics", "Metrics", "Print the time spent in each phase of a step.", orbit);
 		frame.setVisible(true); //show to user 
 		frame.setSize(FRAME_DIMENSIONS[0], FRAME_DIMENSIONS[1]); //dimensions  
 	}
@@ -308,6 +324,11 @@ public class Cluster_Sim implements Runnable {
 		for (Cluster c : clusters) //set index of stroke of largest particle 
 			c.get(c.bigIndex()).trail.setStroke(new BasicStroke(2));
 
+		if(Cluster.testRatio > 0){
+			for (Cluster c : clusters) 
+				c.makeTestBodies(Cluster.testRatio); 
+		}
+
 		//Escape velocity test 
 		/*for (Cluster c : clusters) {
 			if(clusters.size() > 1)
@@ -392,6 +413,8 @@ public class Cluster_Sim implements Runnable {
 			particle_num = control.p_num();
 			vMag = control.vMag(); 
 			center_mass = control.cMass(); 
+			Cluster.solver = GravitySolver.fromText(control.solver()); //direct or particle-mesh gravity 
+			Cluster.testRatio = control.testRatio(); //light particles follow Kepler orbits 
 
 			String rand_txt = control.dist(); 
 			if(rand_txt.toLowerCase().contains("t") || rand_txt.toLowerCase().contains("1")) //check if user wants random or even distribution
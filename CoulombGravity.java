@@ -0,0 +1,88 @@
+/**
+ * Gravity and electrostatics in one pass. For every pair the distance, direction and 1/r^3 are worked
+ * out once and used for both forces:
+ * 	a_i = sum over j of (G*m_j - k*q_i*q_j/m_i) * (r_j - r_i)/|r_j - r_i|^3
+ * Gravity always pulls; the Coulomb part pushes apart like charges and pulls together opposite ones.
+ *
+ * Softening (setSoftening / setSplineSoftening) applies to both forces, since they share 1/r^3.
+ *
+ * Masses come from BodyArrays.m and charges from BodyArrays.q. Bodies with no mass get no acceleration
+ * (a force on nothing is undefined), but still pull and push on the others.
+ *
+ * @author Andrew M.
+ */
+public class CoulombGravity extends GravitySolver {
+	protected double k; //Coulomb constant
+
+	/**
+	 * Makes the kernel with a Coulomb constant.
+	 *
+	 * @param k
+	 * 	Coulomb constant (9E9 in SI).
+	 */
+	public CoulombGravity(double k) {
+		this.k = k;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		double[] x = b.x, y = b.y, m = b.m, q = b.q;
+		int n = b.n;
+		double eps = softening;
+		boolean useSpline = spline;
+		for (int ii = from; ii < to; ii++) {
+			if(m[ii] == 0) {
+				b.ax[ii] = 0;
+				b.ay[ii] = 0;
+				continue;
+			}
+			double xi = x[ii], yi = y[ii];
+			double kq = k*q[ii]/m[ii]; //charge-to-mass part of the Coulomb term
+			double sumX = 0, sumY = 0;
+			for (int jj = 0; jj < n; jj++) {
+				double dx = x[jj] - xi;
+				double dy = y[jj] - yi;
+				double r2 = dx*dx + dy*dy;
+				if(r2 == 0) //itself (or exactly on top of it)
+					continue;
+				double inv3;
+				if(eps > 0)
+					inv3 = soften(r2, eps, useSpline);
+				else {
+					double inv = 1/Math.sqrt(r2);
+					inv3 = inv*inv*inv;
+				}
+				double s = (G*m[jj] - kq*q[jj])*inv3; //both forces share the direction and 1/r^3
+				sumX += s*dx;
+				sumY += s*dy;
+			}
+			b.ax[ii] = sumX;
+			b.ay[ii] = sumY;
+		}
+	}
+
+	/**
+	 * Gets the Coulomb constant.
+	 *
+	 * @return
+	 * 	k.
+	 */
+	public double getK() {
+		return k;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#gravityOnly()
+	 */
+	@Override
+	public boolean gravityOnly(){
+		return k == 0; 
+	}
+
+	public String toString(){
+		return "gravity + coulomb";
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Direct O(N^2) gravity sum over primitive arrays. This is the scalar fallback for VectorGravity and
+ * gives the same answer as adding up a grav_force for every pair: a = sum of G*m_j*(r_j - r_i)/|r_j - r_i|^3.
+ *
+ * @author Andrew M.
+ */
+public class DirectGravity extends GravitySolver {
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		double[] x = b.x, y = b.y, m = b.m;
+		int n = b.n;
+		if(b.potential){
+			withPotentials(b, from, to, G);
+			return;
+		}
+		if(softening > 0){
+			softened(b, from, to, G);
+			return;
+		}
+		for (int ii = from; ii < to; ii++) {
+			double xi = x[ii], yi = y[ii];
+			double sumX = 0, sumY = 0;
+			for (int jj = 0; jj < n; jj++) {
+				double dx = x[jj] - xi;
+				double dy = y[jj] - yi;
+				double r2 = dx*dx + dy*dy;
+				if(r2 == 0) //itself (or exactly on top of it)
+					continue;
+				double inv = 1/Math.sqrt(r2);
+				double s = m[jj]*inv*inv*inv;
+				sumX += s*dx;
+				sumY += s*dy;
+			}
+			b.ax[ii] = G*sumX;
+			b.ay[ii] = G*sumY;
+		}
+	}
+
+	/**
+	 * Same sum with the softened 1/r^3 (see GravitySolver.soften). 
+	 */
+	private void softened(BodyArrays b, int from, int to, double G) {
+		double[] x = b.x, y = b.y, m = b.m;
+		int n = b.n;
+		double eps = softening;
+		boolean useSpline = spline;
+		for (int ii = from; ii < to; ii++) {
+			double xi = x[ii], yi = y[ii];
+			double sumX = 0, sumY = 0;
+			for (int jj = 0; jj < n; jj++) {
+				double dx = x[jj] - xi;
+				double dy = y[jj] - yi;
+				double r2 = dx*dx + dy*dy;
+				if(r2 == 0)
+					continue;
+				double s = m[jj]*soften(r2, eps, useSpline);
+				sumX += s*dx;
+				sumY += s*dy;
+			}
+			b.ax[ii] = G*sumX;
+			b.ay[ii] = G*sumY;
+		}
+	}
+
+	/**
+	 * Same sum (softened or not) that also adds up the potential of each body. 
+	 */
+	private void withPotentials(BodyArrays b, int from, int to, double G) {
+		double[] x = b.x, y = b.y, m = b.m;
+		int n = b.n;
+		double eps = softening;
+		boolean useSpline = spline;
+		for (int ii = from; ii < to; ii++) {
+			double xi = x[ii], yi = y[ii];
+			double sumX = 0, sumY = 0, sumP = 0;
+			for (int jj = 0; jj < n; jj++) {
+				double dx = x[jj] - xi;
+				double dy = y[jj] - yi;
+				double r2 = dx*dx + dy*dy;
+				if(r2 == 0)
+					continue;
+				double s;
+				if(eps > 0){
+					s = m[jj]*soften(r2, eps, useSpline);
+					sumP += m[jj]*potential(r2, eps, useSpline);
+				}
+				else {
+					double inv = 1/Math.sqrt(r2);
+					s = m[jj]*inv*inv*inv;
+					sumP += m[jj]*inv;
+				}
+				sumX += s*dx;
+				sumY += s*dy;
+			}
+			b.ax[ii] = G*sumX;
+			b.ay[ii] = G*sumY;
+			b.pot[ii] = -G*sumP;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#potentials()
+	 */
+	@Override
+	public boolean potentials(){
+		return true; 
+	}
+
+	public String toString(){
+		return "direct"; 
+	}
+}
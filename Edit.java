@@ -0,0 +1,136 @@
+import java.awt.Color;
+import java.util.List;
+
+/**
+ * A change the user asks for in a controller (Gen_Cont, ParticleController), sent to the simulation through
+ * a StateExchange and carried out on the simulation thread. Edits to one particle refer to it by its index in
+ * the last snapshot the controller showed; an edit to a particle that is no longer there does nothing.
+ *
+ * Edits to the particles themselves are carried out by apply; the simulation deals with the rest (time step,
+ * G, collisions, loading and saving), since what they do depends on the simulation.
+ *
+ * @method apply
+ * 	Carries out an edit to the particles.
+ *
+ * @author Andrew M.
+ */
+public class Edit {
+	//edits to one particle
+	public static final int NAME = 0, MASS = 1, X = 2, Y = 3, VX = 4, VY = 5, AX = 6, AY = 7, CHARGE = 8, COLOR = 9;
+	public static final int ADD = 10, DELETE = 11;
+	//edits to the simulation
+	public static final int TIME_STEP = 20, GRAV = 21, COLLIDE = 22, PROVE_ONE = 23, WRITE = 24, SAVE = 25, LOAD = 26, RESET = 27;
+
+	public final int type; //what to change
+	public final int index; //particle to change
+	public final double value; //new value (numbers)
+	public final Object object; //new value (name, color, file name or ParticleReader)
+
+	/**
+	 * Creates an edit that needs no value (ADD, PROVE_ONE, WRITE, RESET).
+	 *
+	 * @param type
+	 * 	What to change.
+	 */
+	public Edit(int type){
+		this(type, 0, 0, null);
+	}
+
+	/**
+	 * Creates an edit that sets a number.
+	 *
+	 * @param type
+	 * 	What to change.
+	 * @param index
+	 * 	Particle to change (ignored for edits to the simulation).
+	 * @param value
+	 * 	New value.
+	 */
+	public Edit(int type, int index, double value){
+		this(type, index, value, null);
+	}
+
+	/**
+	 * Creates an edit that sets a name, a color or a file.
+	 *
+	 * @param type
+	 * 	What to change.
+	 * @param index
+	 * 	Particle to change (ignored for edits to the simulation).
+	 * @param object
+	 * 	New value.
+	 */
+	public Edit(int type, int index, Object object){
+		this(type, index, 0, object);
+	}
+
+	private Edit(int type, int index, double value, Object object){
+		this.type = type;
+		this.index = index;
+		this.value = value;
+		this.object = object;
+	}
+
+	/**
+	 * Carries out the edit if it is an edit to the particles (called by the simulation thread).
+	 *
+	 * @param bodies
+	 * 	Particles of the simulation.
+	 * @return
+	 * 	True if it was an edit to the particles (even one to a particle no longer there), false if it is
+	 * 	left to the simulation.
+	 */
+	public boolean apply(List<Particle> bodies){
+		if(type == ADD){
+			Particle p = new Particle();
+			p.init(0, 0, 0, 0, bodies.isEmpty() ? 1 : bodies.get(0).deltaT, 0); // better way to set time step
+			p.real_name = "Particle #" + bodies.size();
+			p.charge = 0;
+			bodies.add(p);
+			rename(bodies, bodies.size() - 1);
+			return true;
+		}
+		if(type > DELETE)
+			return false;
+		if(index < 0 || index >= bodies.size())
+			return true;
+		Particle p = bodies.get(index);
+		switch(type){
+		case NAME:
+			p.real_name = (String) object;
+			p.name = "Particle [" + index + "]: " + p.real_name;
+			break;
+		case MASS: p.mass = value; break;
+		case X: p.x_pos = value; break;
+		case Y: p.y_pos = value; break;
+		case VX: p.v_x = value; break;
+		case VY: p.v_y = value; break;
+		case AX: p.acc_x = value; break;
+		case AY: p.acc_y = value; break;
+		case CHARGE: p.charge = value; break;
+		case COLOR: p.color = (Color) object; break;
+		case DELETE:
+			if(bodies.size() != 1){
+				bodies.remove(index);
+				rename(bodies, index); //the ones after it move up
+			}
+			break;
+		}
+		return true;
+	}
+
+	/**
+	 * Numbers the particles' names by their place in the list (as the controllers list them).
+	 */
+	static void rename(List<Particle> bodies){
+		rename(bodies, 0);
+	}
+
+	/**
+	 * Numbers the names of the particles from one place in the list on (the ones before it are unchanged).
+	 */
+	static void rename(List<Particle> bodies, int from){
+		for (int ii = from; ii < bodies.size(); ii++)
+			bodies.get(ii).name = "Particle [" + ii + "]: " + bodies.get(ii).real_name;
+	}
+}
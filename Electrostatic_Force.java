@@ -7,8 +7,19 @@
 public class Electrostatic_Force {
 	static double k = 9E9; 
 	
+	/**
+	 * Coulomb force on q1 due to q2: F = k*q1*q2/r^2, pushing q1 away from q2 
+	 * when the charges have the same sign and pulling it in when they differ. 
+	 * 
+	 * @param q1
+	 * 	Charge the force acts on. 
+	 * @param q2
+	 * 	Other charge. 
+	 * @return
+	 * 	Force on q1. 
+	 */
 	public Force ES_Force(Particle q1, Particle q2){
-		return new Force(k*q1.charge*q1.charge/Math.pow((dist(q1, q2)), 2), calcAng(q1, q2), "ES Force");
+		return new Force(k*q1.charge*q2.charge/Math.pow((dist(q1, q2)), 2), calcAng(q1, q2) + 180, "ES Force");
 	}
 
 	/**
@@ -0,0 +1,227 @@
+/**
+ * Checks every few steps how well a simulation conserves what it should: total energy (kinetic plus
+ * potential), linear momentum and angular momentum. Any integrator with a finite time step lets these
+ * drift, and how fast they drift says whether the time step is small enough; instead of choosing the time
+ * step by eye, the monitor can warn when the energy drifts more than a budget allows, or change the time
+ * step itself to the largest one that stays within the budget.
+ *
+ * The potential energy costs nothing extra when the solver fills in potentials in its force pass
+ * (GravitySolver.potentials; the simulation sets BodyArrays.potential on the steps that are checked). With
+ * other solvers, or steps without a force pass (the Wisdom-Holman map), the monitor adds up the pairs
+ * itself, which is one O(N^2)/2 pass every EVERY steps.
+ *
+ * Only gravity's potential energy is known, so solvers that add other forces (Coulomb, springs, drag; see
+ * GravitySolver.gravityOnly) are not supported: check says so once and leaves the time step alone.
+ *
+ * Drift is measured from a reference: the first check, and again after anything that really changes the
+ * energy (edits, collisions, merges), which the simulation reports with restart.
+ *
+ * Modes:
+ * 	OFF   - nothing is checked.
+ * 	WATCH - prints the drift every REPORT_INTERVAL and warns when the energy drifts more than budget between
+ * 	        two checks.
+ * 	ADAPT - as WATCH, and changes the time step after each check: smaller when the drift is over the budget
+ * 	        (down to half a check), larger when it is well under (slowly, since an orbit's energy swings
+ * 	        back and forth and a quiet stretch does not mean the step can double).
+ *
+ * @method due
+ * 	Whether this step is checked.
+ * @method check
+ * 	Measures the energy and momenta and returns the time step to use.
+ * @method tick
+ * 	Counts a step.
+ * @method restart
+ * 	Starts measuring drift over (after a change to the bodies).
+ * @method report
+ * 	Last measurements as text.
+ *
+ * @author Andrew M.
+ */
+public class EnergyMonitor {
+	public static final int OFF = 0, WATCH = 1, ADAPT = 2;
+	static final String[] MODES = { "off", "watch", "adapt" };
+	public static final int EVERY = 100; //steps between checks
+	public static final double BUDGET = 1E-6; //relative energy drift allowed between two checks
+	public static final long REPORT_INTERVAL = 10000000000L; //ns between printed reports
+	static final double GROWTH = 1.25, SHRINK = 0.5; //most the time step changes in one check
+	static final double RANGE = 1000; //the time step stays within this factor of the one adapting started with
+
+	public volatile int mode = OFF; //may be set from another thread
+	public int every = EVERY;
+	public double budget = BUDGET;
+
+	//last measurements
+	public double kinetic, potential, energy; //J
+	public double px, py, angular; //kg m/s, kg m^2/s
+	public double drift, momentumDrift, angularDrift; //relative drift since the reference
+	public double stepDrift; //relative energy drift since the last check
+
+	private long steps = 0; //steps counted since the monitor was turned on
+	private int running = OFF; //mode as of the last check
+	private boolean fresh = true; //no reference yet
+	private double e0, px0, py0, l0; //reference
+	private double eScale, pScale, lScale; //what drifts are relative to
+	private double last; //energy at the last check
+	private double base; //time step when adapting started
+	private boolean over = false; //over the budget at the last check (warned once)
+	private long printed = 0; //time of the last report
+	private GravitySolver unsupported; //solver the monitor last said it cannot check
+
+	/**
+	 * Whether this step is checked (every EVERY steps while the monitor is on). The simulation asks its
+	 * solver for potentials on these steps and then calls check.
+	 *
+	 * @return
+	 * 	True if check should be called this step.
+	 */
+	public boolean due(){
+		return mode != OFF && steps % every == 0;
+	}
+
+	/**
+	 * Counts a step of the simulation.
+	 */
+	public void tick(){
+		if(mode == OFF)
+			running = OFF; //turning it on again starts over
+		else
+			steps++;
+	}
+
+	/**
+	 * Starts measuring drift over at the next check, for changes to the bodies that are not the
+	 * integrator's fault (edits, collisions, merges).
+	 */
+	public void restart(){
+		fresh = true;
+	}
+
+	/**
+	 * Measures the energy and momenta of the bodies, compares them with the reference and the last check,
+	 * and prints a report or a warning when one is due.
+	 *
+	 * @param b
+	 * 	Bodies (positions, velocities and masses of this step), with b.pot filled in if b.potential is set.
+	 * @param G
+	 * 	Gravitational constant.
+	 * @param solver
+	 * 	Solver of the simulation (for its softening, and whether it filled in b.pot).
+	 * @param timeStep
+	 * 	Time step of the simulation.
+	 * @param order
+	 * 	Order of the integrator (1 for Euler, 2 for Wisdom-Holman), for how the drift scales with the time step.
+	 * @return
+	 * 	Time step to use from now on (timeStep unless adapting).
+	 */
+	public double check(BodyArrays b, double G, GravitySolver solver, double timeStep, int order){
+		if(mode != running){ //just turned on or changed
+			running = mode;
+			fresh = true;
+			base = timeStep;
+			printed = System.nanoTime();
+			unsupported = null;
+		}
+		if(!solver.gravityOnly()){
+			if(solver != unsupported){
+				unsupported = solver;
+				System.out.println("Energy monitor: not supported with " + solver + " (it only knows gravity's potential energy)");
+			}
+			fresh = true; //starts over if the solver changes back
+			return timeStep;
+		}
+		unsupported = null;
+		measure(b, G, solver);
+		if(fresh){
+			fresh = false;
+			e0 = last = energy;
+			px0 = px;
+			py0 = py;
+			l0 = angular;
+			eScale = Math.abs(energy) > 0 ? Math.abs(energy) : Math.abs(kinetic) + Math.abs(potential);
+			pScale = lScale = 0;
+			for (int ii = 0; ii < b.n; ii++) {
+				double v = Math.hypot(b.vx[ii], b.vy[ii]);
+				pScale += b.m[ii]*v;
+				lScale += b.m[ii]*v*Math.hypot(b.x[ii], b.y[ii]);
+			}
+			drift = momentumDrift = angularDrift = stepDrift = 0;
+			return timeStep;
+		}
+		drift = relative(energy - e0, eScale);
+		momentumDrift = relative(Math.hypot(px - px0, py - py0), pScale);
+		angularDrift = relative(angular - l0, lScale);
+		stepDrift = relative(energy - last, eScale);
+		last = energy;
+
+		double next = timeStep;
+		if(mode == ADAPT && (stepDrift > budget || stepDrift < budget/4)){
+			double factor = stepDrift == 0 ? GROWTH : Math.pow(budget/stepDrift, 1.0/(order + 1));
+			factor = Math.max(SHRINK, Math.min(GROWTH, factor));
+			next = Math.max(base/RANGE, Math.min(base*RANGE, timeStep*factor));
+		}
+		else if(mode == WATCH && stepDrift > budget && !over)
+			System.out.println(String.format("Energy drifted %.2e in %d steps (budget %.1e): try a smaller time step",
+					stepDrift, every, budget));
+		over = stepDrift > budget;
+
+		long now = System.nanoTime();
+		if(now - printed >= REPORT_INTERVAL){
+			printed = now;
+			System.out.println(report() + String.format(", time step %.4g", next));
+		}
+		return next;
+	}
+
+	/**
+	 * Kinetic and potential energy, momentum and angular momentum of the bodies.
+	 */
+	private void measure(BodyArrays b, double G, GravitySolver solver){
+		double[] x = b.x, y = b.y, vx = b.vx, vy = b.vy, m = b.m;
+		int n = b.n;
+		kinetic = px = py = angular = 0;
+		for (int ii = 0; ii < n; ii++) {
+			kinetic += 0.5*m[ii]*(vx[ii]*vx[ii] + vy[ii]*vy[ii]);
+			px += m[ii]*vx[ii];
+			py += m[ii]*vy[ii];
+			angular += m[ii]*(x[ii]*vy[ii] - y[ii]*vx[ii]);
+		}
+		potential = 0;
+		if(b.potential && solver.potentials()){ //filled in by the force pass
+			for (int ii = 0; ii < n; ii++)
+				potential += 0.5*m[ii]*b.pot[ii]; //each pair is in two bodies' potentials
+		}
+		else {
+			double eps = solver.getSoftening();
+			boolean useSpline = solver.spline;
+			for (int ii = 0; ii < n; ii++) {
+				double sum = 0;
+				for (int jj = ii + 1; jj < n; jj++) {
+					double dx = x[jj] - x[ii];
+					double dy = y[jj] - y[ii];
+					double r2 = dx*dx + dy*dy;
+					if(r2 == 0)
+						continue;
+					sum += m[jj]*GravitySolver.potential(r2, eps, useSpline);
+				}
+				potential -= G*m[ii]*sum;
+			}
+		}
+		energy = kinetic + potential;
+	}
+
+	private static double relative(double change, double scale){
+		return scale > 0 ? Math.abs(change)/scale : 0;
+	}
+
+	/**
+	 * Last measurements as text.
+	 *
+	 * @return
+	 * 	Energy, its drift since the reference and the last check, and the drifts of the momenta.
+	 */
+	public String report(){
+		return String.format("Energy (%s): E %.6e J (KE %.4e, PE %.4e), drift %.2e (%.2e in the last %d steps), "
+				+ "momentum drift %.2e, angular momentum drift %.2e", MODES[running], energy, kinetic, potential, drift,
+				stepDrift, every, momentumDrift, angularDrift);
+	}
+}
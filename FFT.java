@@ -0,0 +1,129 @@
+/**
+ * Radix-2 fast Fourier transform of complex data stored as separate real and imaginary arrays.
+ * The sine/cosine tables and bit reversal for a given size are computed once, so an FFT object
+ * should be kept and reused for every transform of that size.
+ *
+ * @method transform
+ * 	In-place 1D FFT.
+ * @method transform2D
+ * 	In-place 2D FFT of an n x n grid (rows then columns).
+ *
+ * @author Andrew M.
+ */
+public class FFT {
+	private int n; //transform length (power of 2)
+	private int[] rev; //bit reversed index
+	private double[] cos, sin; //twiddle factors for the full length
+	private double[] rowRe, rowIm; //scratch for columns in transform2D
+
+	/**
+	 * Creates an FFT of a given length.
+	 *
+	 * @param n
+	 * 	Length (must be a power of 2).
+	 */
+	public FFT(int n){
+		if(n < 1 || Integer.bitCount(n) != 1)
+			throw new IllegalArgumentException("FFT length must be a power of 2: " + n);
+		this.n = n;
+		rev = new int[n];
+		int bits = Integer.numberOfTrailingZeros(n);
+		for (int ii = 0; ii < n; ii++)
+			rev[ii] = bits == 0 ? 0 : Integer.reverse(ii) >>> (32 - bits);
+		cos = new double[n/2 + 1];
+		sin = new double[n/2 + 1];
+		for (int ii = 0; ii < cos.length; ii++) {
+			cos[ii] = Math.cos(2*Math.PI*ii/n);
+			sin[ii] = Math.sin(2*Math.PI*ii/n);
+		}
+		rowRe = new double[n];
+		rowIm = new double[n];
+	}
+
+	/**
+	 * Gets the transform length.
+	 *
+	 * @return
+	 * 	Length.
+	 */
+	public int size(){
+		return n;
+	}
+
+	/**
+	 * In-place FFT of n values starting at offset, stride apart.
+	 * The inverse transform is scaled by 1/n.
+	 *
+	 * @param re
+	 * 	Real parts.
+	 * @param im
+	 * 	Imaginary parts.
+	 * @param offset
+	 * 	Index of the first value.
+	 * @param stride
+	 * 	Distance between values.
+	 * @param inverse
+	 * 	True for the inverse transform.
+	 */
+	public void transform(double[] re, double[] im, int offset, int stride, boolean inverse){
+		for (int ii = 0; ii < n; ii++) { //bit reversal permutation
+			int jj = rev[ii];
+			if(jj > ii){
+				int a = offset + ii*stride, b = offset + jj*stride;
+				double t = re[a]; re[a] = re[b]; re[b] = t;
+				t = im[a]; im[a] = im[b]; im[b] = t;
+			}
+		}
+		double sign = inverse ? 1 : -1;
+		for (int len = 2; len <= n; len <<= 1) { //butterflies
+			int half = len >> 1;
+			int step = n/len; //index step in the twiddle table
+			for (int start = 0; start < n; start += len) {
+				for (int kk = 0; kk < half; kk++) {
+					double wr = cos[kk*step], wi = sign*sin[kk*step];
+					int a = offset + (start + kk)*stride;
+					int b = a + half*stride;
+					double xr = re[b]*wr - im[b]*wi;
+					double xi = re[b]*wi + im[b]*wr;
+					re[b] = re[a] - xr;
+					im[b] = im[a] - xi;
+					re[a] += xr;
+					im[a] += xi;
+				}
+			}
+		}
+		if(inverse){
+			double scale = 1.0/n;
+			for (int ii = 0; ii < n; ii++) {
+				re[offset + ii*stride] *= scale;
+				im[offset + ii*stride] *= scale;
+			}
+		}
+	}
+
+	/**
+	 * In-place 2D FFT of an n x n grid stored row by row (index = x + y*n).
+	 *
+	 * @param re
+	 * 	Real parts.
+	 * @param im
+	 * 	Imaginary parts.
+	 * @param inverse
+	 * 	True for the inverse transform.
+	 */
+	public void transform2D(double[] re, double[] im, boolean inverse){
+		for (int row = 0; row < n; row++)
+			transform(re, im, row*n, 1, inverse);
+		for (int col = 0; col < n; col++) { //copy columns out so the butterflies run on contiguous memory
+			for (int ii = 0; ii < n; ii++) {
+				rowRe[ii] = re[col + ii*n];
+				rowIm[ii] = im[col + ii*n];
+			}
+			transform(rowRe, rowIm, 0, 1, inverse);
+			for (int ii = 0; ii < n; ii++) {
+				re[col + ii*n] = rowRe[ii];
+				im[col + ii*n] = rowIm[ii];
+			}
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * A force kernel made by composing ForceLaws (see ForceLaw.compose). It works like any other GravitySolver:
+ * load the bodies into a BodyArrays, call accelerations, and store them back into the particles.
+ *
+ * The kernel keeps no pair loop of its own. When it is set up, specialize() picks the solver that already
+ * does the laws that are on, softened the same way:
+ * 	gravity (plain, plummer or spline) - GravitySolver.best(), so the SIMD loop when the CPU has one.
+ * 	gravity + Coulomb, or Coulomb alone - CoulombGravity, one pass for both forces (G = 0 without gravity).
+ * Springs and drag are O(N) and are added after the pair sum, only when they are on:
+ * 	hooke - along the links given with link (none by default), so springs join only the bodies a
+ * 	        simulation says are joined (the chain of masses in ForceSpringApp), whatever order they are in.
+ * 	drag - -alpha*|v|*v on each axis with alpha from BodyArrays.alpha, the same as Mass.Step and
+ * 	       Particle.Step, so bodies run with this kernel should have their own air resistance off.
+ * Bodies with no mass get no acceleration from springs.
+ *
+ * @method link
+ * 	Joins two bodies with a spring.
+ * @method clearLinks
+ * 	Removes every spring.
+ *
+ * @author Andrew M.
+ */
+public class ForceKernel extends GravitySolver {
+	protected boolean gravity = false; //gravity (plain or softened) is on
+	protected double k = 0; //Coulomb constant (0 = off)
+	protected double springK = 0; //spring constant of the links (0 = off)
+	protected double restLength = 0; //rest length of the links
+	protected boolean drag = false; //air resistance is on
+	private int[] linkA = new int[0], linkB = new int[0]; //bodies joined by each spring
+	private int links = 0;
+	protected GravitySolver pairs = null; //solver picked by specialize() (null = no laws)
+
+	/**
+	 * Picks the solver for the laws that have been switched on and gives it the kernel's softening.
+	 * Called by ForceLaw.compose once all the laws are added.
+	 */
+	void specialize() {
+		if(k != 0)
+			pairs = new CoulombGravity(k);
+		else if(gravity)
+			pairs = best();
+		else {
+			pairs = null;
+			return;
+		}
+		if(spline)
+			pairs.setSplineSoftening(softening);
+		else
+			pairs.setSoftening(softening);
+	}
+
+	/**
+	 * Joins two bodies (indices in the BodyArrays) with a spring of the kernel's hooke law.
+	 *
+	 * @param a
+	 * 	One end.
+	 * @param b
+	 * 	Other end.
+	 */
+	public void link(int a, int b) {
+		if(links == linkA.length){
+			linkA = java.util.Arrays.copyOf(linkA, Math.max(16, 2*links));
+			linkB = java.util.Arrays.copyOf(linkB, linkA.length);
+		}
+		linkA[links] = a;
+		linkB[links] = b;
+		links++;
+	}
+
+	/**
+	 * Removes every spring (the hooke law stays on for links added later).
+	 */
+	public void clearLinks() {
+		links = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#setSoftening(double)
+	 */
+	@Override
+	public void setSoftening(double eps){
+		super.setSoftening(eps);
+		specialize();
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#setSplineSoftening(double)
+	 */
+	@Override
+	public void setSplineSoftening(double eps){
+		super.setSplineSoftening(eps);
+		specialize();
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		if(pairs != null)
+			pairs.accelerations(b, from, to, gravity ? G : 0);
+		else {
+			for (int ii = from; ii < to; ii++) {
+				b.ax[ii] = 0;
+				b.ay[ii] = 0;
+			}
+		}
+		if(springK != 0 && links > 0)
+			springs(b, from, to);
+		if(drag)
+			drag(b, from, to);
+	}
+
+	private void springs(BodyArrays b, int from, int to) {
+		double[] x = b.x, y = b.y, m = b.m;
+		for (int l = 0; l < links; l++) {
+			int i = linkA[l], j = linkB[l];
+			double dx = x[j] - x[i];
+			double dy = y[j] - y[i];
+			double dist = Math.sqrt(dx*dx + dy*dy);
+			if(dist == 0)
+				continue;
+			double s = springK*(dist - restLength)/dist; //kx along the spring, pulls i toward j
+			if(i >= from && i < to && m[i] != 0){
+				b.ax[i] += s*dx/m[i];
+				b.ay[i] += s*dy/m[i];
+			}
+			if(j >= from && j < to && m[j] != 0){
+				b.ax[j] -= s*dx/m[j];
+				b.ay[j] -= s*dy/m[j];
+			}
+		}
+	}
+
+	private static void drag(BodyArrays b, int from, int to) {
+		double[] vx = b.vx, vy = b.vy, alpha = b.alpha;
+		for (int ii = from; ii < to; ii++) {
+			b.ax[ii] -= alpha[ii]*Math.abs(vx[ii])*vx[ii];
+			b.ay[ii] -= alpha[ii]*Math.abs(vy[ii])*vy[ii];
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#potentials()
+	 */
+	@Override
+	public boolean potentials(){
+		return pairs != null && pairs.potentials(); 
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#gravityOnly()
+	 */
+	@Override
+	public boolean gravityOnly(){
+		return k == 0 && springK == 0 && !drag; 
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		if(gravity)
+			str.append(softening > 0 ? (spline ? "spline " : "plummer ") + softening : "gravity");
+		if(k != 0)
+			str.append(str.length() > 0 ? " + " : "").append("coulomb ").append(k);
+		if(springK != 0)
+			str.append(str.length() > 0 ? " + " : "").append("hooke ").append(springK).append(" ").append(restLength);
+		if(drag)
+			str.append(str.length() > 0 ? " + " : "").append("drag");
+		return str.toString();
+	}
+}
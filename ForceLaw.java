@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+
+/**
+ * Registry of the force laws a simulation can use. Laws are picked by name and composed into a single
+ * ForceKernel when the simulation is set up, e.g.
+ * 	ForceLaw.compose("plummer 1e6 + coulomb")
+ * The kernel is one class whose inner loop is chosen once from the composed laws, so the per-pair work is
+ * straight-line arithmetic instead of a loop over a list of Force objects.
+ *
+ * Laws (numbers after a name are optional parameters):
+ * 	gravity - G*m_j/r^2 toward every other body.
+ * 	coulomb [k] - k*q_i*q_j/r^2 (like charges repel); k defaults to 9E9.
+ * 	plummer [eps] - gravity softened to G*m_j*r/(r^2 + eps^2)^(3/2).
+ * 	spline [eps] - gravity with the cubic spline softening kernel (Newtonian beyond 2.8*eps).
+ * 	hooke [k] [rest] - springs along the links given to the kernel (ForceKernel.link), as in ForceSpringApp.
+ * 	drag - air resistance -alpha*|v|*v on each axis, alpha from Particle.alpha (BodyArrays.alpha).
+ *
+ * @method forName
+ * 	Looks up a law by name.
+ * @method compose
+ * 	Builds a ForceKernel from text listing the laws.
+ *
+ * @author Andrew M.
+ */
+public enum ForceLaw {
+	GRAVITY("gravity") {
+		void addTo(ForceKernel kernel, double[] params) {
+			kernel.gravity = true;
+		}
+	},
+	COULOMB("coulomb") {
+		void addTo(ForceKernel kernel, double[] params) {
+			kernel.k = params.length > 0 ? params[0] : 9E9;
+		}
+	},
+	PLUMMER("plummer") {
+		void addTo(ForceKernel kernel, double[] params) {
+			kernel.gravity = true;
+			kernel.setSoftening(params.length > 0 ? params[0] : 0);
+		}
+	},
+	SPLINE("spline") {
+		void addTo(ForceKernel kernel, double[] params) {
+			kernel.gravity = true;
+			kernel.setSplineSoftening(params.length > 0 ? params[0] : 0);
+		}
+	},
+	HOOKE("hooke") {
+		void addTo(ForceKernel kernel, double[] params) {
+			kernel.springK = params.length > 0 ? params[0] : 1;
+			kernel.restLength = params.length > 1 ? params[1] : 0;
+		}
+	},
+	DRAG("drag") {
+		void addTo(ForceKernel kernel, double[] params) {
+			kernel.drag = true;
+		}
+	};
+
+	final String name; //name used in text
+
+	ForceLaw(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Switches this law on in a kernel that is being set up.
+	 *
+	 * @param kernel
+	 * 	The kernel.
+	 * @param params
+	 * 	Numbers given after the law's name (may be empty).
+	 */
+	abstract void addTo(ForceKernel kernel, double[] params);
+
+	/**
+	 * Looks up a law by name.
+	 *
+	 * @param name
+	 * 	Name (case does not matter).
+	 * @return
+	 * 	The law, or null if there is none with that name.
+	 */
+	public static ForceLaw forName(String name) {
+		for (ForceLaw law : values())
+			if(law.name.equalsIgnoreCase(name))
+				return law;
+		return null;
+	}
+
+	/**
+	 * Builds a kernel from text such as "plummer 1e6 + coulomb 9e9". Laws are separated
+	 * by '+' or ',' and each may be followed by its numbers.
+	 *
+	 * @param text
+	 * 	The laws to compose.
+	 * @return
+	 * 	A new kernel with those laws.
+	 */
+	public static ForceKernel compose(String text) {
+		ForceKernel kernel = new ForceKernel();
+		for (String term : text.trim().split("[+,]")) {
+			String[] words = term.trim().split("\\s+");
+			if(words[0].isEmpty())
+				continue;
+			ForceLaw law = forName(words[0]);
+			if(law == null)
+				throw new IllegalArgumentException("Unknown force law: " + words[0]);
+			ArrayList<Double> params = new ArrayList<Double>();
+			for (int ii = 1; ii < words.length; ii++)
+				params.add(Double.parseDouble(words[ii]));
+			double[] p = new double[params.size()];
+			for (int ii = 0; ii < p.length; ii++)
+				p[ii] = params.get(ii);
+			law.addTo(kernel, p);
+		}
+		kernel.specialize();
+		return kernel;
+	}
+
+	public String toString() {
+		return name;
+	}
+}
@@ -103,6 +103,10 @@ public class ForceSpringApp extends AbstractSimulation {
 	Plane inc_plane; //inclined plane
 	Mass human = new Mass(0); 
 	Capture cap = new Capture(); 
+	SpringChain chain; //implicit integrator for stiff/long springs (null = explicit Mass steps) 
+	double[] fx = new double[0], fy = new double[0]; //net force on each mass (reused every step) 
+	ForceKernel springs; //springs along the chain and air resistance, composed in initialize (see ForceLaw) 
+	BodyArrays arrays = new BodyArrays(); //the masses, for the force kernel 
 
 	protected void doStep(){
 		counter ++; 
@@ -137,22 +141,34 @@ public class ForceSpringApp extends AbstractSimulation {
 				timeStep = init_deltaT; //set time back to initial time step  
 			}
 		}
-		for (int ii = 0; ii < masses.size(); ii++) { //step through arraylist of masses
+		boolean implicit = chain != null && !oscillation && !mouseDrag && !plane; //implicit solver only handles a free hanging chain 
+		if(implicit)
+			stepImplicit(); //moves every mass at once (see SpringChain) 
+		else {
+			//finds if mouse is within important coordinates
+			if(b.getX() < 500 && mouseDrag && !oscillation) //sets position of 1st particle based on mouse pos
+				masses.get(0).x_pos = ((int) b.getX() - 175)/10;
+			if(b.getY() < 500 && mouseDrag && !oscillation)
+				masses.get(0).y_pos = -((int) b.getY() - 265)/10; 
+			arrays.loadMasses(masses); 
+			springs.accelerations(arrays, 0); //kx from both neighbours and air resistance 
+		}
+		for (int ii = 0; ii < masses.size() && !implicit; ii++) { //step through arraylist of masses
 			masses.get(ii).deltaT = timeStep; //set the time step (important if scaling time) 
-			masses.get(ii).forces.clear(); //clear old forces
-			masses.get(ii).forces.removeAll(masses.get(ii).forces); 
+			fx[ii] = masses.get(ii).mass*arrays.ax[ii]; //forces from the kernel 
+			fy[ii] = masses.get(ii).mass*arrays.ay[ii]; 
 			//add force of gravity (weight)
 			if(!oscillation && hasGravity) //gravity ignored if oscillating horizontally
-				masses.get(ii).forces.add(new Force(masses.get(ii).mass*g, -90, "mg of spring " + ii)); 
+				fy[ii] -= masses.get(ii).mass*g; 
 
-			//needed to calculate upward kx and downward kx
+			//wind (and the plane's pull and friction)
 			addForces(ii); 
 			//sum forces
-			double xSum = sumForces(masses.get(ii).forces, 0); 
-			if(Math.abs(xSum) < 0.005) //gets rid of imperfections in rounding with trig 
+			double xSum = fx[ii]; 
+			if(Math.abs(xSum) < 0.005) //gets rid of imperfections in rounding 
 				xSum = 0; 
-			double ySum = sumForces(masses.get(ii).forces, 1);
-			if(Math.abs(ySum) < 0.005) //gets rid of imperfections in rounding with trig 
+			double ySum = fy[ii];
+			if(Math.abs(ySum) < 0.005) //gets rid of imperfections in rounding 
 				ySum = 0; 
 			//divide by mass to get acceleration (Newton's 2nd Law)
 			if(oscillation) {
@@ -178,12 +194,6 @@ public class ForceSpringApp extends AbstractSimulation {
 				}
 			}
 			else {
-				//finds if mouse is within important coordinates
-				if(b.getX() < 500 && mouseDrag && !oscillation) //sets position of 1st particle based on mouse pos
-					masses.get(0).x_pos = ((int) b.getX() - 175)/10;
-				if(b.getY() < 500 && mouseDrag && !oscillation)
-					masses.get(0).y_pos = -((int) b.getY() - 265)/10; 
-
 				masses.get(ii).acc_x = xSum/masses.get(ii).mass; //set accelerations 
 				masses.get(ii).acc_y = ySum/masses.get(ii).mass;
 				if(ii == 0 && !mouseDrag && !slinky_drop){
@@ -206,7 +216,7 @@ public class ForceSpringApp extends AbstractSimulation {
 			human.forces.add(new Force(human_mass, -90, "Human's mass")); */
 			frame.addDrawable(human); 
 		}
-		for (int ii = 0; ii < masses.size(); ii++) {
+		for (int ii = 0; ii < masses.size() && !implicit; ii++) {
 			if(!playNote)
 				masses.get(ii).Step(frame, true); //must step each simulated mass (to refresh frame) 
 			else 
@@ -230,6 +240,23 @@ public class ForceSpringApp extends AbstractSimulation {
 		plotX.append(1, masses.get(masses.size()-2).time, masses.get(masses.size()-2).getX());
 	}
 
+	/**
+	 * Moves the whole spring one time step with the implicit integrator. Gravity, wind and 
+	 * air resistance are the same as in the explicit step; the top mass is held unless the 
+	 * slinky is dropping. This is stable for any k and time step, so long or stiff springs 
+	 * do not need a tiny time step. 
+	 */
+	void stepImplicit(){
+		chain.load(masses); 
+		chain.fixed[0] = !slinky_drop; //top of the spring is held 
+		chain.step(timeStep, hasGravity ? g : 0, wind_v*Math.cos(Math.toRadians(wind_d)), wind_v*Math.sin(Math.toRadians(wind_d)), alpha); 
+		chain.store(masses, timeStep); 
+		if(!playNote){
+			for (int ii = 0; ii < masses.size(); ii++) 
+				frame.addDrawable(masses.get(ii)); 
+		}
+	}
+
 	double scaleCount = 0; //scales appropriately 
 
 	void driveMass(double massNum){
@@ -331,10 +358,22 @@ public class ForceSpringApp extends AbstractSimulation {
 		double_pend = control.getBoolean("Double"); 
 		scale = control.getBoolean("Scale"); 
 		voice = control.getBoolean("Voice"); 
+		String integrator = control.getString("Integrator").trim().toLowerCase(); //explicit, implicit, or midpoint 
+		if(integrator.startsWith("implicit") || integrator.startsWith("backward"))
+			chain = new SpringChain(k, restLength, SpringChain.BACKWARD_EULER); 
+		else if(integrator.startsWith("midpoint"))
+			chain = new SpringChain(k, restLength, SpringChain.MIDPOINT); 
+		else
+			chain = null; 
+		springs = ForceLaw.compose("hooke " + k + " " + restLength + " + drag"); //springs and drag in one kernel 
+		for (int ii = 0; ii < springNum - 1; ii++)
+			springs.link(ii, ii + 1); //mass ii is joined to the next one 
 
 		wind_v = control.getDouble("Wind Force"); //wind force and direction 
 		wind_d = control.getDouble("Wind Direction"); 
 		//set radius of particles, add to the spring array list
+		fx = new double[springNum]; 
+		fy = new double[springNum]; 
 		for (int ii = 0; ii < springNum; ii++) {
 			masses.add(new Mass(0/*time*/)); 
 			masses.get(ii).pixRadius = 3; 
@@ -427,6 +466,7 @@ public class ForceSpringApp extends AbstractSimulation {
 			}
 			frame.addDrawable(masses.get(ii));
 			masses.get(ii).orig_x = masses.get(ii).x_pos; 
+			masses.get(ii).airResistance = false; //drag comes from the force kernel 
 		}
 
 		if(largeMass != mass)
@@ -502,6 +542,7 @@ public class ForceSpringApp extends AbstractSimulation {
 		control.setValue("Double", false); 
 		control.setValue("Scale", false); 
 		control.setValue("Voice", false);
+		control.setValue("Integrator", "explicit"); //explicit, implicit (backward Euler), or midpoint (implicit midpoint) 
 
 		frame.clearData();
 		frame.clearDrawables();
@@ -601,41 +642,28 @@ public class ForceSpringApp extends AbstractSimulation {
 	}
 
 	/**
-	 * Adds all forces on a particular mass - wind, upward kx, downward kx, and the mass. 
-	 * It calculates the correct angle and distance for the force. 
+	 * Adds the forces on a particular mass that are not in the force kernel - wind, and the pull 
+	 * of the inclined plane and its friction. The forces are added straight into the mass's entries 
+	 * of fx and fy (no Force objects). The springs (upward and downward kx) and air resistance come 
+	 * from the kernel (springs). 
 	 * 
 	 * @param ii
 	 * 	The number of the mass used to sum forces. 
 	 */
 	public void addForces(int ii){
-		double upAng, downAng; //angle with mass above, mass below
-		double upMag = 0, downMag = 0; //magnitude of force above, below
-
-		//add downward kx
-		if(ii != springNum-1){ //the last spring does not have a downward kx
-			double dist = dist(masses.get(ii), masses.get(ii+1)); //distance for spring force
-
-			downMag = k*(dist-restLength); //calculate kx
-			downAng = calcAng(masses.get(ii), masses.get(ii+1)); //calculate angle between two masses 
-			masses.get(ii).forces.add(new Force(downMag, downAng, "DOWN kx between spring " + ii + " and " + (ii+1))); //add as force
-		}
-		//add upward kx
-		if(ii != 0){ //the first spring does not have an upward kx 
-			double dist = dist(masses.get(ii), masses.get(ii-1)); //distance for spring force
-
-			upMag = k*(dist-restLength); //calculate kx
-			upAng = calcAng(masses.get(ii), masses.get(ii-1)); //calculate angle between two masses
-			masses.get(ii).forces.add(new Force(upMag, upAng, "UP kx between spring " + ii + " and " + (ii-1))); //add as force
-		}
-		masses.get(ii).forces.add(new Force(wind_v, wind_d, "Wind Force")); //add wind force - does not matter if wind is 0 (just 0 force)
+		//add wind force - does not matter if wind is 0 (just 0 force)
+		fx[ii] += wind_v*Math.cos(Math.toRadians(wind_d)); 
+		fy[ii] += wind_v*Math.sin(Math.toRadians(wind_d)); 
 		if(plane && ii == springNum-1){
-			masses.get(springNum-1).forces.add(new Force(masses.get(springNum-1).mass*g*Math.sin(Math.toRadians(inc_plane.theta)), 
-					inc_plane.theta*-1, "Mg sin theta")); 
-			double fric_mag = u_k*largeMass*g*Math.cos(Math.toRadians(inc_plane.theta)); 
+			double theta = Math.toRadians(inc_plane.theta); 
+			double down = masses.get(springNum-1).mass*g*Math.sin(theta); //mg sin theta, down the plane 
+			fx[ii] += down*Math.cos(-theta); 
+			fy[ii] += down*Math.sin(-theta); 
+			double fric_mag = u_k*largeMass*g*Math.cos(theta); 
 			if(masses.get(springNum-1).v_x > 0) //friction changes direction based on direction 
-				masses.get(springNum-1).forces.add(new Force(fric_mag, (-inc_plane.theta+180), "Friction Force"));
-			else 
-				masses.get(springNum-1).forces.add(new Force(fric_mag, (-inc_plane.theta), "Friction Force"));
+				fric_mag = -fric_mag; 
+			fx[ii] += fric_mag*Math.cos(-theta); 
+			fy[ii] += fric_mag*Math.sin(-theta); 
 		}
 	}
 }
@@ -20,7 +20,9 @@ import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
+import javax.swing.Timer;
 import javax.swing.colorchooser.ColorSelectionModel;
+import javax.swing.plaf.basic.ComboPopup;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -32,11 +34,18 @@ import javax.swing.event.ChangeListener;
  * Global simulation properties can also be set - the time step, the collision type, and the gravitational 
  * constant can also be altered by the user. 
  * 
- * The Controller includes a private class Entry that is used to create the list of items within the 
- * JComboBox. 
+ * The JComboBox and the table in the Data tab read the particles from the snapshot on show as they are 
+ * painted (ParticleListModel, ParticleTableModel), so a new snapshot costs the same for a hundred thousand 
+ * particles as for two: only the rows in view are redrawn, at most every REFRESH_RATE ms. 
  * 
+ * The controller never touches the simulation's particles: it shows the Snapshots the simulation hands it 
+ * through a StateExchange (checked by a Swing timer, so it shows live values while the simulation runs) 
+ * and sends every change back as an Edit. 
+ * 
+ * @method update 
+ * 	Shows the latest snapshot from the simulation. 
  * @method refresh 
- * 	Refreshes data in the JTextFields when simulation is paused by user. 
+ * 	Refreshes data in the JTextFields. 
  * @method setEditable 
  * 	Allows user to edit all text fields. 
  * @method setUnEditable 
@@ -46,7 +55,7 @@ import javax.swing.event.ChangeListener;
  * @method init 
  * 	Initializes the JFrame by adding and setting textfields, color chooser, and buttons. 
  * @method redraw 
- * 	Redraws the JFrame when the number of particles is changed (one is added or deleted). 
+ * 	Lays out the components of the JFrame. 
  * 
  * TODO: 
  * 1. Add dyanmic name changing of masses. [DONE] 
@@ -56,97 +65,116 @@ import javax.swing.event.ChangeListener;
  * @author Andrew M.
  */
 public class Gen_Cont extends JFrame implements ActionListener {
-	JComboBox combo = new JComboBox();
+	ParticleListModel names = new ParticleListModel(); //entries in JComboBox
+	ParticleTableModel rows = new ParticleTableModel(); //rows of the Data tab 
+	JComboBox<String> combo = new JComboBox<String>(names);
+	JTable table = new JTable(rows); //cells are read from the snapshot as they are painted 
 	JPanel selector = new JPanel();
 	JPanel text = new JPanel();
 	//components to select, edit, and view properties of masses 
-	ArrayList<Particle> particles = new ArrayList<Particle>();
+	StateExchange exchange; //snapshots from the simulation, edits to it 
+	Snapshot state = new Snapshot(); //snapshot on show 
+	Timer timer = new Timer(REFRESH_RATE, this); //checks for new snapshots 
 	ArrayList<JTextField> fields = new ArrayList<JTextField>();
 	ArrayList<JButton> buttons = new ArrayList<JButton>();
 	JColorChooser colorChooser = new JColorChooser();
-	ArrayList<Entry> entries = new ArrayList<Entry>(); //entries in JComboBox
 	private	JTabbedPane tabbedPane = new JTabbedPane();
 
-	protected boolean DATA_CHANGE = false; //tells simulator whether properties have been changed 
+	protected static final int REFRESH_RATE = 100; //ms between checks for a new snapshot 
 	protected boolean DEBUG_MODE = false;
-	protected boolean G_CHANGE = false;
-	protected boolean T_CHANGE = false;
-	protected boolean canRead = false;
-	protected double G;
 	protected int[] dimensions = new int[] { 700, 850 };
-	protected int TIME_STEP; 
 	protected int current_particle; //to reset data in fields, know which particle to alter 
+	private long changes = -1; //changes of the snapshot on show 
+	private boolean running = false; //whether the snapshot on show was of a running simulation 
 
-	private ParticleWriter writer = new ParticleWriter("/users/student/Desktop/orbital.txt"); 
-	public ArrayList<Particle> loaded = new ArrayList<Particle>(); 
-	protected boolean load = false; 
 	JFileChooser chooser = new JFileChooser();
 
 	/**
 	 * Creates new Particle controller. 
 	 * 
-	 * @param list
-	 * 	List of particles to extract data from. 
+	 * @param exchange
+	 * 	Exchange the simulation publishes its state to (and takes edits from). 
 	 */
-	public Gen_Cont(ArrayList<Particle> list) {
+	public Gen_Cont(StateExchange exchange) {
 		combo.addActionListener(this);
 		combo.setActionCommand("selection");
-		this.particles = (ArrayList<Particle>) list.clone(); //give the particles to this controller. 
+		this.exchange = exchange; 
+		timer.setActionCommand("update");
 	}
 
 	/**
-	 * Reloads data in text boxes. 
-	 * 
-	 * @param orbit
-	 * 	Simulation with particle data (needed for time step, G). 
+	 * Shows the latest snapshot from the simulation (on the Swing thread, called by the timer). While the 
+	 * simulation runs the fields show live values; while it is paused they are only refreshed when the 
+	 * particles have been changed, so they do not overwrite what the user is typing. 
 	 */
-	public void refresh(Gen_Sim orbit, boolean set) {
-		//only reload if particle within ArrayList.
-		if(set){
-			this.particles = orbit.bodies;
+	public void update() {
+		Snapshot s = exchange.latest(); 
+		if (s == state || s.version == 0) 
+			return; //nothing new 
+		boolean started = s.running != running || changes < 0; 
+		boolean changed = s.changes != changes; 
+		state = s; //the old one is the simulation's again 
+		running = s.running; 
+		changes = s.changes; 
+		if (current_particle >= s.n)
 			current_particle = 0; 
+		names.show(s, changed); 
+		rows.show(s, table, s.running || changed); 
+		if (changed)
+			names.select(current_particle); //keep the one being edited 
+		if (started) {
+			if (s.running)
+				setUnEditable(); //no edits allowed 
+			else 
+				setEditable(); //allow user to edit Particle properties 
 		}
-		if (current_particle < particles.size()) {
-			fields.get(0).setText(particles.get(current_particle).real_name); //set fields to particle's data 
-			fields.get(1).setText("" + particles.get(current_particle).mass);
-			fields.get(2).setText("" + particles.get(current_particle).x_pos);
-			fields.get(3).setText("" + particles.get(current_particle).y_pos);
-			fields.get(4).setText("" + particles.get(current_particle).v_x);
-			fields.get(5).setText("" + particles.get(current_particle).v_y);
-			fields.get(6).setText("" + particles.get(current_particle).acc_x);
-			fields.get(7).setText("" + particles.get(current_particle).acc_y);
-			fields.get(8).setText("" + orbit.TIME_STEP); //set time step and G
-			fields.get(9).setText("" + orbit.G);
-
-			set_colors(); 
+		if (s.running || changed || started)
+			refresh(); 
+	}
+
+	/**
+	 * Reloads data in text boxes from the snapshot on show. 
+	 */
+	public void refresh() {
+		//only reload if particle within snapshot.
+		if (current_particle < state.n) {
+			fields.get(0).setText(state.names[current_particle]); //set fields to particle's data 
+			fields.get(1).setText("" + state.mass[current_particle]);
+			fields.get(2).setText("" + state.x[current_particle]);
+			fields.get(3).setText("" + state.y[current_particle]);
+			fields.get(4).setText("" + state.vx[current_particle]);
+			fields.get(5).setText("" + state.vy[current_particle]);
+			fields.get(6).setText("" + state.ax[current_particle]);
+			fields.get(7).setText("" + state.ay[current_particle]);
+			fields.get(8).setText("" + state.timeStep); //set time step and G
+			fields.get(9).setText("" + state.G);
+
+			set_colors(state.color[current_particle]); 
 		}
-		setup_data_tab(true); 
 		repaint(); //now reload JFrame
 	}
 
 	/**
 	 * Set color of fields. 
 	 */
-	private void set_colors(){
-		fields.get(0).setBackground(particles.get(current_particle).color); 
-		fields.get(1).setBackground(particles.get(current_particle).color); 
-		fields.get(2).setBackground(particles.get(current_particle).color); 
-		fields.get(3).setBackground(particles.get(current_particle).color); 
-		fields.get(4).setBackground(particles.get(current_particle).color); 
-		fields.get(5).setBackground(particles.get(current_particle).color); 
-		fields.get(6).setBackground(particles.get(current_particle).color); 
-		fields.get(7).setBackground(particles.get(current_particle).color); 
-		fields.get(8).setBackground(particles.get(current_particle).color); 
-		fields.get(9).setBackground(particles.get(current_particle).color); 
+	private void set_colors(Color color){
+		fields.get(0).setBackground(color); 
+		fields.get(1).setBackground(color); 
+		fields.get(2).setBackground(color); 
+		fields.get(3).setBackground(color); 
+		fields.get(4).setBackground(color); 
+		fields.get(5).setBackground(color); 
+		fields.get(6).setBackground(color); 
+		fields.get(7).setBackground(color); 
+		fields.get(8).setBackground(color); 
+		fields.get(9).setBackground(color); 
 	}
 
 	/**
-	 * Sets up data tab of JFrame. 
+	 * Sets up data tab of JFrame (once: the table reads the snapshots itself). 
 	 */
-	public void setup_data_tab(boolean refresh){
+	public void setup_data_tab(){
 		int selected = tabbedPane.getSelectedIndex(); //to put it back where you were before table is redrawn
-		if(refresh)
-			tabbedPane.removeTabAt(1);
 		JPanel dataTab = new JPanel(new FlowLayout()); 
 		dataTab.add(data()); 
 		dataTab.add(buttons.get(14)); //add write to file button
@@ -241,8 +269,8 @@ public class Gen_Cont extends JFrame implements ActionListener {
 		ColorSelectionModel model = colorChooser.getSelectionModel();
 		ChangeListener changeListener = new ChangeListener() {
 			public void stateChanged(ChangeEvent changeEvent) {
-				particles.get(current_particle).color = colorChooser.getColor();
-				set_colors(); 
+				exchange.submit(new Edit(Edit.COLOR, current_particle, colorChooser.getColor()));
+				set_colors(colorChooser.getColor()); 
 			}
 		};
 		model.addChangeListener(changeListener);
@@ -280,13 +308,10 @@ public class Gen_Cont extends JFrame implements ActionListener {
 
 		setSize(dimensions[0], dimensions[1]); 
 		redraw(); 
+		timer.start(); 
 	}
 
 	boolean collide = false; 
-	boolean addMass = false; 
-	boolean prove_one = false;
-	boolean prove_two = false;
-	boolean prove_three = false;
 
 	/* (non-Javadoc)
 	 * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
@@ -295,48 +320,48 @@ public class Gen_Cont extends JFrame implements ActionListener {
 	 */
 	public void actionPerformed(ActionEvent e) {
 		String command = e.getActionCommand();
-		if (canRead) {
+		if (command.equals("update")) { //timer 
+			update(); 
+			return; 
+		}
+		if (!state.running) { //edits only while paused 
 			if (command.equals("name")) { //sort by action type 
-				particles.get(current_particle).real_name = fields.get(0).getText();
-				particles.get(current_particle).name = "Particle ["+ (particles.size() - 1) + "]: "+ particles.get(current_particle).real_name;
-				entries.get(current_particle).title = particles.get(current_particle).name;
-				redraw();
-				combo.setSelectedIndex(current_particle); //set to one you just renamed 
+				exchange.submit(new Edit(Edit.NAME, current_particle, fields.get(0).getText()));
 				if (DEBUG_MODE)
-					System.out.println("NAME CHANGED TO " + particles.get(current_particle).name);
+					System.out.println("NAME CHANGED TO " + fields.get(0).getText());
 			}
 			if (command.equals("mass")) {
-				particles.get(current_particle).mass = Double.parseDouble(fields.get(1).getText());
+				exchange.submit(new Edit(Edit.MASS, current_particle, Double.parseDouble(fields.get(1).getText())));
 				if (DEBUG_MODE)
 					System.out.println("MASS CHANGED");
 			}
 			if (command.equals("x")) {
-				particles.get(current_particle).x_pos = Double.parseDouble(fields.get(2).getText());
+				exchange.submit(new Edit(Edit.X, current_particle, Double.parseDouble(fields.get(2).getText())));
 				if (DEBUG_MODE)
 					System.out.println("X CHANGED");
 			}
 			if (command.equals("y")) {
-				particles.get(current_particle).y_pos = Double.parseDouble(fields.get(3).getText());
+				exchange.submit(new Edit(Edit.Y, current_particle, Double.parseDouble(fields.get(3).getText())));
 				if (DEBUG_MODE)
 					System.out.println("Y CHANGED");
 			}
 			if (command.equals("vx")) {
-				particles.get(current_particle).v_x = Double.parseDouble(fields.get(4).getText());
+				exchange.submit(new Edit(Edit.VX, current_particle, Double.parseDouble(fields.get(4).getText())));
 				if (DEBUG_MODE)
 					System.out.println("VX CHANGED");
 			}
 			if (command.equals("vy")) {
-				particles.get(current_particle).v_y = Double.parseDouble(fields.get(5).getText());
+				exchange.submit(new Edit(Edit.VY, current_particle, Double.parseDouble(fields.get(5).getText())));
 				if (DEBUG_MODE)
 					System.out.println("VY CHANGED");
 			}
 			if (command.equals("ax")) {
-				particles.get(current_particle).acc_x = Double.parseDouble(fields.get(6).getText());
+				exchange.submit(new Edit(Edit.AX, current_particle, Double.parseDouble(fields.get(6).getText())));
 				if (DEBUG_MODE)
 					System.out.println("AX CHANGED");
 			}
 			if (command.equals("ay")) {
-				particles.get(current_particle).acc_y = Double.parseDouble(fields.get(7).getText());
+				exchange.submit(new Edit(Edit.AY, current_particle, Double.parseDouble(fields.get(7).getText())));
 				if (DEBUG_MODE)
 					System.out.println("AY CHANGED");
 			}
@@ -344,47 +369,34 @@ public class Gen_Cont extends JFrame implements ActionListener {
 				String text = combo.getSelectedItem().toString();
 				String result = text.substring(text.indexOf("[") + 1, text.indexOf("]"));
 				current_particle = Integer.parseInt(result);
+				refresh(); 
 			}
 			if (command.equals("del")) {
-				if (particles.size() != 1) {
-					particles.remove(current_particle);
-					combo.removeItemAt(current_particle);
-
-					redraw();
+				if (state.n != 1) {
+					exchange.submit(new Edit(Edit.DELETE, current_particle, 0.0));
 					current_particle = 0; //reset to first particle 
-					repaint();
-
-					this.DATA_CHANGE = true;
-					return;
 				} else {
 					if(DEBUG_MODE)
-						System.out.println("Deletion failed; size of bodies is " + particles.size());
+						System.out.println("Deletion failed; size of bodies is " + state.n);
 				}
 			}
 			if (command.equals("add")) {
 				//add a new particle 
-				particles.add(new Particle()); 
-				entries.add(new Entry("Particle [" + (particles.size() - 1) + "]: " + particles.get(particles.size() - 1).name));
-				// better way to set time step
-				particles.get(particles.size() - 1).init(0, 0, 0, 0, particles.get(0).deltaT, 0);
-				particles.get(particles.size() - 1).name = "Particle #" + (particles.size() - 1);
-				combo.addItem("Particle [" + (particles.size() - 1) + "]: " + particles.get(particles.size() - 1).name);
-				addMass = true; 
+				exchange.submit(new Edit(Edit.ADD));
 				if (DEBUG_MODE)
-					System.out.println("ADDED MASS " + (particles.size() - 1));
+					System.out.println("ADDED MASS " + state.n);
 			}
 			if (command.equals("time")) {
 				//set the new time step 
 				int newTime = (int) Double.parseDouble(fields.get(8).getText());
-				TIME_STEP = newTime;
-				T_CHANGE = true;
+				exchange.submit(new Edit(Edit.TIME_STEP, 0, newTime));
 				if (DEBUG_MODE)
 					System.out.println("TIME STEP CHANGED to " + newTime);
 			}
 			if (command.equals("G")) {
 				//set new g constant 
-				G = Double.parseDouble(fields.get(9).getText());
-				G_CHANGE = true;
+				double G = Double.parseDouble(fields.get(9).getText());
+				exchange.submit(new Edit(Edit.GRAV, 0, G));
 				if (DEBUG_MODE)
 					System.out.println("G CHANGED to " + G);
 			}
@@ -399,22 +411,20 @@ public class Gen_Cont extends JFrame implements ActionListener {
 					buttons.get(16).setBackground(Color.RED);
 					buttons.get(16).setOpaque(true);
 				}
+				exchange.submit(new Edit(Edit.COLLIDE, 0, collide ? 1 : 0));
 				if (DEBUG_MODE)
 					System.out.println("Coll changed to " + this.collide);
 			}
 			if(command.equals("ell")){
-				this.prove_one = true; 
+				exchange.submit(new Edit(Edit.PROVE_ONE)); 
 			}
 			if (command.equals("write")) {
 				//write stuff to file
-				ParticleWriter.write(SimulationState.simState(particles) + "\n"); //write to file 
+				exchange.submit(new Edit(Edit.WRITE)); 
 			}
 			if (command.equals("save")) {
 				//save sim state to file 
-				ParticleWriter save_writer = new ParticleWriter("/users/student/Desktop/" + fields.get(10).getText() + ".orb", true); 
-				save_writer.writeNew(SimulationState.saveState(particles, 
-						Double.parseDouble(fields.get(8).getText()), 
-						Double.parseDouble(fields.get(9).getText()) )); //write to file simulation state 
+				exchange.submit(new Edit(Edit.SAVE, 0, "/users/student/Desktop/" + fields.get(10).getText() + ".orb")); 
 			}
 			if (command.equals("load")) {
 				//load from file 
@@ -426,28 +436,18 @@ public class Gen_Cont extends JFrame implements ActionListener {
 				int result = chooser.showSaveDialog(this);
 				if (result == JFileChooser.APPROVE_OPTION) {
 					choose.dispose(); 
-					loaded.removeAll(loaded); 
-					loaded.clear(); 
 					System.out.println(chooser.getSelectedFile().getAbsolutePath());
 					String file_name = chooser.getSelectedFile().getAbsolutePath();
 
 					try {
 						if(DEBUG_MODE)
 							System.out.println("Loading...");
-						loaded.clear(); 
-						loaded = (ArrayList<Particle>) (new ParticleReader(file_name)).particles.clone();
-						this.particles = (ArrayList<Particle>) loaded.clone(); 
-						G = (new ParticleReader(file_name)).G;
-						TIME_STEP = (int) (new ParticleReader(file_name)).dT; 
-						//TIME_STEP = (int) 1E7; 
-						T_CHANGE = true; 
-						G_CHANGE = true; 
+						exchange.submit(new Edit(Edit.LOAD, 0, new ParticleReader(file_name))); //simulation takes particles, G and time step 
+						current_particle = 0; 
 						System.out.println("loaded set");
 					} catch (IOException e1) {
 						e1.printStackTrace();
 					} 
-
-					load = true; 
 				} 
 				else if (result == JFileChooser.CANCEL_OPTION) {
 					if(DEBUG_MODE)
@@ -455,13 +455,12 @@ public class Gen_Cont extends JFrame implements ActionListener {
 					choose.dispose(); //close jframe
 				}
 			}
-			this.DATA_CHANGE = true; //orbit will refresh 
 		}
 	}
 	JPanel all = new JPanel(); //contains all the components before they are added to the Controller 
 
 	/**
-	 * Re-adds all items to JComboBox, refreshes text field data, and re-adds all to JFrame. 
+	 * Re-adds the JComboBox, text fields and buttons to the JFrame. 
 	 */
 	public void redraw() {
 		int[] prevsize = new int[] { getWidth(), getHeight() }; //maintain size 
@@ -469,7 +468,6 @@ public class Gen_Cont extends JFrame implements ActionListener {
 		combo.removeAll();
 		remove(all); //get rid of old components
 
-		combo = new JComboBox(); 
 		selector = new JPanel();
 		text = new JPanel();
 		all = new JPanel();
@@ -478,17 +476,12 @@ public class Gen_Cont extends JFrame implements ActionListener {
 		selector.setLayout(new FlowLayout());
 		text.setLayout(new GridLayout(0, 2));
 
-		entries.removeAll(entries);
-		for (int ii = 0; ii < particles.size(); ii++) { //refresh the entries
-			entries.add(new Entry("Particle [" + ii + "]: " + particles.get(ii).real_name));
-			if (DEBUG_MODE)
-				System.out.println("Renaming " + particles.get(ii).name + " to " + entries.get(ii).title);
-			particles.get(ii).name = entries.get(ii).toString();
-		}
-		combo = new JComboBox();
-		for (Entry e : entries) {
-			combo.addItem(e.toString());
-		}
+		combo = new JComboBox<String>(names); //entries come from the snapshot 
+		combo.setPrototypeDisplayValue(ParticleListModel.PROTOTYPE); //no need to measure every entry 
+		Object popup = combo.getUI().getAccessibleChild(combo, 0); 
+		if (popup instanceof ComboPopup)
+			((ComboPopup) popup).getList().setPrototypeCellValue(ParticleListModel.PROTOTYPE); //nor for the drop-down list 
+		combo.setEnabled(!state.running);
 
 		combo.addActionListener(this);
 		combo.setActionCommand("selection");
@@ -550,33 +543,13 @@ public class Gen_Cont extends JFrame implements ActionListener {
 		remove(tabbedPane); 
 		tabbedPane = new JTabbedPane();
 		tabbedPane.addTab("Particles", all);
-		setup_data_tab(false); 
+		setup_data_tab(); 
 		add(tabbedPane);
 		pack();
 		setSize(prevsize[0], prevsize[1]);
 	}
 
 	private JPanel data(){
-		String columnNames[] = { "#", "Name", "X" , "Y", "Mass", "V_x", "V_y", "Acc_x", "Acc_y", "Force"};
-		String dataValues[][] = new String[particles.size()][columnNames.length];
-		for (int ii = 0; ii < dataValues.length; ii++) { //add values to the string[][] of data for table
-			dataValues[ii][0] = "" + ii; //number particle
-			dataValues[ii][1] = particles.get(ii).real_name; 
-			dataValues[ii][2] = "" + particles.get(ii).x_pos; 
-			dataValues[ii][3] = "" + particles.get(ii).y_pos; 
-			dataValues[ii][4] = "" + particles.get(ii).mass; 
-			dataValues[ii][5] = "" + particles.get(ii).v_x; 
-			dataValues[ii][6] = "" + particles.get(ii).v_y; 
-			dataValues[ii][7] = "" + particles.get(ii).acc_x; 
-			dataValues[ii][8] = "" + particles.get(ii).acc_y;
-			dataValues[ii][9] = "" + (particles.get(ii).mass)*(particles.get(ii).vector(particles.get(ii).acc_x, particles.get(ii).acc_y)); //add force by F = ma
-		}
-		JTable table = new JTable(dataValues, columnNames){  
-			public boolean isCellEditable(int row, int column){  
-				return false; //cannot edit the table - user edits via tab 1
-			}  
-		};
-		table.setPreferredSize(new Dimension(750, 500));
 		table.getColumnModel().getColumn(0).setPreferredWidth(36); //#
 		table.getColumnModel().getColumn(1).setPreferredWidth(90); //name
 		table.getColumnModel().getColumn(2).setPreferredWidth(100); //x 
@@ -589,35 +562,13 @@ public class Gen_Cont extends JFrame implements ActionListener {
 		table.getColumnModel().getColumn(9).setPreferredWidth(100); //F
 
 		JScrollPane scrollPane = new JScrollPane(table); //can scroll the table 
+		scrollPane.setPreferredSize(new Dimension(750, 500));
 		JPanel panel = new JPanel(new FlowLayout());
 		panel.add(scrollPane);  
 
 		return panel; 
 	}
 
-	/**
-	 * Used for each entry in the JComboBox selector for masses. 
-	 * Every entry contains a title. 
-	 * 
-	 * @author Andrew M. 
-	 */
-	private class Entry {
-		String title = ""; 
-
-		/**
-		 * Create new entry. 
-		 * 
-		 * @param title
-		 * 	Entry's name. 
-		 */
-		public Entry(String title) {
-			this.title = title;
-		}
-
-		public String toString() {
-			return title; //returns name of entry 
-		}
-	}
 	private class MyFilter extends javax.swing.filechooser.FileFilter {
 		public boolean accept(File file) {
 			String filename = file.getName();
@@ -33,22 +33,38 @@ import org.opensourcephysics.frames.DisplayFrame;
  * DisplayFrame for graphics (it provides an excellent graphing frame to display the particles). Instead 
  * of running an OSP AbstractSimulation, a Java Executor is used to choose a simulation speed. 
  * 
+ * The controller runs on the Swing thread and never touches the particles: the simulation hands it a 
+ * snapshot of the bodies through a StateExchange after each step (a few times a second at most) and 
+ * applies the edits it queues at the start of the next one (apply_edits). 
+ * 
  * @method run 
  * 	Runs simulation by stepping particles or, if stopped, dealing with controller. 
+ * @method apply_edits 
+ * 	Applies the edits queued by the controller. 
  * @method stop 
  * 	Toggles start/stop. 
  * @method add_particles 
  * 	Adds all particles to simulation. 
  * @method clear_trails 
  * 	Clears trails on screen (can slow down sim). 
+ * @method toggle_integrator 
+ * 	Switches between stepping each particle and the Wisdom-Holman map (WisdomHolman). 
+ * @method toggle_metrics 
+ * 	Turns the printed step metrics (StepMetrics) on or off. 
+ * @method toggle_energy 
+ * 	Cycles the energy and momentum drift monitor (EnergyMonitor) through off, watch and adapt. 
  * @method pastel 
  * 	Returns pleasing pastel color.  
  * @method move_bodies 
  * 	Steps particles. 
  * @method checkCollision 
  * 	Checks if collision occurred between two particles. 
+ * @method touching 
+ * 	Checks if two particles are close enough to collide (real collisions). 
  * @method setCollision
  * 	Responds to collision (sets new velocities, directions). 
+ * @method check_energy 
+ * 	Measures energy and momentum drift and applies the monitor's time step. 
  * @method calculate_accelerations 
  *  Sums all forces and calculates accelerations of particles. 
  * @method grav_force 
@@ -76,7 +92,9 @@ public class Gen_Sim implements Runnable {
 	 * An ArrayList of all the particles in the simulation. Particles can be added and deleted dynamically. 
 	 */
 	protected ArrayList<Particle> bodies = new ArrayList<Particle>();
+	protected MergeEvents merges = new MergeEvents(); //inelastic collisions of the current pass 
 	protected Gen_Cont control;
+	protected StateExchange exchange = new StateExchange(); //snapshots to the controller, edits from it 
 
 	protected double g = 9.803; // gravity constant
 	protected double G = 6.67384E-11; //universal gravitational constant
@@ -107,73 +125,37 @@ public class Gen_Sim implements Runnable {
 	List<List<String>> perms = new ArrayList<List<String>>(); ; 
 	ArrayList<Integer> indices = new ArrayList<Integer>();
 	Multi_Bary mb = new Multi_Bary(bodies); 
+	BodyArrays arrays = new BodyArrays(); //primitive copy of bodies for the force calculation 
+	GravitySolver solver = GravitySolver.best(); //SIMD gravity if the CPU/JVM supports it 
+	WisdomHolman wh = null; //Wisdom-Holman integrator (null = each particle steps itself) 
+	StepMetrics metrics = new StepMetrics(); //time spent in each phase of a step 
+	EnergyMonitor energy = new EnergyMonitor(); //energy and momentum drift (off until the Energy button) 
 
 	boolean pone = false; 
 	boolean ptwo = false; 
 	boolean pthree = false; 
+	boolean prove_one = false; //user asked for the ellipses 
 	LawOne one; 
 	boolean plot = false; 
 
 	@Override
 	public void run() {
 		//frame.setBackground(Color.BLACK); //TODO: FIX!!!
+		metrics.begin(); 
+		boolean edited = apply_edits(); 
+		if(edited)
+			energy.restart(); //the energy changed, not by drift 
+		boolean changed = edited | state_changed; //controller needs a new snapshot 
+		state_changed = false;
 		if (stop) { 
 			frame.setTitle("STOPPED"); //say stopped at top
 
-			this.collide = control.collide; 
 			if(plot)
 				for (MyEllipse e : one.ellipses) {
 					e.plot(frame);
 					plot = false; 
 				}
 
-			if (state_changed) {
-				state_changed = false;
-				control.refresh(this, false);
-				control.setEditable(); //allow user to edit Particle properties 
-			}
-			if (control.DATA_CHANGE) { //if user has entered data 
-				if (control.T_CHANGE) { //only if time data has been changed - needs to reset runnable 
-					if (control.DEBUG_MODE) 
-						System.out.println("Time changed to " + TIME_STEP + " executor should reset.");
-					if (control.TIME_STEP > 0) { //cannot set time step to 0
-						this.TIME_STEP = control.TIME_STEP;
-						this.TICK_RATE = (long) this.TIME_STEP;
-					}
-					this.reset_clock(); //resets executor 
-					control.T_CHANGE = false;
-				}
-				if (control.G_CHANGE) { //changed gravitational constant 
-					this.G = control.G;
-					if (DEBUG_MODE) 
-						System.out.println("Real G changed to " + G);
-					control.G_CHANGE = false;
-				}
-				if(control.load){
-					control.load = false; 
-					frame.clearDrawables();
-					bodies.clear(); 
-					this.load(control.loaded); //loads the new particles into the simulation
-
-					for (Particle p : bodies) {
-						if(DEBUG_MODE)
-							System.out.println(p.toString());
-						p.color = pastel(); 
-						//p.pixRadius = 10; 
-					}
-					//this.fix_masses(); 
-				}
-				else {
-					//bodies.clear(); //get rid of these bodies, get updated ones from the controller 
-					bodies = (ArrayList<Particle>) control.particles.clone();
-					control.DATA_CHANGE = false; 
-					control.addMass = false; 
-				}
-				control.DATA_CHANGE = false; //no new data now 
-				add_particles(); //add particles to screen 
-				control.refresh(this, false);
-			}
-			this.control.canRead = true;
 			this.gc = true; 
 		} else {
 			@SuppressWarnings("unused")
@@ -198,14 +180,21 @@ public class Gen_Sim implements Runnable {
 				}
 			}
 			//running simulation 
-			control.setUnEditable(); //no edits allowed 
 			frame.setTitle("RUNNING: View #" + view_num);
-			control.DATA_CHANGE = false;
-			control.canRead = false;
-			calculate_accelerations();
+			metrics.skip(); 
+			boolean check = energy.due(); 
+			arrays.potential = check && wh == null; //potential energy from the force pass 
+			if(wh == null)
+				calculate_accelerations(); //the Wisdom-Holman map works out its own 
+			metrics.lap(StepMetrics.FORCE); 
+			if(check){
+				check_energy(); 
+				metrics.lap(StepMetrics.ENERGY); 
+			}
+			energy.tick(); 
 			move_bodies(frame);
-			if(control.prove_one){
-				control.prove_one = false; 
+			if(prove_one){
+				prove_one = false; 
 				this.pone = !this.pone; 
 				one = new LawOne("x", "y", "z", bodies);
 				one.setVisible(false);
@@ -215,8 +204,11 @@ public class Gen_Sim implements Runnable {
 			}
 			mb.update(bodies);
 			frame.addDrawable(mb);
-			if(this.pone)
+			if(this.pone) {
+				metrics.skip(); 
 				one.Prove(bodies, frame);
+				metrics.lap(StepMetrics.KEPLER); 
+			}
 
 			//add_barycenters(); 
 
@@ -225,9 +217,71 @@ public class Gen_Sim implements Runnable {
 
 		}
 		frame.repaint();
+		metrics.skip(); 
+		if(changed || !stop)
+			exchange.publish(bodies, TIME_STEP, G, !stop, changed); 
+		if(!stop) {
+			metrics.lap(StepMetrics.SNAPSHOT); 
+			metrics.end(bodies.size()); 
+		}
 	}
 	boolean gc = false; 
 
+	/**
+	 * Applies the edits the controller has queued since the last step (on the simulation thread, so nothing 
+	 * is moving while the bodies are changed). 
+	 * 
+	 * @return
+	 * 	Whether there were any. 
+	 */
+	public boolean apply_edits() {
+		boolean changed = false, redraw = false; 
+		Edit e; 
+		while ((e = exchange.poll()) != null) {
+			changed = true; 
+			if (e.apply(bodies)) { //edit to the particles 
+				redraw = true; 
+				continue; 
+			}
+			switch (e.type) {
+			case Edit.TIME_STEP: //needs to reset runnable 
+				if (DEBUG_MODE) 
+					System.out.println("Time changed to " + e.value + " executor should reset.");
+				if (e.value > 0) { //cannot set time step to 0
+					this.TIME_STEP = e.value;
+					this.TICK_RATE = (long) this.TIME_STEP;
+				}
+				this.reset_clock(); //resets executor 
+				break; 
+			case Edit.GRAV: //changed gravitational constant 
+				this.G = e.value;
+				if (DEBUG_MODE) 
+					System.out.println("Real G changed to " + G);
+				break; 
+			case Edit.COLLIDE: 
+				this.collide = e.value != 0; 
+				break; 
+			case Edit.PROVE_ONE: 
+				this.prove_one = true; 
+				break; 
+			case Edit.WRITE: 
+				ParticleWriter.write(SimulationState.simState(bodies) + "\n"); //write to file 
+				break; 
+			case Edit.SAVE: 
+				ParticleWriter save_writer = new ParticleWriter((String) e.object, true); 
+				save_writer.writeNew(SimulationState.saveState(bodies, TIME_STEP, G)); //write to file simulation state 
+				break; 
+			case Edit.LOAD: 
+				this.load((ParticleReader) e.object); //loads the new particles into the simulation
+				redraw = true; 
+				break; 
+			}
+		}
+		if (redraw)
+			add_particles(); //add particles to screen 
+		return changed; 
+	}
+
 	public void fix_masses(){
 		//for (Particle p : this.bodies) {
 		//p.setRadius((int)map(p.mass, EARTH_MASS, 2E27, 1, 4)); 
@@ -306,27 +360,30 @@ public class Gen_Sim implements Runnable {
 		return bytes / MEGABYTE;
 	}
 
-	public void load(ArrayList<Particle> loaded){
-		bodies = (ArrayList<Particle>) control.loaded.clone(); 
+	/**
+	 * Replaces the particles with ones read from a file, and takes its time step and G. 
+	 * 
+	 * @param loaded
+	 * 	Reader that has read the file. 
+	 */
+	public void load(ParticleReader loaded){
+		frame.clearDrawables();
+		bodies.clear(); 
+		bodies.addAll(loaded.particles); 
+		Edit.rename(bodies); 
 		for (Particle p : bodies) {
-			frame.addDrawable(p); 
+			if(DEBUG_MODE)
+				System.out.println(p.toString());
+			p.color = pastel(); 
+			//p.pixRadius = 10; 
 		}
-		//System.out.println("resetting");
-
-		try {
-			Thread.sleep(1000);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} 
-
-		control.dispose(); 
-		control = new Gen_Cont(this.bodies);
-		control.init();
-		control.setSize(FRAME_DIMENSIONS[0] + 100, FRAME_DIMENSIONS[1]);
-		control.dimensions = FRAME_DIMENSIONS;
-		control.setLocation(650, 0); 
-		control.setVisible(true);
-		control.refresh(this, true);
+		//this.fix_masses(); 
+		this.G = loaded.G; 
+		if (loaded.dT > 0) {
+			this.TIME_STEP = loaded.dT;
+			this.TICK_RATE = (long) this.TIME_STEP;
+		}
+		this.reset_clock(); 
 		System.out.println("loaded");
 	}
 
@@ -366,6 +423,35 @@ public class Gen_Sim implements Runnable {
 		stop = !stop;
 	}
 
+	/**
+	 * Method for button on DisplayFrame: switches between stepping each particle on its own and the 
+	 * Wisdom-Holman map around the heaviest body, which allows much larger time steps for a star and 
+	 * its planets. 
+	 */
+	public void toggle_integrator(){
+		wh = wh == null ? new WisdomHolman(solver) : null; 
+		System.out.println("Integrator: " + (wh == null ? "particle steps" : wh)); 
+	}
+
+	/**
+	 * Method for button on DisplayFrame: cycles the energy monitor from off to watching the drift of 
+	 * energy and momentum (printed every EnergyMonitor.REPORT_INTERVAL, with a warning when it is over 
+	 * budget) to also adapting the time step to the budget, and back to off. 
+	 */
+	public void toggle_energy(){
+		energy.mode = (energy.mode + 1) % 3; //checks start over at the next step 
+		System.out.println("Energy monitor " + EnergyMonitor.MODES[energy.mode]); 
+	}
+
+	/**
+	 * Method for button on DisplayFrame: prints the time spent in each phase of a step every 
+	 * StepMetrics.REPORT_INTERVAL (or stops printing it). 
+	 */
+	public void toggle_metrics(){
+		metrics.print = !metrics.print; //histograms start over at the next step 
+		System.out.println("Step metrics " + (metrics.print ? "on" : "off")); 
+	}
+
 	/**
 	 * Toggle trails off and on in simulation. 
 	 */
@@ -452,6 +538,9 @@ public class Gen_Sim implements Runnable {
 		orbit.frame.addButton("clear_trails", "Clear Trails", "Clear Trail Points", orbit);
 		orbit.frame.addButton("set_view", "Change View", "Change Viewpoint", orbit);
 		orbit.frame.addButton("toggle_trails", "Toggle Trails", "Turn trails on or off.", orbit);
+		orbit.frame.addButton("toggle_integrator", "Integrator", "Switch between particle steps and the Wisdom-Holman map.", orbit);
+		orbit.frame.addButton("toggle_metrics", "Metrics", "Print the time spent in each phase of a step.", orbit);
+		orbit.frame.addButton("toggle_energy", "Energy", "Check energy and momentum drift (off, watch, adapt the time step).", orbit);
 		orbit.frame.setSize(FRAME_DIMENSIONS[0], FRAME_DIMENSIONS[1]);
 
 		//initialize the particles 
@@ -474,7 +563,7 @@ public class Gen_Sim implements Runnable {
 		orbit.bodies.get(1).v_y = -EARTH_TANGENTIAL_VELOCITY;
 
 		//initialize controller 
-		orbit.control = new Gen_Cont(orbit.bodies);
+		orbit.control = new Gen_Cont(orbit.exchange);
 		orbit.control.init();
 		orbit.control.setSize(FRAME_DIMENSIONS[0] + 100, FRAME_DIMENSIONS[1]);
 		orbit.control.dimensions = FRAME_DIMENSIONS;
@@ -484,8 +573,8 @@ public class Gen_Sim implements Runnable {
 		orbit.frame.setVisible(true);
 
 		Thread.sleep(500);
+		orbit.state_changed = true; //first snapshot for the controller 
 		orbit.executor.scheduleAtFixedRate(orbit, 0, orbit.TICK_RATE, TimeUnit.NANOSECONDS);
-		orbit.control.refresh(orbit, false);
 
 		Thread one = new Thread() {
 			public void run() {
@@ -503,27 +592,73 @@ public class Gen_Sim implements Runnable {
 	 */
 	private void move_bodies(DisplayFrame frame) {
 		if(collide) {
+			metrics.skip(); 
+			int n = this.bodies.size(); 
 			for (int ii = 0; ii < this.bodies.size(); ii++) { 
 				for (int jj = 0; jj < this.bodies.size(); jj++) {
 					if (ii == jj) continue;
 					else if (checkCollision(this.bodies.get(ii), this.bodies.get(jj), frame)){ //check if collision has occurred 
-						setCollision(this.bodies.get(ii), this.bodies.get(jj), frame, this); //respond to it
-						if(!elastic){
-							if(DEBUG_MODE)
-								System.out.println("BREAKING FOR INELASTIC");
-							break; //extremely important: inelastic collisions change the size of ArrayLists, so must break
-						}
+						setCollision(this.bodies.get(ii), this.bodies.get(jj)); //respond to it
+						energy.restart(); 
+						metrics.count(StepMetrics.COLLISIONS, 1); 
 					}
 					else {
 						this.bodies.get(ii).bump = null; //no recent crash
 					}
 				}
 			}
+			metrics.count(StepMetrics.PAIRS, (long) n*(n - 1)); //every pair, no broad phase 
+			int merged = merges.resolve(this.bodies, frame); //all the inelastic collisions at once 
+			if(merged > 0)
+				energy.restart(); 
+			for (int ii = 0; ii < merged; ii++) 
+				merges.merged(ii).pixRadius = 10; 
+			metrics.lap(StepMetrics.NARROW_PHASE); 
+		}
+		metrics.skip(); 
+		if(wh != null)
+			step_symplectic(); 
+		else {
+			for (int ii = 0; ii < this.bodies.size(); ii++)
+				this.bodies.get(ii).move(); 
 		}
+		metrics.lap(StepMetrics.INTEGRATION); 
 		for (int ii = 0; ii < this.bodies.size(); ii++) {
-			this.bodies.get(ii).Step(frame, true, true); // not 2d simulated, step on frame 
+			this.bodies.get(ii).record(frame, true); // not 2d simulated, step on frame 
 			this.frame.addDrawable(this.bodies.get(ii));
 		}
+		metrics.lap(StepMetrics.TRAILS); 
+	}
+
+	/**
+	 * Measures the energy and momenta (EnergyMonitor) at the start of a step, before the bodies move, and 
+	 * when the monitor is adapting switches every particle to the time step it asks for. 
+	 */
+	private void check_energy() {
+		if(wh != null)
+			arrays.load(this.bodies); //the map loads the bodies when it steps them 
+		double dt = energy.check(arrays, this.G, solver, this.TIME_STEP, wh == null ? 1 : 2); 
+		arrays.potential = false; 
+		if(dt != this.TIME_STEP){
+			this.TIME_STEP = dt; //the executor's TICK_RATE is left as it is 
+			for (Particle p : this.bodies)
+				p.deltaT = dt; 
+			state_changed = true; //controller shows the new time step 
+		}
+	}
+
+	/**
+	 * Moves all the particles one time step (the first particle's deltaT) with the Wisdom-Holman map. 
+	 */
+	private void step_symplectic() {
+		double h = this.bodies.get(0).deltaT; 
+		arrays.load(this.bodies); 
+		wh.step(arrays, h, this.G); 
+		arrays.storePositions(this.bodies); 
+		for (Particle p : this.bodies) {
+			p.time += h; 
+			p.cTime += h; 
+		}
 	}
 
 	/**
@@ -538,22 +673,10 @@ public class Gen_Sim implements Runnable {
 	 */
 	private boolean checkCollision(Particle m1, Particle m2, DisplayFrame frame) {
 		if(collide_real){
-			double nullZone = (Math.abs(m1.vector(m1.v_x, m1.v_y)*m1.deltaT) + Math.abs(m2.vector(m2.v_x, m2.v_y)*m2.deltaT))*1;
-			if(dist(m1, m2) > m1.actual_r + m2.actual_r + nullZone){ //HARDCODED TOLERANCE ZONE 
-				return false;
-			}
-			else if(m1.bump == null || m2.bump == null){ //they have collided recently
-				if(DEBUG_MODE)
-					System.out.println("A real collision has occurred!"); //pretty rare... 
-				return true;
-			}
-
-			else if(m1.bump.equals(m2) || m2.bump.equals(m1))
-				return false; //collision has occurred
-
-			if(DEBUG_MODE)
+			boolean hit = touching(m1, m2); 
+			if(hit && DEBUG_MODE)
 				System.out.println("A real collision has occurred!"); //pretty rare... 
-			return true;
+			return hit; 
 		}
 		else {
 			DrawingPanel panel = frame.getDrawingPanel(); //gets pixel positions of each particle. 
@@ -570,6 +693,31 @@ public class Gen_Sim implements Runnable {
 		} 
 	}
 
+	/**
+	 * The real (distance) collision check: whether two particles are within their radii plus the 
+	 * distance they cover in one time step, and did not just bump into each other. Static so that 
+	 * it can be timed without a frame (Benchmarks). 
+	 * 
+	 * @param m1
+	 * 	Particle 1 to check. 
+	 * @param m2
+	 * 	Particle 2 to check. 
+	 * @return
+	 * 	True if they collide. 
+	 */
+	static boolean touching(Particle m1, Particle m2) {
+		double nullZone = (Math.abs(m1.vector(m1.v_x, m1.v_y)*m1.deltaT) + Math.abs(m2.vector(m2.v_x, m2.v_y)*m2.deltaT))*1;
+		double dist = Math.sqrt(Math.pow(m1.getX_pos() - m2.getX_pos(), 2)
+				+ Math.pow(m1.getY_pos() - m2.getY_pos(), 2));
+		if(dist > m1.actual_r + m2.actual_r + nullZone) //HARDCODED TOLERANCE ZONE 
+			return false;
+		else if(m1.bump == null || m2.bump == null) //they have not collided recently
+			return true;
+		else if(m1.bump.equals(m2) || m2.bump.equals(m1))
+			return false; //collision has occurred
+		return true;
+	}
+
 	/**
 	 * Respond to collision by changing directions and velocities. 
 	 * 
@@ -577,10 +725,8 @@ public class Gen_Sim implements Runnable {
 	 * 	Particle 1. 
 	 * @param m2
 	 * 	Particle 2. 
-	 * @param frame
-	 * 	DisplayFrame used (to delete/add particles for inelastic). 
 	 */
-	private void setCollision(Particle m1, Particle m2, DisplayFrame frame, Gen_Sim gen_Sim) {
+	private void setCollision(Particle m1, Particle m2) {
 		//get initial velocities 
 		double v1ix = m1.v_x; 
 		double v2ix = m2.v_x; 
@@ -626,62 +772,22 @@ public class Gen_Sim implements Runnable {
 			}
 		} 
 		else {
-			// inelastic collision
-			Particle monster = new Particle();
-			double v_final = (m1.mass*m1.vector(m1.v_x, m1.v_y) + m2.mass*m2.vector(m1.v_x, m1.v_y))/(m1.mass + m2.mass);
-			monster.init(m1.x_pos, m1.y_pos, v_final, calcAng(m1, m2), gen_Sim.TIME_STEP, 0);
-
-			Color newColor = new Color(
-					(m1.color.getRed() + m2.color.getRed())/2,
-					(m1.color.getGreen() + m2.color.getGreen())/2,
-					(m1.color.getBlue() + m2.color.getBlue())/2);
-			monster.color = newColor;
-			monster.useRiemann = false;
-			monster.pixRadius = 10;
-			monster.mass = m1.mass + m2.mass;
-
-			//remove old ones, add new 
-			frame.removeDrawable(m1);
-			frame.removeDrawable(m2); 
-			for (int ii = 0; ii < m1.points.size(); ii ++) {
-				monster.trail.addPoint(m1.points.get(ii).x, m1.points.get(ii).y);
-			}
-			monster.trail.moveToPoint(m2.points.get(0).x, m2.points.get(0).y);
-			for (int ii = 0; ii < m2.points.size(); ii ++) {
-				monster.trail.addPoint(m2.points.get(ii).x, m2.points.get(ii).y);
-			}
-			m1.trail.clear(); 
-			m2.trail.clear(); 
-			m1.points.clear(); 
-			m2.points.clear();  
-			this.bodies.remove(m1); 
-			this.bodies.remove(m2); 
-			this.bodies.add(monster); 
-			frame.addDrawable(monster); 
-			monster.Step(frame, true, true);
+			merges.add(m1, m2); //inelastic: merged once the pass is done 
 		}
 	}
 
 	/**
 	 * Calculate and set accelerations of all particles based on gravitational forces with other particles and clusters. 
+	 * 
+	 * The particles are copied into primitive arrays and the sum is done by the solver (SIMD when available). 
 	 */
 	private void calculate_accelerations() {
-		for (int ii = 0; ii < this.bodies.size(); ii++) { // step through arraylist
-			// of masses
-			this.bodies.get(ii).forces.clear(); // clear old forces
-			this.bodies.get(ii).forces.removeAll(this.bodies.get(ii).forces);
-
-			for (int jj = 0; jj < this.bodies.size(); jj++) {
-				if (ii == jj)
-					continue;
-				this.bodies.get(ii).forces.add(grav_force(this.bodies.get(ii), this.bodies.get(jj), this));
-			}
-			double xSum = sumForces(this.bodies.get(ii).forces, 0);
-			double ySum = sumForces(this.bodies.get(ii).forces, 1);
-			this.bodies.get(ii).acc_x = xSum / this.bodies.get(ii).mass; // a = F/m
-			this.bodies.get(ii).acc_y = ySum / this.bodies.get(ii).mass;
+		arrays.load(this.bodies); 
+		solver.accelerations(arrays, this.G); 
+		arrays.storeAccelerations(this.bodies, 0); 
 
-			if (DEBUG_MODE) {
+		if (DEBUG_MODE) {
+			for (int ii = 0; ii < this.bodies.size(); ii++) {
 				System.out.println("X Acceleration of " + ii + " is "
 						+ this.bodies.get(ii).acc_x);
 				System.out.println("Y Acceleration of " + ii + " is "
@@ -0,0 +1,365 @@
+/**
+ * A GravitySolver fills in the accelerations of the bodies in a BodyArrays from their positions and
+ * masses. The simulations (Gen_Sim, RandomSim, Cluster) load their particles into a BodyArrays every
+ * step and hand it to a solver instead of building a Force object for every pair.
+ *
+ * Implementations:
+ * 	DirectGravity - plain O(N^2) double loop (always available).
+ * 	VectorGravity - the same sum using the JDK Vector API (SIMD).
+ * 	MeshGravity - particle-mesh (FFT) approximation for very large N.
+ * 	MultipoleGravity - fast multipole method, O(N) with error set by the expansion order.
+ * 	OctreeGravity - Barnes-Hut tree, O(N log N), also in 3D (BodyArrays3D).
+ * 	CoulombGravity - gravity and electrostatics in one pass.
+ * 	ForceKernel - any mix of the laws in ForceLaw, composed at setup.
+ *
+ * @method accelerations
+ * 	Computes accelerations of bodies [from, to) due to all bodies.
+ * @method best
+ * 	Returns the fastest direct solver available on this machine.
+ * @method fromText
+ * 	Picks a solver from text typed in a controller ("direct", "mesh 256", "fmm 8").
+ * @method potentials
+ * 	Whether the solver can fill in potentials along with the accelerations.
+ * @method gravityOnly
+ * 	Whether gravity is the only force the solver adds.
+ *
+ * @author Andrew M.
+ */
+public abstract class GravitySolver {
+	static final double SPLINE_RADIUS = 2.8; //spline kernel radius in units of its Plummer-equivalent softening 
+
+	protected double softening = 0; //softening length (0 = plain 1/r^2) 
+	protected boolean spline = false; //cubic spline kernel instead of Plummer 
+
+	/**
+	 * Computes the gravitational accelerations of bodies from (inclusive) to to (exclusive) due to every
+	 * body in the arrays and stores them in b.ax and b.ay. Pairs at zero distance (a body and itself) are skipped.
+	 *
+	 * @param b
+	 * 	Body arrays.
+	 * @param from
+	 * 	First body to compute.
+	 * @param to
+	 * 	One past the last body to compute.
+	 * @param G
+	 * 	Gravitational constant.
+	 */
+	public abstract void accelerations(BodyArrays b, int from, int to, double G);
+
+	/**
+	 * Computes the accelerations of every body in the arrays.
+	 *
+	 * @param b
+	 * 	Body arrays.
+	 * @param G
+	 * 	Gravitational constant.
+	 */
+	public void accelerations(BodyArrays b, double G){
+		accelerations(b, 0, b.n, G);
+	}
+
+	/**
+	 * Turns on Plummer softening: the force between two bodies becomes G*m*r/(r^2 + eps^2)^(3/2), 
+	 * so it goes smoothly to zero as they meet instead of blowing up. Close encounters in dense 
+	 * clusters then stay bounded and much larger time steps can be used. 
+	 * 
+	 * @param eps
+	 * 	Softening length (0 turns softening off). 
+	 */
+	public void setSoftening(double eps){
+		softening = Math.max(0, eps); 
+		spline = false; 
+	}
+
+	/**
+	 * Turns on cubic spline softening (the kernel used by GADGET). Inside a radius h = 2.8*eps 
+	 * the force comes from a smoothed mass distribution; outside it the force is exactly 
+	 * Newtonian, unlike Plummer softening which changes the force everywhere. eps is chosen 
+	 * so that the potential at r = 0 is the same as Plummer softening with eps. 
+	 * 
+	 * @param eps
+	 * 	Plummer-equivalent softening length (0 turns softening off). 
+	 */
+	public void setSplineSoftening(double eps){
+		softening = Math.max(0, eps); 
+		spline = true; 
+	}
+
+	/**
+	 * Gets the softening length. 
+	 * 
+	 * @return
+	 * 	Softening length (0 if off). 
+	 */
+	public double getSoftening(){
+		return softening; 
+	}
+
+	/**
+	 * Softened version of 1/r^3 (the acceleration toward a unit mass is this times the 
+	 * separation vector). 
+	 * 
+	 * @param r2
+	 * 	Distance squared (not zero). 
+	 * @param eps
+	 * 	Softening length. 
+	 * @param spline
+	 * 	Cubic spline kernel if true, Plummer if false. 
+	 * @return
+	 * 	The softened 1/r^3. 
+	 */
+	static double soften(double r2, double eps, boolean spline){
+		if(!spline){
+			double inv = 1/Math.sqrt(r2 + eps*eps); 
+			return inv*inv*inv; 
+		}
+		double h = SPLINE_RADIUS*eps; 
+		double r = Math.sqrt(r2); 
+		if(r >= h)
+			return 1/(r2*r); 
+		double u = r/h; 
+		double h3 = 1/(h*h*h); 
+		if(u < 0.5)
+			return h3*(10.666666666667 + u*u*(32.0*u - 38.4)); 
+		return h3*(21.333333333333 - 48.0*u + 38.4*u*u - 10.666666666667*u*u*u - 0.066666666667/(u*u*u)); 
+	}
+
+	/**
+	 * Softened version of 1/r (the potential of a unit mass is -G times this), matching soften: 
+	 * 1/sqrt(r^2 + eps^2) for Plummer, and GADGET's spline potential inside 2.8*eps. 
+	 * 
+	 * @param r2
+	 * 	Distance squared (not zero). 
+	 * @param eps
+	 * 	Softening length (0 for plain 1/r). 
+	 * @param spline
+	 * 	Cubic spline kernel if true, Plummer if false. 
+	 * @return
+	 * 	The softened 1/r. 
+	 */
+	static double potential(double r2, double eps, boolean spline){
+		if(!spline || eps == 0)
+			return 1/Math.sqrt(r2 + eps*eps); 
+		double h = SPLINE_RADIUS*eps; 
+		double r = Math.sqrt(r2); 
+		if(r >= h)
+			return 1/r; 
+		double u = r/h; 
+		if(u < 0.5)
+			return (2.8 - u*u*(5.333333333333 + u*u*(6.4*u - 9.6)))/h; 
+		return (3.2 - 0.066666666667/u - u*u*(10.666666666667 + u*(-16.0 + u*(9.6 - 2.133333333333*u))))/h; 
+	}
+
+	/**
+	 * Range of the bulk of the bodies along one axis, for solvers that fit a grid or tree around them 
+	 * (one far away body would otherwise stretch it over the whole system): between the fraction and 
+	 * 1 - fraction quantiles, widened by half that range on each side but not past the bodies, so 
+	 * ordinary distributions lose nothing. The quantiles are found by selection (O(N)), not by sorting. 
+	 * 
+	 * @param v
+	 * 	Positions along the axis. 
+	 * @param n
+	 * 	Number of bodies. 
+	 * @param fraction
+	 * 	Fraction of the bodies at each end the range may leave out. 
+	 * @param scratch
+	 * 	Work array of at least n (reordered). 
+	 * @param out
+	 * 	Output: low and high end. 
+	 */
+	static void bulk(double[] v, int n, double fraction, double[] scratch, double[] out){
+		int k = (int) (n*fraction); 
+		if(k == 0){ //too few bodies to leave any out 
+			out[0] = out[1] = v[0]; 
+			for (int ii = 1; ii < n; ii++) {
+				if(v[ii] < out[0]) out[0] = v[ii]; 
+				if(v[ii] > out[1]) out[1] = v[ii]; 
+			}
+			return; 
+		}
+		System.arraycopy(v, 0, scratch, 0, n); 
+		double lo = select(scratch, 0, n, k); 
+		double hi = select(scratch, k, n, n - 1 - k); //everything from k on is at least lo 
+		double min = scratch[0], max = scratch[n - 1]; 
+		for (int ii = 0; ii < k; ii++) //below lo after the first select 
+			min = Math.min(min, scratch[ii]); 
+		for (int ii = n - k; ii < n; ii++) //above hi after the second 
+			max = Math.max(max, scratch[ii]); 
+		out[0] = Math.max(min, lo - (hi - lo)/2); 
+		out[1] = Math.min(max, hi + (hi - lo)/2); 
+	}
+
+	/**
+	 * Quickselect: reorders a[from, to) so the k-th smallest value is at k, with nothing larger 
+	 * before it and nothing smaller after it. 
+	 * 
+	 * @param a
+	 * 	Values. 
+	 * @param from
+	 * 	First index of the range. 
+	 * @param to
+	 * 	One past the last index of the range. 
+	 * @param k
+	 * 	Index wanted (from <= k < to). 
+	 * @return
+	 * 	a[k] once it is in place. 
+	 */
+	static double select(double[] a, int from, int to, int k){
+		int lo = from, hi = to - 1; 
+		while(lo < hi){
+			double pivot = median(a[lo], a[(lo + hi) >>> 1], a[hi]); 
+			int ii = lo, jj = hi; 
+			while(ii <= jj){
+				while(a[ii] < pivot) ii++; 
+				while(a[jj] > pivot) jj--; 
+				if(ii <= jj){
+					double t = a[ii]; 
+					a[ii++] = a[jj]; 
+					a[jj--] = t; 
+				}
+			}
+			if(k <= jj)
+				hi = jj; 
+			else if(k >= ii)
+				lo = ii; 
+			else
+				break; //between the two halves: equal to the pivot 
+		}
+		return a[k]; 
+	}
+
+	private static double median(double a, double b, double c){
+		return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c)); 
+	}
+
+	/**
+	 * Whether accelerations also fills in b.pot when b.potential is set (in the same pass, so 
+	 * potentials cost next to nothing). Solvers that do not leave pot alone. 
+	 * 
+	 * @return
+	 * 	True if this solver fills in potentials. 
+	 */
+	public boolean potentials(){
+		return false; 
+	}
+
+	/**
+	 * Whether gravity is the only force this solver adds (so the potential energy of the bodies is 
+	 * all gravitational, as EnergyMonitor assumes). 
+	 * 
+	 * @return
+	 * 	False if the solver adds other forces (Coulomb, springs, drag). 
+	 */
+	public boolean gravityOnly(){
+		return true; 
+	}
+
+	/**
+	 * Whether this solver can run on this machine.
+	 *
+	 * @return
+	 * 	True if usable.
+	 */
+	boolean usable(){
+		return true;
+	}
+
+	/**
+	 * Picks the direct (exact) solver for this machine: VectorGravity if the jdk.incubator.vector
+	 * module is present and the CPU has at least two double lanes, DirectGravity otherwise.
+	 *
+	 * @return
+	 * 	A new solver.
+	 */
+	public static GravitySolver best(){
+		try {
+			//loaded by name so that this class still links when the incubator module is missing
+			GravitySolver simd = (GravitySolver) Class.forName("VectorGravity").getDeclaredConstructor().newInstance();
+			if(simd.usable())
+				return simd;
+		}
+		catch (Throwable t){ //module not added (NoClassDefFoundError) or no SIMD support
+		}
+		return new DirectGravity();
+	}
+
+	/**
+	 * Picks a solver from text (e.g. typed into a controller): "mesh" or "mesh 256" for the 
+	 * particle-mesh solver with a given grid, "fmm" or "fmm 8" for the fast multipole solver 
+	 * with a given order, "octree" or "octree 0.7" for the Barnes-Hut tree with an opening angle, 
+	 * force laws joined with '+' (see ForceLaw) for a composed ForceKernel, anything else for the 
+	 * best direct solver. Outside a list of laws, "eps e" or "spline e" anywhere in the text turns 
+	 * on Plummer or cubic spline softening with length e ("fmm 8 spline 1e9"); in a list of laws 
+	 * "spline e" is the softened gravity law ("spline 1e6 + coulomb"). A list of laws without gravity 
+	 * (plain, plummer or spline) is turned down, and the best direct solver is used instead. 
+	 * 
+	 * @param text
+	 * 	Solver name, optionally followed by a number. 
+	 * @return
+	 * 	A new solver. 
+	 */
+	public static GravitySolver fromText(String text){
+		if(lawList(text))
+			return solverFromText(text); //softening is one of the laws there 
+		GravitySolver solver = solverFromText(text.replaceAll("(?i)\\s*\\b(eps|spline)\\s+\\S+", "")); 
+		java.util.regex.Matcher soft = java.util.regex.Pattern.compile("(?i)\\b(eps|spline)\\s+(\\S+)").matcher(text); 
+		if(soft.find()){
+			try {
+				double eps = Double.parseDouble(soft.group(2)); 
+				if(soft.group(1).equalsIgnoreCase("spline"))
+					solver.setSplineSoftening(eps); 
+				else
+					solver.setSoftening(eps); 
+			}
+			catch (NumberFormatException e){
+			}
+		}
+		return solver; 
+	}
+
+	private static GravitySolver solverFromText(String text){
+		String[] words = text.trim().toLowerCase().split("\\s+"); 
+		int param = -1; //optional number after the name 
+		if(words.length > 1){
+			try {
+				param = (int) Double.parseDouble(words[1]); 
+			}
+			catch (NumberFormatException e){
+			}
+		}
+		if(words[0].startsWith("mesh") || words[0].equals("pm"))
+			return param > 0 ? new MeshGravity(param) : new MeshGravity(); 
+		if(words[0].startsWith("fmm") || words[0].startsWith("multipole"))
+			return param > 0 ? new MultipoleGravity(param) : new MultipoleGravity(); 
+		if(words[0].startsWith("octree") || words[0].equals("bh")){
+			try {
+				return new OctreeGravity(Double.parseDouble(words[1])); 
+			}
+			catch (RuntimeException e){ //no opening angle given 
+				return new OctreeGravity(); 
+			}
+		}
+		if(lawList(text)){
+			try {
+				ForceKernel kernel = ForceLaw.compose(text); //other force laws ("plummer 0.1 + coulomb") 
+				if(!kernel.gravity)
+					throw new IllegalArgumentException("No gravity in force laws: " + text); 
+				return kernel; 
+			}
+			catch (IllegalArgumentException e){ //unknown law or bad number 
+				System.out.println(e.getMessage()); 
+			}
+		}
+		return best(); 
+	}
+
+	/**
+	 * Whether text is a list of force laws for ForceLaw.compose: laws joined with '+' or ',', or one 
+	 * law other than gravity and spline (alone, "spline e" is softening for the best direct solver). 
+	 */
+	private static boolean lawList(String text){
+		ForceLaw first = ForceLaw.forName(text.trim().split("\\s+")[0]); 
+		return text.contains("+") || text.contains(",") 
+				|| (first != null && first != ForceLaw.GRAVITY && first != ForceLaw.SPLINE); 
+	}
+}
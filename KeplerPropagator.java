@@ -0,0 +1,132 @@
+import java.util.List;
+
+/**
+ * Moves test bodies (particles light enough that their pull on anything else does not matter, marked by
+ * setting Particle.primary) along their two-body orbits around their primary instead of integrating them
+ * through the force solver. Each one costs a single KeplerSolver drift per step, whatever the time step
+ * and however many other bodies there are, so thousands of debris particles around a star are nearly free.
+ *
+ * The primary moves too (it is stepped like any other body), so a step has two halves, as in SpringChain:
+ * load records where every test body is relative to its primary before anything moves, and store (called
+ * after the primaries have been stepped) drifts that relative state along the orbit and puts the body back
+ * around the primary's new position. The pull of everything else is left out, which is the approximation
+ * a test body makes: it follows its primary exactly, like a moon follows its planet.
+ *
+ * Kepler's equation is started from the body's chi of its last step (scaled by the ratio of the time
+ * steps), which is within an iteration or two of the answer when the step does not change.
+ *
+ * @method load
+ * 	Records each test body's position and velocity relative to its primary.
+ * @method store
+ * 	Drifts the recorded states one step and moves the test bodies.
+ * @method advance
+ * 	Moves one test body along its orbit for any time.
+ *
+ * @author Andrew M.
+ */
+public class KeplerPropagator {
+	protected KeplerSolver kepler = new KeplerSolver();
+
+	private Particle[] bodies = new Particle[0]; //test bodies given to load
+	private double[] rx = new double[0], ry = new double[0]; //their positions relative to the primary
+	private double[] vx = new double[0], vy = new double[0]; //their velocities relative to the primary
+	private int n = 0; //number of test bodies loaded
+
+	/**
+	 * Records the position and velocity of every test body in a list relative to its primary
+	 * (particles without a primary are skipped).
+	 *
+	 * @param list
+	 * 	Particles, some of them test bodies.
+	 * @return
+	 * 	Number of test bodies found.
+	 */
+	public int load(List<? extends Particle> list){
+		n = 0;
+		for (int ii = 0; ii < list.size(); ii++) {
+			Particle p = list.get(ii);
+			if(p.primary == null)
+				continue;
+			if(n == bodies.length){
+				int cap = Math.max(16, 2*n);
+				bodies = java.util.Arrays.copyOf(bodies, cap);
+				rx = BodyArrays.grow(rx, cap);
+				ry = BodyArrays.grow(ry, cap);
+				vx = BodyArrays.grow(vx, cap);
+				vy = BodyArrays.grow(vy, cap);
+			}
+			bodies[n] = p;
+			rx[n] = p.x_pos - p.primary.x_pos;
+			ry[n] = p.y_pos - p.primary.y_pos;
+			vx[n] = p.v_x - p.primary.v_x;
+			vy[n] = p.v_y - p.primary.v_y;
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Moves every loaded test body one of its time steps (deltaT) along its orbit, around where its
+	 * primary is now, and moves its clock on.
+	 *
+	 * @param G
+	 * 	Gravitational constant.
+	 */
+	public void store(double G){
+		for (int ii = 0; ii < n; ii++) {
+			Particle p = bodies[ii];
+			drift(p, rx[ii], ry[ii], vx[ii], vy[ii], p.deltaT, G);
+			p.time += p.deltaT;
+			p.cTime += p.deltaT;
+			bodies[ii] = null; //do not hold on to removed particles
+		}
+		n = 0;
+	}
+
+	/**
+	 * Moves a test body along its orbit around its primary for a time dt, in O(1) (the primary is taken
+	 * to be where it is now and to keep its velocity). Its clock is not changed.
+	 *
+	 * @param p
+	 * 	Test body (p.primary must be set).
+	 * @param dt
+	 * 	Time to move it (may be negative).
+	 * @param G
+	 * 	Gravitational constant.
+	 */
+	public void advance(Particle p, double dt, double G){
+		Particle c = p.primary;
+		drift(p, p.x_pos - c.x_pos, p.y_pos - c.y_pos, p.v_x - c.v_x, p.v_y - c.v_y, dt, G);
+		p.x_pos += c.v_x*dt; //where the primary will be
+		p.y_pos += c.v_y*dt;
+		p.setXY(p.x_pos, p.y_pos);
+	}
+
+	/**
+	 * Drifts a relative state along its orbit and puts p at the primary's position plus the result.
+	 */
+	private void drift(Particle p, double x, double y, double v_x, double v_y, double dt, double G){
+		Particle c = p.primary;
+		double mu = G*(c.mass + p.mass);
+		kepler.x = x;
+		kepler.y = y;
+		kepler.z = 0;
+		kepler.vx = v_x;
+		kepler.vy = v_y;
+		kepler.vz = 0;
+		boolean warm = p.chiStep != 0 && Math.signum(p.chiStep) == Math.signum(dt);
+		kepler.drift(mu, dt, warm ? p.chi*dt/p.chiStep : Double.NaN);
+		p.chi = kepler.chi;
+		p.chiStep = dt;
+
+		double r2 = kepler.x*kepler.x + kepler.y*kepler.y;
+		double inv3 = r2 == 0 ? 0 : 1/(r2*Math.sqrt(r2));
+		p.acc_x = c.acc_x - mu*kepler.x*inv3; //for plots and the data tables
+		p.acc_y = c.acc_y - mu*kepler.y*inv3;
+		p.x_pos = c.x_pos + kepler.x;
+		p.y_pos = c.y_pos + kepler.y;
+		p.v_x = c.v_x + kepler.vx;
+		p.v_y = c.v_y + kepler.vy;
+		p.setXY(p.x_pos, p.y_pos);
+	}
+}
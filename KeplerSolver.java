@@ -0,0 +1,181 @@
+/**
+ * Moves a body along its two-body (Kepler) orbit around a fixed point mass, exactly, for any time step.
+ * Works the same for circles, ellipses, parabolas and hyperbolas, because it uses the universal anomaly
+ * chi instead of the eccentric anomaly. With alpha = 2/r0 - v0^2/mu (one over the semi-major axis) and
+ * the Stumpff functions C(z) and S(z), z = alpha*chi^2, Kepler's equation is
+ * 	sqrt(mu)*dt = r0*vr0/sqrt(mu)*chi^2*C(z) + (1 - alpha*r0)*chi^3*S(z) + r0*chi
+ * (vr0 is the radial velocity). It is solved for chi with Laguerre's method (which converges from almost
+ * any starting guess, unlike Newton's), then the new position and velocity are
+ * 	r = f*r0 + g*v0,	v = fdot*r0 + gdot*v0
+ * with the Lagrange coefficients f, g, fdot and gdot worked out from chi.
+ *
+ * The state is put in the public fields, drift is called, and the new state is read back from the same
+ * fields (z can be left at 0 for bodies in the plane), so a step does not allocate. The chi that was
+ * found is kept in chi; passing it (scaled by the ratio of the time steps) as the guess for the next
+ * step of the same body usually gets the answer in one or two iterations.
+ *
+ * see:
+ * 	http://en.wikipedia.org/wiki/Universal_variable_formulation
+ * 	Curtis, Orbital Mechanics for Engineering Students, chapter 3
+ *
+ * @method drift
+ * 	Moves the state along its orbit.
+ * @method c
+ * 	Stumpff function C(z).
+ * @method s
+ * 	Stumpff function S(z).
+ *
+ * @author Andrew M.
+ */
+public class KeplerSolver {
+	final static int MAX_ITERATIONS = 50;
+	final static double TOLERANCE = 1E-15; //relative change in chi when solving stops
+	final static int LAGUERRE_N = 5; //order used in Laguerre's method (5 is the usual choice)
+	final static double PARABOLIC = 1E-3; //|alpha*r0| below which the orbit is started as a parabola
+
+	public double x, y, z; //position relative to the central mass
+	public double vx, vy, vz; //velocity relative to the central mass
+	public double chi; //universal anomaly of the last drift
+	public int iterations; //iterations used by the last drift
+
+	/**
+	 * Moves the state in x, y, z, vx, vy, vz along its orbit for a time dt, starting the solve at a guess.
+	 *
+	 * @param mu
+	 * 	G times the central mass (plus the body's own mass for a true two-body orbit).
+	 * @param dt
+	 * 	Time step (may be negative).
+	 * @param guess
+	 * 	Starting guess for chi (NaN for none).
+	 * @return
+	 * 	True if Kepler's equation converged.
+	 */
+	public boolean drift(double mu, double dt, double guess){
+		iterations = 0;
+		double r0 = Math.sqrt(x*x + y*y + z*z);
+		if(dt == 0 || r0 == 0 || mu <= 0){ //nothing pulls (or nothing to do): straight line
+			x += vx*dt;
+			y += vy*dt;
+			z += vz*dt;
+			chi = 0;
+			return true;
+		}
+		double sqrtMu = Math.sqrt(mu);
+		double v2 = vx*vx + vy*vy + vz*vz;
+		double rv = (x*vx + y*vy + z*vz)/sqrtMu; //r0*vr0/sqrt(mu)
+		double alpha = 2/r0 - v2/mu;
+		double a1 = 1 - alpha*r0;
+
+		//a whole number of periods changes nothing on an ellipse, so only the rest is solved for
+		double t = dt;
+		if(alpha > 0){
+			double period = 2*Math.PI/(sqrtMu*alpha*Math.sqrt(alpha));
+			t = Math.IEEEremainder(dt, period);
+		}
+
+		double c = guess;
+		if(Double.isNaN(c) || c == 0){
+			if(Math.abs(alpha*r0) < PARABOLIC) //close to a parabola: chi^3/6 + r0*chi = sqrt(mu)*t, roughly
+				c = Math.copySign(Math.min(Math.abs(sqrtMu*t/r0), Math.cbrt(6*sqrtMu*Math.abs(t))), t);
+			else if(alpha > 0) //ellipse: mean motion times time
+				c = sqrtMu*alpha*t;
+			else { //hyperbola: from the log of the time (as in Vallado)
+				double a = 1/alpha;
+				double sign = Math.signum(t);
+				c = sign*Math.sqrt(-a)*Math.log(-2*mu*alpha*t/(rv*sqrtMu + sign*Math.sqrt(-mu*a)*a1));
+			}
+			if(Double.isNaN(c) || c == 0 || Double.isInfinite(c))
+				c = sqrtMu*t/r0; //straight line guess
+		}
+		boolean converged = false;
+		for (; iterations < MAX_ITERATIONS; iterations++) {
+			double zz = alpha*c*c;
+			double cz = c(zz), sz = s(zz);
+			double f = rv*c*c*cz + a1*c*c*c*sz + r0*c - sqrtMu*t;
+			double df = rv*c*(1 - zz*sz) + a1*c*c*cz + r0; //this is r, always > 0
+			double ddf = rv*(1 - zz*cz) + a1*c*(1 - zz*sz);
+			double root = Math.sqrt(Math.abs((LAGUERRE_N - 1)*(LAGUERRE_N - 1)*df*df - LAGUERRE_N*(LAGUERRE_N - 1)*f*ddf));
+			double step = LAGUERRE_N*f/(df + Math.copySign(root, df));
+			c -= step;
+			if(Math.abs(step) <= TOLERANCE*Math.max(1, Math.abs(c))){
+				converged = true;
+				iterations++;
+				break;
+			}
+		}
+
+		double zz = alpha*c*c;
+		double cz = c(zz), sz = s(zz);
+		double f = 1 - c*c/r0*cz;
+		double g = t - c*c*c/sqrtMu*sz;
+		double nx = f*x + g*vx, ny = f*y + g*vy, nz = f*z + g*vz;
+		double r = Math.sqrt(nx*nx + ny*ny + nz*nz);
+		double fdot = sqrtMu/(r*r0)*(zz*c*sz - c);
+		double gdot = 1 - c*c/r*cz;
+		double nvx = fdot*x + gdot*vx, nvy = fdot*y + gdot*vy, nvz = fdot*z + gdot*vz;
+		x = nx;
+		y = ny;
+		z = nz;
+		vx = nvx;
+		vy = nvy;
+		vz = nvz;
+		chi = c;
+		return converged;
+	}
+
+	/**
+	 * Moves the state along its orbit for a time dt with no guess for chi.
+	 *
+	 * @param mu
+	 * 	G times the central mass.
+	 * @param dt
+	 * 	Time step.
+	 * @return
+	 * 	True if Kepler's equation converged.
+	 */
+	public boolean drift(double mu, double dt){
+		return drift(mu, dt, Double.NaN);
+	}
+
+	/**
+	 * Stumpff function C(z) = (1 - cos(sqrt(z)))/z (cosh for negative z), by its series near 0
+	 * where the formula loses its digits.
+	 *
+	 * @param z
+	 * 	alpha*chi^2.
+	 * @return
+	 * 	C(z).
+	 */
+	public static double c(double z){
+		if(z > 0.1){
+			double sq = Math.sqrt(z);
+			return (1 - Math.cos(sq))/z;
+		}
+		if(z < -0.1){
+			double sq = Math.sqrt(-z);
+			return (Math.cosh(sq) - 1)/(-z);
+		}
+		return 1/2.0 - z*(1/24.0 - z*(1/720.0 - z*(1/40320.0 - z*(1/3628800.0 - z/479001600.0))));
+	}
+
+	/**
+	 * Stumpff function S(z) = (sqrt(z) - sin(sqrt(z)))/sqrt(z)^3 (sinh for negative z), by its series
+	 * near 0.
+	 *
+	 * @param z
+	 * 	alpha*chi^2.
+	 * @return
+	 * 	S(z).
+	 */
+	public static double s(double z){
+		if(z > 0.1){
+			double sq = Math.sqrt(z);
+			return (sq - Math.sin(sq))/(sq*sq*sq);
+		}
+		if(z < -0.1){
+			double sq = Math.sqrt(-z);
+			return (Math.sinh(sq) - sq)/(sq*sq*sq);
+		}
+		return 1/6.0 - z*(1/120.0 - z*(1/5040.0 - z*(1/362880.0 - z*(1/39916800.0 - z/6227020800.0))));
+	}
+}
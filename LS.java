@@ -57,6 +57,7 @@ public class LS implements Runnable {
 	 * An ArrayList of all the particles in the simulation. Particles can be added and deleted dynamically. 
 	 */
 	protected static ArrayList<Particle> bodies = new ArrayList<Particle>();
+	static MergeEvents merges = new MergeEvents(); //inelastic collisions of the current pass 
 
 	protected static double g = 9.803; // gravity constant
 	protected static double G = 6.67384E-11; //universal gravitational constant
@@ -298,13 +299,14 @@ public class LS implements Runnable {
 					continue;
 				else if (checkCollision(bodies.get(ii), bodies.get(jj))){ //check if collision has occurred 
 					setCollision(bodies.get(ii), bodies.get(jj)); //respond to it
-					if(!elastic)
-						break; 
 				}
 				else 
 					bodies.get(ii).bump = null; //no recent crash 
 			}
 		}
+		int merged = merges.resolve(bodies, frame); //all the inelastic collisions at once 
+		for (int ii = 0; ii < merged; ii++) 
+			merges.merged(ii).pixRadius = 10; 
 		for (int ii = 0; ii < bodies.size(); ii++) {
 			if(ii == 0 && (proving_one || proving_two || proving_three)) 
 				bodies.get(ii).Step(frame, true, false); // not 2d simulated, step on frame 
@@ -392,43 +394,7 @@ public class LS implements Runnable {
 			}
 			// control.popup("Collision!", "Boom!");
 		} else {
-			// inelastic collision
-			Particle monster = new Particle();
-			double v_final = (m1.mass * m1.vector(m1.v_x, m1.v_y) + m2.mass
-					* m2.vector(m1.v_x, m1.v_y))
-					/ (m1.mass + m2.mass);
-			monster.init(m1.x_pos, m1.y_pos, v_final, calcAng(m1, m2),
-					pTime, 0);
-			System.out.println("MONSTER: " + v_final + " ANG: "
-					+ calcAng(m1, m2));
-			Color newColor = new Color(
-					(m1.color.getRed() + m2.color.getRed()) / 2,
-					(m1.color.getGreen() + m2.color.getGreen()) / 2,
-					(m1.color.getBlue() + m2.color.getBlue()) / 2);
-			monster.color = newColor;
-			monster.useRiemann = false;
-			monster.pixRadius = 10;
-			monster.mass = m1.mass + m2.mass;
-
-			//remove old ones, add new 
-			frame.removeDrawable(m1);
-			frame.removeDrawable(m2); 
-			for (int ii = 0; ii < m1.points.size(); ii ++) {
-				monster.trail.addPoint(m1.points.get(ii).x, m1.points.get(ii).y);
-			}
-			monster.trail.moveToPoint(m2.points.get(0).x, m2.points.get(0).y);
-			for (int ii = 0; ii < m2.points.size(); ii ++) {
-				monster.trail.addPoint(m2.points.get(ii).x, m2.points.get(ii).y);
-			}
-			m1.trail.clear(); 
-			m2.trail.clear(); 
-			m1.points.clear(); 
-			m2.points.clear(); 
-			bodies.remove(m1); 
-			bodies.remove(m2); 
-			bodies.add(monster); 
-			frame.addDrawable(monster); 
-			monster.Step(frame, true, true);
+			merges.add(m1, m2); // inelastic: merged once the pass is done
 		}
 	}
 
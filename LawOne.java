@@ -42,6 +42,7 @@ public class LawOne extends Law {
 	 * 	ArrayList of Particles. 
 	 */
 	private boolean setup = true; 
+	private double[] shapes = new double[0]; //h, k, a and b each ellipse was last set to 
 	public void Prove(ArrayList<Particle> bodies, DisplayFrame frame){
 		counter ++; 
 		if(bodies.size()-1 != ellipses.size()){
@@ -51,6 +52,8 @@ public class LawOne extends Law {
 				ellipses.add(new MyEllipse());
 				System.out.println("Added ellipse: " + bodies.size() + " , " + ellipses.size());
 			}
+			shapes = new double[4*ellipses.size()]; 
+			java.util.Arrays.fill(shapes, Double.NaN); //none set yet 
 			setup = true; 
 		}
 		for (MyEllipse e : ellipses) {
@@ -76,7 +79,14 @@ public class LawOne extends Law {
 					counter = 0; 
 					setup = false; 
 					//System.out.println("SET: " + a + ", " + b);
-					ellipses.set(ii-1, new MyEllipse(new MyPoint[]{new MyPoint(-a+h, k), new MyPoint(h, b+k), new MyPoint(a+h, k), new MyPoint(h, -b+k)}));
+					int s = 4*(ii-1); 
+					if(shapes[s] != h || shapes[s+1] != k || shapes[s+2] != a || shapes[s+3] != b){ //only rebuild the vertices when the orbit changed 
+						shapes[s] = h; 
+						shapes[s+1] = k; 
+						shapes[s+2] = a; 
+						shapes[s+3] = b; 
+						ellipses.get(ii-1).setPoints(new MyPoint[]{new MyPoint(-a+h, k), new MyPoint(h, b+k), new MyPoint(a+h, k), new MyPoint(h, -b+k)}); 
+					}
 					//}
 				//else if (bodies.get(ii).time-myTime < bodies.get(ii).deltaT +  
 				//(2*Math.PI*(bodies.get(ii).maxX - h)/bodies.get(ii).vector(bodies.get(ii).v_x, bodies.get(ii).v_y))){
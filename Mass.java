@@ -6,7 +6,6 @@ import org.opensourcephysics.display.Circle;
 import org.opensourcephysics.display.Trail;
 import org.opensourcephysics.frames.DisplayFrame;
 
-import polyfun.Polynomial;
 import riemann_sum.*;
 
 /**
@@ -45,6 +44,10 @@ import riemann_sum.*;
 public class Mass extends Circle {
 	//each time you make a new ball, the trail stays so you can see the previous one
 	ArrayList<Trail> trails = new ArrayList<Trail>(); //note: not used in springs (used in projectile) 
+	static final int MAX_TRAIL = 2000; //most points kept in a trail - older points are dropped 
+	ExactRule RS = new ExactRule(); //Riemann sum used for changing position (see useRiemann) 
+	HornerPoly acc_poly = new HornerPoly(0); //reused by calcV and newPos so a step makes no objects 
+	HornerPoly v_poly = new HornerPoly(1); 
 
 	int radius = 3; //radius of ball
 	double x_pos, y_pos; //x and y positions
@@ -105,8 +108,6 @@ public class Mass extends Circle {
 	 * 	The displayframe used to draw the particle
 	 */
 	public void Step(DisplayFrame frame, boolean simulated){
-		trails.add(new Trail()); //adds a new trail - allows changing color depending on speed of Particle 
-
 		if(airResistance) { //changes x and y accelerations based on air resistance  
 			//calculates air resistance 
 			this.acc_x = this.acc_x - alpha*Math.abs(v_x)*v_x; 
@@ -143,8 +144,9 @@ public class Mass extends Circle {
 		this.y_pos = newPos(this.y_pos, this.init_v_y, this.acc_y, time, v_y); //new y position
 
 		//returns the new coordinates in double array (used in Step method) 
-		double[] newCoords = new double[] {x_pos, y_pos};
-		return newCoords; 
+		xy[0] = x_pos; 
+		xy[1] = y_pos; 
+		return xy; 
 	}
 
 	/**
@@ -187,8 +189,7 @@ public class Mass extends Circle {
 		this.mass = mass;
 		this.deltaT = timeStep; 
 		super.pixRadius = radius;
-		trails.add(new Trail()); 
-		trails.get(trails.size()-1).setStroke(new BasicStroke(2));
+		newTrail(); 
 
 		this.alpha = alpha; 
 		this.airResistance = true; 
@@ -254,10 +255,27 @@ public class Mass extends Circle {
 	 * 	The y point to trace 
 	 */
 	public void trace(DisplayFrame frame, double x, double y){
+		if(trails.isEmpty())
+			newTrail(); 
 		trails.get(trails.size()-1).addPoint(x, y);  
 		frame.addDrawable(trails.get(trails.size()-1));
 	}
 
+	/**
+	 * Starts a new trail (e.g. for a new color). Each trail keeps at most MAX_TRAIL points, 
+	 * so a long run does not keep growing the heap. 
+	 * 
+	 * @return
+	 * 	The new trail. 
+	 */
+	public Trail newTrail(){
+		Trail trail = new Trail(); 
+		trail.setStroke(new BasicStroke(2));
+		trail.setMaximumPoints(MAX_TRAIL); 
+		trails.add(trail); 
+		return trail; 
+	}
+
 	public double getAcceleration(double massNum, double massMass, double k){
 		return 0; 
 	}
@@ -274,7 +292,7 @@ public class Mass extends Circle {
 	 * 	New velocity 
 	 */
 	public double calcV(double vNow, double acc){
-		Polynomial acc_poly = new Polynomial(new double[] {acc});
+		acc_poly.set(acc);
 		//return vNow + acc*deltaT; 
 		return vNow + RS.slice(acc_poly, time, time+deltaT);
 	}
@@ -296,7 +314,7 @@ public class Mass extends Circle {
 	 */
 	public double newPos(double pos_init, double init_v, double acc, double time, double v_now){
 		double b = v_now - acc*time; 
-		Polynomial v_poly = new Polynomial(new double[] {b, acc});
+		v_poly.set(b, acc);
 		double newPos = pos_init; 
 		newPos += RS.slice(v_poly, time, time+deltaT); 
 		return newPos; //add each slice in Riemann sum 
@@ -0,0 +1,243 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.opensourcephysics.display.Trail;
+import org.opensourcephysics.frames.DisplayFrame;
+
+/**
+ * Inelastic collisions found during a collision pass, merged all at once when the pass is over. Removing the two
+ * bodies from the list and adding the merged one straight away (as setCollision used to) costs O(N) per merge,
+ * forces the pass to stop after each one, and misses other collisions in the same step; here the pass only
+ * records which bodies hit which (add), and resolve then replaces every group of touching bodies with one body
+ * and takes the others out of the lists in a single O(N) sweep.
+ *
+ * Bodies that hit the same body in one step end up in one group (a body hit by two others makes one body out of
+ * all three). The merged body keeps the total mass and momentum, sits at the group's center of mass, takes the
+ * place of the heaviest member in its list and takes over its trail as it is (no copying of points).
+ *
+ * @method add
+ * 	Records a collision between two bodies.
+ * @method resolve
+ * 	Merges every group and removes the old bodies from a list.
+ * @method resolveAll
+ * 	The same for bodies spread over several lists.
+ * @method merged
+ * 	A body made by the last resolve.
+ *
+ * @author Andrew M.
+ */
+public class MergeEvents {
+	private Particle[] members = new Particle[0]; //bodies in a merge this step
+	private int[] group = new int[0]; //group of each member
+	private int count = 0; //number of members
+	private int groups = 0; //groups started (some may have been joined into others)
+
+	private Particle[] heaviest = new Particle[0]; //member of each group whose place the merged body takes
+	private Particle[] merged = new Particle[0]; //merged body of each group
+	private int made = 0; //merged bodies made by the last resolve
+
+	/**
+	 * Records a collision between two bodies (to be merged by resolve).
+	 *
+	 * @param a
+	 * 	One body.
+	 * @param b
+	 * 	The body it hit.
+	 */
+	public void add(Particle a, Particle b){
+		if(a == b)
+			return;
+		int ga = a.mergeGroup, gb = b.mergeGroup;
+		if(ga < 0 && gb < 0){
+			int g = groups++;
+			join(a, g);
+			join(b, g);
+		}
+		else if(ga < 0)
+			join(a, gb);
+		else if(gb < 0)
+			join(b, ga);
+		else if(ga != gb){ //two groups touch: one group
+			for (int k = 0; k < count; k++) {
+				if(group[k] == gb){
+					group[k] = ga;
+					members[k].mergeGroup = ga;
+				}
+			}
+		}
+	}
+
+	private void join(Particle p, int g){
+		if(count == members.length){
+			members = java.util.Arrays.copyOf(members, Math.max(16, 2*count));
+			group = java.util.Arrays.copyOf(group, members.length);
+		}
+		members[count] = p;
+		group[count] = g;
+		p.mergeGroup = g;
+		count++;
+	}
+
+	/**
+	 * Whether any collisions are waiting to be resolved.
+	 *
+	 * @return
+	 * 	True if add was called since the last resolve.
+	 */
+	public boolean isEmpty(){
+		return count == 0;
+	}
+
+	/**
+	 * Merges every group of bodies recorded by add into one body, in one list of bodies.
+	 *
+	 * @param bodies
+	 * 	The bodies (merged bodies replace their heaviest member, the other members are removed).
+	 * @param frame
+	 * 	Frame the bodies are drawn on.
+	 * @return
+	 * 	Number of merged bodies made.
+	 */
+	public int resolve(List<Particle> bodies, DisplayFrame frame){
+		return resolveAll(Collections.singletonList(bodies), frame);
+	}
+
+	/**
+	 * Merges every group of bodies recorded by add into one body, when the bodies are spread over several lists
+	 * (such as clusters).
+	 *
+	 * @param lists
+	 * 	Lists the bodies are in (merged bodies replace their heaviest member, the other members are removed).
+	 * @param frame
+	 * 	Frame the bodies are drawn on.
+	 * @return
+	 * 	Number of merged bodies made.
+	 */
+	public int resolveAll(List<? extends List<Particle>> lists, DisplayFrame frame){
+		made = 0;
+		if(count == 0)
+			return 0;
+		if(heaviest.length < groups){
+			heaviest = new Particle[groups];
+			merged = new Particle[groups];
+		}
+		for (int g = 0; g < groups; g++) {
+			heaviest[g] = null;
+			merged[g] = null;
+		}
+		for (int k = 0; k < count; k++) {
+			int g = group[k];
+			if(heaviest[g] == null || members[k].mass > heaviest[g].mass)
+				heaviest[g] = members[k];
+		}
+		for (int g = 0; g < groups; g++) {
+			if(heaviest[g] != null)
+				merged[g] = merge(g);
+		}
+
+		for (int k = 0; k < count; k++) { //old bodies off the frame
+			Particle p = members[k];
+			frame.removeDrawable(p);
+			p.trail.clear();
+			p.points.clear();
+		}
+		for (List<Particle> list : lists) { //one sweep: merged bodies in place of the heaviest, the rest dropped
+			int kept = 0;
+			int n = list.size();
+			for (int ii = 0; ii < n; ii++) {
+				Particle p = list.get(ii);
+				if(p.mergeGroup >= 0){
+					if(p != heaviest[p.mergeGroup])
+						continue;
+					p = merged[p.mergeGroup];
+				}
+				if(ii != kept || p != list.get(ii))
+					list.set(kept, p);
+				kept++;
+			}
+			if(kept < n)
+				list.subList(kept, n).clear();
+		}
+		for (int g = 0; g < groups; g++) {
+			if(merged[g] == null)
+				continue;
+			frame.addDrawable(merged[g]);
+			merged[made++] = merged[g];
+		}
+
+		for (int k = 0; k < count; k++) {
+			members[k].mergeGroup = -1;
+			members[k] = null;
+		}
+		for (int g = 0; g < groups; g++)
+			heaviest[g] = null;
+		count = 0;
+		groups = 0;
+		return made;
+	}
+
+	/**
+	 * Makes the merged body of a group: total mass and momentum at the center of mass, average color,
+	 * the heaviest member's trail.
+	 */
+	private Particle merge(int g){
+		double mass = 0, mx = 0, my = 0, px = 0, py = 0, fx = 0, fy = 0, volume = 0;
+		int red = 0, green = 0, blue = 0, n = 0, kills = 0, pixRadius = 0;
+		boolean trace = false;
+		for (int k = 0; k < count; k++) {
+			if(group[k] != g)
+				continue;
+			Particle p = members[k];
+			mass += p.mass;
+			mx += p.mass*p.x_pos;
+			my += p.mass*p.y_pos;
+			px += p.mass*p.v_x;
+			py += p.mass*p.v_y;
+			fx += p.mass*p.acc_x;
+			fy += p.mass*p.acc_y;
+			volume += p.actual_r*p.actual_r*p.actual_r;
+			red += p.color.getRed();
+			green += p.color.getGreen();
+			blue += p.color.getBlue();
+			kills += p.killCount;
+			pixRadius = Math.max(pixRadius, p.pixRadius);
+			trace |= p.trace;
+			n++;
+		}
+		Particle big = heaviest[g];
+		Particle monster = new Particle(); //they have combined!
+		if(mass != 0)
+			monster.init(mx/mass, my/mass, px/mass, py/mass, fx/mass, fy/mass, mass, big.deltaT, 0);
+		else
+			monster.init(big.x_pos, big.y_pos, big.v_x, big.v_y, 0, 0, 0, big.deltaT, 0);
+		monster.time = big.time;
+		monster.cTime = big.cTime;
+		monster.color = new Color(red/n, green/n, blue/n);
+		monster.useRiemann = false;
+		monster.trace = trace;
+		monster.pixRadius = pixRadius;
+		monster.actual_r = Math.cbrt(volume); //same volume
+		monster.killCount = kills + n - 1;
+
+		//take over the heaviest member's trail instead of copying everyone's points
+		monster.trail = big.trail;
+		monster.points = big.points;
+		big.trail = new Trail();
+		big.points = new ArrayList<MyPoint>();
+		return monster;
+	}
+
+	/**
+	 * A body made by the last resolve.
+	 *
+	 * @param index
+	 * 	0 up to (not including) the number resolve returned.
+	 * @return
+	 * 	Merged body.
+	 */
+	public Particle merged(int index){
+		return merged[index];
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ * Particle-mesh (PM) gravity solver for very large numbers of particles. Instead of summing every pair
+ * (O(N^2)) it works in three passes:
+ * 	1. Cloud-in-cell deposit: each particle's mass is shared between the four grid nodes around it.
+ * 	2. The potential on the grid is found by convolving the mass grid with the Green's function -1/r
+ * 	   using FFTs. The grid is zero padded to twice its size so the bodies do not feel periodic images.
+ * 	3. The grid accelerations (central differences of the potential) are interpolated back to each
+ * 	   particle with the same cloud-in-cell weights.
+ * The cost is O(N + M^2 log M) for an M x M grid.
+ *
+ * Note the bodies in these simulations live in a plane but feel the normal 1/r^2 force, so the
+ * Green's function is the 3D one (-G/r) evaluated in the plane rather than the 2D log potential.
+ *
+ * The grid is fitted around the bulk of the bodies every step, so its resolution is (size of the
+ * system)/M. Forces between bodies closer than a couple of cells are smoothed out - this solver is meant
+ * for collisionless cluster/galaxy runs, not for close orbits. The mesh is already softened on the scale
+ * of a cell, so setSoftening and setSplineSoftening have no effect on it.
+ *
+ * Fitting the grid around every body would let one escaping body stretch the cells over the whole
+ * system and wash out the cluster, so the grid is fitted to the range between the OUTLIERS quantiles
+ * of x and y (see GravitySolver.bulk). Bodies outside it are outliers: they are left off the mesh and
+ * summed directly with every other body, both ways, softened by one cell like the mesh.
+ *
+ * @method accelerations
+ * 	Computes accelerations of bodies [from, to) from the mesh.
+ * @method setGridSize
+ * 	Changes the grid resolution.
+ *
+ * @author Andrew M.
+ */
+public class MeshGravity extends GravitySolver {
+	final static int DEFAULT_GRID = 128; //grid nodes per side
+	final static double OUTLIERS = 0.01; //fraction of bodies at each end of x and y the grid is fitted without
+
+	private int M; //grid nodes per side
+	private int N; //padded FFT size (2M)
+	private FFT fft;
+	private double[] kernel; //FFT of the Green's function (real because it is symmetric)
+	private double[] re, im; //padded work grid
+	private double[] gridAx, gridAy; //accelerations on the M x M grid
+	private double[] sorted = new double[0]; //positions partly sorted for the quantiles (scratch)
+	private double[] rangeX = new double[2], rangeY = new double[2]; //x and y range of the bulk
+	private int[] outliers = new int[0]; //bodies off the grid
+	private boolean[] off = new boolean[0]; //whether each body is an outlier
+
+	/**
+	 * Creates a mesh solver with the default grid (128 x 128).
+	 */
+	public MeshGravity(){
+		this(DEFAULT_GRID);
+	}
+
+	/**
+	 * Creates a mesh solver.
+	 *
+	 * @param grid
+	 * 	Grid nodes per side (rounded up to a power of 2, at least 8).
+	 */
+	public MeshGravity(int grid){
+		setGridSize(grid);
+	}
+
+	/**
+	 * Changes the grid resolution (and rebuilds the Green's function).
+	 *
+	 * @param grid
+	 * 	Grid nodes per side (rounded up to a power of 2, at least 8).
+	 */
+	public void setGridSize(int grid){
+		M = Math.max(8, Integer.highestOneBit(Math.max(1, grid - 1)) << 1);
+		N = 2*M;
+		fft = new FFT(N);
+		re = new double[N*N];
+		im = new double[N*N];
+		gridAx = new double[M*M];
+		gridAy = new double[M*M];
+
+		//Green's function in cell units on the padded grid, wrapped so negative offsets sit at the end
+		kernel = new double[N*N];
+		double[] kIm = new double[N*N];
+		for (int jj = 0; jj < N; jj++) {
+			int dy = jj < M ? jj : jj - N;
+			for (int ii = 0; ii < N; ii++) {
+				int dx = ii < M ? ii : ii - N;
+				double r = Math.sqrt(dx*dx + dy*dy);
+				kernel[ii + jj*N] = r == 0 ? -1 : -1/r; //own cell treated as one cell away
+			}
+		}
+		fft.transform2D(kernel, kIm, false);
+	}
+
+	/**
+	 * Gets the grid resolution.
+	 *
+	 * @return
+	 * 	Grid nodes per side.
+	 */
+	public int getGridSize(){
+		return M;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		int n = b.n;
+		if(n == 0)
+			return;
+		double[] x = b.x, y = b.y, m = b.m;
+
+		//fit the grid around the bulk, leaving a spare cell on each side for CIC and differencing
+		if(sorted.length < n){
+			sorted = new double[n];
+			outliers = new int[n];
+			off = new boolean[n];
+		}
+		bulk(x, n, OUTLIERS, sorted, rangeX);
+		bulk(y, n, OUTLIERS, sorted, rangeY);
+		double size = Math.max(rangeX[1] - rangeX[0], rangeY[1] - rangeY[0]);
+		if(size == 0)
+			size = 1;
+		double h = size/(M - 4); //cell size
+		double xc = (rangeX[0] + rangeX[1])/2, yc = (rangeY[0] + rangeY[1])/2;
+		double x0 = xc - h*(M - 1)/2; //position of node (0, 0)
+		double y0 = yc - h*(M - 1)/2;
+		int outCount = 0;
+		for (int ii = 0; ii < n; ii++) {
+			off[ii] = Math.abs(x[ii] - xc) > size/2 || Math.abs(y[ii] - yc) > size/2;
+			if(off[ii])
+				outliers[outCount++] = ii;
+		}
+
+		//1. cloud-in-cell mass deposit
+		java.util.Arrays.fill(re, 0);
+		java.util.Arrays.fill(im, 0);
+		for (int ii = 0; ii < n; ii++) {
+			if(off[ii])
+				continue;
+			double fx = (x[ii] - x0)/h, fy = (y[ii] - y0)/h;
+			int cx = (int) fx, cy = (int) fy;
+			double wx = fx - cx, wy = fy - cy;
+			int k = cx + cy*N;
+			re[k] += m[ii]*(1 - wx)*(1 - wy);
+			re[k + 1] += m[ii]*wx*(1 - wy);
+			re[k + N] += m[ii]*(1 - wx)*wy;
+			re[k + N + 1] += m[ii]*wx*wy;
+		}
+
+		//2. potential = mass (*) Green's function, done as a product in Fourier space
+		fft.transform2D(re, im, false);
+		for (int ii = 0; ii < N*N; ii++) {
+			re[ii] *= kernel[ii];
+			im[ii] *= kernel[ii];
+		}
+		fft.transform2D(re, im, true);
+		double scale = G/h; //kernel was in cell units: phi = -G*m/(h*r_cells)
+
+		//grid accelerations a = -grad(phi) by central differences
+		for (int jj = 1; jj < M - 1; jj++) {
+			for (int ii = 1; ii < M - 1; ii++) {
+				int k = ii + jj*N;
+				gridAx[ii + jj*M] = -scale*(re[k + 1] - re[k - 1])/(2*h);
+				gridAy[ii + jj*M] = -scale*(re[k + N] - re[k - N])/(2*h);
+			}
+		}
+
+		//3. interpolate back with the same weights
+		for (int ii = from; ii < to; ii++) {
+			if(off[ii]){
+				b.ax[ii] = 0;
+				b.ay[ii] = 0;
+				continue;
+			}
+			double fx = (x[ii] - x0)/h, fy = (y[ii] - y0)/h;
+			int cx = (int) fx, cy = (int) fy;
+			double wx = fx - cx, wy = fy - cy;
+			int k = cx + cy*M;
+			double w00 = (1 - wx)*(1 - wy), w10 = wx*(1 - wy), w01 = (1 - wx)*wy, w11 = wx*wy;
+			b.ax[ii] = w00*gridAx[k] + w10*gridAx[k + 1] + w01*gridAx[k + M] + w11*gridAx[k + M + 1];
+			b.ay[ii] = w00*gridAy[k] + w10*gridAy[k + 1] + w01*gridAy[k + M] + w11*gridAy[k + M + 1];
+		}
+
+		//4. outliers with every body directly (each outlier-outlier pair from both ends)
+		double eps2 = h*h;
+		for (int o = 0; o < outCount; o++) {
+			int ii = outliers[o];
+			boolean mine = ii >= from && ii < to;
+			double sumX = 0, sumY = 0;
+			for (int jj = 0; jj < n; jj++) {
+				if(jj == ii)
+					continue;
+				double dx = x[jj] - x[ii], dy = y[jj] - y[ii];
+				double inv = 1/Math.sqrt(dx*dx + dy*dy + eps2);
+				double s = G*inv*inv*inv;
+				if(mine){
+					sumX += m[jj]*s*dx;
+					sumY += m[jj]*s*dy;
+				}
+				if(!off[jj] && jj >= from && jj < to){
+					b.ax[jj] -= m[ii]*s*dx;
+					b.ay[jj] -= m[ii]*s*dy;
+				}
+			}
+			if(mine){
+				b.ax[ii] = sumX;
+				b.ay[ii] = sumY;
+			}
+		}
+	}
+
+	public String toString(){
+		return "mesh " + M;
+	}
+}
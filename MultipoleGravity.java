@@ -0,0 +1,665 @@
+import java.util.Random;
+
+/**
+ * Fast multipole method (FMM) gravity solver: O(N) work for a fixed expansion order p, with the error
+ * controlled by p.
+ *
+ * The bodies are sorted into a uniform quadtree. Every box gets a multipole expansion of the mass
+ * inside it (moments up to order p), built at the leaves and shifted up to the parents (M2M). Going
+ * back down, each box turns the multipoles of the well separated boxes in its interaction list into a
+ * local (Taylor) expansion about its own center (M2L) and passes it on to its children (L2L). At the
+ * leaves the local expansion gives the far field and the neighbouring leaves are summed directly.
+ *
+ * The bodies feel 1/r^2 forces (the potential is -G*m/r) even though they move in a plane, so the
+ * usual complex-variable 2D FMM (which is for the log r potential) does not apply. The expansions are
+ * Cartesian Taylor series of 1/r in x and y instead; the derivatives of 1/r are generated with the
+ * recurrence r^2 a_k = -(2 - 1/|k|) (x a_{k-ex} + y a_{k-ey}) - (1 - 1/|k|) (a_{k-2ex} + a_{k-2ey}),
+ * where a_k are the Taylor coefficients D^k(1/r)/k!.
+ *
+ * The root box is fitted around the bulk of the bodies rather than all of them: a uniform tree around a
+ * cluster plus one far away body would put the whole cluster into a single leaf and sum it directly. The
+ * box is the range between the OUTLIERS quantiles of x and y, widened by half that range on each side, so
+ * ordinary distributions lose nothing. Bodies outside it are outliers, each in a cell of its own: they
+ * walk down the tree from level 2 and meet every box they are well separated from (more than 1.5 box
+ * widths away) through its expansions - their mass goes into the box's local expansion (P2L) and the
+ * box's multipole gives their acceleration (M2P). In leaves they are not separated from they are summed
+ * directly both ways, and outliers sum each other directly.
+ *
+ * Every CHECK_EVERY calls the relative RMS error of a random sample of bodies against the direct sum
+ * is stored (see getError) so accuracy can be traded for speed by changing the order. The check is a
+ * direct sum over the sample, so it is not done on every call.
+ *
+ * Softening (setSoftening / setSplineSoftening) is applied to the direct near-field sum only. The spline
+ * kernel is exactly Newtonian beyond 2.8*eps, so it is exact as long as that is smaller than a leaf;
+ * Plummer softening also changes the far field slightly (by about eps^2/r^2), which is not included.
+ *
+ * @method accelerations
+ * 	Computes accelerations of bodies [from, to).
+ * @method estimateError
+ * 	Compares a random sample of the last result with the direct sum.
+ * @method setOrder
+ * 	Changes the expansion order p.
+ *
+ * @author Andrew M.
+ */
+public class MultipoleGravity extends GravitySolver {
+	final static int DEFAULT_ORDER = 6; //expansion order p
+	final static int LEAF_SIZE = 12; //average bodies per leaf the tree depth aims for
+	final static double OUTLIERS = 0.01; //fraction of bodies at each end of x and y the root box is fitted without
+	final static int CHECK_EVERY = 100; //calls between error checks
+
+	private int p; //expansion order
+	private int nc; //number of coefficients (p+1)(p+2)/2
+	private int[] kx, ky; //multi-index of each coefficient
+	private int[][] index; //coefficient index of (kx, ky), order up to 2p
+	private double[][] binom; //binomial coefficients up to 2p
+	private double[] coef; //Taylor coefficients of one offset (scratch)
+
+	private int samples = 32; //bodies checked against the direct sum each check (0 turns it off)
+	private double error = 0; //relative RMS error of the last sample
+	private int calls = 0; //calls since the last check
+	private Random random = new Random();
+
+	//tree (rebuilt every call, arrays reused)
+	private int levels;
+	private double[][] multipole; //[level][box*nc + k]
+	private double[][] local;
+	private double[][][] m2l; //[level][offset][(k, l) table] derivatives for each interaction offset
+	private int[] leafStart = new int[0], order = new int[0], leafOf = new int[0];
+	private double[] ux = new double[0], uy = new double[0]; //positions scaled to the unit root box
+	private double epsUnit = 0; //softening length scaled to the unit root box
+	private double[] sorted = new double[0]; //positions partly sorted for the quantiles (scratch)
+	private double[] rootX = new double[2], rootY = new double[2]; //x and y range of the root box
+	private int[] outliers = new int[0]; //bodies outside the root box
+	private int outCount = 0;
+	private int[] nearHead = new int[0], nearNext = new int[0], nearBody = new int[0]; //outliers each leaf sums directly (linked lists)
+	private int nearCount = 0;
+	private double[] grad = new double[2]; //gradient on one outlier (scratch)
+	private double[] px = new double[0], py = new double[0]; //powers of an offset up to p (scratch)
+	private int[] fill = new int[0]; //bodies placed in each leaf so far (scratch)
+
+	/**
+	 * Creates an FMM solver of the default order (6).
+	 */
+	public MultipoleGravity(){
+		this(DEFAULT_ORDER);
+	}
+
+	/**
+	 * Creates an FMM solver.
+	 *
+	 * @param order
+	 * 	Expansion order p (higher is more accurate and slower).
+	 */
+	public MultipoleGravity(int order){
+		setOrder(order);
+	}
+
+	/**
+	 * Changes the expansion order.
+	 *
+	 * @param order
+	 * 	Expansion order p (1 to 20).
+	 */
+	public void setOrder(int order){
+		p = Math.max(1, Math.min(20, order));
+		nc = (p + 1)*(p + 2)/2;
+		int q = 2*p;
+		index = new int[q + 1][q + 1];
+		kx = new int[(q + 1)*(q + 2)/2];
+		ky = new int[kx.length];
+		int c = 0;
+		for (int n = 0; n <= q; n++) { //ordered by total degree, so the first nc are |k| <= p
+			for (int b = 0; b <= n; b++) {
+				index[n - b][b] = c;
+				kx[c] = n - b;
+				ky[c] = b;
+				c++;
+			}
+		}
+		binom = new double[q + 1][q + 1];
+		for (int n = 0; n <= q; n++) {
+			binom[n][0] = 1;
+			for (int k = 1; k <= n; k++)
+				binom[n][k] = binom[n - 1][k - 1] + (k <= n - 1 ? binom[n - 1][k] : 0);
+		}
+		coef = new double[kx.length];
+		m2l = null; //rebuilt on the next call
+	}
+
+	/**
+	 * Gets the expansion order.
+	 *
+	 * @return
+	 * 	Order p.
+	 */
+	public int getOrder(){
+		return p;
+	}
+
+	/**
+	 * Sets how many bodies are checked against the direct sum every CHECK_EVERY calls.
+	 *
+	 * @param samples
+	 * 	Number of bodies (0 turns the check off).
+	 */
+	public void setSamples(int samples){
+		this.samples = samples;
+	}
+
+	/**
+	 * Relative RMS error of the sampled accelerations from the last check (0 if sampling is off).
+	 *
+	 * @return
+	 * 	sqrt(sum |a_fmm - a_direct|^2 / sum |a_direct|^2) over the sample.
+	 */
+	public double getError(){
+		return error;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		int n = b.n;
+		if(n == 0)
+			return;
+
+		//scale the root box into the unit square so the expansions stay well inside double range
+		double[] bx = rootX, by = rootY;
+		bounds(b.x, n, bx);
+		bounds(b.y, n, by);
+		double size = Math.max(bx[1] - bx[0], by[1] - by[0])*1.0001;
+		if(size == 0)
+			size = 1;
+		if(ux.length < n){
+			ux = new double[n];
+			uy = new double[n];
+			order = new int[n];
+			leafOf = new int[n];
+			outliers = new int[n];
+		}
+		outCount = 0;
+		for (int ii = 0; ii < n; ii++) {
+			ux[ii] = (b.x[ii] - bx[0])/size;
+			uy[ii] = (b.y[ii] - by[0])/size;
+			leafOf[ii] = 0;
+			if(ux[ii] < 0 || ux[ii] >= 1 || uy[ii] < 0 || uy[ii] >= 1){
+				leafOf[ii] = -1;
+				outliers[outCount++] = ii;
+			}
+		}
+
+		int want = 2;
+		while(want < 12 && n - outCount > LEAF_SIZE*(1L << (2*want))) //4^levels leaves
+			want++;
+		if(want != levels || m2l == null)
+			setupLevels(want);
+
+		epsUnit = softening/size; //softening in unit-square lengths
+		double scale = G/(size*size);
+		sortIntoLeaves(n);
+		upward(b.m);
+		for (int l = 2; l <= levels; l++)
+			java.util.Arrays.fill(local[l], 0);
+		outliers(b, from, to, scale);
+		downward();
+		evaluate(b, from, to, scale);
+		if(samples > 0 && calls++ % CHECK_EVERY == 0)
+			error = estimateError(b, from, to, G, samples);
+	}
+
+	/**
+	 * Range of the root box along one axis (see GravitySolver.bulk).
+	 *
+	 * @param v
+	 * 	Positions along the axis.
+	 * @param n
+	 * 	Number of bodies.
+	 * @param out
+	 * 	Output: low and high end.
+	 */
+	private void bounds(double[] v, int n, double[] out){
+		if(sorted.length < n)
+			sorted = new double[n];
+		bulk(v, n, OUTLIERS, sorted, out);
+	}
+
+	/**
+	 * Allocates the expansions and precomputes the M2L tables for a tree depth.
+	 *
+	 * @param lv
+	 * 	Number of levels below the root.
+	 */
+	private void setupLevels(int lv){
+		levels = lv;
+		px = new double[p + 1];
+		py = new double[p + 1];
+		multipole = new double[lv + 1][];
+		local = new double[lv + 1][];
+		m2l = new double[lv + 1][][];
+		for (int l = 0; l <= lv; l++) {
+			int boxes = 1 << (2*l);
+			multipole[l] = new double[boxes*nc];
+			local[l] = new double[boxes*nc];
+			if(l < 2)
+				continue;
+			//every M2L at this level is between boxes -3..3 apart (in box widths), so the
+			//derivatives of 1/r only need to be worked out once per offset
+			double w = 1.0/(1 << l);
+			m2l[l] = new double[49][];
+			double[] a = new double[kx.length];
+			for (int oy = -3; oy <= 3; oy++) {
+				for (int ox = -3; ox <= 3; ox++) {
+					if(Math.abs(ox) <= 1 && Math.abs(oy) <= 1)
+						continue; //neighbours are done directly
+					derivatives(ox*w, oy*w, a);
+					double[] t = new double[nc*nc];
+					for (int k = 0; k < nc; k++) {
+						double sign = ((kx[k] + ky[k]) & 1) == 0 ? 1 : -1;
+						for (int l2 = 0; l2 < nc; l2++) {
+							int sx = kx[k] + kx[l2], sy = ky[k] + ky[l2];
+							t[k*nc + l2] = sign*binom[sx][kx[l2]]*binom[sy][ky[l2]]*a[index[sx][sy]];
+						}
+					}
+					m2l[l][(oy + 3)*7 + (ox + 3)] = t;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Taylor coefficients a_k = D^k(1/r)/k! at (x, y) for all |k| <= 2p.
+	 *
+	 * @param x
+	 * 	X offset.
+	 * @param y
+	 * 	Y offset.
+	 * @param a
+	 * 	Output, indexed like the coefficients.
+	 */
+	void derivatives(double x, double y, double[] a){
+		double r2 = x*x + y*y;
+		a[0] = 1/Math.sqrt(r2);
+		for (int c = 1; c < a.length; c++) {
+			int i = kx[c], j = ky[c];
+			double n = i + j;
+			double s = 0;
+			if(i >= 1) s += x*a[index[i - 1][j]];
+			if(j >= 1) s += y*a[index[i][j - 1]];
+			double t = 0;
+			if(i >= 2) t += a[index[i - 2][j]];
+			if(j >= 2) t += a[index[i][j - 2]];
+			a[c] = (-(2 - 1/n)*s - (1 - 1/n)*t)/r2;
+		}
+	}
+
+	/**
+	 * Counting sort of the bodies by leaf box (order[] lists bodies leaf by leaf).
+	 *
+	 * @param n
+	 * 	Number of bodies.
+	 */
+	private void sortIntoLeaves(int n){
+		int side = 1 << levels;
+		int leaves = side*side;
+		if(leafStart.length < leaves + 1)
+			leafStart = new int[leaves + 1];
+		java.util.Arrays.fill(leafStart, 0, leaves + 1, 0);
+		for (int ii = 0; ii < n; ii++) {
+			if(leafOf[ii] < 0)
+				continue; //outlier
+			int cx = Math.min(side - 1, (int) (ux[ii]*side));
+			int cy = Math.min(side - 1, (int) (uy[ii]*side));
+			leafOf[ii] = cx + cy*side;
+			leafStart[leafOf[ii] + 1]++;
+		}
+		for (int ii = 0; ii < leaves; ii++)
+			leafStart[ii + 1] += leafStart[ii];
+		if(fill.length < leaves)
+			fill = new int[leaves];
+		java.util.Arrays.fill(fill, 0, leaves, 0);
+		for (int ii = 0; ii < n; ii++) {
+			int leaf = leafOf[ii];
+			if(leaf < 0)
+				continue;
+			order[leafStart[leaf] + fill[leaf]++] = ii;
+		}
+	}
+
+	/**
+	 * P2M at the leaves, then M2M up to level 2.
+	 *
+	 * @param m
+	 * 	Masses.
+	 */
+	private void upward(double[] m){
+		int side = 1 << levels;
+		double w = 1.0/side;
+		double[] leafM = multipole[levels];
+		java.util.Arrays.fill(leafM, 0);
+		for (int box = 0; box < side*side; box++) {
+			double cx = (box % side + 0.5)*w, cy = (box / side + 0.5)*w;
+			for (int q = leafStart[box]; q < leafStart[box + 1]; q++) {
+				int ii = order[q];
+				powers(ux[ii] - cx, p, px);
+				powers(uy[ii] - cy, p, py);
+				for (int k = 0; k < nc; k++)
+					leafM[box*nc + k] += m[ii]*px[kx[k]]*py[ky[k]];
+			}
+		}
+		for (int l = levels - 1; l >= 2; l--) {
+			int s = 1 << l;
+			double[] parent = multipole[l], child = multipole[l + 1];
+			java.util.Arrays.fill(parent, 0);
+			double cw = 1.0/(2*s); //child width
+			for (int by = 0; by < 2*s; by++) {
+				for (int bx = 0; bx < 2*s; bx++) {
+					int c = bx + by*2*s;
+					int par = bx/2 + (by/2)*s;
+					//child center minus parent center is +-cw/2
+					powers(((bx & 1) == 0 ? -0.5 : 0.5)*cw, p, px);
+					powers(((by & 1) == 0 ? -0.5 : 0.5)*cw, p, py);
+					for (int k = 0; k < nc; k++) {
+						double sum = 0;
+						for (int j = 0; j <= k; j++) {
+							if(kx[j] > kx[k] || ky[j] > ky[k])
+								continue;
+							sum += binom[kx[k]][kx[j]]*binom[ky[k]][ky[j]]*child[c*nc + j]*px[kx[k] - kx[j]]*py[ky[k] - ky[j]];
+						}
+						parent[par*nc + k] += sum;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * M2L from each box's interaction list and L2L from parent to children, added to the local expansions
+	 * (cleared beforehand, and holding the outliers' P2L).
+	 */
+	private void downward(){
+		for (int l = 2; l <= levels; l++) {
+			int s = 1 << l;
+			double[] loc = local[l], mul = multipole[l];
+			if(l > 2){ //L2L: shift the parent's local expansion to this box's center
+				double[] parent = local[l - 1];
+				double cw = 1.0/s;
+				for (int by = 0; by < s; by++) {
+					for (int bx = 0; bx < s; bx++) {
+						int c = bx + by*s, par = bx/2 + (by/2)*(s/2);
+						powers(((bx & 1) == 0 ? -0.5 : 0.5)*cw, p, px);
+						powers(((by & 1) == 0 ? -0.5 : 0.5)*cw, p, py);
+						for (int q = 0; q < nc; q++) {
+							double sum = 0;
+							for (int ll = q; ll < nc; ll++) {
+								if(kx[ll] < kx[q] || ky[ll] < ky[q])
+									continue;
+								sum += binom[kx[ll]][kx[q]]*binom[ky[ll]][ky[q]]*parent[par*nc + ll]*px[kx[ll] - kx[q]]*py[ky[ll] - ky[q]];
+							}
+							loc[c*nc + q] += sum;
+						}
+					}
+				}
+			}
+			//M2L: children of the parent's neighbours that are not this box's neighbours
+			for (int by = 0; by < s; by++) {
+				for (int bx = 0; bx < s; bx++) {
+					int c = bx + by*s;
+					int pxMin = Math.max(0, bx/2 - 1)*2, pxMax = Math.min(s/2 - 1, bx/2 + 1)*2 + 1;
+					int pyMin = Math.max(0, by/2 - 1)*2, pyMax = Math.min(s/2 - 1, by/2 + 1)*2 + 1;
+					for (int sy = pyMin; sy <= pyMax; sy++) {
+						for (int sx = pxMin; sx <= pxMax; sx++) {
+							int ox = bx - sx, oy = by - sy;
+							if(Math.abs(ox) <= 1 && Math.abs(oy) <= 1)
+								continue;
+							double[] t = m2l[l][(oy + 3)*7 + (ox + 3)];
+							int src = (sx + sy*s)*nc;
+							for (int k = 0; k < nc; k++) {
+								double mk = mul[src + k];
+								if(mk == 0)
+									continue;
+								int row = k*nc;
+								for (int q = 0; q < nc; q++)
+									loc[c*nc + q] += mk*t[row + q];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Far field from each leaf's local expansion plus a direct sum over the neighbouring leaves.
+	 *
+	 * @param b
+	 * 	Body arrays (accelerations are written here).
+	 * @param from
+	 * 	First body to compute.
+	 * @param to
+	 * 	One past the last body to compute.
+	 * @param scale
+	 * 	G / size^2 (turns unit-square gradients into accelerations).
+	 */
+	private void evaluate(BodyArrays b, int from, int to, double scale){
+		int side = 1 << levels;
+		double w = 1.0/side;
+		double[] loc = local[levels];
+		for (int ii = from; ii < to; ii++) {
+			int leaf = leafOf[ii];
+			if(leaf < 0)
+				continue; //outliers were done in outliers()
+			int cx = leaf % side, cy = leaf / side;
+			double dx = ux[ii] - (cx + 0.5)*w, dy = uy[ii] - (cy + 0.5)*w;
+			powers(dx, p, px);
+			powers(dy, p, py);
+			//gradient of sum L_l u^l
+			double gx = 0, gy = 0;
+			for (int k = 1; k < nc; k++) {
+				double L = loc[leaf*nc + k];
+				if(kx[k] > 0)
+					gx += kx[k]*L*px[kx[k] - 1]*py[ky[k]];
+				if(ky[k] > 0)
+					gy += ky[k]*L*px[kx[k]]*py[ky[k] - 1];
+			}
+			//near field: the 3x3 block of leaves around this one
+			for (int ny = Math.max(0, cy - 1); ny <= Math.min(side - 1, cy + 1); ny++) {
+				for (int nx = Math.max(0, cx - 1); nx <= Math.min(side - 1, cx + 1); nx++) {
+					int nb = nx + ny*side;
+					for (int q = leafStart[nb]; q < leafStart[nb + 1]; q++) {
+						int jj = order[q];
+						double rx = ux[jj] - ux[ii], ry = uy[jj] - uy[ii];
+						double r2 = rx*rx + ry*ry;
+						if(r2 == 0)
+							continue;
+						double s = b.m[jj]*inv3(r2);
+						gx += s*rx;
+						gy += s*ry;
+					}
+				}
+			}
+			for (int e = nearHead[leaf]; e >= 0; e = nearNext[e]) { //outliers too close for the expansions
+				int jj = nearBody[e];
+				double rx = ux[jj] - ux[ii], ry = uy[jj] - uy[ii];
+				double s = b.m[jj]*inv3(rx*rx + ry*ry);
+				gx += s*rx;
+				gy += s*ry;
+			}
+			b.ax[ii] = scale*gx;
+			b.ay[ii] = scale*gy;
+		}
+	}
+
+	/**
+	 * Outliers against the tree and each other: P2L into the local expansions of the boxes each outlier is
+	 * well separated from, M2P from those boxes' multipoles, direct sums with the leaves it is too close to
+	 * (noted in nearHead for evaluate) and with the other outliers.
+	 *
+	 * @param b
+	 * 	Body arrays (accelerations of outliers in [from, to) are written here).
+	 * @param from
+	 * 	First body to compute.
+	 * @param to
+	 * 	One past the last body to compute.
+	 * @param scale
+	 * 	G / size^2 (turns unit-square gradients into accelerations).
+	 */
+	private void outliers(BodyArrays b, int from, int to, double scale){
+		int leaves = 1 << (2*levels);
+		if(nearHead.length < leaves)
+			nearHead = new int[leaves];
+		java.util.Arrays.fill(nearHead, 0, leaves, -1);
+		nearCount = 0;
+		double[] g = grad;
+		for (int o = 0; o < outCount; o++) {
+			int ii = outliers[o];
+			g[0] = g[1] = 0;
+			for (int by = 0; by < 4; by++) {
+				for (int bx = 0; bx < 4; bx++)
+					walk(b, ii, 2, bx, by, g);
+			}
+			for (int q = 0; q < outCount; q++) {
+				int jj = outliers[q];
+				double rx = ux[jj] - ux[ii], ry = uy[jj] - uy[ii];
+				double r2 = rx*rx + ry*ry;
+				if(r2 == 0)
+					continue;
+				double s = b.m[jj]*inv3(r2);
+				g[0] += s*rx;
+				g[1] += s*ry;
+			}
+			if(ii >= from && ii < to){
+				b.ax[ii] = scale*g[0];
+				b.ay[ii] = scale*g[1];
+			}
+		}
+	}
+
+	/**
+	 * One outlier against a box and, if it is too close for the box's expansions, the box's children.
+	 *
+	 * @param b
+	 * 	Body arrays.
+	 * @param ii
+	 * 	Outlier.
+	 * @param l
+	 * 	Level of the box.
+	 * @param bx
+	 * 	Column of the box.
+	 * @param by
+	 * 	Row of the box.
+	 * @param g
+	 * 	Gradient on the outlier (unit-square units), added to.
+	 */
+	private void walk(BodyArrays b, int ii, int l, int bx, int by, double[] g){
+		int s = 1 << l;
+		double w = 1.0/s;
+		double dx = ux[ii] - (bx + 0.5)*w, dy = uy[ii] - (by + 0.5)*w;
+		int box = bx + by*s;
+		if(Math.max(Math.abs(dx), Math.abs(dy)) >= 1.5*w){ //well separated
+			derivatives(dx, dy, coef); //a_k(outlier - center)
+			double[] loc = local[l], mul = multipole[l];
+			double m = b.m[ii];
+			for (int k = 0; k < nc; k++) {
+				double sign = ((kx[k] + ky[k]) & 1) == 0 ? 1 : -1;
+				loc[box*nc + k] += m*sign*coef[k]; //P2L: a_k(center - outlier)
+				double mk = mul[box*nc + k];
+				if(mk == 0)
+					continue;
+				g[0] += sign*mk*(kx[k] + 1)*coef[index[kx[k] + 1][ky[k]]]; //M2P
+				g[1] += sign*mk*(ky[k] + 1)*coef[index[kx[k]][ky[k] + 1]];
+			}
+		}
+		else if(l < levels){
+			for (int cy = 2*by; cy <= 2*by + 1; cy++) {
+				for (int cx = 2*bx; cx <= 2*bx + 1; cx++)
+					walk(b, ii, l + 1, cx, cy, g);
+			}
+		}
+		else if(leafStart[box + 1] > leafStart[box]){ //leaf: direct both ways
+			for (int q = leafStart[box]; q < leafStart[box + 1]; q++) {
+				int jj = order[q];
+				double rx = ux[jj] - ux[ii], ry = uy[jj] - uy[ii];
+				double f = b.m[jj]*inv3(rx*rx + ry*ry);
+				g[0] += f*rx;
+				g[1] += f*ry;
+			}
+			if(nearCount == nearBody.length){
+				nearBody = java.util.Arrays.copyOf(nearBody, Math.max(16, 2*nearCount));
+				nearNext = java.util.Arrays.copyOf(nearNext, nearBody.length);
+			}
+			nearBody[nearCount] = ii;
+			nearNext[nearCount] = nearHead[box];
+			nearHead[box] = nearCount++;
+		}
+	}
+
+	/**
+	 * 1/r^3 of the direct sums, softened if softening is on.
+	 *
+	 * @param r2
+	 * 	Squared distance (unit-square units).
+	 * @return
+	 * 	1/r^3.
+	 */
+	private double inv3(double r2){
+		if(epsUnit > 0)
+			return soften(r2, epsUnit, spline);
+		double inv = 1/Math.sqrt(r2);
+		return inv*inv*inv;
+	}
+
+	/**
+	 * Compares the last result for a random sample of bodies with the direct sum.
+	 *
+	 * @param b
+	 * 	Body arrays holding the FMM accelerations.
+	 * @param from
+	 * 	First body that was computed.
+	 * @param to
+	 * 	One past the last body that was computed.
+	 * @param G
+	 * 	Gravitational constant.
+	 * @param count
+	 * 	Number of bodies to check.
+	 * @return
+	 * 	Relative RMS error over the sample.
+	 */
+	public double estimateError(BodyArrays b, int from, int to, double G, int count){
+		double num = 0, den = 0;
+		for (int c = 0; c < count && to > from; c++) {
+			int ii = from + random.nextInt(to - from);
+			double sx = 0, sy = 0;
+			for (int jj = 0; jj < b.n; jj++) {
+				double dx = b.x[jj] - b.x[ii], dy = b.y[jj] - b.y[ii];
+				double r2 = dx*dx + dy*dy;
+				if(r2 == 0)
+					continue;
+				double inv = 1/Math.sqrt(r2);
+				double s = b.m[jj]*(softening > 0 ? soften(r2, softening, spline) : inv*inv*inv);
+				sx += s*dx;
+				sy += s*dy;
+			}
+			sx *= G;
+			sy *= G;
+			num += (b.ax[ii] - sx)*(b.ax[ii] - sx) + (b.ay[ii] - sy)*(b.ay[ii] - sy);
+			den += sx*sx + sy*sy;
+		}
+		return den == 0 ? 0 : Math.sqrt(num/den);
+	}
+
+	/**
+	 * Fills out[0..p] with powers of v.
+	 */
+	private static void powers(double v, int p, double[] out){
+		out[0] = 1;
+		for (int ii = 1; ii <= p; ii++)
+			out[ii] = out[ii - 1]*v;
+	}
+
+	public String toString(){
+		return "fmm " + p;
+	}
+}
@@ -2,6 +2,7 @@
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.util.Random;
@@ -14,6 +15,11 @@ import org.opensourcephysics.frames.DisplayFrame;
 /**
  * Contains ellipse object. 
  * 
+ * The outline is kept as a vertex buffer (world coordinates) that is only rebuilt when the ellipse's 
+ * points change or when the pixel scale of the panel changes enough to need a different number of 
+ * segments. Repaints just map the cached vertices to pixels and draw them, so an ellipse that stays 
+ * on screen for a long Kepler demonstration costs the same to draw every frame. 
+ * 
  * @author Andrew M. 
  */
 public class MyEllipse extends Trail implements Drawable {
@@ -23,9 +29,22 @@ public class MyEllipse extends Trail implements Drawable {
 	public MyPoint f1 = new MyPoint(); 
 	public MyPoint f2 = new MyPoint(); 
 	public MyPoint[] my = new MyPoint[4]; 
-	double precision = 5E8; //Math.abs((Math.abs(points[0].x) + Math.abs(points[2].x))/(1)); 
 	double h, k, a, b; 
 
+	final private static int MIN_SEGMENTS = 16; //fewest segments used for a tiny ellipse 
+	final private static int MAX_SEGMENTS = 2048; //cap on segments for a huge (zoomed in) ellipse 
+	final private static int DEFAULT_SEGMENTS = 256; //used when no panel scale is known (plot()) 
+	final private static double PIXELS_PER_SEGMENT = 3; //approximate on-screen length of each segment 
+
+	private double[] vx = new double[0]; //cached vertex buffer (world coordinates) 
+	private double[] vy = new double[0]; 
+	private int[] px = new int[0]; //reused pixel buffer for drawing 
+	private int[] py = new int[0]; 
+	private int segments = 0; //segments in the current vertex buffer 
+	private boolean dirty = true; //points changed since vertices were built 
+	private Color lineColor = pastel(); //picked once so the ellipse does not flicker 
+	private BasicStroke stroke = new BasicStroke(3); 
+
 	public MyEllipse(){
 	}
 
@@ -34,6 +53,17 @@ public class MyEllipse extends Trail implements Drawable {
 	}
 
 	public MyEllipse(MyPoint[] points){
+		setPoints(points); 
+	}
+
+	/**
+	 * Sets the four extreme points of the ellipse and recalculates its axes and foci. 
+	 * The cached vertices are rebuilt on the next draw. 
+	 * 
+	 * @param points
+	 * 	Left, top, right and bottom points of the ellipse. 
+	 */
+	public void setPoints(MyPoint[] points){
 		//0 is left 
 		//1 is top 
 		//2 is right
@@ -54,34 +84,77 @@ public class MyEllipse extends Trail implements Drawable {
 		k = center.y; 
 		b = semi_minor; 
 		a = semi_major; 
+		dirty = true; 
 	}
 
 	/**
-	 * Plots ellipse. 
+	 * Number of segments needed to draw the ellipse smoothly at a given pixel scale. 
 	 * 
-	 * @param frame
-	 * 	DisplayFrame to plot on. 
+	 * @param pixPerUnit
+	 * 	Pixels per world unit of the panel. 
+	 * @return
+	 * 	Segment count (between MIN_SEGMENTS and MAX_SEGMENTS). 
 	 */
-	public Trail plot() {
-		//System.out.println("Precision: " + precision);
+	int segmentsFor(double pixPerUnit){
+		double aa = Math.abs(a), bb = Math.abs(b); 
+		//Ramanujan's approximation of the perimeter 
+		double perimeter = Math.PI*(3*(aa+bb) - Math.sqrt((3*aa+bb)*(aa+3*bb))); 
+		double n = perimeter*Math.abs(pixPerUnit)/PIXELS_PER_SEGMENT; 
+		if(!(n > MIN_SEGMENTS)) //also catches NaN 
+			return MIN_SEGMENTS; 
+		if(n > MAX_SEGMENTS)
+			return MAX_SEGMENTS; 
+		return (int) n; 
+	}
 
-		Trail cur = new Trail(); 
-		MyPoint p = new MyPoint();
-		for (double ii = my[0].x; ii < my[2].x; ii += precision) {
-			p.x = ii; 
-			p.y = Math.sqrt((-Math.pow((ii-h), 2)*(b*b))/(a*a) + (b*b)) + k; 
-			cur.addPoint(p.x, p.y);
-			//System.out.println("Point: " + p.x + ", " + p.y);
+	/**
+	 * Rebuilds the vertex buffer if the points changed or a different number of segments is needed. 
+	 * Vertices are spaced evenly in the eccentric anomaly (x = h + a cos t, y = k + b sin t), which 
+	 * avoids the crowding near the left and right ends that sweeping in x gives. 
+	 * 
+	 * @param n
+	 * 	Number of segments wanted. 
+	 */
+	private void buildVertices(int n){
+		if(!dirty && n == segments)
+			return; 
+		if(vx.length != n+1){
+			vx = new double[n+1]; 
+			vy = new double[n+1]; 
+			px = new int[n+1]; 
+			py = new int[n+1]; 
 		}
-		for (double ii = my[2].x; ii > my[0].x; ii -= precision) {
-			p.x = ii; 
-			p.y = -Math.sqrt((-Math.pow((ii-h), 2)*(b*b))/(a*a) + (b*b)) + k; 
-			cur.addPoint(p.x, p.y);
-			//System.out.println("Point: " + p.x + ", " + p.y);
+		//rotate a unit vector instead of calling cos/sin for every vertex 
+		double c = Math.cos(2*Math.PI/n), s = Math.sin(2*Math.PI/n); 
+		double ux = 1, uy = 0; 
+		for (int ii = 0; ii < n; ii++) {
+			vx[ii] = h + a*ux; 
+			vy[ii] = k + b*uy; 
+			double t = ux*c - uy*s; 
+			uy = ux*s + uy*c; 
+			ux = t; 
 		}
-		cur.addPoint(my[0].x, center.y);
-		cur.color = pastel(); 
-		cur.setStroke(new BasicStroke(3));
+		vx[n] = vx[0]; //close the outline 
+		vy[n] = vy[0]; 
+		segments = n; 
+		dirty = false; 
+	}
+
+	/**
+	 * Plots ellipse. 
+	 * 
+	 * @return
+	 * 	Trail containing the ellipse's outline. 
+	 */
+	public Trail plot() {
+		Trail cur = new Trail(); 
+		if(my[0] == null)
+			return cur; 
+		buildVertices(dirty || segments == 0 ? DEFAULT_SEGMENTS : segments); 
+		for (int ii = 0; ii <= segments; ii++) 
+			cur.addPoint(vx[ii], vy[ii]);
+		cur.color = lineColor; 
+		cur.setStroke(stroke);
 		return cur; 
 	}
 
@@ -143,13 +216,35 @@ public class MyEllipse extends Trail implements Drawable {
 		f.removeDrawable(this);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.opensourcephysics.display.Trail#draw(org.opensourcephysics.display.DrawingPanel, java.awt.Graphics)
+	 * 
+	 * Draws the cached outline; vertices are only regenerated if the points or the zoom level changed. 
+	 */
 	@Override
 	public void draw(DrawingPanel panel, Graphics g) {
-		// TODO Auto-generated method stub
-		panel.addDrawable(this.plot());
+		if(my[0] == null)
+			return; 
+		buildVertices(segmentsFor(Math.max(panel.getXPixPerUnit(), panel.getYPixPerUnit()))); 
+		for (int ii = 0; ii <= segments; ii++) {
+			px[ii] = panel.xToPix(vx[ii]); 
+			py[ii] = panel.yToPix(vy[ii]); 
+		}
+		Graphics2D g2 = (Graphics2D) g; 
+		java.awt.Stroke oldStroke = g2.getStroke(); 
+		g2.setColor(lineColor); 
+		g2.setStroke(stroke); 
+		g2.drawPolyline(px, py, segments+1); 
+		g2.setStroke(oldStroke); 
 	}
 
+	/**
+	 * Adds the ellipse to a frame (it is only added once; the frame redraws it from the cache). 
+	 * 
+	 * @param frame
+	 * 	DisplayFrame to plot on. 
+	 */
 	public void plot(DisplayFrame frame){
-		frame.addDrawable(this.plot());
+		frame.addDrawable(this);
 	}
 }
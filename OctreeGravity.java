@@ -0,0 +1,322 @@
+/**
+ * Barnes-Hut tree gravity solver in three dimensions: O(N log N) work, with the error set by the
+ * opening angle theta.
+ *
+ * Every call the bodies are sorted into an octree (a cube split into 8 smaller cubes, again and
+ * again, until each leaf holds at most LEAF_SIZE bodies). Each cell keeps its total mass and center
+ * of mass. To find the acceleration of a body the tree is walked from the root: a cell that is far
+ * enough away is treated as one point mass at its center of mass, otherwise its children are opened,
+ * and the bodies in the leaves that get opened are summed directly. A cell of side s whose center of
+ * mass is d away is far enough when
+ * 	d > s/theta + delta
+ * where delta is the distance from the cell's center of mass to its geometric center (this stops a
+ * lopsided cell from being accepted by a body sitting right next to its mass). A body inside a cell is
+ * at most half the cell's diagonal (s*sqrt(3)/2) from its center, so with theta above 2/sqrt(3) a cell
+ * could be accepted by a body inside it, which would then pull on itself; theta is kept to MAX_THETA.
+ *
+ * With a BodyArrays3D the z axis is used (and b.az filled in); with a plain BodyArrays every body is
+ * at z = 0 and the tree works as a quadtree. Softening (setSoftening / setSplineSoftening) is applied
+ * to cells and bodies alike.
+ *
+ * The tree is stored in flat arrays that are reused from call to call, so building it does not allocate
+ * once it has grown to fit.
+ *
+ * see:
+ * 	http://en.wikipedia.org/wiki/Barnes%E2%80%93Hut_simulation
+ *
+ * @method accelerations
+ * 	Computes accelerations of bodies [from, to).
+ * @method setTheta
+ * 	Changes the opening angle.
+ *
+ * @author Andrew M.
+ */
+public class OctreeGravity extends GravitySolver {
+	final static double DEFAULT_THETA = 0.5; //opening angle
+	final static int LEAF_SIZE = 8; //bodies a leaf holds before it is split
+	final static int MAX_DEPTH = 48; //bodies closer than size/2^48 share a leaf however many there are
+	final static double MAX_THETA = 1.15; //just under 2/sqrt(3), where a body could accept its own cell
+
+	private double theta = DEFAULT_THETA;
+
+	//tree (rebuilt every call, arrays reused); cell 0 is the root and children always come after parents
+	private int cells;
+	private double[] cx = new double[0], cy = new double[0], cz = new double[0]; //cell centers
+	private double[] half = new double[0]; //half the side of each cell
+	private double[] mass = new double[0]; //total mass in each cell
+	private double[] mx = new double[0], my = new double[0], mz = new double[0]; //center of mass
+	private double[] open = new double[0]; //squared distance inside which a cell must be opened
+	private int[] child = new int[0]; //8 per cell, 0 = no child
+	private boolean[] leaf = new boolean[0];
+	private int[] first = new int[0], count = new int[0]; //bodies in a leaf (linked through next)
+	private int[] next = new int[0];
+	private int[] stack = new int[0];
+	private double[] zero = new double[0]; //z of every body when the arrays are 2D
+
+	/**
+	 * Creates a tree solver with the default opening angle (0.5).
+	 */
+	public OctreeGravity(){
+	}
+
+	/**
+	 * Creates a tree solver.
+	 *
+	 * @param theta
+	 * 	Opening angle (smaller is more accurate and slower, 0 is the direct sum).
+	 */
+	public OctreeGravity(double theta){
+		setTheta(theta);
+	}
+
+	/**
+	 * Changes the opening angle.
+	 *
+	 * @param theta
+	 * 	Opening angle (0 to MAX_THETA).
+	 */
+	public void setTheta(double theta){
+		this.theta = Math.max(0, Math.min(MAX_THETA, theta));
+	}
+
+	/**
+	 * Gets the opening angle.
+	 *
+	 * @return
+	 * 	theta.
+	 */
+	public double getTheta(){
+		return theta;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		int n = b.n;
+		if(n == 0)
+			return;
+		double[] z;
+		if(b instanceof BodyArrays3D)
+			z = ((BodyArrays3D) b).z;
+		else {
+			if(zero.length < n)
+				zero = new double[n];
+			z = zero;
+		}
+		build(b.x, b.y, z, b.m, n);
+
+		double eps = softening;
+		boolean useSpline = spline;
+		boolean pot = b.potential;
+		double[] x = b.x, y = b.y, m = b.m;
+		for (int ii = from; ii < to; ii++) {
+			double xi = x[ii], yi = y[ii], zi = z[ii];
+			double sumX = 0, sumY = 0, sumZ = 0, sumP = 0;
+			int top = 0;
+			stack[top++] = 0;
+			while(top > 0){
+				int c = stack[--top];
+				if(mass[c] == 0)
+					continue;
+				double dx = mx[c] - xi, dy = my[c] - yi, dz = mz[c] - zi;
+				double r2 = dx*dx + dy*dy + dz*dz;
+				if(r2 > open[c]){ //far enough: the whole cell as one point mass
+					double s = mass[c]*(eps > 0 ? soften(r2, eps, useSpline) : inv3(r2));
+					sumX += s*dx;
+					sumY += s*dy;
+					sumZ += s*dz;
+					if(pot)
+						sumP += mass[c]*potential(r2, eps, useSpline);
+				}
+				else if(leaf[c]){
+					for (int jj = first[c]; jj >= 0; jj = next[jj]) {
+						dx = x[jj] - xi;
+						dy = y[jj] - yi;
+						dz = z[jj] - zi;
+						r2 = dx*dx + dy*dy + dz*dz;
+						if(r2 == 0) //itself (or exactly on top of it)
+							continue;
+						double s = m[jj]*(eps > 0 ? soften(r2, eps, useSpline) : inv3(r2));
+						sumX += s*dx;
+						sumY += s*dy;
+						sumZ += s*dz;
+						if(pot)
+							sumP += m[jj]*potential(r2, eps, useSpline);
+					}
+				}
+				else {
+					for (int o = 0; o < 8; o++)
+						if(child[8*c + o] != 0)
+							stack[top++] = child[8*c + o];
+				}
+			}
+			b.ax[ii] = G*sumX;
+			b.ay[ii] = G*sumY;
+			if(pot)
+				b.pot[ii] = -G*sumP;
+			if(z != zero)
+				((BodyArrays3D) b).az[ii] = G*sumZ;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#potentials()
+	 *
+	 * Cells far enough away add their potential as one point mass, like their force.
+	 */
+	@Override
+	public boolean potentials(){
+		return true; 
+	}
+
+	private static double inv3(double r2){
+		double inv = 1/Math.sqrt(r2);
+		return inv*inv*inv;
+	}
+
+	/**
+	 * Sorts the bodies into a fresh tree and works out the mass, center of mass and opening
+	 * distance of every cell.
+	 */
+	private void build(double[] x, double[] y, double[] z, double[] m, int n){
+		double xMin = x[0], xMax = x[0], yMin = y[0], yMax = y[0], zMin = z[0], zMax = z[0];
+		for (int ii = 1; ii < n; ii++) {
+			if(x[ii] < xMin) xMin = x[ii];
+			if(x[ii] > xMax) xMax = x[ii];
+			if(y[ii] < yMin) yMin = y[ii];
+			if(y[ii] > yMax) yMax = y[ii];
+			if(z[ii] < zMin) zMin = z[ii];
+			if(z[ii] > zMax) zMax = z[ii];
+		}
+		double size = Math.max(xMax - xMin, Math.max(yMax - yMin, zMax - zMin))*1.0001;
+		if(size == 0)
+			size = 1;
+		if(next.length < n)
+			next = new int[n];
+
+		cells = 0;
+		newCell((xMin + xMax)/2, (yMin + yMax)/2, (zMin + zMax)/2, size/2);
+		for (int ii = 0; ii < n; ii++)
+			insert(0, ii, 0, x, y, z);
+
+		//children come after their parents, so going backwards adds up each cell after its children
+		for (int c = cells - 1; c >= 0; c--) {
+			double sm = 0, sx = 0, sy = 0, sz = 0;
+			if(leaf[c]){
+				for (int jj = first[c]; jj >= 0; jj = next[jj]) {
+					sm += m[jj];
+					sx += m[jj]*x[jj];
+					sy += m[jj]*y[jj];
+					sz += m[jj]*z[jj];
+				}
+			}
+			else {
+				for (int o = 0; o < 8; o++) {
+					int k = child[8*c + o];
+					if(k == 0)
+						continue;
+					sm += mass[k];
+					sx += mass[k]*mx[k];
+					sy += mass[k]*my[k];
+					sz += mass[k]*mz[k];
+				}
+			}
+			mass[c] = sm;
+			if(sm != 0){
+				mx[c] = sx/sm;
+				my[c] = sy/sm;
+				mz[c] = sz/sm;
+			}
+			else {
+				mx[c] = cx[c];
+				my[c] = cy[c];
+				mz[c] = cz[c];
+			}
+			if(leaf[c])
+				open[c] = Double.POSITIVE_INFINITY; //a leaf is always summed body by body
+			else if(theta == 0)
+				open[c] = Double.POSITIVE_INFINITY;
+			else {
+				double ex = mx[c] - cx[c], ey = my[c] - cy[c], ez = mz[c] - cz[c];
+				double d = 2*half[c]/theta + Math.sqrt(ex*ex + ey*ey + ez*ez);
+				open[c] = d*d;
+			}
+		}
+		if(stack.length < 7*MAX_DEPTH + 8)
+			stack = new int[7*MAX_DEPTH + 8]; //each level leaves at most 7 siblings on the stack
+	}
+
+	/**
+	 * Puts body ii into the tree under cell c (at depth depth), splitting full leaves on the way.
+	 */
+	private void insert(int c, int ii, int depth, double[] x, double[] y, double[] z){
+		while(!leaf[c]){
+			int o = octant(c, x[ii], y[ii], z[ii]);
+			if(child[8*c + o] == 0){
+				double h = half[c]/2;
+				int k = newCell(cx[c] + ((o & 1) != 0 ? h : -h), cy[c] + ((o & 2) != 0 ? h : -h),
+						cz[c] + ((o & 4) != 0 ? h : -h), h);
+				child[8*c + o] = k;
+			}
+			c = child[8*c + o];
+			depth++;
+		}
+		if(count[c] < LEAF_SIZE || depth >= MAX_DEPTH){
+			next[ii] = first[c];
+			first[c] = ii;
+			count[c]++;
+			return;
+		}
+		//full: turn it into an inner cell and push its bodies (and this one) one level down
+		leaf[c] = false;
+		int jj = first[c];
+		first[c] = -1;
+		count[c] = 0;
+		while(jj >= 0){
+			int after = next[jj];
+			insert(c, jj, depth, x, y, z);
+			jj = after;
+		}
+		insert(c, ii, depth, x, y, z);
+	}
+
+	private int octant(int c, double x, double y, double z){
+		return (x >= cx[c] ? 1 : 0) | (y >= cy[c] ? 2 : 0) | (z >= cz[c] ? 4 : 0);
+	}
+
+	private int newCell(double x, double y, double z, double h){
+		if(cells == cx.length){
+			int cap = Math.max(64, 2*cells);
+			cx = BodyArrays.grow(cx, cap);
+			cy = BodyArrays.grow(cy, cap);
+			cz = BodyArrays.grow(cz, cap);
+			half = BodyArrays.grow(half, cap);
+			mass = BodyArrays.grow(mass, cap);
+			mx = BodyArrays.grow(mx, cap);
+			my = BodyArrays.grow(my, cap);
+			mz = BodyArrays.grow(mz, cap);
+			open = BodyArrays.grow(open, cap);
+			child = java.util.Arrays.copyOf(child, 8*cap);
+			leaf = java.util.Arrays.copyOf(leaf, cap);
+			first = java.util.Arrays.copyOf(first, cap);
+			count = java.util.Arrays.copyOf(count, cap);
+		}
+		int c = cells++;
+		cx[c] = x;
+		cy[c] = y;
+		cz[c] = z;
+		half[c] = h;
+		leaf[c] = true;
+		first[c] = -1;
+		count[c] = 0;
+		for (int o = 0; o < 8; o++)
+			child[8*c + o] = 0;
+		return c;
+	}
+
+	public String toString(){
+		return "octree " + theta;
+	}
+}
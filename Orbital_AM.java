@@ -33,12 +33,21 @@ import org.opensourcephysics.frames.DisplayFrame;
  * DisplayFrame for graphics (it provides an excellent graphing frame to display the particles). Instead 
  * of running an OSP AbstractSimulation, a Java Executor is used to choose a simulation speed. 
  * 
+ * As in Gen_Sim, the controller only sees snapshots of the bodies (through a StateExchange) and its 
+ * edits are applied on the simulation thread at the start of a step (apply_edits). 
+ * 
  * @method run 
  * 	Runs simulation by stepping particles or, if stopped, dealing with controller. 
+ * @method apply_edits 
+ * 	Applies the edits queued by the controller. 
  * @method stop 
  * 	Toggles start/stop. 
  * @method add_particles 
  * 	Adds all particles to simulation. 
+ * @method toggle_integrator 
+ * 	Switches between stepping each particle and the Wisdom-Holman map (WisdomHolman). 
+ * @method toggle_metrics 
+ * 	Turns the printed step metrics (StepMetrics) on or off. 
  * @method clear_trails 
  * 	Clears trails on screen (can slow down sim). 
  * @method pastel 
@@ -78,6 +87,7 @@ public class Orbital_AM implements Runnable {
 	 */
 	protected ArrayList<Particle> bodies = new ArrayList<Particle>();
 	protected static ParticleController control;
+	protected StateExchange exchange = new StateExchange(); //snapshots to the controller, edits from it 
 
 	protected double g = 9.803; // gravity constant
 	protected double G = 6.67384E-11; //universal gravitational constant
@@ -88,6 +98,7 @@ public class Orbital_AM implements Runnable {
 	final private static double EARTH_ORBIT = 1.5E11; //m
 	final private static double EARTH_TANGENTIAL_VELOCITY = 30000; // m/s
 	final private double COLLISION_RAD = 1;
+	final private static double K = 8.9875517873681764E9; //Coulomb constant 
 
 	final private static int[] FRAME_LOC = { 0, 0 }; //location of DisplayFrame on screen 
 	final private static int[] FRAME_DIMENSIONS = { 600, 700 }; //size of DisplayFrame 
@@ -103,79 +114,36 @@ public class Orbital_AM implements Runnable {
 	protected boolean state_changed = false; 
 	protected int view_num = 0; //the view chosen by the user 
 	long TICK_RATE = 1000000;
+	BodyArrays arrays = new BodyArrays(); //primitive copy of bodies for the Wisdom-Holman map 
+	WisdomHolman wh = null; //Wisdom-Holman integrator (null = each particle steps itself) 
+	StepMetrics metrics = new StepMetrics(); //time spent in each phase of a step 
 
 	boolean pone = false; 
 	boolean ptwo = false; 
 	boolean pthree = false; 
+	boolean prove_one = false; //user asked for the ellipses 
 	LawOne one;
 	JLabel lab = new JLabel(); 
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void run() {
 		//frame.setBackground(Color.BLACK); //TODO: FIX!!!
+		metrics.begin(); 
+		boolean changed = apply_edits() | state_changed; //controller needs a new snapshot 
+		state_changed = false; 
 
 		if (stop) { 
 			frame.setTitle("STOPPED"); //say stopped at top 
-			if (state_changed) {
-				state_changed = false;
-				control.refresh(this, false);
-				control.setEditable(); //allow user to edit Particle properties 
-			}
-			if (control.DATA_CHANGE) { //if user has entered data 
-				if (control.T_CHANGE) { //only if time data has been changed - needs to reset runnable 
-					if (control.DEBUG_MODE) 
-						System.out.println("Time changed to " + TIME_STEP + " executor should reset.");
-					if (control.TIME_STEP > 0) { //cannot set time step to 0
-						this.TIME_STEP = control.TIME_STEP;
-						this.TICK_RATE = (long) this.TIME_STEP;
-					}
-					reset_clock(this); //resets executor 
-					control.T_CHANGE = false;
-				}
-				if (control.G_CHANGE) { //changed gravitational constant 
-					this.G = control.G;
-					if (DEBUG_MODE) 
-						System.out.println("Real G changed to " + G);
-					control.G_CHANGE = false;
-				}
-				if(control.load){
-					control.load = false; 
-					frame.clearDrawables();
-					bodies.clear(); 
-					this.load(control.loaded); //loads the new particles into the simulation
-
-					for (Particle p : bodies) {
-						if(DEBUG_MODE)
-							System.out.println(p.toString());
-						p.color = pastel(); 
-						p.radius = 10; 
-						p.pixRadius = 10; 
-						System.out.println("setting radius");
-						//p.pixRadius = 10; 
-					}
-				}
-				else { 
-					//bodies.clear(); //get rid of these bodies, get updated ones from the controller 
-					bodies = (ArrayList<Particle>) control.particles.clone();
-					control.DATA_CHANGE = false; 
-					control.addMass = false; 
-				}
-				control.DATA_CHANGE = false; //no new data now 
-				add_particles(); //add particles to screen 
-				control.refresh(this, false); 
-			}
-			control.canRead = true;
 		} else {
 			//running simulation 
-			control.setUnEditable(); //no edits allowed 
 			frame.setTitle("RUNNING: View #" + view_num);
-			control.DATA_CHANGE = false;
-			control.canRead = false;
-			calculate_accelerations();
+			metrics.skip(); 
+			if(wh == null)
+				calculate_accelerations(); //the Wisdom-Holman map works out its own 
+			metrics.lap(StepMetrics.FORCE); 
 			move_bodies(frame);
-			if(control.prove_one){
-				control.prove_one = false; 
+			if(prove_one){
+				prove_one = false; 
 				this.pone = !this.pone; 
 				one = new LawOne("x", "y", "z", bodies);
 				one.setVisible(false);
@@ -183,11 +151,13 @@ public class Orbital_AM implements Runnable {
 					System.out.println("law one");
 			}
 
-			if(this.pone)
+			if(this.pone) {
+				metrics.skip(); 
 				one.Prove(bodies, frame);
+				metrics.lap(StepMetrics.KEPLER); 
+			}
 
 			lab.setText("Time: " + bodies.get(0).cTime + " seconds");
-			control.set(); 
 			//info.setSize(new Dimension(100, 50));
 
 			//one.Prove(bodies, frame);
@@ -196,31 +166,90 @@ public class Orbital_AM implements Runnable {
 				set_cam(); 
 		}
 		frame.repaint();
+		metrics.skip(); 
+		if(changed || !stop)
+			exchange.publish(bodies, TIME_STEP, G, !stop, changed); //controller shows live values 
+		if(!stop) {
+			metrics.lap(StepMetrics.SNAPSHOT); 
+			metrics.end(bodies.size()); 
+		}
 	}
 
-	@SuppressWarnings("unchecked")
-	public void load(ArrayList<Particle> loaded){
+	/**
+	 * Applies the edits the controller has queued since the last step (on the simulation thread, so nothing 
+	 * is moving while the bodies are changed). 
+	 * 
+	 * @return
+	 * 	Whether there were any. 
+	 */
+	public boolean apply_edits() {
+		boolean changed = false, redraw = false; 
+		Edit e; 
+		while ((e = exchange.poll()) != null) {
+			changed = true; 
+			if (e.apply(bodies)) { //edit to the particles 
+				redraw = true; 
+				continue; 
+			}
+			switch (e.type) {
+			case Edit.TIME_STEP: //needs to reset runnable 
+				if (DEBUG_MODE) 
+					System.out.println("Time changed to " + e.value + " executor should reset.");
+				if (e.value > 0) { //cannot set time step to 0
+					this.TIME_STEP = e.value;
+					this.TICK_RATE = (long) this.TIME_STEP;
+				}
+				reset_clock(this); //resets executor 
+				break; 
+			case Edit.GRAV: //changed gravitational constant 
+				this.G = e.value;
+				if (DEBUG_MODE) 
+					System.out.println("Real G changed to " + G);
+				break; 
+			case Edit.PROVE_ONE: 
+				this.prove_one = true; 
+				break; 
+			case Edit.WRITE: 
+				ParticleWriter.write(SimulationState.simState(bodies) + "\n"); //write to file 
+				break; 
+			case Edit.SAVE: 
+				ParticleWriter save_writer = new ParticleWriter((String) e.object, true); 
+				save_writer.writeNew(SimulationState.saveState(bodies, TIME_STEP, G)); //write to file simulation state 
+				break; 
+			case Edit.LOAD: 
+				this.load((ParticleReader) e.object); //loads the new particles into the simulation
+				redraw = true; 
+				break; 
+			case Edit.RESET: 
+				this.reset_bodies(); 
+				redraw = true; 
+				break; 
+			}
+		}
+		if (redraw)
+			add_particles(); //add particles to screen 
+		return changed; 
+	}
+
+	/**
+	 * Replaces the particles with ones read from a file (the time step and G are kept). 
+	 * 
+	 * @param loaded
+	 * 	Reader that has read the file. 
+	 */
+	public void load(ParticleReader loaded){
 		System.out.println("loading now");
-		bodies = (ArrayList<Particle>) control.loaded.clone(); 
+		frame.clearDrawables();
+		bodies.clear(); 
+		bodies.addAll(loaded.particles); 
+		Edit.rename(bodies); 
 		for (Particle p : bodies) {
-			frame.addDrawable(p); 
+			if(DEBUG_MODE)
+				System.out.println(p.toString());
+			p.color = pastel(); 
+			p.radius = 10; 
+			p.pixRadius = 10; 
 		}
-		//System.out.println("resetting");
-
-		try {
-			Thread.sleep(1000);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} 
-
-		control.dispose(); 
-		control = new ParticleController(this.bodies);
-		control.init();
-		control.setSize(FRAME_DIMENSIONS[0] + 100, FRAME_DIMENSIONS[1]);
-		control.dimensions = FRAME_DIMENSIONS;
-		control.setLocation(650, 0); 
-		control.setVisible(true);
-		control.refresh(this, true);
 		System.out.println("loaded");
 	}
 
@@ -252,6 +281,16 @@ public class Orbital_AM implements Runnable {
 	}
 
 
+	/**
+	 * Method for button on DisplayFrame: switches between stepping each particle on its own and the 
+	 * Wisdom-Holman map around the heaviest body. The kicks between the other bodies include their 
+	 * charges (CoulombGravity), so the electric forces are kept. 
+	 */
+	public void toggle_integrator(){
+		wh = wh == null ? new WisdomHolman(new CoulombGravity(K)) : null; 
+		System.out.println("Integrator: " + (wh == null ? "particle steps" : wh)); 
+	}
+
 	/**
 	 * Method for button on DisplayFrame: stop/start simulation. 
 	 */
@@ -269,37 +308,49 @@ public class Orbital_AM implements Runnable {
 				control.load(path);
 			}
 			else {
-				//just go to earth/sun system 
-				bodies.clear(); 
-				frame.clearDrawables();
-				for (int ii = 0; ii < BODY_NUM; ii++) {
-					bodies.add(new Particle());
-					bodies.get(ii).useRiemann = false;
-					bodies.get(ii).init(ii*EARTH_ORBIT, 0, 0, 0, 0, 0, 0, 2000, 0);
-					bodies.get(ii).pixRadius = 10;
-					bodies.get(ii).color = pastel();
-					bodies.get(ii).cTime = 0; 
-					bodies.get(ii).time = 0; 
-					frame.addDrawable(bodies.get(ii));
-				}
-
-				//set in sun/earth scenario 
-				bodies.get(0).mass = SUN_MASS;
-				bodies.get(0).actual_r = 695000; 
-				bodies.get(0).real_name = "Sun";
-				bodies.get(1).actual_r = 6371; 
-				bodies.get(1).mass = EARTH_MASS;
-				bodies.get(1).real_name = "Earth";
-				bodies.get(1).v_y = -EARTH_TANGENTIAL_VELOCITY;
-				//control.refresh(this, false); 
-				control.particles = this.bodies; 
+				exchange.submit(new Edit(Edit.RESET)); //just go to earth/sun system 
 			}
-			control.refresh(this, true);
-			control.set(); 
 		}
 		lab.setText("Time: 0.00 seconds");
 	}
 
+	/**
+	 * Puts the simulation back to the earth/sun system. 
+	 */
+	private void reset_bodies(){
+		bodies.clear(); 
+		frame.clearDrawables();
+		for (int ii = 0; ii < BODY_NUM; ii++) {
+			bodies.add(new Particle());
+			bodies.get(ii).useRiemann = false;
+			bodies.get(ii).init(ii*EARTH_ORBIT, 0, 0, 0, 0, 0, 0, 2000, 0);
+			bodies.get(ii).pixRadius = 10;
+			bodies.get(ii).color = pastel();
+			bodies.get(ii).cTime = 0; 
+			bodies.get(ii).time = 0; 
+			frame.addDrawable(bodies.get(ii));
+		}
+
+		//set in sun/earth scenario 
+		bodies.get(0).mass = SUN_MASS;
+		bodies.get(0).actual_r = 695000; 
+		bodies.get(0).real_name = "Sun";
+		bodies.get(1).actual_r = 6371; 
+		bodies.get(1).mass = EARTH_MASS;
+		bodies.get(1).real_name = "Earth";
+		bodies.get(1).v_y = -EARTH_TANGENTIAL_VELOCITY;
+		Edit.rename(bodies); 
+	}
+
+	/**
+	 * Method for button on DisplayFrame: prints the time spent in each phase of a step every 
+	 * StepMetrics.REPORT_INTERVAL (or stops printing it). 
+	 */
+	public void toggle_metrics(){
+		metrics.print = !metrics.print; //histograms start over at the next step 
+		System.out.println("Step metrics " + (metrics.print ? "on" : "off")); 
+	}
+
 	/**
 	 * Toggle trails off and on in simulation. 
 	 */
@@ -384,6 +435,8 @@ public class Orbital_AM implements Runnable {
 		orbit.frame.addButton("clear_trails", "Clear Trails", "Clear Trail Points", orbit);
 		orbit.frame.addButton("set_view", "Change View", "Change Viewpoint", orbit);
 		orbit.frame.addButton("toggle_trails", "Toggle Trails", "Turn trails on or off.", orbit);
+		orbit.frame.addButton("toggle_integrator", "Integrator", "Switch between particle steps and the Wisdom-Holman map.", orbit);
+		orbit.frame.addButton("toggle_metrics", "Metrics", "Print the time spent in each phase of a step.", orbit);
 		orbit.frame.addButton("reset_sim", "Reset", "Reset simulation", orbit);
 		orbit.frame.setSize(FRAME_DIMENSIONS[0], FRAME_DIMENSIONS[1]);
 
@@ -407,7 +460,7 @@ public class Orbital_AM implements Runnable {
 		orbit.bodies.get(1).v_y = -EARTH_TANGENTIAL_VELOCITY;
 
 		//initialize controller 
-		control = new ParticleController(orbit.bodies);
+		control = new ParticleController(orbit.exchange);
 		control.init();
 		control.setSize(FRAME_DIMENSIONS[0] + 100, FRAME_DIMENSIONS[1]);
 		control.dimensions = FRAME_DIMENSIONS;
@@ -417,8 +470,8 @@ public class Orbital_AM implements Runnable {
 		orbit.frame.setVisible(true);
 
 		Thread.sleep(500);
+		orbit.state_changed = true; //first snapshot for the controller 
 		orbit.executor.scheduleAtFixedRate(orbit, 0, orbit.TICK_RATE, TimeUnit.NANOSECONDS);
-		control.refresh(orbit, false);
 
 		orbit.info.getContentPane().add(orbit.lab, BorderLayout.CENTER);
 		orbit.info.setVisible(true);
@@ -442,11 +495,14 @@ public class Orbital_AM implements Runnable {
 	 */
 	private void move_bodies(DisplayFrame frame) {
 		if(collide) {
+			metrics.skip(); 
 			for (int ii = 0; ii < this.bodies.size(); ii++) { 
+				metrics.count(StepMetrics.PAIRS, this.bodies.size() - 1); //every pair, no broad phase 
 				for (int jj = 0; jj < this.bodies.size(); jj++) {
 					if (ii == jj) continue;
 					else if (checkCollision(this.bodies.get(ii), this.bodies.get(jj), frame)){ //check if collision has occurred 
 						setCollision(this.bodies.get(ii), this.bodies.get(jj), frame, this); //respond to it
+						metrics.count(StepMetrics.COLLISIONS, 1); 
 						if(!elastic){
 							if(DEBUG_MODE)
 								System.out.println("BREAKING FOR INELASTIC");
@@ -458,11 +514,35 @@ public class Orbital_AM implements Runnable {
 					}
 				}
 			}
+			metrics.lap(StepMetrics.NARROW_PHASE); 
+		}
+		metrics.skip(); 
+		if(wh != null)
+			step_symplectic(); 
+		else {
+			for (int ii = 0; ii < this.bodies.size(); ii++)
+				this.bodies.get(ii).move(); 
 		}
+		metrics.lap(StepMetrics.INTEGRATION); 
 		for (int ii = 0; ii < this.bodies.size(); ii++) {
-			this.bodies.get(ii).Step(frame, true, true); // not 2d simulated, step on frame 
+			this.bodies.get(ii).record(frame, true); // not 2d simulated, step on frame 
 			this.frame.addDrawable(this.bodies.get(ii));
 		}
+		metrics.lap(StepMetrics.TRAILS); 
+	}
+
+	/**
+	 * Moves all the particles one time step (the first particle's deltaT) with the Wisdom-Holman map. 
+	 */
+	private void step_symplectic() {
+		double h = this.bodies.get(0).deltaT; 
+		arrays.load(this.bodies); 
+		wh.step(arrays, h, this.G); 
+		arrays.storePositions(this.bodies); 
+		for (Particle p : this.bodies) {
+			p.time += h; 
+			p.cTime += h; 
+		}
 	}
 
 	/**
@@ -653,12 +733,11 @@ public class Orbital_AM implements Runnable {
 
 	private Force electric_force(Particle m1, Particle m2, Orbital_AM orbit) {
 		double dist = dist(m1, m2);
-		double k = 8.9875517873681764E9; 
-		double mag = k * m1.charge * m2.charge / Math.pow(dist, 2);
+		double mag = K * m1.charge * m2.charge / Math.pow(dist, 2);
 
 		if (DEBUG_MODE)
 			System.out.println("E force added to mass " + m1 + " in magnitude " + mag + " dir: " + calcAng(m1, m2) + " bc dist is " + dist);
-		return new Force(mag, calcAng(m1, m2), "Gravitational Force");
+		return new Force(mag, calcAng(m1, m2) + 180, "Electric Force"); //like charges push apart 
 	}
 
 	/**
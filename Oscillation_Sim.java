@@ -61,6 +61,8 @@ public class Oscillation_Sim implements Runnable {
 	 * An ArrayList of all the particles in the simulation. Particles can be added and deleted dynamically. 
 	 */
 	protected static ArrayList<Particle> bodies = new ArrayList<Particle>();
+	static BodyArrays arrays = new BodyArrays(); //primitive copy of bodies for the force kernel 
+	static ForceKernel kernel = ForceLaw.compose("gravity"); //force laws of the orbits (see ForceLaw) 
 	double k = 50; //spring constant
 
 	protected static double g = 9.803; // gravity constant
@@ -408,25 +410,16 @@ public class Oscillation_Sim implements Runnable {
 
 	/**
 	 * Calculate and set accelerations of all particles based on gravitational forces with other particles and clusters. 
+	 * 
+	 * The particles are copied into primitive arrays and the forces come from the composed force kernel. 
 	 */
 	private static void calculate_accelerations() {
-		for (int ii = 0; ii < bodies.size(); ii++) { // step through arraylist
-			// of masses
-			bodies.get(ii).forces.clear(); // clear old forces
-			bodies.get(ii).forces.removeAll(bodies.get(ii).forces);
+		arrays.load(bodies); 
+		kernel.accelerations(arrays, G); 
+		arrays.storeAccelerations(bodies, 0); 
 
-			for (int jj = 0; jj < bodies.size(); jj++) {
-				if (ii == jj)
-					continue;
-				bodies.get(ii).forces.add(grav_force(bodies.get(ii),
-						bodies.get(jj)));
-			}
-			double xSum = sumForces(bodies.get(ii).forces, 0);
-			double ySum = sumForces(bodies.get(ii).forces, 1);
-			bodies.get(ii).acc_x = xSum / bodies.get(ii).mass; // a = F/m
-			bodies.get(ii).acc_y = ySum / bodies.get(ii).mass;
-
-			if (DEBUG_MODE) {
+		if (DEBUG_MODE) {
+			for (int ii = 0; ii < bodies.size(); ii++) {
 				System.out.println("X Acceleration of " + ii + " is "
 						+ bodies.get(ii).acc_x);
 				System.out.println("Y Acceleration of " + ii + " is "
@@ -6,8 +6,8 @@ import org.opensourcephysics.display.Circle;
 import org.opensourcephysics.display.Trail;
 import org.opensourcephysics.frames.DisplayFrame;
 
-import polyfun.Polynomial;
-import riemann_sum.TrapezoidRule;
+import riemann_sum.HornerPoly;
+import riemann_sum.ExactRule;
 
 /**
  * This class deals with the physics simulation of a particle. It contains all 
@@ -20,6 +20,10 @@ import riemann_sum.TrapezoidRule;
  * 
  * @method Step 
  * 	Moves the particle one time step - calculates new position, plots on displayframe. 
+ * @method move 
+ * 	The moving half of Step (no trail or frame). 
+ * @method record 
+ * 	The recording half of Step (trail and frame). 
  * @method checkTerminalVelocity
  * 	Checks if particle is @ terminal velocity. 
  * @method newPos
@@ -54,6 +58,11 @@ public class Particle extends Circle {
 	protected Trail trail = new Trail(); //note: not used in springs (used in projectile) 
 
 	protected Particle bump = null; 
+	public Particle primary = null; //test body: moved along its Kepler orbit around primary (KeplerPropagator), not by forces 
+	protected double chi = Double.NaN; //universal anomaly of its last Kepler step (warm start) 
+	protected double chiStep = 0; //time step of its last Kepler step 
+	protected Particle partner = null; //other member of a regularized binary (BinaryRegularizer) 
+	protected int mergeGroup = -1; //merge this particle is part of this step (MergeEvents), -1 for none 
 	protected int radius = 3; //radius of ball
 
 	protected boolean airResistance = false; //whether air resistance is simulated 
@@ -90,7 +99,9 @@ public class Particle extends Circle {
 	protected double minY = Double.POSITIVE_INFINITY; 
 	protected boolean setMaxX = false, setMinX = false, setMaxY = false, setMinY = false;  
 
-	TrapezoidRule RS = new TrapezoidRule(); //Riemann sum used for changing position 
+	ExactRule RS = new ExactRule(); //integrates the (polynomial) velocity and position updates exactly 
+	HornerPoly acc_poly = new HornerPoly(0); //reused by calcV and newPos so a step makes no polynomials 
+	HornerPoly v_poly = new HornerPoly(1); 
 
 	/**
 	 * Constructor for particle - all initial information is dealt with in the init functions. 
@@ -123,49 +134,77 @@ public class Particle extends Circle {
 	protected boolean setColor = false;
 
 	public void Step(DisplayFrame frame, boolean simulated, boolean move){
-		if(!setColor){
-			trail.setStroke(new BasicStroke(1));
-			trail.color = this.color;
-			setColor = true; 
+		if(move)
+			move(); 
+		else
+			resist(); 
+		record(frame, simulated); 
+	}
+
+	/**
+	 * The moving half of Step: one time step of the particle's motion (with air resistance), without 
+	 * touching the trail or the frame, so simulations can time the two halves apart (StepMetrics). 
+	 */
+	public void move(){
+		resist(); 
+		prev.x = x_pos; 
+		prev.y = y_pos; 
+		if(!useRiemann){
+			this.v_x = this.v_x + this.acc_x*deltaT; 
+			this.v_y = this.v_y + this.acc_y*deltaT; 
+			this.x_pos = this.x_pos + this.v_x*deltaT;
+			this.y_pos = this.y_pos + this.v_y*deltaT; 
+			super.setXY(this.x_pos, this.y_pos); 
 		}
+		else{
+			//gets new positions in a double array
+			xy = newPos(); //get new positions
+			super.setXY(xy[0], xy[1]); //set new positions
+		}
+
+		if(x_pos > maxX){
+			maxX = x_pos; 
+			//System.out.println("Max x is " + maxX);
+		}
+		if(x_pos < minX){
+			minX = x_pos; 
+			//System.out.println("Min x is " + minX);
+		}
+		if(y_pos > maxY){
+			maxY = y_pos; 
+			//System.out.println("Max y is " + maxY);
+		}
+		if(y_pos < minY){
+			minY = y_pos; 
+			//System.out.println("Min y is " + minY);
+		}
+		time += deltaT;  //increment time
+		cTime += deltaT;
+	}
 
-		if(airResistance) { //changes x and y accelerations based on air resistance  
-			//calculates air resistance 
+	/**
+	 * Changes x and y accelerations based on air resistance (if it is on). 
+	 */
+	private void resist(){
+		if(airResistance) { //calculates air resistance 
 			this.acc_x = this.acc_x - alpha*Math.abs(v_x)*v_x; 
 			this.acc_y = this.acc_y - alpha*Math.abs(v_y)*v_y;
 		}
-		if(move){
-			prev.x = x_pos; 
-			prev.y = y_pos; 
-			if(!useRiemann){
-				this.v_x = this.v_x + this.acc_x*deltaT; 
-				this.v_y = this.v_y + this.acc_y*deltaT; 
-				this.x_pos = this.x_pos + this.v_x*deltaT;
-				this.y_pos = this.y_pos + this.v_y*deltaT; 
-				super.setXY(this.x_pos, this.y_pos); 
-			}
-			else{
-				//gets new positions in a double array
-				xy = newPos(); //get new positions
-				super.setXY(xy[0], xy[1]); //set new positions
-			}
-
-			if(x_pos > maxX){
-				maxX = x_pos; 
-				//System.out.println("Max x is " + maxX);
-			}
-			if(x_pos < minX){
-				minX = x_pos; 
-				//System.out.println("Min x is " + minX);
-			}
-			if(y_pos > maxY){
-				maxY = y_pos; 
-				//System.out.println("Max y is " + maxY);
-			}
-			if(y_pos < minY){
-				minY = y_pos; 
-				//System.out.println("Min y is " + minY);
-			}
+	}
+
+	/**
+	 * The recording half of Step: adds the particle's position to its trail and the particle to the frame. 
+	 * 
+	 * @param frame
+	 * 	The displayframe used to draw the particle
+	 * @param simulated
+	 * 	Whether to add the particle to the frame. 
+	 */
+	public void record(DisplayFrame frame, boolean simulated){
+		if(!setColor){
+			trail.setStroke(new BasicStroke(1));
+			trail.color = this.color;
+			setColor = true; 
 		}
 		trail.addPoint(x_pos, y_pos);
 		points.add(new MyPoint(x_pos, y_pos)); 
@@ -177,10 +216,6 @@ public class Particle extends Circle {
 		}
 		if(simulated)
 			frame.addDrawable(this); //add to frame
-		if(move){
-			time += deltaT;  //increment time
-			cTime += deltaT;
-		}
 	}
 
 	/**
@@ -202,8 +237,9 @@ public class Particle extends Circle {
 		this.y_pos = newPos(this.y_pos, this.init_v_y, this.acc_y, time, v_y); //new y position
 
 		//returns the new coordinates in double array (used in Step method) 
-		double[] newCoords = new double[] {x_pos, y_pos};
-		return newCoords; 
+		xy[0] = x_pos; 
+		xy[1] = y_pos; 
+		return xy; 
 	}
 
 	/**
@@ -317,7 +353,7 @@ public class Particle extends Circle {
 	 * 	New velocity 
 	 */
 	public double calcV(double vNow, double acc){
-		Polynomial acc_poly = new Polynomial(new double[] {acc});
+		acc_poly.set(acc);
 		//return vNow + acc*deltaT; 
 		return vNow + RS.slice(acc_poly, time, time+deltaT);
 	}
@@ -339,7 +375,7 @@ public class Particle extends Circle {
 	 */
 	public double newPos(double pos_init, double init_v, double acc, double time, double v_now){
 		double b = v_now - acc*time; 
-		Polynomial v_poly = new Polynomial(new double[] {b, acc});
+		v_poly.set(b, acc);
 		double newPos = pos_init; 
 		newPos += RS.slice(v_poly, time, time+deltaT); 
 		return newPos; //add each slice in Riemann sum 
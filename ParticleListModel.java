@@ -0,0 +1,70 @@
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+/**
+ * List of the particles in a Snapshot for the controllers' JComboBox ("Particle [i]: name"). Entries are made
+ * when the box asks for them (only the ones in view), so the list costs nothing to keep up to date however
+ * many particles there are.
+ *
+ * @method show
+ * 	Switches to a newer snapshot.
+ * @method select
+ * 	Selects a particle.
+ *
+ * @author Andrew M.
+ */
+public class ParticleListModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+	private static final long serialVersionUID = 1L;
+	static final String PROTOTYPE = "Particle [000000]: Particle #000000"; //sets the width of the box (no need to measure every entry)
+
+	private Snapshot state = new Snapshot(); //snapshot on show
+	private Object selected = null;
+
+	/**
+	 * Switches to a newer snapshot (the old one must not be read again, the simulation reuses it).
+	 *
+	 * @param s
+	 * 	Snapshot to show.
+	 * @param changed
+	 * 	Whether particles may have been added, removed or renamed.
+	 */
+	public void show(Snapshot s, boolean changed){
+		int before = state.n;
+		state = s;
+		if(changed)
+			fireContentsChanged(this, 0, Math.max(before, s.n) - 1);
+	}
+
+	/**
+	 * Selects a particle.
+	 *
+	 * @param index
+	 * 	Particle to select.
+	 */
+	public void select(int index){
+		setSelectedItem(index < state.n ? getElementAt(index) : null);
+	}
+
+	@Override
+	public int getSize(){
+		return state.n;
+	}
+
+	@Override
+	public String getElementAt(int index){
+		return index < state.n ? "Particle [" + index + "]: " + state.names[index] : "";
+	}
+
+	@Override
+	public void setSelectedItem(Object item){
+		if(item == null ? selected == null : item.equals(selected))
+			return;
+		selected = item;
+		fireContentsChanged(this, -1, -1);
+	}
+
+	@Override
+	public Object getSelectedItem(){
+		return selected;
+	}
+}
@@ -0,0 +1,88 @@
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table of the particles in a Snapshot for the controllers' Data tab. Cells are read from the snapshot only
+ * when the table paints them, so nothing is copied or turned into strings for rows that are not on screen,
+ * and a new snapshot only repaints the rows that can be seen (the table is never rebuilt, however many
+ * particles there are).
+ *
+ * @method show
+ * 	Switches to a newer snapshot.
+ *
+ * @author Andrew M.
+ */
+public class ParticleTableModel extends AbstractTableModel {
+	private static final long serialVersionUID = 1L;
+	static final String[] COLUMNS = { "#", "Name", "X" , "Y", "Mass", "V_x", "V_y", "Acc_x", "Acc_y", "Force"};
+
+	private Snapshot state = new Snapshot(); //snapshot on show
+
+	/**
+	 * Switches to a newer snapshot (the old one must not be read again, the simulation reuses it).
+	 *
+	 * @param s
+	 * 	Snapshot to show.
+	 * @param table
+	 * 	Table showing this model.
+	 * @param repaint
+	 * 	Whether the visible rows should be repainted (the values have changed).
+	 */
+	public void show(Snapshot s, JTable table, boolean repaint){
+		int before = state.n;
+		state = s;
+		if(s.n != before){ //rows added or removed
+			fireTableDataChanged();
+			return;
+		}
+		if(!repaint || s.n == 0 || !table.isShowing())
+			return; //read when it is painted
+		Rectangle r = table.getVisibleRect();
+		int first = table.rowAtPoint(r.getLocation());
+		if(first < 0)
+			return;
+		int last = table.rowAtPoint(new Point(r.x, r.y + r.height - 1));
+		fireTableRowsUpdated(first, last < 0 ? s.n - 1 : last);
+	}
+
+	@Override
+	public int getRowCount(){
+		return state.n;
+	}
+
+	@Override
+	public int getColumnCount(){
+		return COLUMNS.length;
+	}
+
+	@Override
+	public String getColumnName(int column){
+		return COLUMNS[column];
+	}
+
+	@Override
+	public boolean isCellEditable(int row, int column){
+		return false; //cannot edit the table - user edits via tab 1
+	}
+
+	@Override
+	public Object getValueAt(int row, int column){
+		if(row >= state.n)
+			return "";
+		switch(column){
+		case 0: return row; //number particle
+		case 1: return state.names[row];
+		case 2: return state.x[row];
+		case 3: return state.y[row];
+		case 4: return state.mass[row];
+		case 5: return state.vx[row];
+		case 6: return state.vy[row];
+		case 7: return state.ax[row];
+		case 8: return state.ay[row];
+		default: return state.mass[row]*Math.hypot(state.ax[row], state.ay[row]); //force by F = ma
+		}
+	}
+}
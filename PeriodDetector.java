@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+
+/**
+ * Detects orbital periods online for any number of bodies orbiting a primary.
+ *
+ * Each body's angle around the primary is unwrapped every step (atan2 of the offset, with the change
+ * wrapped into -pi..pi) and the signed changes are added up. Every time the size of that sum passes
+ * another multiple of 2*pi the body has finished a revolution (a body that librates, or circles some
+ * other body, swings back and forth and never gets there); the crossing time is interpolated linearly between the two steps around the
+ * crossing, so the period is accurate to a fraction of a time step. The distance to the primary is also
+ * tracked over each revolution, which gives the semimajor axis as (periapsis + apoapsis)/2.
+ *
+ * State is kept in primitive arrays indexed by the body's position in the list, so updating thousands
+ * of test particles does not allocate anything. If the list changes size (bodies added or merged) the
+ * detector starts over.
+ *
+ * @method update
+ * 	Advances every body's angle and fires period events.
+ *
+ * @author Andrew M.
+ */
+public class PeriodDetector {
+	/**
+	 * Receives a callback each time a body completes a revolution.
+	 */
+	public interface PeriodListener {
+		/**
+		 * Called when a body completes a revolution around the primary.
+		 *
+		 * @param index
+		 * 	Index of the body in the list passed to update.
+		 * @param time
+		 * 	Interpolated time at which the revolution was completed.
+		 * @param period
+		 * 	Length of the revolution.
+		 * @param semiMajor
+		 * 	(periapsis + apoapsis)/2 over the revolution.
+		 */
+		void period(int index, double time, double period, double semiMajor);
+	}
+
+	final private static double TWO_PI = 2*Math.PI;
+
+	private PeriodListener listener;
+	private int size = -1; //number of bodies being tracked (-1 means not started)
+
+	private double[] lastAngle = new double[0]; //raw angle at the last step
+	private double[] swept = new double[0]; //signed angle swept since tracking began
+	private double[] lastTime = new double[0]; //body's time at the last step
+	private double[] lastCross = new double[0]; //time the last revolution was completed
+	private int[] revolutions = new int[0]; //revolutions completed
+	private double[] rMin = new double[0]; //periapsis over the current revolution
+	private double[] rMax = new double[0]; //apoapsis over the current revolution
+
+	/**
+	 * Creates a detector that reports periods to a listener.
+	 *
+	 * @param listener
+	 * 	Receives the period events.
+	 */
+	public PeriodDetector(PeriodListener listener){
+		this.listener = listener;
+	}
+
+	/**
+	 * Advances the angle of every body (except the primary) and fires an event for every
+	 * revolution completed since the last update.
+	 *
+	 * @param bodies
+	 * 	Bodies in the simulation.
+	 * @param primary
+	 * 	Index of the body the others orbit.
+	 */
+	public void update(ArrayList<Particle> bodies, int primary){
+		int n = bodies.size();
+		if(n != size)
+			start(n);
+		Particle p = bodies.get(primary);
+		for (int ii = 0; ii < n; ii++) {
+			if(ii == primary)
+				continue;
+			Particle b = bodies.get(ii);
+			double dx = b.x_pos - p.x_pos;
+			double dy = b.y_pos - p.y_pos;
+			double angle = Math.atan2(dy, dx);
+			double r = Math.sqrt(dx*dx + dy*dy);
+
+			if(Double.isNaN(lastTime[ii])){ //first time this body is seen
+				lastAngle[ii] = angle;
+				lastTime[ii] = b.time;
+				lastCross[ii] = b.time;
+				rMin[ii] = r;
+				rMax[ii] = r;
+				continue;
+			}
+
+			double delta = angle - lastAngle[ii]; //unwrap into -pi..pi
+			if(delta > Math.PI)
+				delta -= TWO_PI;
+			else if(delta < -Math.PI)
+				delta += TWO_PI;
+			double before = swept[ii];
+			double after = before + delta;
+
+			double sign = after < 0 ? -1 : 1; //direction of the sum (either way round counts)
+			double target = sign*(revolutions[ii] + 1)*TWO_PI;
+			while(sign*after >= sign*target && sign*(after - before) > 0){ //completed a revolution during this step
+				double frac = (target - before)/(after - before);
+				double tCross = lastTime[ii] + frac*(b.time - lastTime[ii]);
+				double period = tCross - lastCross[ii];
+				double semiMajor = (rMin[ii] + rMax[ii])/2;
+				lastCross[ii] = tCross;
+				revolutions[ii]++;
+				if(listener != null)
+					listener.period(ii, tCross, period, semiMajor);
+				rMin[ii] = r;
+				rMax[ii] = r;
+				target += sign*TWO_PI;
+			}
+
+			if(r < rMin[ii])
+				rMin[ii] = r;
+			if(r > rMax[ii])
+				rMax[ii] = r;
+			swept[ii] = after;
+			lastAngle[ii] = angle;
+			lastTime[ii] = b.time;
+		}
+	}
+
+	/**
+	 * Sets up the arrays for n bodies.
+	 *
+	 * @param n
+	 * 	Number of bodies.
+	 */
+	private void start(int n){
+		if(lastAngle.length < n){
+			lastAngle = new double[n];
+			swept = new double[n];
+			lastTime = new double[n];
+			lastCross = new double[n];
+			revolutions = new int[n];
+			rMin = new double[n];
+			rMax = new double[n];
+		}
+		for (int ii = 0; ii < n; ii++) {
+			swept[ii] = 0;
+			lastTime[ii] = Double.NaN; //marks body as not seen yet
+			revolutions[ii] = 0;
+		}
+		size = n;
+	}
+}
@@ -102,7 +102,7 @@ public class Plate_Calc {
 			frame.addDrawable(main.get(1));
 
 			for (int ii = 0; ii < 100; ii++) {
-				main.run(frame, clusters);
+				Cluster.run_all(frame, clusters);
 				frame.repaint(); 
 			}
 			if(main.get(1).x_pos > rad){
@@ -142,7 +142,7 @@ public class Plate_Calc {
 		if(!stop){
 			clusters.clear(); 
 			clusters.add(main); 
-			main.run(frame, clusters);
+			Cluster.run_all(frame, clusters);
 		}
 		frame.repaint();
 	}
@@ -95,7 +95,7 @@ public class Plate_Sim implements Runnable {
 		if(!stop){
 			clusters.clear(); 
 			clusters.add(main); 
-			main.run(frame, clusters);
+			Cluster.run_all(frame, clusters);
 			gc = true; 
 		} else {
 			if(gc){
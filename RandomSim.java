@@ -29,6 +29,10 @@ import org.opensourcephysics.frames.PlotFrame;
  * 	Returns pleasing pastel color.  
  * @method toggle_trails 
  * 	Turns trails on or off in simulation. 
+ * @method toggle_metrics 
+ * 	Turns the printed step metrics (StepMetrics) on or off. 
+ * @method toggle_softening 
+ * 	Cycles gravity between no softening, Plummer softening and spline softening. 
  * @method setupFrame 
  * 	Initializes DisplayFrame's size, location, and adds drawables. 
  * @method calcAng 
@@ -66,6 +70,11 @@ public class RandomSim implements Runnable {
 	 * All the clusters in the simulation.  
 	 */
 	protected static ArrayList<Particle> bodies = new ArrayList<Particle>();
+	static BodyArrays arrays = new BodyArrays(); //primitive copy of bodies for the force calculation 
+	static GravitySolver solver = GravitySolver.best(); //SIMD gravity if the CPU/JVM supports it (see toggle_softening) 
+	static BinaryRegularizer binaries = new BinaryRegularizer(); //tight pairs get a regularized step 
+	static MergeEvents merges = new MergeEvents(); //inelastic collisions of the current pass 
+	static StepMetrics metrics = new StepMetrics(); //time spent in each phase of a step 
 
 	protected static double g = 9.803; // gravity constant
 	protected static double G = 6.67384E-11; //universal gravitational constant
@@ -75,6 +84,8 @@ public class RandomSim implements Runnable {
 	final private static double EARTH_ORBIT = 1.5E11; // m
 	final private static double EARTH_TANGENTIAL_VELOCITY = 30000; // m/s
 	final private static double COLLISION_RAD = 1;
+	final private static double SOFTENING = 0.1 * EARTH_ORBIT; // m, softening length of the softened solvers 
+	final private static String[] SOLVERS = { "direct", "direct eps " + SOFTENING, "direct spline " + SOFTENING }; //see GravitySolver.fromText 
 
 	final private static int[] FRAME_LOC = { 0, 0 };
 	final private static int[] FRAME_DIMENSIONS = { 600, 700 };
@@ -90,6 +101,7 @@ public class RandomSim implements Runnable {
 	protected static boolean collide_real = true; 
 
 	protected static int bodyNum = 250; //number of particles 
+	protected static int softening = 0; //index in SOLVERS of the solver in use 
 
 	protected static double vx = -20000;
 	protected static double vy = -80000;
@@ -111,14 +123,18 @@ public class RandomSim implements Runnable {
 		if (stop) { //no GUI so do not need to change data 
 		} 
 		else {
+			metrics.begin(); 
 			calculate_accelerations(); //move all the bodies 
+			metrics.lap(StepMetrics.FORCE); 
 			move_bodies();
+			metrics.skip(); 
 			if(bodies.size() != prevSize) { //for graphing # of particles vs. time 
 				prevSize = bodies.size(); 
 				pT.append(resetCount, bodies.get(0).time, bodies.size());
 				//pT.append(resetCount, bodies.get(0).time, 1/bodies.get(0).time);
 				pT.repaint(); 
 			}
+			metrics.end(bodies.size()); 
 		}
 		frame.repaint();
 	}
@@ -217,6 +233,25 @@ public class RandomSim implements Runnable {
 		}
 	}
 
+	/**
+	 * Method for button on DisplayFrame: prints the time spent in each phase of a step every 
+	 * StepMetrics.REPORT_INTERVAL (or stops printing it). 
+	 */
+	public void toggle_metrics(){
+		metrics.print = !metrics.print; //histograms start over at the next step 
+		System.out.println("Step metrics " + (metrics.print ? "on" : "off")); 
+	}
+
+	/**
+	 * Method for button on DisplayFrame: switches gravity to the next of no softening, Plummer softening 
+	 * and spline softening (SOFTENING long), so close passes in the cloud can be smoothed out. 
+	 */
+	public void toggle_softening(){
+		softening = (softening + 1) % SOLVERS.length; 
+		solver = GravitySolver.fromText(SOLVERS[softening]); 
+		System.out.println("Solver: " + SOLVERS[softening]); 
+	}
+
 	/**
 	 * Sets up frame with proper location, scale, buttons, and size. 
 	 */
@@ -228,6 +263,8 @@ public class RandomSim implements Runnable {
 		frame.addButton("clear_trails", "Clear Trails", "Clear Trail Points", sim);
 		frame.addButton("reset", "Reset", "Reset sim", sim);
 		frame.addButton("toggle_trails", "Toggle Trails", "Turn trails on or off.", sim);
+		frame.addButton("toggle_metrics", "Metrics", "Print the time spent in each phase of a step.", sim);
+		frame.addButton("toggle_softening", "Softening", "Switch between no, Plummer and spline softening.", sim);
 		frame.setSize(FRAME_DIMENSIONS[0], FRAME_DIMENSIONS[1]);
 		frame.setVisible(true);
 	}
@@ -292,22 +329,38 @@ public class RandomSim implements Runnable {
 	 * 	Frame to move particles on. 
 	 */
 	private static void move_bodies() {
+		int n = bodies.size(); 
 		for (int ii = 0; ii < bodies.size(); ii++) { 
 			for (int jj = 0; jj < bodies.size(); jj++) {
 				if (ii == jj)
 					continue;
 				else if (checkCollision(bodies.get(ii), bodies.get(jj))) { //check if collision has occurred 
 					setCollision(bodies.get(ii), bodies.get(jj)); //respond to it
-					break; 
+					metrics.count(StepMetrics.COLLISIONS, 1); 
 				}
 				else 
 					bodies.get(ii).bump = null; //no recent crash 
 			}
 		}
+		metrics.count(StepMetrics.PAIRS, (long) n*(n - 1)); //every pair, no broad phase 
+		int merged = merges.resolve(bodies, frame); //all the inelastic collisions at once 
+		for (int ii = 0; ii < merged; ii++) { 
+			Particle monster = merges.merged(ii); 
+			monster.pixRadius = Math.min(monster.killCount + 1, 7); //grows with every body it swallows 
+		}
+		metrics.lap(StepMetrics.NARROW_PHASE); 
+		binaries.find(bodies, G); //tight binaries would need a tiny time step 
 		for (int ii = 0; ii < bodies.size(); ii++) {
-			bodies.get(ii).Step(frame, true, true); // not 2d simulated, step on frame 
+			if (bodies.get(ii).partner == null) 
+				bodies.get(ii).Step(frame, true, true); // not 2d simulated, step on frame 
+		}
+		binaries.step(G); 
+		for (int ii = 0; ii < bodies.size(); ii++) {
+			if (bodies.get(ii).partner != null) 
+				bodies.get(ii).Step(frame, true, false); //already moved by the regularized step 
 			frame.addDrawable(bodies.get(ii));
 		}
+		metrics.lap(StepMetrics.INTEGRATION); 
 	}
 
 	/**
@@ -405,75 +458,22 @@ public class RandomSim implements Runnable {
 			}
 		}
 		else {
-			//inelastic collision
-			Particle monster = new Particle(); //they have combined! 
-			double mass_sum = m1.mass + m2.mass; 
-			double v_f_x = (m1.mass * m1.v_x + m2.mass * m2.v_x)/(mass_sum); //final x velocity 
-			double v_f_y = (m1.mass * m1.v_y + m2.mass * m2.v_y)/(mass_sum); //final y velocity 
-			monster.init(m1.x_pos, m1.y_pos, v_f_x, v_f_y, 0, 0, mass_sum, TIME_STEP, 0);
-
-			//merge their colors 
-			Color newColor = new Color((m1.color.getRed() + m2.color.getRed())/2, 
-					(m1.color.getGreen() + m2.color.getGreen())/2, 
-					(m1.color.getBlue() + m2.color.getBlue())/2); 
-			monster.color = newColor;
-			monster.useRiemann = false; 
-
-			//trace if either one of the first 2 were traced 
-			if(m1.trace || m2.trace)
-				monster.trace = true;
-			else 
-				monster.trace = false; 
-
-			monster.killCount = m1.killCount + m2.killCount + 1; 
-			if(monster.killCount < 6)
-				monster.pixRadius = monster.killCount+1;
-			else 
-				monster.pixRadius = 7; 
-
-			//remove old ones, add new 
-			frame.removeDrawable(m1);
-			frame.removeDrawable(m2); 
-			for (int ii = 0; ii < m1.points.size(); ii ++) {
-				monster.trail.addPoint(m1.points.get(ii).x, m1.points.get(ii).y);
-			}
-			monster.trail.moveToPoint(m2.points.get(0).x, m2.points.get(0).y);
-			for (int ii = 0; ii < m2.points.size(); ii ++) {
-				monster.trail.addPoint(m2.points.get(ii).x, m2.points.get(ii).y);
-			}
-			m1.trail.clear(); 
-			m2.trail.clear(); 
-			m1.points.clear(); 
-			m2.points.clear(); 
-			bodies.remove(m1); 
-			bodies.remove(m2); 
-			bodies.add(monster); 
-			frame.addDrawable(monster); 
-			monster.Step(frame, true, true);
+			merges.add(m1, m2); //inelastic: merged once the pass is done 
 		}
 	}
 
 	/**
 	 * Calculate and set accelerations of all particles based on gravitational forces with other particles and clusters. 
+	 * 
+	 * The particles are copied into primitive arrays and the sum is done by the solver (SIMD when available). 
 	 */
 	private static void calculate_accelerations() {
-		for (int ii = 0; ii < bodies.size(); ii++) { // step through arraylist
-			// of masses
-			bodies.get(ii).forces.clear(); // clear old forces
-			bodies.get(ii).forces.removeAll(bodies.get(ii).forces);
-
-			for (int jj = 0; jj < bodies.size(); jj++) {
-				if (ii == jj)
-					continue;
-				bodies.get(ii).forces.add(grav_force(bodies.get(ii),
-						bodies.get(jj)));
-			}
-			double xSum = sumForces(bodies.get(ii).forces, 0);
-			double ySum = sumForces(bodies.get(ii).forces, 1);
-			bodies.get(ii).acc_x = xSum / bodies.get(ii).mass; // a = F/m
-			bodies.get(ii).acc_y = ySum / bodies.get(ii).mass;
+		arrays.load(bodies); 
+		solver.accelerations(arrays, G); 
+		arrays.storeAccelerations(bodies, 0); 
 
-			if (DEBUG_MODE) {
+		if (DEBUG_MODE) {
+			for (int ii = 0; ii < bodies.size(); ii++) {
 				System.out.println("X Acceleration of " + ii + " is "
 						+ bodies.get(ii).acc_x);
 				System.out.println("Y Acceleration of " + ii + " is "
@@ -1,6 +1,8 @@
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -17,34 +19,46 @@ import org.opensourcephysics.frames.PlotFrame;
  * the other Orbital apps, but its principal functionality is for testing new methods, scenarios, 
  * or in displaying the proofs for Kepler's laws. 
  * 
+ * The simulation is fully three dimensional: positions, velocities and accelerations are kept in 
+ * a BodyArrays3D (state), forces come from a Barnes-Hut octree (OctreeGravity) and the bodies are 
+ * moved with a kick-drift-kick leapfrog. The Particles in bodies are the x-y projection shown on the 
+ * 2D frame. Each body's sphere is added to the 3D frame once, when the body is added, and after 
+ * that only its position is updated. 
+ * 
  * @method run 
  * 	Runs simulation by stepping particles or, if stopped, dealing with controller. 
  * @method stop 
  * 	Toggles start/stop. 
  * @method add_particles 
  * 	Adds all particles to simulation. 
+ * @method apply_edits 
+ * 	Carries out the additions queued since the last step. 
+ * @method add_body 
+ * 	Queues a body (and its sphere) with a position and velocity in 3D. 
+ * @method add_disk 
+ * 	Queues a thick disk of light bodies orbiting the first body. 
  * @method clear_trails 
  * 	Clears trails on screen (can slow down sim). 
+ * @method toggle_metrics 
+ * 	Turns the printed step metrics (StepMetrics) on or off. 
  * @method pastel 
  * 	Returns pleasing pastel color.  
  * @method move_bodies 
- * 	Steps particles. 
+ * 	Steps particles (leapfrog in 3D). 
+ * @method collide 
+ * 	Finds and responds to collisions (sweep along x). 
  * @method checkCollision 
  * 	Checks if collision occurred between two particles. 
  * @method setCollision
  * 	Responds to collision (sets new velocities, directions). 
  * @method calculate_accelerations 
- *  Sums all forces and calculates accelerations of particles. 
- * @method grav_force 
- * 	Adds gravitational force between two particles. 
+ *  Calculates accelerations of all bodies with the octree. 
  * @method dist 
  * 	Calculates the distance between two particles. 
  * @method dist 
  * 	Calculates the distance between two points. 
  * @method calcAng 
  * 	Calculates the angle between two particles. 
- * @method sumForces 
- * 	Sums a list of forces in a given direction. 
  * 
  * TODO: See Control.java. 
  * 	1. Log/print data. 
@@ -56,7 +70,7 @@ import org.opensourcephysics.frames.PlotFrame;
  */
 public class Sim_3D implements Runnable {
 	protected static DisplayFrame frame = new DisplayFrame("x", "y", "Frame");
-	Display3DFrame frame_3D = new Display3DFrame("3D Orbital Visualization");
+	protected static Display3DFrame frame_3D = new Display3DFrame("3D Orbital Visualization");
 
 	/**
 	 * An ArrayList of all the particles in the simulation. Particles can be added and deleted dynamically. 
@@ -72,6 +86,10 @@ public class Sim_3D implements Runnable {
 	private static double EARTH_ORBIT = 1.496E11; // m
 	private static double EARTH_TANGENTIAL_VELOCITY = 29850; // m/s
 	private static double COLLISION_RAD = 1;
+	private static double INCLINATION = 20; //degrees the Earth's orbit is tilted out of the x-y plane 
+	private static int DISK_NUM = 500; //bodies added by add_disk 
+	private static double DISK_THICKNESS = 0.05; //standard deviation of the disk's z (in Earth orbits) 
+	private static double DISK_MASS = 1E20; //mass of each disk body (kg) 
 
 	final private static int[] FRAME_LOC = { 0, 0 }; //location of DisplayFrame on screen 
 	final private static int[] FRAME_DIMENSIONS = { 600, 700 }; //size of DisplayFrame 
@@ -92,6 +110,23 @@ public class Sim_3D implements Runnable {
 
 	protected int tick = 0; 
 
+	/**
+	 * The 3D state of the bodies (same order as bodies and spheres). 
+	 */
+	protected static BodyArrays3D state = new BodyArrays3D(); 
+	protected static OctreeGravity solver = new OctreeGravity(); 
+	protected static boolean forcesReady = false; //accelerations in state match the positions 
+	private static int[] order = new int[0]; //bodies sorted by x for collide (kept between steps) 
+	private static boolean[] touching = new boolean[0], removed = new boolean[0]; 
+	protected static StepMetrics metrics = new StepMetrics(); //time spent in each phase of a step 
+
+	/**
+	 * Additions asked for from the Swing thread (add_body, add_disk). The simulation thread carries them 
+	 * out at the start of its next step (apply_edits), so bodies, state and spheres never change size in 
+	 * the middle of one. 
+	 */
+	private static final ConcurrentLinkedQueue<Runnable> edits = new ConcurrentLinkedQueue<Runnable>(); 
+
 	/* (non-Javadoc)
 	 * @see java.lang.Runnable#run()
 	 * 
@@ -100,6 +135,7 @@ public class Sim_3D implements Runnable {
 	@Override
 	public void run() {
 		frame.setBackground(Color.BLACK); //FIX! 
+		apply_edits(); 
 
 		if (stop) { 
 			frame.setTitle("STOPPED"); //say stopped at top 
@@ -109,12 +145,9 @@ public class Sim_3D implements Runnable {
 			//law_one.tick = 500; 
 			frame.setTitle("RUNNING");
 
-			calculate_accelerations();
 			move_bodies();
-			for (int ii = 0; ii < bodies.size(); ii++) {
-				spheres.get(ii).setXYZ(bodies.get(ii).x_pos, bodies.get(ii).y_pos, 0);
-				frame_3D.addElement(spheres.get(ii)); 
-			}
+			for (int ii = 0; ii < bodies.size(); ii++)
+				spheres.get(ii).setXYZ(state.x[ii], state.y[ii], state.z[ii]); //registered once in add_body 
 		}
 		frame.repaint();
 		frame_3D.repaint();
@@ -141,6 +174,82 @@ public class Sim_3D implements Runnable {
 		frame.repaint();
 	}
 
+	/**
+	 * Carries out the additions queued since the last step (on the simulation thread). 
+	 */
+	private static void apply_edits() {
+		Runnable edit; 
+		while ((edit = edits.poll()) != null)
+			edit.run(); 
+	}
+
+	/**
+	 * Queues a body to be added at the start of the next step: its particle to the 2D frame and a sphere 
+	 * to the 3D frame (the only time the sphere is added; run just moves it). 
+	 * 
+	 * @param p
+	 * 	Particle with the x-y position and velocity, mass and color. 
+	 * @param z
+	 * 	Z position. 
+	 * @param v_z
+	 * 	Z velocity. 
+	 * @param size
+	 * 	Diameter of the sphere (m). 
+	 */
+	public void add_body(Particle p, double z, double v_z, double size) {
+		edits.add(() -> insert(p, z, v_z, size)); 
+	}
+
+	/**
+	 * Adds a body right away (simulation thread only). 
+	 */
+	private static void insert(Particle p, double z, double v_z, double size) {
+		bodies.add(p);
+		int ii = state.add(Collections.singletonList(p));
+		state.z[ii] = z;
+		state.vz[ii] = v_z;
+		forcesReady = false;
+		frame.addDrawable(p);
+
+		ElementSphere sphere = new ElementSphere();
+		sphere.setXYZ(p.x_pos, p.y_pos, z);
+		sphere.setSizeXYZ(size, size, size);
+		sphere.getStyle().setFillColor(p.color);
+		sphere.getStyle().setResolution(new Resolution(10, 10, 10));
+		sphere.getStyle().setDrawingLines(false);
+		spheres.add(sphere);
+		frame_3D.addElement(sphere);
+	}
+
+	/**
+	 * Method for button on DisplayFrame: adds a disk of light bodies on circular orbits around the 
+	 * first body, between 0.3 and 1 Earth orbits out and with a gaussian thickness in z (at the start 
+	 * of the next step, when the first body's state can be read). 
+	 */
+	public void add_disk() {
+		edits.add(Sim_3D::insert_disk); 
+	}
+
+	private static void insert_disk() {
+		if (bodies.isEmpty())
+			return;
+		Random random = new Random();
+		double cMass = state.m[0];
+		for (int ii = 0; ii < DISK_NUM; ii++) {
+			double r = EARTH_ORBIT*(0.3 + 0.7*random.nextDouble());
+			double ang = 2*Math.PI*random.nextDouble();
+			double v = Math.sqrt(G*cMass/r); //circular orbit
+			Particle p = new Particle();
+			p.init(state.x[0] + r*Math.cos(ang), state.y[0] + r*Math.sin(ang), state.vx[0] - v*Math.sin(ang),
+					state.vy[0] + v*Math.cos(ang), 0, 0, DISK_MASS, pTime, 0);
+			p.useRiemann = false;
+			p.pixRadius = 2;
+			p.color = pastel();
+			insert(p, state.z[0] + DISK_THICKNESS*EARTH_ORBIT*random.nextGaussian(), state.vz[0], 3E9);
+		}
+		frame.repaint();
+	}
+
 	/**
 	 * Method on bottom of DisplayFrame - clears all particle trails. 
 	 */
@@ -186,6 +295,15 @@ public class Sim_3D implements Runnable {
 		return color; 
 	}
 
+	/**
+	 * Method for button on DisplayFrame: prints the time spent in each phase of a step every 
+	 * StepMetrics.REPORT_INTERVAL (or stops printing it). 
+	 */
+	public void toggle_metrics(){
+		metrics.print = !metrics.print; //histograms start over at the next step 
+		System.out.println("Step metrics " + (metrics.print ? "on" : "off")); 
+	}
+
 	/**
 	 * Turns trails off and on in simulation. 
 	 */
@@ -199,7 +317,10 @@ public class Sim_3D implements Runnable {
 		}
 	}
 
-	ArrayList<ElementSphere> spheres = new ArrayList<ElementSphere>(); 
+	/**
+	 * Spheres drawn on the 3D frame (same order as bodies). 
+	 */
+	protected static ArrayList<ElementSphere> spheres = new ArrayList<ElementSphere>(); 
 
 	public static void main(String[] args) throws InterruptedException {
 		Sim_3D orbit = new Sim_3D(); //create simulation object 
@@ -209,6 +330,8 @@ public class Sim_3D implements Runnable {
 		frame.addButton("stop", "Stop/Start", "Stop or Start Simulation", orbit);
 		frame.addButton("clear_trails", "Clear Trails", "Clear Trail Points", orbit);
 		frame.addButton("toggle_trails", "Toggle Trails", "Turn trails on or off.", orbit);
+		frame.addButton("add_disk", "Add Disk", "Add a thick disk of light bodies around the first body.", orbit);
+		frame.addButton("toggle_metrics", "Metrics", "Print the time spent in each phase of a step.", orbit);
 		frame.setSize(FRAME_DIMENSIONS[0], FRAME_DIMENSIONS[1]);
 		orbit.setup(); 
 
@@ -219,89 +342,169 @@ public class Sim_3D implements Runnable {
 	    addElement(hatom);*/
 
 		//initialize the particles 
-		for (int ii = 0; ii < BODY_NUM; ii++) {
-			bodies.add(new Particle());
-			bodies.get(ii).useRiemann = false;
-			bodies.get(ii).trace = true; 
-			bodies.get(ii).init(ii*EARTH_ORBIT, 0, 0, 0, 0, 0, 0, pTime, 0); 
-			bodies.get(ii).pixRadius = 10;
-			bodies.get(ii).trace = false; 
-			bodies.get(ii).color = pastel();
-			frame.addDrawable(bodies.get(ii));
-
-			orbit.spheres.add(new ElementSphere());
-			orbit.spheres.get(ii).setXYZ(bodies.get(ii).x_pos, bodies.get(ii).y_pos, 0);
-			orbit.spheres.get(ii).setSizeXYZ(1E10, 1E10, 1E10);
-			orbit.spheres.get(ii).getStyle().setFillColor(bodies.get(ii).color);
-			orbit.spheres.get(ii).getStyle().setResolution(new Resolution(10, 10, 10));
-			orbit.spheres.get(ii).getStyle().setDrawingLines(false);
-			orbit.frame_3D.addElement(orbit.spheres.get(ii)); 
+		//set in sun/earth scenario (the Earth's orbit tilted by INCLINATION)
+		double[] masses = { SUN_MASS, EARTH_MASS };
+		String[] names = { "Sun", "Earth" };
+		for (int ii = 0; ii < BODY_NUM && ii < masses.length; ii++) {
+			Particle p = new Particle();
+			p.useRiemann = false;
+			double v = ii == 1 ? -EARTH_TANGENTIAL_VELOCITY/2 : 0;
+			double tilt = Math.toRadians(INCLINATION);
+			p.init(ii*EARTH_ORBIT, 0, 0, v*Math.cos(tilt), 0, 0, masses[ii], pTime, 0); 
+			p.pixRadius = 10;
+			p.trace = false; 
+			p.color = pastel();
+			p.real_name = names[ii];
+			orbit.add_body(p, 0, v*Math.sin(tilt), 1E10);
 		}
 
-		//set in sun/earth scenario
-		bodies.get(0).mass = SUN_MASS;
-		bodies.get(0).real_name = "Sun";
-		bodies.get(1).mass = EARTH_MASS;
-		bodies.get(1).real_name = "Earth";
-		bodies.get(1).v_y = -EARTH_TANGENTIAL_VELOCITY/2;
-		bodies.get(1).setX_pos(EARTH_ORBIT);
-
 		frame.setVisible(true);
 
-		orbit.frame_3D.setPreferredMinMax(FRAME_MINMAX[0], FRAME_MINMAX[1], FRAME_MINMAX[2], FRAME_MINMAX[3], FRAME_MINMAX[0], FRAME_MINMAX[1]);
-		orbit.frame_3D.setDecorationType(org.opensourcephysics.display3d.core.VisualizationHints.DECORATION_AXES);
-		orbit.frame_3D.setAllowQuickRedraw(true); // use shading when rotating
-		orbit.frame_3D.setVisible(true);
+		frame_3D.setPreferredMinMax(FRAME_MINMAX[0], FRAME_MINMAX[1], FRAME_MINMAX[2], FRAME_MINMAX[3], FRAME_MINMAX[0], FRAME_MINMAX[1]);
+		frame_3D.setDecorationType(org.opensourcephysics.display3d.core.VisualizationHints.DECORATION_AXES);
+		frame_3D.setAllowQuickRedraw(true); // use shading when rotating
+		frame_3D.setVisible(true);
 
 		Thread.sleep(500);
 		executor.scheduleAtFixedRate(orbit, 0, TICK_RATE, TimeUnit.NANOSECONDS);
 	}
 
 	/**
-	 * Moves all the particles by checking for collisions and then stepping them. 
-	 * 
-	 * @param frame
-	 * 	Frame to move particles on. 
+	 * Moves all the bodies one time step (pTime) with a kick-drift-kick leapfrog in 3D, then 
+	 * checks for collisions and copies the new positions into the particles on the 2D frame. 
 	 */
 	private static void move_bodies() {
-		for (int ii = 0; ii < bodies.size(); ii++) { 
-			for (int jj = 0; jj < bodies.size(); jj++) {
-				if (ii == jj)
+		metrics.begin(); 
+		if (!forcesReady)
+			calculate_accelerations();
+		metrics.lap(StepMetrics.FORCE); 
+		int n = state.n;
+		double h = pTime;
+		for (int ii = 0; ii < n; ii++) { //half kick and drift
+			state.vx[ii] += state.ax[ii]*h/2;
+			state.vy[ii] += state.ay[ii]*h/2;
+			state.vz[ii] += state.az[ii]*h/2;
+			state.x[ii] += state.vx[ii]*h;
+			state.y[ii] += state.vy[ii]*h;
+			state.z[ii] += state.vz[ii]*h;
+		}
+		metrics.lap(StepMetrics.INTEGRATION); 
+		calculate_accelerations();
+		metrics.lap(StepMetrics.FORCE); 
+		for (int ii = 0; ii < n; ii++) { //second half kick
+			state.vx[ii] += state.ax[ii]*h/2;
+			state.vy[ii] += state.ay[ii]*h/2;
+			state.vz[ii] += state.az[ii]*h/2;
+		}
+		metrics.lap(StepMetrics.INTEGRATION); 
+		collide();
+
+		state.storePositions(bodies);
+		for (int ii = 0; ii < bodies.size(); ii++) {
+			bodies.get(ii).Step(frame, true, false); // already moved, just add to trail and frame 
+			bodies.get(ii).time += h;
+		}
+		metrics.lap(StepMetrics.TRAILS); 
+		metrics.end(bodies.size()); 
+	}
+
+	/**
+	 * Finds colliding bodies and responds to them. The bodies are kept sorted by x (insertion sort, 
+	 * which is quick because the order hardly changes between steps) and only bodies whose x are 
+	 * closer than the collision distance are checked, instead of every pair. Inelastically merged 
+	 * bodies are removed once the sweep is done. 
+	 */
+	private static void collide() {
+		int n = state.n;
+		if (order.length != n) {
+			order = new int[n];
+			for (int ii = 0; ii < n; ii++)
+				order[ii] = ii;
+			touching = new boolean[n];
+			removed = new boolean[n];
+		}
+		for (int ii = 1; ii < n; ii++) { //insertion sort by x
+			int body = order[ii];
+			int jj = ii - 1;
+			while (jj >= 0 && state.x[order[jj]] > state.x[body]) {
+				order[jj + 1] = order[jj];
+				jj--;
+			}
+			order[jj + 1] = body;
+		}
+		int maxRadius = 0;
+		for (Particle p : bodies)
+			maxRadius = Math.max(maxRadius, p.radius);
+		double reach = collisionDistance(2*maxRadius); //no pair further apart than this in x can touch
+		boolean merged = false;
+		for (int ii = 0; ii < n; ii++) {
+			touching[ii] = false;
+			removed[ii] = false;
+		}
+		metrics.lap(StepMetrics.BROAD_PHASE); 
+		long pairs = 0; 
+		for (int ii = 0; ii < n; ii++) {
+			int a = order[ii];
+			for (int jj = ii + 1; jj < n && state.x[order[jj]] - state.x[a] <= reach; jj++) {
+				int b = order[jj];
+				pairs++; 
+				if (removed[a] || removed[b] || !checkCollision(a, b))
 					continue;
-				else if (checkCollision(bodies.get(ii), bodies.get(jj))){ //check if collision has occurred 
-					setCollision(bodies.get(ii), bodies.get(jj)); //respond to it
-					if(!elastic)
-						break; 
-				}
-				else 
-					bodies.get(ii).bump = null; //no recent crash 
+				touching[a] = touching[b] = true;
+				setCollision(a, b); //respond to it
+				metrics.count(StepMetrics.COLLISIONS, 1); 
+				merged |= !elastic;
 			}
 		}
-		for (int ii = 0; ii < bodies.size(); ii++) {
-			bodies.get(ii).Step(frame, true, true); // not 2d simulated, step on frame 
-			frame.addDrawable(bodies.get(ii)); 
+		metrics.count(StepMetrics.PAIRS, pairs); 
+		for (int ii = 0; ii < n; ii++)
+			if (!touching[ii])
+				bodies.get(ii).bump = null; //no recent crash
+
+		if (merged) {
+			for (int ii = n - 1; ii >= 0; ii--) {
+				if (!removed[ii])
+					continue;
+				frame.removeDrawable(bodies.get(ii));
+				frame.removeDrawable(bodies.get(ii).trail);
+				frame_3D.removeElement(spheres.get(ii));
+				bodies.remove(ii);
+				spheres.remove(ii);
+			}
+			state.compact(removed);
+			order = new int[0]; //rebuilt next step
+			forcesReady = false;
 		}
+		metrics.lap(StepMetrics.NARROW_PHASE); 
 	}
 
 	/**
-	 * Checks if a collision has occurred between 2 particles. 
+	 * Converts a collision distance on screen (pixels on the 2D frame) to meters. 
+	 */
+	private static double collisionDistance(double pixels) {
+		DrawingPanel panel = frame.getDrawingPanel();
+		double pixPerMeter = Math.abs(panel.xToPix(EARTH_ORBIT) - panel.xToPix(0))/EARTH_ORBIT;
+		return pixPerMeter > 0 ? pixels/pixPerMeter : 0;
+	}
+
+	/**
+	 * Checks if a collision has occurred between 2 bodies (in 3D, using their radii on screen). 
 	 * 
-	 * @param m1
-	 * 	Particle 1 to check. 
-	 * @param m2
-	 * 	Particle 2 to check.  
+	 * @param ii
+	 * 	Index of body 1. 
+	 * @param jj
+	 * 	Index of body 2.  
 	 * @return
 	 * 	True or false (if collision has/has not happened). 
 	 */
-	private static boolean checkCollision(Particle m1, Particle m2) {
-		DrawingPanel panel = frame.getDrawingPanel();
-		int p1cX = panel.xToPix(m1.getX()); //get pixel positions 
-		int p1cY = panel.yToPix(m1.getY());
-		int p2cX = panel.xToPix(m2.getX());
-		int p2cY = panel.yToPix(m2.getY());
-		double dist = dist(p1cX, p1cY, p2cX, p2cY);
-
-		if (m1.radius + m2.radius < dist + COLLISION_RAD)
+	private static boolean checkCollision(int ii, int jj) {
+		Particle m1 = bodies.get(ii), m2 = bodies.get(jj);
+		double dx = state.x[ii] - state.x[jj];
+		double dy = state.y[ii] - state.y[jj];
+		double dz = state.z[ii] - state.z[jj];
+		double dist = Math.sqrt(dx*dx + dy*dy + dz*dz);
+
+		if (dist + collisionDistance(COLLISION_RAD) > collisionDistance(m1.radius + m2.radius))
 			return false;
 		else if (m1.bump == null || m2.bump == null) // their collision has not occurred
 			return true;
@@ -312,146 +515,73 @@ public class Sim_3D implements Runnable {
 	}
 
 	/**
-	 * Respond to collision by changing directions and velocities. 
+	 * Respond to collision by changing directions and velocities. An inelastic collision merges 
+	 * body jj into body ii (momentum is kept) and marks jj to be removed. 
 	 * 
-	 * @param m1
-	 * 	Particle 1. 
-	 * @param m2
-	 * 	Particle 2. 
-	 * @param frame
-	 * 	DisplayFrame used (to delete/add particles for inelastic). 
+	 * @param ii
+	 * 	Index of body 1. 
+	 * @param jj
+	 * 	Index of body 2. 
 	 */
-	private static void setCollision(Particle m1, Particle m2) {
+	private static void setCollision(int ii, int jj) {
+		Particle m1 = bodies.get(ii), m2 = bodies.get(jj);
 		m1.bump = m2;
 		m2.bump = m1;
-
-		double v1ix = m1.v_x;
-		double v2ix = m2.v_x;
-		double v1iy = m1.v_y;
-		double v2iy = m2.v_y;
-
-		double v1fx;
-		double v2fx;
-		double v1fy;
-		double v2fy;
+		double ma = state.m[ii], mb = state.m[jj];
 
 		if (elastic) { // efficiency == 100
 			// elastic collision
 			// v1i + v2i = v1f + v2f
 			// mv1 + mv2 = mv1 + mv2
-			v1fx = 2 * (m1.mass * v1ix + m2.mass * v2ix) / (m1.mass + m2.mass);
-			v1fx -= v1ix;
-			v2fx = 2 * (m1.mass * v1ix + m2.mass * v2ix) / (m1.mass + m2.mass);
-			v2fx -= v2ix;
-			v1fy = 2 * (m1.mass * v1iy + m2.mass * v2iy) / (m1.mass + m2.mass);
-			v1fy -= v1iy;
-			v2fy = 2 * (m1.mass * v1iy + m2.mass * v2iy) / (m1.mass + m2.mass);
-			v2fy -= v2iy;
-
-			m1.v_x = v1fx;
-			m2.v_x = v2fx;
-			m1.v_y = v1fy;
-			m2.v_y = v2fy;
+			double[][] v = { state.vx, state.vy, state.vz };
+			for (double[] axis : v) {
+				double v1i = axis[ii], v2i = axis[jj];
+				axis[ii] = 2 * (ma * v1i + mb * v2i) / (ma + mb) - v1i;
+				axis[jj] = 2 * (ma * v1i + mb * v2i) / (ma + mb) - v2i;
+			}
 
 			if (DEBUG_MODE) {
-				System.out.println("M1's vx changed from " + v1ix + " to "
-						+ m1.v_x);
-				System.out.println("M2's vx changed from " + v2ix + " to "
-						+ m2.v_x);
+				System.out.println("M1's vx changed from " + m1.v_x + " to "
+						+ state.vx[ii]);
+				System.out.println("M2's vx changed from " + m2.v_x + " to "
+						+ state.vx[jj]);
 			}
-			// control.popup("Collision!", "Boom!");
 		} else {
-			// inelastic collision
-			Particle monster = new Particle();
-			double v_final = (m1.mass * m1.vector(m1.v_x, m1.v_y) + m2.mass
-					* m2.vector(m1.v_x, m1.v_y))
-					/ (m1.mass + m2.mass);
-			monster.init(m1.x_pos, m1.y_pos, v_final, calcAng(m1, m2),
-					pTime, 0);
-			System.out.println("MONSTER: " + v_final + " ANG: "
-					+ calcAng(m1, m2));
-			Color newColor = new Color(
+			// inelastic collision: one body at the center of mass with the total momentum
+			double mt = ma + mb;
+			state.x[ii] = (ma * state.x[ii] + mb * state.x[jj]) / mt;
+			state.y[ii] = (ma * state.y[ii] + mb * state.y[jj]) / mt;
+			state.z[ii] = (ma * state.z[ii] + mb * state.z[jj]) / mt;
+			state.vx[ii] = (ma * state.vx[ii] + mb * state.vx[jj]) / mt;
+			state.vy[ii] = (ma * state.vy[ii] + mb * state.vy[jj]) / mt;
+			state.vz[ii] = (ma * state.vz[ii] + mb * state.vz[jj]) / mt;
+			state.m[ii] = mt;
+			m1.mass = mt;
+			m1.color = new Color(
 					(m1.color.getRed() + m2.color.getRed()) / 2,
 					(m1.color.getGreen() + m2.color.getGreen()) / 2,
 					(m1.color.getBlue() + m2.color.getBlue()) / 2);
-			monster.color = newColor;
-			monster.useRiemann = false;
-			monster.pixRadius = 10;
-			monster.mass = m1.mass + m2.mass;
-
-			//remove old ones, add new 
-			frame.removeDrawable(m1);
-			frame.removeDrawable(m2); 
-			for (int ii = 0; ii < m1.points.size(); ii ++) {
-				monster.trail.addPoint(m1.points.get(ii).x, m1.points.get(ii).y);
-			}
-			monster.trail.moveToPoint(m2.points.get(0).x, m2.points.get(0).y);
-			for (int ii = 0; ii < m2.points.size(); ii ++) {
-				monster.trail.addPoint(m2.points.get(ii).x, m2.points.get(ii).y);
-			}
-			m1.trail.clear(); 
-			m2.trail.clear(); 
-			m1.points.clear(); 
-			m2.points.clear(); 
-			bodies.remove(m1); 
-			bodies.remove(m2); 
-			bodies.add(monster); 
-			frame.addDrawable(monster); 
-			monster.Step(frame, true, true);
+			spheres.get(ii).getStyle().setFillColor(m1.color);
+			removed[jj] = true;
+			if (DEBUG_MODE)
+				System.out.println("MERGED: " + m1 + " + " + m2);
 		}
 	}
 
 	/**
-	 * Calculate and set accelerations of all particles based on gravitational forces with other particles and clusters. 
+	 * Calculate and set accelerations of all bodies (in 3D) with the octree. 
 	 */
 	private static void calculate_accelerations() {
-		for (int ii = 0; ii < bodies.size(); ii++) { // step through arraylist
-			// of masses
-			bodies.get(ii).forces.clear(); // clear old forces
-			bodies.get(ii).forces.removeAll(bodies.get(ii).forces);
+		solver.accelerations(state, G);
+		forcesReady = true;
 
-			for (int jj = 0; jj < bodies.size(); jj++) {
-				if (ii == jj)
-					continue;
-				bodies.get(ii).forces.add(grav_force(bodies.get(ii),
-						bodies.get(jj)));
-			}
-			double xSum = sumForces(bodies.get(ii).forces, 0);
-			double ySum = sumForces(bodies.get(ii).forces, 1);
-			bodies.get(ii).acc_x = xSum / bodies.get(ii).mass; // a = F/m
-			bodies.get(ii).acc_y = ySum / bodies.get(ii).mass;
-
-			if (DEBUG_MODE) {
-				System.out.println("X Acceleration of " + ii + " is "
-						+ bodies.get(ii).acc_x);
-				System.out.println("Y Acceleration of " + ii + " is "
-						+ bodies.get(ii).acc_y);
-			}
+		if (DEBUG_MODE) {
+			for (int ii = 0; ii < state.n; ii++)
+				System.out.println("Acceleration of " + ii + " is (" + state.ax[ii]
+						+ ", " + state.ay[ii] + ", " + state.az[ii] + ")");
 		}
 	}
 
-	/**
-	 * Calculates gravitational force between two masses. 
-	 * 
-	 * F = G*(m1*m2)/(r^2). 
-	 * 
-	 * @param m1
-	 * 	Mass 1. 
-	 * @param m2
-	 * 	Mass 2. 
-	 * @return
-	 * 	New force with direction pointing toward opposite mass and with magnitude using above formula. 
-	 */
-	private static Force grav_force(Particle m1, Particle m2) {
-		double dist = dist(m1, m2);
-		double mag = G * m1.mass * m2.mass / Math.pow(dist, 2);
-
-		if (DEBUG_MODE)
-			System.out.println("Force added to mass " + m1 + " in magnitude "
-					+ mag + " dir: " + calcAng(m1, m2));
-		return new Force(mag, calcAng(m1, m2), "Gravitational Force");
-	}
-
 	/**
 	 * Calculate the distance between two masses using distance formula. 
 	 * 
@@ -507,28 +637,4 @@ public class Sim_3D implements Runnable {
 		// angle = Math.round(angle*100)/100;
 		return angle; // inverse tangent of y/x
 	}
-
-	/**
-	 * Sums forces in a direction. 
-	 * 
-	 * @param f
-	 * 	List of forces. 
-	 * @param dir
-	 * 	Direction (0 or 1 for x and y). 
-	 * @return
-	 * 	Magnitude of forces in that direction. 
-	 */
-	static double sumForces(ArrayList<Force> f, double dir) {
-		double sum = 0;
-		if (dir == 0) {
-			for (Force force : f) {
-				sum += force.forceX(); // get x components
-			}
-		} else {
-			for (Force force : f) {
-				sum += force.forceY(); // get y components
-			}
-		}
-		return sum;
-	}
 }
@@ -0,0 +1,70 @@
+import java.awt.Color;
+import java.util.List;
+
+/**
+ * A copy of the state of a simulation (its particles, time step and G) at one moment, made by the simulation
+ * thread for the controllers to read. Once a snapshot has been handed over by a StateExchange nothing writes
+ * to it until the controller gives it back (by asking the exchange for a newer one), so the controller can
+ * read it from the Swing thread without locks while the simulation keeps running.
+ *
+ * The arrays are reused from one snapshot to the next and can be longer than n.
+ *
+ * @method fill
+ * 	Copies the state of a list of particles into the snapshot.
+ *
+ * @author Andrew M.
+ */
+public class Snapshot {
+	public long version = 0; //number of the snapshot (higher is newer)
+	public long changes = 0; //number of times the bodies were edited, added, removed or loaded
+	public boolean running = false; //simulation running or paused
+	public double timeStep, G;
+	public int n = 0; //number of particles
+
+	public String[] names = new String[0];
+	public double[] mass = new double[0];
+	public double[] x = new double[0], y = new double[0];
+	public double[] vx = new double[0], vy = new double[0];
+	public double[] ax = new double[0], ay = new double[0];
+	public Color[] color = new Color[0];
+
+	/**
+	 * Copies the state of a list of particles into the snapshot (on the simulation thread).
+	 *
+	 * @param bodies
+	 * 	Particles of the simulation.
+	 * @param timeStep
+	 * 	Time step of the simulation.
+	 * @param G
+	 * 	Gravitational constant of the simulation.
+	 */
+	void fill(List<? extends Particle> bodies, double timeStep, double G){
+		n = bodies.size();
+		if(mass.length < n){
+			int cap = Math.max(16, 2*n);
+			names = java.util.Arrays.copyOf(names, cap);
+			color = java.util.Arrays.copyOf(color, cap);
+			mass = BodyArrays.grow(mass, cap);
+			x = BodyArrays.grow(x, cap);
+			y = BodyArrays.grow(y, cap);
+			vx = BodyArrays.grow(vx, cap);
+			vy = BodyArrays.grow(vy, cap);
+			ax = BodyArrays.grow(ax, cap);
+			ay = BodyArrays.grow(ay, cap);
+		}
+		for (int ii = 0; ii < n; ii++) {
+			Particle p = bodies.get(ii);
+			names[ii] = p.real_name;
+			color[ii] = p.color;
+			mass[ii] = p.mass;
+			x[ii] = p.x_pos;
+			y[ii] = p.y_pos;
+			vx[ii] = p.v_x;
+			vy[ii] = p.v_y;
+			ax[ii] = p.acc_x;
+			ay[ii] = p.acc_y;
+		}
+		this.timeStep = timeStep;
+		this.G = G;
+	}
+}
@@ -0,0 +1,229 @@
+import java.util.List;
+
+/**
+ * Implicit integrator for a chain of masses joined by springs (the spring in ForceSpringApp). The explicit
+ * step used by Mass goes unstable once k*deltaT^2/m gets large, so stiff or long chains need a tiny time
+ * step. Here the stiff part of the spring force is done implicitly instead, which is stable for any step.
+ *
+ * The spring between masses i and j pulls on i with k*(|d| - L)*d/|d| (d = r_j - r_i), which is split into
+ * 	k*d 			- linear in the positions, done implicitly
+ * 	-k*L*d/|d| 	- rest length part, done explicitly (zero for the default rest length of 0)
+ * The linear part couples each mass only to its two neighbours, so each step is one tridiagonal solve for
+ * the new velocities, done in O(n) with the Thomas algorithm (the same matrix is used for x and y):
+ * 	backward Euler:		(M + h^2*k*T) v' = M v + h F + h k D x,				x' = x + h v'
+ * 	implicit midpoint:	(M + h^2*k*T/4) v' = M v + h F + h k D x - h^2 k T v/4,	x' = x + h (v + v')/2
+ * where T is the chain's graph Laplacian (2 on the diagonal, -1 next to it, 1 at the ends), D x = -T x are the
+ * neighbour differences and F holds gravity, wind and air resistance. Backward Euler damps the motion a little
+ * every step; implicit midpoint keeps the energy of the springs (better for slinky drops).
+ *
+ * Fixed masses (the top of the spring) keep zero velocity.
+ *
+ * @method load
+ * 	Copies a list of masses into the chain's arrays.
+ * @method step
+ * 	Moves every mass one time step.
+ * @method store
+ * 	Copies the positions and velocities back into the masses.
+ *
+ * @author Andrew M.
+ */
+public class SpringChain {
+	public static final int BACKWARD_EULER = 0, MIDPOINT = 1; //integrators
+
+	public double[] x = new double[0], y = new double[0]; //positions
+	public double[] vx = new double[0], vy = new double[0]; //velocities
+	public double[] m = new double[0]; //masses
+	public boolean[] fixed = new boolean[0]; //masses that do not move
+	public int n = 0; //number of masses
+
+	double k; //spring constant
+	double restLength; //rest length of each spring
+	int method = BACKWARD_EULER;
+
+	//work arrays for the tridiagonal solve
+	private double[] diag = new double[0], off = new double[0], cPrime = new double[0];
+	private double[] rx = new double[0], ry = new double[0];
+
+	/**
+	 * Makes a chain with a spring constant and rest length.
+	 *
+	 * @param k
+	 * 	Spring constant of each spring.
+	 * @param restLength
+	 * 	Rest length of each spring.
+	 * @param method
+	 * 	BACKWARD_EULER or MIDPOINT.
+	 */
+	public SpringChain(double k, double restLength, int method){
+		this.k = k;
+		this.restLength = restLength;
+		this.method = method;
+	}
+
+	/**
+	 * Copies a list of masses into the arrays (mass ii is joined to masses ii-1 and ii+1).
+	 *
+	 * @param masses
+	 * 	The masses, in order along the chain.
+	 */
+	public void load(List<Mass> masses){
+		n = masses.size();
+		if(x.length < n){
+			x = new double[n]; y = new double[n];
+			vx = new double[n]; vy = new double[n];
+			m = new double[n];
+			fixed = new boolean[n];
+			diag = new double[n]; off = new double[n]; cPrime = new double[n];
+			rx = new double[n]; ry = new double[n];
+		}
+		for (int ii = 0; ii < n; ii++) {
+			Mass mass = masses.get(ii);
+			x[ii] = mass.x_pos;
+			y[ii] = mass.y_pos;
+			vx[ii] = mass.v_x;
+			vy[ii] = mass.v_y;
+			m[ii] = mass.mass;
+			fixed[ii] = false;
+		}
+	}
+
+	/**
+	 * Copies positions and velocities back into the masses and moves their clocks on.
+	 *
+	 * @param masses
+	 * 	The masses given to load.
+	 * @param h
+	 * 	Time step that was taken.
+	 */
+	public void store(List<Mass> masses, double h){
+		for (int ii = 0; ii < n; ii++) {
+			Mass mass = masses.get(ii);
+			mass.acc_x = (vx[ii] - mass.v_x)/h; //average acceleration over the step (for graphs)
+			mass.acc_y = (vy[ii] - mass.v_y)/h;
+			mass.x_pos = x[ii];
+			mass.y_pos = y[ii];
+			mass.v_x = vx[ii];
+			mass.v_y = vy[ii];
+			mass.setXY(x[ii], y[ii]);
+			mass.time += h;
+			mass.cTime += h;
+		}
+	}
+
+	/**
+	 * Moves every mass one time step.
+	 *
+	 * @param h
+	 * 	Time step.
+	 * @param g
+	 * 	Gravity (pulls in -y, as in ForceSpringApp).
+	 * @param windX
+	 * 	X component of the wind force on each mass.
+	 * @param windY
+	 * 	Y component of the wind force on each mass.
+	 * @param alpha
+	 * 	Air resistance coefficient (acceleration -alpha*|v|*v on each axis, as in Mass).
+	 */
+	public void step(double h, double g, double windX, double windY, double alpha){
+		if(n == 0)
+			return;
+		double c = method == MIDPOINT ? h*h*k/4 : h*h*k; //coupling of the implicit part
+
+		for (int ii = 0; ii < n; ii++) {
+			//explicit forces: gravity, wind, drag, and the rest length part of the springs
+			double fx = windX - m[ii]*alpha*Math.abs(vx[ii])*vx[ii];
+			double fy = -m[ii]*g + windY - m[ii]*alpha*Math.abs(vy[ii])*vy[ii];
+			//neighbour differences (D x) and the Laplacian of v (for midpoint)
+			double dx = 0, dy = 0, lvx = 0, lvy = 0;
+			int links = 0;
+			for (int jj = ii-1; jj <= ii+1; jj += 2) {
+				if(jj < 0 || jj >= n)
+					continue;
+				links++;
+				double ex = x[jj] - x[ii], ey = y[jj] - y[ii];
+				dx += ex;
+				dy += ey;
+				lvx += vx[ii] - vx[jj];
+				lvy += vy[ii] - vy[jj];
+				double dist = Math.sqrt(ex*ex + ey*ey);
+				if(restLength != 0 && dist > 0){
+					fx -= k*restLength*ex/dist;
+					fy -= k*restLength*ey/dist;
+				}
+			}
+			if(fixed[ii]){ //row becomes v' = 0
+				diag[ii] = 1;
+				off[ii] = 0;
+				rx[ii] = 0;
+				ry[ii] = 0;
+				continue;
+			}
+			diag[ii] = m[ii] + c*links;
+			off[ii] = ii < n-1 && !fixed[ii+1] ? -c : 0; //coupling to the next mass (none if it is fixed)
+			rx[ii] = m[ii]*vx[ii] + h*fx + h*k*dx;
+			ry[ii] = m[ii]*vy[ii] + h*fy + h*k*dy;
+			if(method == MIDPOINT){
+				rx[ii] -= c*lvx;
+				ry[ii] -= c*lvy;
+			}
+		}
+		//the coupling to the previous mass is off[ii-1] (the matrix is symmetric), except when ii-1 is
+		//fixed (handled in the forward sweep below) or ii is fixed (row already says v' = 0)
+		solve(rx, ry);
+
+		for (int ii = 0; ii < n; ii++) {
+			if(method == MIDPOINT){
+				x[ii] += h*(vx[ii] + rx[ii])/2;
+				y[ii] += h*(vy[ii] + ry[ii])/2;
+			}
+			else {
+				x[ii] += h*rx[ii];
+				y[ii] += h*ry[ii];
+			}
+			vx[ii] = rx[ii];
+			vy[ii] = ry[ii];
+		}
+	}
+
+	/**
+	 * Thomas algorithm for the symmetric tridiagonal system in diag/off, solving for two right
+	 * hand sides at once (overwritten with the solutions).
+	 */
+	private void solve(double[] bx, double[] by){
+		//forward sweep
+		double lower = 0; //entry left of the diagonal in this row
+		for (int ii = 0; ii < n; ii++) {
+			lower = ii == 0 || fixed[ii] || fixed[ii-1] ? 0 : off[ii-1];
+			double denom = diag[ii] - (ii > 0 ? lower*cPrime[ii-1] : 0);
+			cPrime[ii] = off[ii]/denom;
+			bx[ii] = (bx[ii] - (ii > 0 ? lower*bx[ii-1] : 0))/denom;
+			by[ii] = (by[ii] - (ii > 0 ? lower*by[ii-1] : 0))/denom;
+		}
+		//back substitution
+		for (int ii = n-2; ii >= 0; ii--) {
+			bx[ii] -= cPrime[ii]*bx[ii+1];
+			by[ii] -= cPrime[ii]*by[ii+1];
+		}
+	}
+
+	/**
+	 * Total energy of the chain (kinetic + spring + gravitational), for checking the integrator.
+	 *
+	 * @param g
+	 * 	Gravity.
+	 * @return
+	 * 	Energy.
+	 */
+	public double energy(double g){
+		double e = 0;
+		for (int ii = 0; ii < n; ii++) {
+			e += 0.5*m[ii]*(vx[ii]*vx[ii] + vy[ii]*vy[ii]) + m[ii]*g*y[ii];
+			if(ii < n-1){
+				double ex = x[ii+1] - x[ii], ey = y[ii+1] - y[ii];
+				double stretch = Math.sqrt(ex*ex + ey*ey) - restLength;
+				e += 0.5*k*stretch*stretch;
+			}
+		}
+		return e;
+	}
+}
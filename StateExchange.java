@@ -0,0 +1,110 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands the state of a simulation to its controller and the controller's edits back to the simulation
+ * without either thread waiting on the other (and without the two sharing the particles or any flags).
+ *
+ * State goes out through three Snapshots: the simulation fills the one it holds and swaps it with the one in
+ * the middle, and the controller swaps the one it holds with the middle one when that is newer. Each snapshot
+ * is only ever held by one side, so the simulation never writes to a snapshot the controller is reading, and
+ * the swaps are single atomic operations (no locks). The controller always sees the latest snapshot; ones it
+ * did not get to in time are simply skipped.
+ *
+ * Edits go the other way through a queue: the controller submits them from the Swing thread, and the
+ * simulation takes them off (poll) and applies them at the start of a step, when nothing is moving.
+ *
+ * While the simulation runs it publishes at most one snapshot every PUBLISH_INTERVAL, so copying the bodies
+ * out costs nothing next to the steps; snapshots for edits and for starting or stopping are sent straight away.
+ *
+ * @method publish
+ * 	Copies the state of the simulation into a snapshot and hands it over (simulation thread).
+ * @method poll
+ * 	Next edit from the controller (simulation thread).
+ * @method latest
+ * 	Newest snapshot handed over (Swing thread).
+ * @method submit
+ * 	Queues an edit for the simulation (Swing thread).
+ *
+ * @author Andrew M.
+ */
+public class StateExchange {
+	public static final long PUBLISH_INTERVAL = 40000000L; //ns between snapshots of a running simulation (25 a second)
+
+	private Snapshot back = new Snapshot(); //filled by the simulation
+	private final AtomicReference<Snapshot> middle = new AtomicReference<Snapshot>(new Snapshot()); //newest handed over
+	private Snapshot front = new Snapshot(); //read by the controller
+
+	private long version = 0; //snapshots published
+	private long changes = 0; //snapshots published for a change to the bodies
+	private long last = 0; //time of the last snapshot (ns)
+
+	private final ConcurrentLinkedQueue<Edit> edits = new ConcurrentLinkedQueue<Edit>();
+
+	/**
+	 * Copies the state of the simulation into a snapshot and hands it to the controller (called by the
+	 * simulation thread). Unless changed is set, nothing is copied if the last snapshot was less than
+	 * PUBLISH_INTERVAL ago.
+	 *
+	 * @param bodies
+	 * 	Particles of the simulation.
+	 * @param timeStep
+	 * 	Time step of the simulation.
+	 * @param G
+	 * 	Gravitational constant of the simulation.
+	 * @param running
+	 * 	Whether the simulation is running.
+	 * @param changed
+	 * 	Whether the bodies were edited (or the simulation started or stopped) since the last snapshot.
+	 * @return
+	 * 	Whether a snapshot was published.
+	 */
+	public boolean publish(List<? extends Particle> bodies, double timeStep, double G, boolean running, boolean changed){
+		long now = System.nanoTime();
+		if(!changed && version != 0 && now - last < PUBLISH_INTERVAL)
+			return false;
+		last = now;
+		if(changed)
+			changes++;
+		back.fill(bodies, timeStep, G);
+		back.running = running;
+		back.changes = changes;
+		back.version = ++version;
+		back = middle.getAndSet(back); //hand it over, take back the one the controller gave up
+		return true;
+	}
+
+	/**
+	 * Takes the next edit off the queue (called by the simulation thread).
+	 *
+	 * @return
+	 * 	Oldest edit not yet taken, or null if there are none.
+	 */
+	public Edit poll(){
+		return edits.poll();
+	}
+
+	/**
+	 * Newest snapshot of the simulation (called by the Swing thread). The snapshot stays as it is until the
+	 * next call, so it should not be kept after that.
+	 *
+	 * @return
+	 * 	Latest snapshot (version 0 before anything is published).
+	 */
+	public Snapshot latest(){
+		if(middle.get().version > front.version)
+			front = middle.getAndSet(front);
+		return front;
+	}
+
+	/**
+	 * Queues an edit for the simulation to apply (called by the Swing thread).
+	 *
+	 * @param edit
+	 * 	Edit to apply.
+	 */
+	public void submit(Edit edit){
+		edits.add(edit);
+	}
+}
@@ -0,0 +1,61 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event for one simulation step, with the time spent in each phase (see StepMetrics).
+ * Recorded when a flight recording with the event enabled is running, e.g.
+ * 	java -XX:StartFlightRecording=filename=orbital.jfr Gen_Sim
+ * and read with "jfr print --events orbital.Step orbital.jfr" or Mission Control.
+ *
+ * @author Andrew M.
+ */
+@Name("orbital.Step")
+@Label("Simulation Step")
+@Category("Orbital")
+@Description("Time spent in each phase of one simulation step")
+public class StepEvent extends Event {
+	@Label("Bodies")
+	int bodies;
+
+	@Label("Force")
+	@Timespan(Timespan.NANOSECONDS)
+	long force;
+
+	@Label("Collision Broad Phase")
+	@Timespan(Timespan.NANOSECONDS)
+	long broadPhase;
+
+	@Label("Collision Narrow Phase")
+	@Timespan(Timespan.NANOSECONDS)
+	long narrowPhase;
+
+	@Label("Integration")
+	@Timespan(Timespan.NANOSECONDS)
+	long integration;
+
+	@Label("Trails")
+	@Timespan(Timespan.NANOSECONDS)
+	long trails;
+
+	@Label("Kepler Analysis")
+	@Timespan(Timespan.NANOSECONDS)
+	long kepler;
+
+	@Label("Snapshot")
+	@Timespan(Timespan.NANOSECONDS)
+	long snapshot;
+
+	@Label("Energy Check")
+	@Timespan(Timespan.NANOSECONDS)
+	long energy;
+
+	@Label("Pairs Checked")
+	long pairs;
+
+	@Label("Collisions")
+	long collisions;
+}
@@ -0,0 +1,245 @@
+/**
+ * Timers and counters for the phases of a simulation step (forces, collision broad and narrow phase,
+ * integration, trails, Kepler analysis, the snapshot for the controller, energy checks). A step calls begin, then lap
+ * after each phase (which charges the time since the last lap to that phase), then end. A lap costs one
+ * System.nanoTime call and a few additions, so the timers can stay on all the time.
+ *
+ * At the end of each step the time of every phase in it goes into a histogram with 8 buckets per power of
+ * two (like HdrHistogram, within 12.5%), from which report gives the mean, median, 99th percentile and
+ * maximum of each phase. With print set the report is printed every REPORT_INTERVAL and the histograms
+ * start over. Each step is also a StepEvent for Java Flight Recorder (when a recording asks for it).
+ *
+ * @method begin
+ * 	Starts timing a step.
+ * @method lap
+ * 	Charges the time since the last lap to a phase.
+ * @method skip
+ * 	Leaves the time since the last lap out.
+ * @method count
+ * 	Adds to a counter.
+ * @method end
+ * 	Finishes a step (histograms, flight recorder event, report).
+ * @method report
+ * 	Table of the phases since the last reset.
+ *
+ * @author Andrew M.
+ */
+public class StepMetrics {
+	//phases
+	public static final int FORCE = 0, BROAD_PHASE = 1, NARROW_PHASE = 2, INTEGRATION = 3, TRAILS = 4, KEPLER = 5,
+			SNAPSHOT = 6, ENERGY = 7, STEP = 8;
+	static final String[] PHASES = { "force", "collision broad", "collision narrow", "integration", "trails",
+			"kepler analysis", "snapshot", "energy check", "whole step" };
+	//counters
+	public static final int PAIRS = 0, COLLISIONS = 1;
+
+	public static final long REPORT_INTERVAL = 10000000000L; //ns between printed reports
+	private static final int BUCKETS = 16 + 60*8; //values below 16 exactly, then 8 buckets per power of two
+
+	public volatile boolean print = false; //print a report every REPORT_INTERVAL (may be set from another thread)
+	private boolean printing = false; //print as of the last step
+
+	private final long[][] histogram = new long[PHASES.length][BUCKETS];
+	private final long[] count = new long[PHASES.length]; //steps the phase was in
+	private final long[] total = new long[PHASES.length]; //ns
+	private final long[] max = new long[PHASES.length]; //ns
+	private final long[] counters = new long[2];
+
+	private final long[] step = new long[PHASES.length]; //ns of each phase in this step
+	private final long[] stepCounters = new long[2];
+	private long last = 0; //time of the last lap
+	private long started = 0; //time begin was called
+	private long since = System.nanoTime(); //time of the last reset
+	private long steps = 0; //steps since the last reset
+	private int bodies = 0; //bodies in the last step
+	private StepEvent event; //flight recorder event of this step
+
+	/**
+	 * Starts timing a step.
+	 */
+	public void begin(){
+		for (int ii = 0; ii < step.length; ii++)
+			step[ii] = -1; //not in this step
+		stepCounters[PAIRS] = stepCounters[COLLISIONS] = 0;
+		event = new StepEvent();
+		event.begin();
+		started = last = System.nanoTime();
+	}
+
+	/**
+	 * Charges the time since the last lap (or begin) to a phase. A phase can be lapped more than once in
+	 * a step; its times are added up.
+	 *
+	 * @param phase
+	 * 	Phase (FORCE, BROAD_PHASE ...).
+	 */
+	public void lap(int phase){
+		long now = System.nanoTime();
+		step[phase] = Math.max(step[phase], 0) + (now - last);
+		last = now;
+	}
+
+	/**
+	 * Leaves the time since the last lap out of every phase (work that is not one of them).
+	 */
+	public void skip(){
+		last = System.nanoTime();
+	}
+
+	/**
+	 * Adds to a counter of this step.
+	 *
+	 * @param counter
+	 * 	PAIRS (pairs of bodies checked for collisions) or COLLISIONS (collisions found).
+	 * @param n
+	 * 	Amount to add.
+	 */
+	public void count(int counter, long n){
+		stepCounters[counter] += n;
+	}
+
+	/**
+	 * Finishes the step: adds each phase's time to its histogram, commits the flight recorder event and,
+	 * with print set, prints a report when one is due.
+	 *
+	 * @param n
+	 * 	Number of bodies.
+	 */
+	public void end(int n){
+		long now = System.nanoTime();
+		step[STEP] = now - started;
+		for (int ii = 0; ii < step.length; ii++) {
+			long t = step[ii];
+			if(t < 0)
+				continue;
+			histogram[ii][bucket(t)]++;
+			count[ii]++;
+			total[ii] += t;
+			max[ii] = Math.max(max[ii], t);
+		}
+		counters[PAIRS] += stepCounters[PAIRS];
+		counters[COLLISIONS] += stepCounters[COLLISIONS];
+		bodies = n;
+		steps++;
+
+		event.end();
+		if(event.shouldCommit()){
+			event.bodies = n;
+			event.force = Math.max(step[FORCE], 0);
+			event.broadPhase = Math.max(step[BROAD_PHASE], 0);
+			event.narrowPhase = Math.max(step[NARROW_PHASE], 0);
+			event.integration = Math.max(step[INTEGRATION], 0);
+			event.trails = Math.max(step[TRAILS], 0);
+			event.kepler = Math.max(step[KEPLER], 0);
+			event.snapshot = Math.max(step[SNAPSHOT], 0);
+			event.energy = Math.max(step[ENERGY], 0);
+			event.pairs = stepCounters[PAIRS];
+			event.collisions = stepCounters[COLLISIONS];
+			event.commit();
+		}
+		event = null;
+
+		if(print != printing){ //just turned on or off: start over
+			printing = print;
+			reset();
+		}
+		else if(printing && now - since >= REPORT_INTERVAL){
+			System.out.println(report());
+			reset();
+		}
+	}
+
+	/**
+	 * Bucket of a time: the time itself below 16 ns, then 8 buckets per power of two.
+	 */
+	private static int bucket(long t){
+		if(t < 16)
+			return (int) Math.max(t, 0);
+		int e = 63 - Long.numberOfLeadingZeros(t); //t is in [2^e, 2^(e+1))
+		int sub = (int) (t >>> (e - 3)) & 7; //next 3 bits
+		return Math.min(16 + (e - 4)*8 + sub, BUCKETS - 1);
+	}
+
+	/**
+	 * Middle of the times in a bucket.
+	 */
+	private static long value(int bucket){
+		if(bucket < 16)
+			return bucket;
+		int e = (bucket - 16)/8 + 4, sub = (bucket - 16) % 8;
+		long width = 1L << (e - 3);
+		return (8 + sub)*width + width/2;
+	}
+
+	/**
+	 * A percentile of the time of a phase since the last reset (within 12.5%).
+	 *
+	 * @param phase
+	 * 	Phase (FORCE, BROAD_PHASE ...).
+	 * @param p
+	 * 	Percentile (0 to 100).
+	 * @return
+	 * 	Time (ns), 0 if the phase has not been timed.
+	 */
+	public long percentile(int phase, double p){
+		long rank = (long) Math.ceil(p/100*count[phase]);
+		long seen = 0;
+		for (int ii = 0; ii < BUCKETS; ii++) {
+			seen += histogram[phase][ii];
+			if(seen >= rank && seen > 0)
+				return Math.min(value(ii), max[phase]);
+		}
+		return 0;
+	}
+
+	/**
+	 * Mean time of a phase in the steps it was in since the last reset.
+	 *
+	 * @param phase
+	 * 	Phase (FORCE, BROAD_PHASE ...).
+	 * @return
+	 * 	Time (ns).
+	 */
+	public double mean(int phase){
+		return count[phase] == 0 ? 0 : (double) total[phase]/count[phase];
+	}
+
+	/**
+	 * Table of every phase timed since the last reset: mean, median, 99th percentile and maximum time (in
+	 * microseconds) and its share of the step time, then the counters per step.
+	 *
+	 * @return
+	 * 	Report.
+	 */
+	public String report(){
+		StringBuilder str = new StringBuilder();
+		double seconds = (System.nanoTime() - since)/1E9;
+		str.append(String.format("Step metrics: %d steps in %.1f s (%.1f steps/s), %d bodies%n", steps, seconds,
+				seconds > 0 ? steps/seconds : 0, bodies));
+		str.append(String.format("%-18s %10s %10s %10s %10s %7s%n", "phase", "mean us", "p50 us", "p99 us", "max us", "share"));
+		for (int ii = 0; ii < PHASES.length; ii++) {
+			if(count[ii] == 0)
+				continue;
+			str.append(String.format("%-18s %10.1f %10.1f %10.1f %10.1f %6.1f%%%n", PHASES[ii], mean(ii)/1E3,
+					percentile(ii, 50)/1E3, percentile(ii, 99)/1E3, max[ii]/1E3,
+					total[STEP] == 0 ? 0 : 100.0*total[ii]/total[STEP]));
+		}
+		if(steps > 0)
+			str.append(String.format("pairs checked %.1f/step, collisions %.2f/step", (double) counters[PAIRS]/steps,
+					(double) counters[COLLISIONS]/steps));
+		return str.toString();
+	}
+
+	/**
+	 * Clears the histograms and counters.
+	 */
+	public void reset(){
+		for (int ii = 0; ii < PHASES.length; ii++) {
+			java.util.Arrays.fill(histogram[ii], 0);
+			count[ii] = total[ii] = max[ii] = 0;
+		}
+		counters[PAIRS] = counters[COLLISIONS] = 0;
+		steps = 0;
+		since = System.nanoTime();
+	}
+}
@@ -0,0 +1,139 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of DirectGravity using the JDK Vector API. The inner loop over the other bodies is done
+ * SPECIES.length() bodies at a time (4 doubles with AVX2, 8 with AVX-512): dx, dy, r^2, 1/r^3 and fused
+ * multiply-adds into per-lane sums, which are added together at the end. Leftover bodies are done one
+ * at a time.
+ *
+ * The vector API is an incubator module, so this class has to be compiled and run with
+ * 	--add-modules jdk.incubator.vector
+ * Without it GravitySolver.best() cannot load this class and falls back to DirectGravity.
+ *
+ * @author Andrew M.
+ */
+public class VectorGravity extends GravitySolver {
+	static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED; //widest vector the CPU supports
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#usable()
+	 *
+	 * Only worth using if the CPU has more than one double lane.
+	 */
+	@Override
+	boolean usable(){
+		return SPECIES.length() > 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#accelerations(BodyArrays, int, int, double)
+	 */
+	@Override
+	public void accelerations(BodyArrays b, int from, int to, double G) {
+		double[] x = b.x, y = b.y, m = b.m;
+		int n = b.n;
+		int bound = SPECIES.loopBound(n);
+		DoubleVector zero = DoubleVector.zero(SPECIES);
+		DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+		boolean soft = softening > 0;
+		boolean useSpline = soft && spline;
+		DoubleVector eps2 = DoubleVector.broadcast(SPECIES, spline ? 0 : softening*softening); //Plummer: added to r^2
+		double h = SPLINE_RADIUS*softening;
+		DoubleVector hInv = DoubleVector.broadcast(SPECIES, useSpline ? 1/h : 0);
+		DoubleVector h3 = DoubleVector.broadcast(SPECIES, useSpline ? 1/(h*h*h) : 0);
+		boolean pot = b.potential;
+
+		for (int ii = from; ii < to; ii++) {
+			double xi = x[ii], yi = y[ii];
+			DoubleVector vxi = DoubleVector.broadcast(SPECIES, xi);
+			DoubleVector vyi = DoubleVector.broadcast(SPECIES, yi);
+			DoubleVector sumX = zero;
+			DoubleVector sumY = zero;
+			DoubleVector sumP = zero;
+
+			int jj = 0;
+			for (; jj < bound; jj += SPECIES.length()) {
+				DoubleVector dx = DoubleVector.fromArray(SPECIES, x, jj).sub(vxi);
+				DoubleVector dy = DoubleVector.fromArray(SPECIES, y, jj).sub(vyi);
+				DoubleVector r2 = dx.fma(dx, dy.mul(dy)); //dx*dx + dy*dy
+				VectorMask<Double> other = r2.compare(VectorOperators.GT, 0.0); //drop itself
+				DoubleVector inv = one.div(r2.add(eps2).sqrt());
+				DoubleVector inv3 = inv.mul(inv).mul(inv);
+				if(useSpline)
+					inv3 = spline(inv3, r2.sqrt().mul(hInv), h3);
+				DoubleVector mj = DoubleVector.fromArray(SPECIES, m, jj);
+				DoubleVector s = mj.mul(inv3);
+				s = zero.blend(s, other);
+				sumX = s.fma(dx, sumX);
+				sumY = s.fma(dy, sumY);
+				if(pot){
+					DoubleVector phi = useSpline ? splinePotential(inv, r2.sqrt().mul(hInv), hInv) : inv;
+					sumP = zero.blend(mj.mul(phi), other).add(sumP);
+				}
+			}
+			double accX = sumX.reduceLanes(VectorOperators.ADD);
+			double accY = sumY.reduceLanes(VectorOperators.ADD);
+			double accP = pot ? sumP.reduceLanes(VectorOperators.ADD) : 0;
+
+			for (; jj < n; jj++) { //bodies left over after the last full vector
+				double dx = x[jj] - xi;
+				double dy = y[jj] - yi;
+				double r2 = dx*dx + dy*dy;
+				if(r2 == 0)
+					continue;
+				double inv = 1/Math.sqrt(r2);
+				double s = m[jj]*(soft ? soften(r2, softening, spline) : inv*inv*inv);
+				accX += s*dx;
+				accY += s*dy;
+				if(pot)
+					accP += m[jj]*(soft ? potential(r2, softening, spline) : inv);
+			}
+			b.ax[ii] = G*accX;
+			b.ay[ii] = G*accY;
+			if(pot)
+				b.pot[ii] = -G*accP;
+		}
+	}
+
+	/**
+	 * Cubic spline kernel on whole vectors (see GravitySolver.soften): lanes with u = r/h below 1 
+	 * get the spline polynomial, the rest keep the Newtonian 1/r^3. 
+	 */
+	private static DoubleVector spline(DoubleVector inv3, DoubleVector u, DoubleVector h3) {
+		DoubleVector u2 = u.mul(u);
+		DoubleVector u3 = u2.mul(u);
+		DoubleVector inner = u2.mul(u.mul(32.0).sub(38.4)).add(10.666666666667).mul(h3);
+		DoubleVector outer = u.mul(-48.0).add(u2.mul(38.4)).sub(u3.mul(10.666666666667))
+				.sub(DoubleVector.broadcast(u.species(), 0.066666666667).div(u3)).add(21.333333333333).mul(h3);
+		DoubleVector result = inv3.blend(outer, u.compare(VectorOperators.LT, 1.0));
+		return result.blend(inner, u.compare(VectorOperators.LT, 0.5));
+	}
+
+	/**
+	 * Spline potential on whole vectors (see GravitySolver.potential): the softened 1/r for lanes 
+	 * with u = r/h below 1, the Newtonian 1/r (inv) for the rest. 
+	 */
+	private static DoubleVector splinePotential(DoubleVector inv, DoubleVector u, DoubleVector hInv) {
+		DoubleVector u2 = u.mul(u);
+		DoubleVector inner = u2.mul(u2.mul(u.mul(6.4).sub(9.6)).add(5.333333333333)).neg().add(2.8).mul(hInv);
+		DoubleVector outer = u.mul(u.mul(u.mul(-2.133333333333).add(9.6)).sub(16.0)).add(10.666666666667).mul(u2)
+				.add(DoubleVector.broadcast(u.species(), 0.066666666667).div(u)).neg().add(3.2).mul(hInv);
+		DoubleVector result = inv.blend(outer, u.compare(VectorOperators.LT, 1.0));
+		return result.blend(inner, u.compare(VectorOperators.LT, 0.5));
+	}
+
+	/* (non-Javadoc)
+	 * @see GravitySolver#potentials()
+	 */
+	@Override
+	public boolean potentials(){
+		return true; 
+	}
+
+	public String toString(){
+		return "direct (simd " + SPECIES.length() + ")"; 
+	}
+}
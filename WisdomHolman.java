@@ -0,0 +1,267 @@
+/**
+ * Wisdom-Holman symplectic integrator for systems ruled by one big mass (a star and its planets). Most of
+ * each body's motion is its Kepler orbit around the star, which KeplerSolver follows exactly for any time
+ * step, so only the small pulls between the planets are left to the integrator. The time step can then
+ * be a sizable fraction (around 1/20) of the innermost orbit instead of the thousands of steps per orbit
+ * a plain integrator needs, and the energy error stays bounded over millions of orbits.
+ *
+ * This is the democratic heliocentric form (Duncan, Levison and Lee 1998), which works for any number
+ * of bodies without Jacobi coordinates. Positions are taken relative to the central body (Q) and
+ * velocities relative to the center of mass (P), and each step is
+ * 	kick (h/2) - jump (h/2) - Kepler drift (h) - jump (h/2) - kick (h/2)
+ * kick:	P_i += h/2 * (acceleration of i from every body except the central one)
+ * jump:	Q_i += h/2 * (sum of m_j*P_j)/m_central
+ * drift:	each (Q_i, P_i) moves along its Kepler orbit around G*m_central
+ * The central body's own position and velocity follow from the center of mass, which moves in a straight
+ * line. The kicks use a GravitySolver (with the central mass set to 0), so any solver can be used, and the
+ * kick at the end of a step is reused at the start of the next one when the bodies have not been changed
+ * in between.
+ *
+ * The central body is the most massive one. With fixedCentral it is held still instead (as the
+ * simulations do when proving Kepler's laws), the jumps are dropped and velocities are taken relative to it.
+ * After a step b.ax and b.ay hold the full accelerations (for plots and the data tables).
+ *
+ * see:
+ * 	http://en.wikipedia.org/wiki/Symplectic_integrator
+ * 	Wisdom and Holman, Symplectic maps for the n-body problem, AJ 102 (1991)
+ *
+ * @method step
+ * 	Moves the bodies in a BodyArrays one time step.
+ * @method central
+ * 	Index of the central body of the last step.
+ *
+ * @author Andrew M.
+ */
+public class WisdomHolman {
+	protected GravitySolver solver; //interaction kicks
+	protected boolean fixedCentral = false; //central body does not move
+	protected KeplerSolver kepler = new KeplerSolver();
+
+	private int central = -1; //most massive body
+	private double lastH = 0; //time step the chi were found with
+	private double[] chi = new double[0]; //universal anomaly of each body's last drift (warm start)
+	private double[] kx = new double[0], ky = new double[0]; //interaction accelerations of the last kick
+	private double[] qx = new double[0], qy = new double[0], qm = new double[0]; //where the last step left the bodies
+	private int cachedN = -1; //number of bodies in qx (-1 = nothing cached)
+
+	/**
+	 * Makes an integrator whose kicks come from a solver.
+	 *
+	 * @param solver
+	 * 	Solver for the accelerations between the bodies other than the central one.
+	 */
+	public WisdomHolman(GravitySolver solver){
+		this.solver = solver;
+	}
+
+	/**
+	 * Moves every body in the arrays one time step.
+	 *
+	 * @param b
+	 * 	Body arrays (positions and velocities are updated, and accelerations filled in).
+	 * @param h
+	 * 	Time step.
+	 * @param G
+	 * 	Gravitational constant.
+	 */
+	public void step(BodyArrays b, double h, double G){
+		int n = b.n;
+		if(n == 0)
+			return;
+		double[] x = b.x, y = b.y, vx = b.vx, vy = b.vy, m = b.m;
+
+		int c = 0;
+		double total = 0;
+		for (int ii = 0; ii < n; ii++) {
+			if(m[ii] > m[c])
+				c = ii;
+			total += m[ii];
+		}
+		double mc = m[c];
+		if(mc <= 0){ //nothing to orbit: straight lines
+			for (int ii = 0; ii < n; ii++) {
+				x[ii] += vx[ii]*h;
+				y[ii] += vy[ii]*h;
+				b.ax[ii] = 0;
+				b.ay[ii] = 0;
+			}
+			return;
+		}
+		if(c != central || n != chi.length){
+			central = c;
+			chi = new double[n];
+			java.util.Arrays.fill(chi, Double.NaN);
+		}
+		boolean warm = lastH != 0 && Math.signum(lastH) == Math.signum(h);
+		boolean reuse = cachedN == n; //the bodies are where the last step left them
+		for (int ii = 0; reuse && ii < n; ii++)
+			reuse = qx[ii] == x[ii] && qy[ii] == y[ii] && qm[ii] == m[ii];
+
+		//to democratic heliocentric coordinates
+		double xc = x[c], yc = y[c];
+		double cmx = 0, cmy = 0, cmvx = 0, cmvy = 0; //center of mass and its velocity
+		if(fixedCentral){
+			cmvx = vx[c];
+			cmvy = vy[c];
+		}
+		else {
+			for (int ii = 0; ii < n; ii++) {
+				cmx += m[ii]*x[ii];
+				cmy += m[ii]*y[ii];
+				cmvx += m[ii]*vx[ii];
+				cmvy += m[ii]*vy[ii];
+			}
+			cmx /= total;
+			cmy /= total;
+			cmvx /= total;
+			cmvy /= total;
+		}
+		for (int ii = 0; ii < n; ii++) {
+			x[ii] -= xc;
+			y[ii] -= yc;
+			vx[ii] -= cmvx;
+			vy[ii] -= cmvy;
+		}
+
+		kick(b, c, h/2, G, reuse);
+		jump(b, c, h/2);
+		double mu = G*mc;
+		for (int ii = 0; ii < n; ii++) {
+			if(ii == c)
+				continue;
+			kepler.x = x[ii];
+			kepler.y = y[ii];
+			kepler.z = 0;
+			kepler.vx = vx[ii];
+			kepler.vy = vy[ii];
+			kepler.vz = 0;
+			kepler.drift(mu, h, warm ? chi[ii]*h/lastH : Double.NaN);
+			x[ii] = kepler.x;
+			y[ii] = kepler.y;
+			vx[ii] = kepler.vx;
+			vy[ii] = kepler.vy;
+			chi[ii] = kepler.chi;
+		}
+		lastH = h;
+		jump(b, c, h/2);
+		kick(b, c, h/2, G, false);
+
+		//accelerations: the kicks plus the central body's pull (and the planets' pull on it)
+		double acx = 0, acy = 0;
+		for (int ii = 0; ii < n; ii++) {
+			if(ii == c)
+				continue;
+			double r2 = x[ii]*x[ii] + y[ii]*y[ii];
+			double inv3 = r2 == 0 ? 0 : 1/(r2*Math.sqrt(r2));
+			b.ax[ii] = kx[ii] - mu*x[ii]*inv3;
+			b.ay[ii] = ky[ii] - mu*y[ii]*inv3;
+			acx += G*m[ii]*x[ii]*inv3;
+			acy += G*m[ii]*y[ii]*inv3;
+		}
+		b.ax[c] = fixedCentral ? 0 : acx;
+		b.ay[c] = fixedCentral ? 0 : acy;
+
+		//back to ordinary coordinates
+		double px = 0, py = 0, sx = 0, sy = 0;
+		for (int ii = 0; ii < n; ii++) {
+			if(ii == c)
+				continue;
+			px += m[ii]*vx[ii];
+			py += m[ii]*vy[ii];
+			sx += m[ii]*x[ii];
+			sy += m[ii]*y[ii];
+		}
+		if(fixedCentral){ //keeps its velocity (cmvx, added back below) and stays at xc
+			vx[c] = 0;
+			vy[c] = 0;
+		}
+		else {
+			xc = cmx + cmvx*h - sx/total;
+			yc = cmy + cmvy*h - sy/total;
+			vx[c] = -px/mc;
+			vy[c] = -py/mc;
+		}
+		x[c] = 0;
+		y[c] = 0;
+		for (int ii = 0; ii < n; ii++) {
+			x[ii] += xc;
+			y[ii] += yc;
+			vx[ii] += cmvx;
+			vy[ii] += cmvy;
+		}
+		if(qx.length < n){
+			qx = new double[n];
+			qy = new double[n];
+			qm = new double[n];
+		}
+		System.arraycopy(x, 0, qx, 0, n);
+		System.arraycopy(y, 0, qy, 0, n);
+		System.arraycopy(m, 0, qm, 0, n);
+		cachedN = n;
+	}
+
+	/**
+	 * Adds h times the accelerations from all bodies but the central one to the velocities (worked out
+	 * again unless reuse is set, in which case the ones from the last kick are used).
+	 */
+	private void kick(BodyArrays b, int c, double h, double G, boolean reuse){
+		int n = b.n;
+		double[] x = b.x, y = b.y, m = b.m;
+		if(!reuse){
+			x[c] = 0; //central body sits at the origin
+			y[c] = 0;
+			double mc = m[c];
+			m[c] = 0;
+			solver.accelerations(b, G);
+			m[c] = mc;
+			if(kx.length < n){
+				kx = new double[n];
+				ky = new double[n];
+			}
+			System.arraycopy(b.ax, 0, kx, 0, n);
+			System.arraycopy(b.ay, 0, ky, 0, n);
+		}
+		for (int ii = 0; ii < n; ii++) {
+			if(ii == c)
+				continue;
+			b.vx[ii] += kx[ii]*h;
+			b.vy[ii] += ky[ii]*h;
+		}
+	}
+
+	/**
+	 * Moves every position by the central body's share of the total momentum.
+	 */
+	private void jump(BodyArrays b, int c, double h){
+		if(fixedCentral)
+			return;
+		double px = 0, py = 0;
+		for (int ii = 0; ii < b.n; ii++) {
+			if(ii == c)
+				continue;
+			px += b.m[ii]*b.vx[ii];
+			py += b.m[ii]*b.vy[ii];
+		}
+		double sx = h*px/b.m[c], sy = h*py/b.m[c];
+		for (int ii = 0; ii < b.n; ii++) {
+			if(ii == c)
+				continue;
+			b.x[ii] += sx;
+			b.y[ii] += sy;
+		}
+	}
+
+	/**
+	 * Index of the central body (the most massive one) in the last step.
+	 *
+	 * @return
+	 * 	Index in the arrays (-1 before the first step).
+	 */
+	public int central(){
+		return central;
+	}
+
+	public String toString(){
+		return "wisdom-holman (" + solver + ")";
+	}
+}
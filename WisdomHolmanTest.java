@@ -0,0 +1,47 @@
+/**
+ * Tests WisdomHolman with a fixed central body that is moving (as after one of Basic_Sim's elastic
+ * collisions): the Sun has to keep its velocity and place, and the Earth has to stay on its circular
+ * orbit around it with the Sun's velocity added to its own.
+ *
+ * @author Andrew M.
+ */
+public class WisdomHolmanTest {
+	final private static double SUN_MASS = 1.98892E30; //kg
+	final private static double EARTH_MASS = 5.9742E24; //kg
+	final private static double EARTH_ORBIT = 1.5E11; //m
+	final private static double G = 6.67384E-11;
+	final private static double SUN_VELOCITY = 5000; // m/s, given by a collision
+	final private static int STEPS = 1000;
+	final private static double TOLERANCE = 1E-6; //relative
+
+	public static void main(String[] args){
+		double v = Math.sqrt(G*SUN_MASS/EARTH_ORBIT); //circular orbit
+		double period = 2*Math.PI*EARTH_ORBIT/v;
+		BodyArrays b = new BodyArrays();
+		b.ensureCapacity(2);
+		b.n = 2;
+		b.m[0] = SUN_MASS;
+		b.vx[0] = SUN_VELOCITY;
+		b.m[1] = EARTH_MASS;
+		b.x[1] = EARTH_ORBIT;
+		b.vx[1] = SUN_VELOCITY;
+		b.vy[1] = v;
+
+		WisdomHolman wh = new WisdomHolman(new DirectGravity());
+		wh.fixedCentral = true;
+		boolean passed = true;
+		for (int ii = 0; ii < STEPS && passed; ii++) {
+			wh.step(b, period/100, G);
+			double r = Math.hypot(b.x[1] - b.x[0], b.y[1] - b.y[0]);
+			double u = Math.hypot(b.vx[1] - b.vx[0], b.vy[1] - b.vy[0]);
+			passed = b.x[0] == 0 && b.y[0] == 0
+				&& b.vx[0] == SUN_VELOCITY && b.vy[0] == 0
+				&& Math.abs(r/EARTH_ORBIT - 1) < TOLERANCE
+				&& Math.abs(u/v - 1) < TOLERANCE;
+			if(!passed)
+				System.out.println("Step " + ii + ": sun at (" + b.x[0] + ", " + b.y[0] + ") moving (" + b.vx[0] + ", " + b.vy[0]
+					+ "), earth " + r + " m away at " + u + " m/s");
+		}
+		System.out.println(passed ? "Passed" : "Failed");
+	}
+}
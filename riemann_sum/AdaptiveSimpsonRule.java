@@ -0,0 +1,246 @@
+package riemann_sum;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.opensourcephysics.display.DrawableShape;
+import org.opensourcephysics.frames.PlotFrame;
+
+import polyfun.Polynomial;
+
+/**
+ * Date: October, 2026
+ *
+ * The AdaptiveSimpsonRule class integrates with Simpson's Rule ((2M+T)/3, see
+ * SimpsonsRule) but picks its own subintervals. Each piece is compared with the
+ * two Simpson slices of its halves; if they differ by more than 15 times the
+ * tolerance for that piece, both halves are split again, otherwise the halves
+ * are kept (plus the (S2-S1)/15 Richardson correction). Smooth parts of the
+ * function end up with a few wide slices and sharp parts with many narrow ones.
+ *
+ * Function values at the ends and middle of a piece are passed down, so every
+ * split only costs two new evaluations. The number of evaluations used by the
+ * last integral is kept in getEvaluations().
+ *
+ * Besides polynomials, any function (DoubleUnaryOperator) can be integrated with
+ * integrate.
+ *
+ * see:
+ * 	http://en.wikipedia.org/wiki/Adaptive_Simpson's_method
+ *
+ * @author Andrew M.
+ * @method integrate
+ * 	Integrates a function to a tolerance
+ * @method slice
+ * 	Integrates a polynomial over a slice to the tolerance
+ * @method slicePlot
+ * 	Plots the slices the rule chose
+ */
+public class AdaptiveSimpsonRule extends Riemann {
+	static final int MAX_DEPTH = 50; //deepest split - stops runaway splitting at singularities
+	protected double tolerance = 1e-10; //allowed absolute error of an integral
+	protected long evaluations = 0; //function evaluations used by the last integral
+
+	public AdaptiveSimpsonRule() {
+	}
+
+	/**
+	 * Makes an adaptive rule with a given tolerance.
+	 *
+	 * @param tolerance
+	 * 	Allowed absolute error.
+	 */
+	public AdaptiveSimpsonRule(double tolerance) {
+		setTolerance(tolerance);
+	}
+
+	/**
+	 * Integrates a function from left to right, splitting until the error estimate
+	 * is under the tolerance.
+	 *
+	 * @param f
+	 * 	The function.
+	 * @param left
+	 * 	Left end.
+	 * @param right
+	 * 	Right end.
+	 * @return
+	 * 	The integral.
+	 */
+	public double integrate(DoubleUnaryOperator f, double left, double right) {
+		evaluations = 0;
+		return integrate(f, left, right, null);
+	}
+
+	/**
+	 * Makes a slice with the adaptive rule - the slice is split as much as it needs.
+	 *
+	 * @param poly
+	 * 	The polynomial used to calculate the slice
+	 * @param sleft
+	 * 	The left endpoint of the slice
+	 * @param sright
+	 * 	The right endpoint of the slice
+	 *
+	 * @see riemann_sum.Riemann#slice(polyfun.Polynomial, double, double)
+	 */
+	@Override
+	public double slice(Polynomial poly, double sleft, double sright) {
+		return integrate(x -> PolyPractice.eval(poly, x), sleft, sright);
+	}
+
+	/**
+	 * Same as slice(Polynomial, double, double) for a HornerPoly.
+	 *
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return integrate(poly::eval, sleft, sright);
+	}
+
+	/**
+	 * The rule picks its own subintervals, so the whole interval is handed over as one
+	 * slice (subintervals is ignored).
+	 *
+	 * @see riemann_sum.Riemann#rs(polyfun.Polynomial, double, double, int)
+	 */
+	@Override
+	public double rs(Polynomial polynomial, double left, double right, int subintervals) {
+		return slice(polynomial, left, right);
+	}
+
+	/**
+	 * The rule picks its own subintervals, so the whole interval is handed over as one
+	 * slice (subintervals is ignored).
+	 *
+	 * @see riemann_sum.Riemann#rs(riemann_sum.HornerPoly, double, double, int)
+	 */
+	@Override
+	public double rs(HornerPoly poly, double left, double right, int subintervals) {
+		return slice(poly, left, right);
+	}
+
+	/**
+	 * Same as rs: the adaptive rule is not split over threads (the slices would share 
+	 * evaluations, and each would get the whole tolerance). 
+	 *
+	 * @see riemann_sum.Riemann#rsParallel(polyfun.Polynomial, double, double, long)
+	 */
+	@Override
+	public double rsParallel(Polynomial poly, double left, double right, long subintervals) {
+		return slice(poly, left, right);
+	}
+
+	/**
+	 * Same as rs for a HornerPoly (not split over threads).
+	 *
+	 * @see riemann_sum.Riemann#rsParallel(riemann_sum.HornerPoly, double, double, long)
+	 */
+	@Override
+	public double rsParallel(HornerPoly poly, double left, double right, long subintervals) {
+		return slice(poly, left, right);
+	}
+
+	/**
+	 * Plots each of the pieces the rule split the slice into as a rectangle with
+	 * the same area.
+	 *
+	 * @param pframe
+	 * 	The plotframe used to graph the slices
+	 * @param poly
+	 * 	The polynomial used to graph the slices
+	 * @param sleft
+	 * 	Left endpoint of slice
+	 * @param sright
+	 * 	Right endpoint of slice
+	 *
+	 * @see riemann_sum.Riemann#slicePlot(org.opensourcephysics.frames.PlotFrame, polyfun.Polynomial, double, double)
+	 */
+	@Override
+	public void slicePlot(PlotFrame pframe, Polynomial poly, double sleft,
+			double sright) {
+		evaluations = 0;
+		integrate(x -> PolyPractice.eval(poly, x), sleft, sright, pframe);
+		pframe.setVisible(true);
+	}
+
+	private double integrate(DoubleUnaryOperator f, double a, double b, PlotFrame pframe) {
+		double m = (a+b)/2;
+		double fa = f.applyAsDouble(a);
+		double fm = f.applyAsDouble(m);
+		double fb = f.applyAsDouble(b);
+		evaluations += 3;
+		double whole = (b-a)*(fa + 4*fm + fb)/6; //(2M+T)/3
+		return split(f, a, b, fa, fm, fb, whole, tolerance, MAX_DEPTH, pframe);
+	}
+
+	private double split(DoubleUnaryOperator f, double a, double b, double fa, double fm, double fb,
+			double whole, double tol, int depth, PlotFrame pframe) {
+		double m = (a+b)/2;
+		double lm = (a+m)/2, rm = (m+b)/2;
+		double flm = f.applyAsDouble(lm);
+		double frm = f.applyAsDouble(rm);
+		evaluations += 2;
+		double left = (m-a)*(fa + 4*flm + fm)/6;
+		double right = (b-m)*(fm + 4*frm + fb)/6;
+		double diff = left + right - whole;
+		if(depth <= 0 || Math.abs(diff) <= 15*tol || m <= a || m >= b) { //good enough (or can't split any more)
+			if(pframe != null) {
+				plotPiece(pframe, a, m, left);
+				plotPiece(pframe, m, b, right);
+			}
+			return left + right + diff/15;
+		}
+		return split(f, a, m, fa, flm, fm, left, tol/2, depth-1, pframe)
+				+ split(f, m, b, fm, frm, fb, right, tol/2, depth-1, pframe);
+	}
+
+	private void plotPiece(PlotFrame pframe, double a, double b, double area) {
+		double centerY = area/(b-a)/2; //average height, halved for the center of the rectangle
+		DrawableShape sliceRec = DrawableShape.createRectangle((a+b)/2, centerY, Math.abs(b-a), Math.abs(centerY*2));
+		pframe.addDrawable(sliceRec);
+	}
+
+	/**
+	 * The evaluation count is a field that every slice adds to, so the slices of one 
+	 * rule cannot run on several threads. 
+	 *
+	 * @see riemann_sum.Riemann#stateless()
+	 */
+	@Override
+	protected boolean stateless() {
+		return false;
+	}
+
+	/**
+	 * Gets the number of function evaluations used by the last integral.
+	 *
+	 * @return
+	 * 	Number of evaluations.
+	 */
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	/**
+	 * Gets the tolerance.
+	 *
+	 * @return
+	 * 	Allowed absolute error.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Sets the tolerance.
+	 *
+	 * @param tolerance
+	 * 	Allowed absolute error (must be positive).
+	 */
+	public void setTolerance(double tolerance) {
+		if(!(tolerance > 0))
+			throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+		this.tolerance = tolerance;
+	}
+}
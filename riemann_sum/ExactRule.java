@@ -0,0 +1,116 @@
+package riemann_sum;
+
+import polyfun.Polynomial;
+
+/**
+ * Date: October, 2026
+ *
+ * The ExactRule class finds the exact integral of a polynomial instead of an
+ * approximation. Because the integrand is always a polynomial, there is no need
+ * to split the interval up: rs does a single slice no matter how many
+ * subintervals are asked for.
+ *
+ * The method is picked from the kind of polynomial:
+ * 	HornerPoly - the antiderivative is evaluated directly from the coefficients
+ * 		(re-centered on each slice, no allocation).
+ * 	polyfun.Polynomial - its coefficients are not exposed, so a 10-point
+ * 		Gauss-Legendre rule is used, which is exact up to degree 19.
+ *
+ * Particle uses this rule for its velocity and position updates.
+ *
+ * @author Andrew M.
+ * @method slice
+ * 	Calculates the exact area of a slice
+ * @method rs
+ * 	Calculates the exact area with one slice
+ */
+public class ExactRule extends GaussLegendreRule {
+	static final int POINTS = 10; //Gauss-Legendre points for polyfun polynomials (exact to degree 2*POINTS-1)
+	private double[] shifted = new double[4]; //polynomial re-centered on a slice, reused between slices
+
+	public ExactRule() {
+		super(POINTS);
+	}
+
+	/**
+	 * Calculates the area of a slice from the antiderivative of the polynomial. 
+	 * The polynomial is first re-centered on the middle of the slice (so that 
+	 * F(b) - F(a) does not lose digits when a and b are large, like the time in 
+	 * a long simulation); then only the even powers are left: 
+	 * 	area = 2*(t0*h + t2*h^3/3 + t4*h^5/5 + ...), h = half the width. 
+	 *
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 *
+	 * @param poly
+	 * 	The polynomial used to evaluate the slice
+	 * @param sleft
+	 * 	The left endpoint of the slice
+	 * @param sright
+	 * 	The right endpoint of the slice
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		int degree = poly.degree();
+		double h = (sright-sleft)/2;
+		double m = (sright+sleft)/2;
+		if(degree <= 1) //linear: width times the value at the middle
+			return 2*h*poly.eval(m);
+		if(shifted.length <= degree)
+			shifted = new double[degree+1];
+		double[] t = shifted;
+		for (int ii = 0; ii <= degree; ii++)
+			t[ii] = poly.coef(ii);
+		for (int k = 0; k < degree; k++) //repeated synthetic division by (x - m): t[k] becomes the kth Taylor coefficient at m
+			for (int ii = degree-1; ii >= k; ii--)
+				t[ii] += m*t[ii+1];
+		double area = 0;
+		double h2 = h*h;
+		double hPow = h;
+		for (int k = 0; k <= degree; k += 2) {
+			area += t[k]*hPow/(k+1);
+			hPow *= h2;
+		}
+		return 2*area;
+	}
+
+	/**
+	 * The integral is exact, so the whole interval is done as one slice.
+	 *
+	 * @see riemann_sum.Riemann#rs(polyfun.Polynomial, double, double, int)
+	 */
+	@Override
+	public double rs(Polynomial polynomial, double left, double right, int subintervals) {
+		return slice(polynomial, left, right);
+	}
+
+	/**
+	 * The integral is exact, so the whole interval is done as one slice.
+	 *
+	 * @see riemann_sum.Riemann#rs(riemann_sum.HornerPoly, double, double, int)
+	 */
+	@Override
+	public double rs(HornerPoly poly, double left, double right, int subintervals) {
+		return slice(poly, left, right);
+	}
+
+	/**
+	 * The integral is exact, so there is nothing to spread over threads.
+	 *
+	 * @see riemann_sum.Riemann#rsParallel(riemann_sum.HornerPoly, double, double, long)
+	 */
+	@Override
+	public double rsParallel(HornerPoly poly, double left, double right, long subintervals) {
+		return slice(poly, left, right);
+	}
+
+	/**
+	 * slice(HornerPoly, ...) re-centers the polynomial in a shared scratch array, so the
+	 * slices of one rule cannot run on several threads.
+	 *
+	 * @see riemann_sum.Riemann#stateless()
+	 */
+	@Override
+	protected boolean stateless() {
+		return false;
+	}
+}
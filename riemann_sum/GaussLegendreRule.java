@@ -0,0 +1,148 @@
+package riemann_sum;
+
+import org.opensourcephysics.display.DrawableShape;
+import org.opensourcephysics.frames.PlotFrame;
+
+import polyfun.Polynomial;
+
+/**
+ * Date: October, 2026
+ *
+ * The GaussLegendreRule class evaluates each slice with n-point Gauss-Legendre
+ * quadrature. Instead of evenly spaced points it evaluates the polynomial at the
+ * roots of the nth Legendre polynomial (scaled onto the slice) and adds them up
+ * with matching weights. An n-point rule is exact for every polynomial of degree
+ * 2n-1 or less, so a single slice is enough for the polynomials used here.
+ *
+ * The nodes and weights are found once in the constructor with Newton's method.
+ *
+ * see:
+ * 	http://en.wikipedia.org/wiki/Gaussian_quadrature
+ * 	http://mathworld.wolfram.com/Legendre-GaussQuadrature.html
+ *
+ * @author Andrew M.
+ * @method slice
+ * 	Calculates the area of a slice with Gauss-Legendre quadrature
+ * @method slicePlot
+ * 	Plots a rectangle with the same area as the slice
+ */
+public class GaussLegendreRule extends Riemann {
+	protected double[] nodes; //roots of the Legendre polynomial on [-1, 1]
+	protected double[] weights; //weight of each root
+
+	/**
+	 * Makes a Gauss-Legendre rule with a given number of points.
+	 *
+	 * @param points
+	 * 	Number of points per slice (exact for degree 2*points-1).
+	 */
+	public GaussLegendreRule(int points) {
+		if(points < 1)
+			throw new IllegalArgumentException("Gauss-Legendre needs at least 1 point: " + points);
+		nodes = new double[points];
+		weights = new double[points];
+		for (int ii = 0; ii < (points+1)/2; ii++) { //roots are symmetric, so find half of them
+			double x = Math.cos(Math.PI*(ii+0.75)/(points+0.5)); //starting guess for the root
+			double dp = 0;
+			for (int iter = 0; iter < 100; iter++) {
+				//P_n(x) and P_n'(x) from the three-term recurrence
+				double p0 = 1, p1 = 0;
+				for (int k = 1; k <= points; k++) {
+					double p2 = p1;
+					p1 = p0;
+					p0 = ((2*k-1)*x*p1 - (k-1)*p2)/k;
+				}
+				dp = points*(x*p0 - p1)/(x*x - 1);
+				double dx = p0/dp;
+				x -= dx;
+				if(Math.abs(dx) < 1e-15)
+					break;
+			}
+			nodes[ii] = -x;
+			nodes[points-1-ii] = x;
+			weights[ii] = weights[points-1-ii] = 2/((1 - x*x)*dp*dp);
+		}
+	}
+
+	/**
+	 * Makes a 2-point rule (exact for cubics).
+	 */
+	public GaussLegendreRule() {
+		this(2);
+	}
+
+	/**
+	 * Calculates the area of a slice using Gauss-Legendre quadrature
+	 *
+	 * @see riemann_sum.Riemann#slice(polyfun.Polynomial, double, double)
+	 *
+	 * @param poly
+	 * 	The polynomial used to evaluate the slice
+	 * @param sleft
+	 * 	The left endpoint of the slice
+	 * @param sright
+	 * 	The right endpoint of the slice
+	 */
+	@Override
+	public double slice(Polynomial poly, double sleft, double sright) {
+		double half = (sright-sleft)/2; //maps [-1, 1] onto [sleft, sright]
+		double mid = (sright+sleft)/2;
+		double sum = 0;
+		for (int ii = 0; ii < nodes.length; ii++)
+			sum += weights[ii]*PolyPractice.eval(poly, mid + half*nodes[ii]);
+		return half*sum;
+	}
+
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated.
+	 *
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		double half = (sright-sleft)/2;
+		double mid = (sright+sleft)/2;
+		double sum = 0;
+		for (int ii = 0; ii < nodes.length; ii++)
+			sum += weights[ii]*poly.eval(mid + half*nodes[ii]);
+		return half*sum;
+	}
+
+	/**
+	 * Graphs a slice as a rectangle whose height is the average value of
+	 * the polynomial on the slice (so its area is the slice's area).
+	 *
+	 * @see riemann_sum.Riemann#slicePlot(org.opensourcephysics.frames.PlotFrame, polyfun.Polynomial, double, double)
+	 *
+	 * @param pframe
+	 * 	The plotframe used to graph the slices
+	 * @param poly
+	 * 	The polynomial used to graph the slices
+	 * @param sleft
+	 * 	Left endpoint of slice
+	 * @param sright
+	 * 	Right endpoint of slice
+	 */
+	@Override
+	public void slicePlot(PlotFrame pframe, Polynomial poly, double sleft,
+			double sright) {
+		double centerX = (sright+sleft)/2;
+		double centerY = slice(poly, sleft, sright)/(sright-sleft)/2; //average height; halved for the center of the rectangle
+		double width = Math.abs(sright-sleft);
+		double height = Math.abs(centerY*2);
+
+		DrawableShape sliceRec = DrawableShape.createRectangle(centerX,centerY,width,height);
+		pframe.addDrawable(sliceRec);
+		pframe.setVisible(true);
+	}
+
+	/**
+	 * Gets the number of points per slice.
+	 *
+	 * @return
+	 * 	Number of points.
+	 */
+	public int getPoints() {
+		return nodes.length;
+	}
+}
@@ -0,0 +1,136 @@
+package riemann_sum;
+
+/**
+ * A polynomial stored as a plain array of coefficients (constant term first) and evaluated with
+ * Horner's rule. Unlike polyfun.Polynomial, evaluating it does not create any objects, and its
+ * coefficients can be overwritten in place - so a particle can keep one HornerPoly per quantity
+ * and reuse it every time step instead of building a new Polynomial.
+ *
+ * Every Riemann rule has a slice(HornerPoly, ...) that works the same way as its Polynomial version.
+ *
+ * @author Andrew M.
+ * @method eval
+ * 	Evaluates the polynomial with Horner's rule
+ * @method set
+ * 	Overwrites the coefficients
+ */
+public class HornerPoly {
+	private double[] coef; //coefficients, coef[ii] goes with x^ii
+	private int degree; //highest power in use
+
+	/**
+	 * Creates a zero polynomial with room for a given degree.
+	 *
+	 * @param degree
+	 * 	Highest power the polynomial will hold.
+	 */
+	public HornerPoly(int degree){
+		coef = new double[degree+1];
+		this.degree = degree;
+	}
+
+	/**
+	 * Creates a polynomial from its coefficients.
+	 *
+	 * @param coef
+	 * 	Coefficients, constant term first (same order as polyfun.Polynomial); none is the zero polynomial.
+	 */
+	public HornerPoly(double[] coef){
+		this.coef = coef.length == 0 ? new double[1] : coef.clone();
+		this.degree = this.coef.length - 1;
+	}
+
+	/**
+	 * Makes this polynomial the constant c0.
+	 *
+	 * @param c0
+	 * 	Constant term.
+	 * @return
+	 * 	This polynomial.
+	 */
+	public HornerPoly set(double c0){
+		coef[0] = c0;
+		degree = 0;
+		return this;
+	}
+
+	/**
+	 * Makes this polynomial c0 + c1*x.
+	 *
+	 * @param c0
+	 * 	Constant term.
+	 * @param c1
+	 * 	Coefficient of x.
+	 * @return
+	 * 	This polynomial.
+	 */
+	public HornerPoly set(double c0, double c1){
+		ensureDegree(1);
+		coef[0] = c0;
+		coef[1] = c1;
+		degree = 1;
+		return this;
+	}
+
+	/**
+	 * Copies a set of coefficients into this polynomial.
+	 *
+	 * @param c
+	 * 	Coefficients, constant term first (none is the zero polynomial).
+	 * @return
+	 * 	This polynomial.
+	 */
+	public HornerPoly set(double[] c){
+		if(c.length == 0)
+			return set(0);
+		ensureDegree(c.length - 1);
+		System.arraycopy(c, 0, coef, 0, c.length);
+		degree = c.length - 1;
+		return this;
+	}
+
+	/**
+	 * Evaluates the polynomial at x using Horner's rule: c0 + x*(c1 + x*(c2 + ...)).
+	 *
+	 * @param x
+	 * 	The x-coordinate.
+	 * @return
+	 * 	p(x).
+	 */
+	public double eval(double x){
+		double y = coef[degree];
+		for (int ii = degree-1; ii >= 0; ii--)
+			y = y*x + coef[ii];
+		return y;
+	}
+
+	/**
+	 * Gets the degree.
+	 *
+	 * @return
+	 * 	Highest power in use.
+	 */
+	public int degree(){
+		return degree;
+	}
+
+	/**
+	 * Gets one coefficient.
+	 *
+	 * @param power
+	 * 	The power of x.
+	 * @return
+	 * 	Its coefficient (0 above the degree).
+	 */
+	public double coef(int power){
+		return power <= degree ? coef[power] : 0;
+	}
+
+	private void ensureDegree(int d){
+		if(coef.length <= d){
+			double[] c = new double[d+1];
+			System.arraycopy(coef, 0, c, 0, coef.length);
+			coef = c;
+		}
+	}
+}
@@ -42,6 +42,16 @@ public class LeftHandRule extends Riemann {
 		return (sright-sleft)*PolyPractice.eval(poly, sleft); //(b-a)*polynomial evaluated at left endpoint of subinterval
 	}
 
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return (sright-sleft)*poly.eval(sleft); 
+	}
+
 	/**
 	 * Graphs a slice using the LHR
 	 *  
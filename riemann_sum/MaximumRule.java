@@ -36,6 +36,16 @@ public class MaximumRule extends Riemann {
 		//see MinimumRule.java 
 		return (sright-sleft)*localMax(poly, sleft, sright); 
 	}
+
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return (sright-sleft)*localMax(poly, sleft, sright); 
+	}
 	
 	/**
 	 * Plots a slice using the maximum rule; uses localMax below
@@ -88,4 +98,26 @@ public class MaximumRule extends Riemann {
 		}
 		return maxVal;
 	}
+
+	/**
+	 * Same as localMax(Polynomial, double, double) for a HornerPoly. 
+	 * 
+	 * @param poly
+	 * 	The poly to evaluate the max. 
+	 * @param left
+	 * 	The left of the subinterval. 
+	 * @param right
+	 * 	The right of the subinterval. 
+	 * @return
+	 * 	The maximum value f(x). 
+	 */
+	public double localMax(HornerPoly poly, double left, double right){
+		double maxVal = poly.eval(left); 
+		for (double ii = left; ii <= right; ii += precision) {
+			double currentVal = poly.eval(ii); 
+			if (currentVal > maxVal)
+				maxVal = currentVal; 
+		}
+		return maxVal;
+	}
 }
@@ -41,6 +41,16 @@ public class MidpointRule extends Riemann { //takes a slice with the height eval
 		return (sright-sleft)*PolyPractice.eval(poly, (sright+sleft)/2); //area of rectangle with height as function's value at midpoint
 	}
 
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return (sright-sleft)*poly.eval((sright+sleft)/2); 
+	}
+
 	/**
 	 * Graphs a slice using the midpoint rule
 	 *  
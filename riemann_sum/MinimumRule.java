@@ -37,6 +37,16 @@ public class MinimumRule extends Riemann {
 		return (sright-sleft)*localMin(poly, sleft, sright); //evaluates area of rectangle at minimum value
 	}
 
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return (sright-sleft)*localMin(poly, sleft, sright); 
+	}
+
 	/**
 	 * Plots a slice using the minimum rule; uses localMin below
 	 * 
@@ -88,4 +98,26 @@ public class MinimumRule extends Riemann {
 		}
 		return minVal;
 	}
+
+	/**
+	 * Same as localMin(Polynomial, double, double) for a HornerPoly. 
+	 * 
+	 * @param poly
+	 * 	The poly to evaluate the min. 
+	 * @param left
+	 * 	The left of the subinterval. 
+	 * @param right
+	 * 	The right of the subinterval. 
+	 * @return
+	 * 	The minimum value f(x). 
+	 */
+	public double localMin(HornerPoly poly, double left, double right){
+		double minVal = poly.eval(left); 
+		for (double ii = left; ii <= right; ii += precision) {
+			double currentVal = poly.eval(ii); 
+			if (currentVal < minVal)
+				minVal = currentVal; 
+		}
+		return minVal;
+	}
 }
@@ -45,6 +45,16 @@ public class RandomRule extends Riemann {
 	public double slice(Polynomial poly, double sleft, double sright) {
 		return (sright-sleft)*PolyPractice.eval(poly, sleft + (sright-sleft)*randNum); //evaluate at left + difference between right and left * random number
 	}
+
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return (sright-sleft)*poly.eval(sleft + (sright-sleft)*randNum); 
+	}
 	
 	/**
 	 * Plots a slice on a pframe using the random rule
@@ -15,6 +15,10 @@ import org.opensourcephysics.display.Trail;
  */
 
 public abstract class Riemann {
+	static final int ACC_SUBINTERVALS = 4; //subintervals for each slice of an accumulation function 
+	static final int PARALLEL_POINTS = 20000; //accumulation functions with this many points are done in parallel 
+	static final int ACC_CHUNK = 2048; //fewest points per parallel chunk 
+
 	public double rs(polyfun.Polynomial polynomial, double left, double right, int subintervals) {
 		//Calculates a Riemann sum from a left endpoint, a right endpoint, 
 		//a polynomial, and the number of subintervals. 
@@ -28,15 +32,131 @@ public abstract class Riemann {
 		return area; 
 	}
 
+	public double rs(HornerPoly poly, double left, double right, int subintervals) {
+		//same as above for a HornerPoly - no objects are made while summing 
+		double area = 0; 
+		double delta = (right-left)/subintervals; 
+		for (int ii = 0; ii < subintervals; ii++) {
+			area += this.slice(poly, left, left+delta); 
+			left += delta; 
+		}
+		return area; 
+	}
+
+	/**
+	 * Riemann sum for very large numbers of subintervals, spread over the cores with 
+	 * the common ForkJoinPool. Every slice boundary is found as left + ii*delta (not by 
+	 * adding delta over and over, which drifts), and the slices are added with 
+	 * Neumaier's compensated summation, so the rounding error stays around one ulp of 
+	 * the answer instead of growing with the number of subintervals. 
+	 * 
+	 * The rule's slice must be safe to call from several threads at once (all of the 
+	 * simple rules are). 
+	 * 
+	 * @param poly
+	 * 	The polynomial. 
+	 * @param left
+	 * 	Left endpoint. 
+	 * @param right
+	 * 	Right endpoint. 
+	 * @param subintervals
+	 * 	Number of subintervals (may be more than an int). 
+	 * @return
+	 * 	The Riemann sum. 
+	 */
+	public double rsParallel(polyfun.Polynomial poly, double left, double right, long subintervals) {
+		return sumSlices((a, b) -> slice(poly, a, b), left, right, subintervals); 
+	}
+
+	/**
+	 * Same as rsParallel(Polynomial, double, double, long) for a HornerPoly. 
+	 */
+	public double rsParallel(HornerPoly poly, double left, double right, long subintervals) {
+		return sumSlices((a, b) -> slice(poly, a, b), left, right, subintervals); 
+	}
+
+	/**
+	 * Whether one instance of this rule can work out slices on several threads at once, 
+	 * i.e. slice keeps nothing in fields between calls. accumulate only goes parallel 
+	 * for rules that can; rules with counters or scratch arrays override this. 
+	 * 
+	 * @return
+	 * 	True if slice only reads the rule and the polynomial. 
+	 */
+	protected boolean stateless() {
+		return true; 
+	}
+
+	static double sumSlices(java.util.function.DoubleBinaryOperator slicer, double left, double right, long subintervals) {
+		double delta = (right-left)/subintervals; 
+		double[] total = java.util.concurrent.ForkJoinPool.commonPool().invoke(
+				new SliceSum(slicer, left, delta, 0, subintervals)); 
+		return total[0] + total[1]; 
+	}
+
+	/**
+	 * Adds up slices [from, to) - splits itself in half until there are at most 
+	 * SliceSum.LEAF slices, then sums them with Neumaier's compensated summation. 
+	 * The result is {sum, compensation}. 
+	 */
+	static class SliceSum extends java.util.concurrent.RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+		static final long LEAF = 1 << 15; //slices summed by one task 
+		final java.util.function.DoubleBinaryOperator slicer; 
+		final double left, delta; 
+		final long from, to; 
+
+		SliceSum(java.util.function.DoubleBinaryOperator slicer, double left, double delta, long from, long to) {
+			this.slicer = slicer; 
+			this.left = left; 
+			this.delta = delta; 
+			this.from = from; 
+			this.to = to; 
+		}
+
+		@Override
+		protected double[] compute() {
+			if(to - from > LEAF) {
+				long mid = (from + to) >>> 1; 
+				SliceSum lower = new SliceSum(slicer, left, delta, from, mid); 
+				lower.fork(); 
+				double[] upper = new SliceSum(slicer, left, delta, mid, to).compute(); 
+				double[] low = lower.join(); 
+				double[] sum = {low[0], low[1] + upper[1]}; 
+				add(sum, upper[0]); 
+				return sum; 
+			}
+			double[] sum = {0, 0}; 
+			double a = left + from*delta; 
+			for (long ii = from; ii < to; ii++) {
+				double b = left + (ii+1)*delta; //computed, not accumulated 
+				add(sum, slicer.applyAsDouble(a, b)); 
+				a = b; 
+			}
+			return sum; 
+		}
+
+		static void add(double[] sum, double value) { //Neumaier: sum[1] keeps the low-order bits lost from sum[0] 
+			double t = sum[0] + value; 
+			if(Math.abs(sum[0]) >= Math.abs(value)) 
+				sum[1] += (sum[0] - t) + value; 
+			else 
+				sum[1] += (value - t) + sum[0]; 
+			sum[0] = t; 
+		}
+	}
+
 	public void rsAcc(org.opensourcephysics.frames.PlotFrame pframe, polyfun.Polynomial poly, int index, double precision, double base) {
-		//this adds accumulated area to the accumulation function - using separate riemann sums 
-		//instead of adding slices allows using negative area far more easily
+		//this adds accumulated area to the accumulation function - each slice between 
+		//two plotted points is integrated once and added to a running total (see accumulate) 
 		double x = 10;  //this allows a better view of the accumulation function 
+		int points = (int) Math.floor(2*x/precision + 1e-9) + 1; 
+		double[] acc = accumulate(poly, base, base-x, precision, points, points >= PARALLEL_POINTS); 
 		Trail accTrail = new Trail(); 
-		for (double ii = base-x; ii <= base+x; ii += precision) {
-			double curRs = this.rs(poly, base, ii, 200); //current riemann sum - uses 250 
-			pframe.append(index, ii, curRs); //adds a point
-			accTrail.addPoint(ii, curRs); //adds to the trail showing the accumulation function 
+		for (int ii = 0; ii < points; ii++) {
+			double xCoord = base - x + ii*precision; 
+			pframe.append(index, xCoord, acc[ii]); //adds a point
+			accTrail.addPoint(xCoord, acc[ii]); //adds to the trail showing the accumulation function 
 		} 
 		accTrail.setStroke(new BasicStroke(2)); 
 		pframe.addDrawable(accTrail);
@@ -49,6 +169,59 @@ public abstract class Riemann {
 		pframe.setVisible(true); //sets the graphs visible 
 	}
 
+	/**
+	 * Finds the accumulation function A(t) = integral from base to t of poly at evenly spaced 
+	 * points t = start + ii*step. Rather than doing a new Riemann sum from base for every point, 
+	 * the area between each pair of neighbouring points is found once (with ACC_SUBINTERVALS 
+	 * subintervals of this rule) and the areas are added up as a running (prefix) sum. 
+	 * 
+	 * In parallel mode the slices are split into chunks that are integrated on the common 
+	 * ForkJoinPool, and the running sum is done with Arrays.parallelPrefix. The chunks share 
+	 * this rule and the polynomial (which evaluate only reads), so rules that are not 
+	 * stateless() always take the sequential path. 
+	 * 
+	 * @param poly
+	 * 	The polynomial to accumulate. 
+	 * @param base
+	 * 	Where the accumulation function is zero. 
+	 * @param start
+	 * 	The first point. 
+	 * @param step
+	 * 	Distance between points. 
+	 * @param points
+	 * 	Number of points. 
+	 * @param parallel
+	 * 	Whether to integrate the slices on several threads (if the rule is stateless). 
+	 * @return
+	 * 	A(t) at each point. 
+	 */
+	public double[] accumulate(final polyfun.Polynomial poly, double base, final double start, final double step, int points, boolean parallel) {
+		final double[] acc = new double[points]; 
+		//acc[ii] = area from point ii-1 to point ii (acc[0] = 0) 
+		if(parallel && stateless()) {
+			int chunks = Math.max(1, Math.min(points/ACC_CHUNK, 4*Runtime.getRuntime().availableProcessors())); 
+			final int per = (points + chunks - 1)/chunks; 
+			java.util.stream.IntStream.range(0, chunks).parallel().forEach(chunk -> {
+				int end = Math.min(points, (chunk+1)*per); 
+				for (int ii = Math.max(1, chunk*per); ii < end; ii++) 
+					acc[ii] = rs(poly, start + (ii-1)*step, start + ii*step, ACC_SUBINTERVALS); 
+			}); 
+			java.util.Arrays.parallelPrefix(acc, Double::sum); //running total: acc[ii] = area from start to point ii 
+		}
+		else {
+			for (int ii = 1; ii < points; ii++) 
+				acc[ii] = acc[ii-1] + rs(poly, start + (ii-1)*step, start + ii*step, ACC_SUBINTERVALS); 
+		}
+
+		//shift so that the function is zero at base instead of at start 
+		int below = (int) Math.floor((base-start)/step); //last point at or before base 
+		below = Math.max(0, Math.min(points-1, below)); 
+		double offset = acc[below] + rs(poly, start + below*step, base, ACC_SUBINTERVALS); 
+		for (int ii = 0; ii < points; ii++) 
+			acc[ii] -= offset; 
+		return acc; 
+	}
+
 	public void rsPlot(org.opensourcephysics.frames.PlotFrame pframe, polyfun.Polynomial poly, int index, double precision, double left, double right, int subintervals) {
 		//Plot a particular Riemann sum from a data set index, a precision (used to graph polynomial), 
 		//a left endpoint, a right endpoint, and a number of subintervals. 
@@ -78,5 +251,7 @@ public abstract class Riemann {
 
 	abstract double slice(polyfun.Polynomial poly, double sleft, double sright); //abstract slice - implemented by each rule - calculates area of a slice of a Riemann sum 
 
+	abstract double slice(HornerPoly poly, double sleft, double sright); //same as above for a primitive-coefficient polynomial (see HornerPoly) 
+
 	abstract void slicePlot(org.opensourcephysics.frames.PlotFrame pframe, polyfun.Polynomial poly, double sleft, double sright); //plots a slice - abstract method implemented in each rule  
 }
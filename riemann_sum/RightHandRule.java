@@ -42,6 +42,16 @@ public class RightHandRule extends Riemann {
 		return (sright-sleft)*poly.evaluate(sright).getTerms()[0].getTermDouble(); //area of rect using RHR
 	}
 
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return (sright-sleft)*poly.eval(sright); 
+	}
+
 	/**
 	 * Graphs a slice using the RHR
 	 *  
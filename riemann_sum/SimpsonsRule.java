@@ -45,6 +45,9 @@ import polyfun.Polynomial;
  */
 
 public class SimpsonsRule extends Riemann {
+	MidpointRule mr = new MidpointRule(); //kept rather than made on every slice
+	TrapezoidRule tr = new TrapezoidRule(); 
+
 	/** 
 	 * This method is essentially the same as the other slice methods - it 
 	 * calculates the area of one section of a Riemann sum bounded by sleft 
@@ -64,8 +67,16 @@ public class SimpsonsRule extends Riemann {
 	public double slice(Polynomial poly, double sleft, double sright) { 
 		//does Simpson slice as approximation using midpoint and trapezoid rules
 		//Simpsons rule ends up simplifying mathematically to (2*midpoint rule + trapezoid rule)/3
-		MidpointRule mr = new MidpointRule(); 
-		TrapezoidRule tr = new TrapezoidRule(); 
+		return 2*(mr.slice(poly, sleft, sright)/3) + (tr.slice(poly, sleft, sright)/3); 
+	}
+
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
 		return 2*(mr.slice(poly, sleft, sright)/3) + (tr.slice(poly, sleft, sright)/3); 
 	}
 
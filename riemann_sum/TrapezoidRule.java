@@ -49,6 +49,16 @@ public class TrapezoidRule extends Riemann {
 		return ((PolyPractice.eval(poly, sleft) + 
 				PolyPractice.eval(poly, sright))/2)*(sright-sleft); //runs trapezoid area formula - height*avg of bases
 	}
+
+	/**
+	 * Same as slice(Polynomial, double, double) but for a HornerPoly, so nothing is allocated. 
+	 * 
+	 * @see riemann_sum.Riemann#slice(riemann_sum.HornerPoly, double, double)
+	 */
+	@Override
+	public double slice(HornerPoly poly, double sleft, double sright) {
+		return ((poly.eval(sleft) + poly.eval(sright))/2)*(sright-sleft); 
+	}
 	
 	/**
 	 * Graphs a slice using the trapezoid rule.  